@@ -4,13 +4,66 @@ CREATE TABLE customers (
     last_name       VARCHAR(25) NOT NULL
 );
 
+CREATE UNIQUE INDEX customers_name ON customers (last_name, first_name);
+
 CREATE TABLE accounts (
     account_id      BIGSERIAL PRIMARY KEY,
-    customer_id     BIGSERIAL,
+    customer_id     BIGINT NOT NULL,
     CONSTRAINT fk_customer
         FOREIGN KEY (customer_id)
             REFERENCES customers (customer_id),
     currency        VARCHAR(5) NOT NULL,
-    balance         DECIMAL NOT NULL,
+    balance         BIGINT NOT NULL,
+    created_at      TIMESTAMP WITH TIME ZONE NOT NULL
+);
+
+CREATE INDEX accounts_customer_currency ON accounts (customer_id, currency, account_id);
+
+CREATE TABLE idempotency_keys (
+    idempotency_key VARCHAR(255) PRIMARY KEY,
+    status          INT NOT NULL,
+    content_type    VARCHAR(100),
+    body            TEXT,
+    request_hash    VARCHAR(64),
     created_at      TIMESTAMP WITH TIME ZONE NOT NULL
-);
\ No newline at end of file
+);
+
+CREATE TABLE ledger_entries (
+    entry_id                BIGSERIAL PRIMARY KEY,
+    account_id              BIGINT NOT NULL,
+    CONSTRAINT fk_account
+        FOREIGN KEY (account_id)
+            REFERENCES accounts (account_id),
+    entry_type              VARCHAR(12) NOT NULL,
+    amount                  BIGINT NOT NULL,
+    balance                 BIGINT NOT NULL,
+    counterparty_account_id BIGINT,
+    fx_version              BIGINT,
+    created_at              TIMESTAMP WITH TIME ZONE NOT NULL
+);
+
+CREATE INDEX ledger_entries_account_created_at ON ledger_entries (account_id, created_at, entry_id);
+CREATE INDEX ledger_entries_account_entry ON ledger_entries (account_id, entry_id);
+
+CREATE FUNCTION reject_ledger_change() RETURNS trigger AS $$
+BEGIN
+    RAISE EXCEPTION 'ledger_entries is append-only';
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER ledger_entries_append_only
+    BEFORE UPDATE OR DELETE ON ledger_entries
+    FOR EACH ROW EXECUTE FUNCTION reject_ledger_change();
+
+CREATE TABLE balance_snapshots (
+    snapshot_id     BIGSERIAL PRIMARY KEY,
+    account_id      BIGINT NOT NULL,
+    CONSTRAINT fk_account
+        FOREIGN KEY (account_id)
+            REFERENCES accounts (account_id),
+    entry_id        BIGINT NOT NULL,
+    balance         BIGINT NOT NULL,
+    created_at      TIMESTAMP WITH TIME ZONE NOT NULL
+);
+
+CREATE INDEX balance_snapshots_account_entry ON balance_snapshots (account_id, entry_id);
@@ -0,0 +1,12 @@
+-- adds the table of stored idempotent outcomes, fresh databases get this layout from init.sql
+BEGIN;
+
+CREATE TABLE idempotency_keys (
+    idempotency_key VARCHAR(255) PRIMARY KEY,
+    status          INT NOT NULL,
+    content_type    VARCHAR(100),
+    body            TEXT,
+    created_at      TIMESTAMP WITH TIME ZONE NOT NULL
+);
+
+COMMIT;
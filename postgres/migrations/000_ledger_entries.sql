@@ -0,0 +1,30 @@
+-- adds the append-only ledger with DECIMAL amounts, 001 converts them to minor units. Fresh databases get the final
+-- layout from init.sql
+BEGIN;
+
+CREATE TABLE ledger_entries (
+    entry_id                BIGSERIAL PRIMARY KEY,
+    account_id              BIGINT NOT NULL,
+    CONSTRAINT fk_account
+        FOREIGN KEY (account_id)
+            REFERENCES accounts (account_id),
+    entry_type              VARCHAR(12) NOT NULL,
+    amount                  DECIMAL NOT NULL,
+    balance                 DECIMAL NOT NULL,
+    counterparty_account_id BIGINT,
+    created_at              TIMESTAMP WITH TIME ZONE NOT NULL
+);
+
+CREATE INDEX ledger_entries_account_created_at ON ledger_entries (account_id, created_at, entry_id);
+
+CREATE FUNCTION reject_ledger_change() RETURNS trigger AS $$
+BEGIN
+    RAISE EXCEPTION 'ledger_entries is append-only';
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER ledger_entries_append_only
+    BEFORE UPDATE OR DELETE ON ledger_entries
+    FOR EACH ROW EXECUTE FUNCTION reject_ledger_change();
+
+COMMIT;
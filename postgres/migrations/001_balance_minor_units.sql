@@ -0,0 +1,41 @@
+-- moves balances and ledger amounts from DECIMAL major units to BIGINT minor units of the account currency,
+-- fresh databases get this layout from init.sql. The scales must match Currency.scale()
+BEGIN;
+
+CREATE TEMPORARY TABLE currency_scales (currency VARCHAR(5) PRIMARY KEY, factor NUMERIC NOT NULL) ON COMMIT DROP;
+INSERT INTO currency_scales VALUES ('EUR', 100), ('USD', 100), ('GBP', 100);
+
+DO $$
+BEGIN
+    IF EXISTS (SELECT 1 FROM accounts a LEFT JOIN currency_scales s ON s.currency = a.currency
+               WHERE s.factor IS NULL OR a.balance * s.factor <> TRUNC(a.balance * s.factor)) THEN
+        RAISE EXCEPTION 'accounts with an unknown currency or more decimals than their currency allows';
+    END IF;
+END;
+$$;
+
+ALTER TABLE accounts ADD COLUMN balance_minor BIGINT;
+UPDATE accounts a
+SET balance_minor = (a.balance * s.factor)::BIGINT
+FROM currency_scales s
+WHERE s.currency = a.currency;
+ALTER TABLE accounts DROP COLUMN balance;
+ALTER TABLE accounts RENAME COLUMN balance_minor TO balance;
+ALTER TABLE accounts ALTER COLUMN balance SET NOT NULL;
+
+-- the UPDATE rewrites every entry, so the append-only trigger is disabled while it runs
+ALTER TABLE ledger_entries ADD COLUMN amount_minor BIGINT, ADD COLUMN balance_minor BIGINT;
+ALTER TABLE ledger_entries DISABLE TRIGGER ledger_entries_append_only;
+UPDATE ledger_entries l
+SET amount_minor  = (l.amount * s.factor)::BIGINT,
+    balance_minor = (l.balance * s.factor)::BIGINT
+FROM accounts a
+         JOIN currency_scales s ON s.currency = a.currency
+WHERE a.account_id = l.account_id;
+ALTER TABLE ledger_entries ENABLE TRIGGER ledger_entries_append_only;
+ALTER TABLE ledger_entries DROP COLUMN amount, DROP COLUMN balance;
+ALTER TABLE ledger_entries RENAME COLUMN amount_minor TO amount;
+ALTER TABLE ledger_entries RENAME COLUMN balance_minor TO balance;
+ALTER TABLE ledger_entries ALTER COLUMN amount SET NOT NULL, ALTER COLUMN balance SET NOT NULL;
+
+COMMIT;
@@ -0,0 +1,19 @@
+-- adds the snapshots of the event-sourced mode, fresh databases get this layout from init.sql
+BEGIN;
+
+CREATE INDEX ledger_entries_account_entry ON ledger_entries (account_id, entry_id);
+
+CREATE TABLE balance_snapshots (
+    snapshot_id     BIGSERIAL PRIMARY KEY,
+    account_id      BIGINT NOT NULL,
+    CONSTRAINT fk_account
+        FOREIGN KEY (account_id)
+            REFERENCES accounts (account_id),
+    entry_id        BIGINT NOT NULL,
+    balance         BIGINT NOT NULL,
+    created_at      TIMESTAMP WITH TIME ZONE NOT NULL
+);
+
+CREATE INDEX balance_snapshots_account_entry ON balance_snapshots (account_id, entry_id);
+
+COMMIT;
@@ -0,0 +1,7 @@
+-- makes customer names unique so creation can rely on INSERT ... ON CONFLICT, existing duplicates have to be merged
+-- before this runs
+BEGIN;
+
+CREATE UNIQUE INDEX customers_name ON customers (last_name, first_name);
+
+COMMIT;
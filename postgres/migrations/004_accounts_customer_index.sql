@@ -0,0 +1,11 @@
+-- customer_id of the accounts was a BIGSERIAL, so it had its own sequence as default and no index. Fresh databases get
+-- this layout from init.sql
+BEGIN;
+
+ALTER TABLE accounts ALTER COLUMN customer_id DROP DEFAULT;
+ALTER TABLE accounts ALTER COLUMN customer_id SET NOT NULL;
+DROP SEQUENCE IF EXISTS accounts_customer_id_seq;
+
+CREATE INDEX accounts_customer_currency ON accounts (customer_id, currency, account_id);
+
+COMMIT;
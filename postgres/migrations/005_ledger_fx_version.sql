@@ -0,0 +1,7 @@
+-- adds the version of the exchange rates a transfer was converted with, fresh databases get this layout from init.sql.
+-- Entries written before have no version
+BEGIN;
+
+ALTER TABLE ledger_entries ADD COLUMN fx_version BIGINT;
+
+COMMIT;
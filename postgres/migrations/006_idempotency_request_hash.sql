@@ -0,0 +1,7 @@
+-- adds the hash of the request an idempotent outcome was stored for, fresh databases get this layout from init.sql.
+-- Outcomes stored before have no hash and are replayed for any request with their key
+BEGIN;
+
+ALTER TABLE idempotency_keys ADD COLUMN request_hash VARCHAR(64);
+
+COMMIT;
@@ -0,0 +1,82 @@
+package com.bank.accountmanager.handler;
+
+import com.bank.accountmanager.handler.request.AccountRequest;
+import com.bank.accountmanager.handler.request.OperationRequest;
+import com.bank.accountmanager.handler.response.AccountResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+import static com.fasterxml.jackson.annotation.JsonInclude.Include.NON_NULL;
+
+// the mappers are configured like the codecs of the application
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SerializationBenchmark {
+
+    @Param({"json", "cbor", "smile"})
+    private String format;
+
+    private ObjectWriter accountResponseWriter;
+    private ObjectReader operationRequestReader;
+    private ObjectReader accountRequestReader;
+
+    private AccountResponse accountResponse;
+    private byte[] operationRequest;
+    private byte[] accountRequest;
+
+    @Setup
+    public void init() throws IOException {
+        ObjectMapper objectMapper = builder(format).serializationInclusion(NON_NULL).build();
+        accountResponseWriter = objectMapper.writerFor(AccountResponse.class);
+        operationRequestReader = objectMapper.readerFor(OperationRequest.class);
+        accountRequestReader = objectMapper.readerFor(AccountRequest.class);
+
+        accountResponse = new AccountResponse(11L, new BigDecimal("15246.25"), "EUR", Instant.parse("2020-11-15T13:00:00Z"), null);
+        operationRequest = objectMapper.writeValueAsBytes(new OperationRequest(new BigDecimal("25.5")));
+        accountRequest = objectMapper.writeValueAsBytes(new AccountRequest(1L, "EUR", new BigDecimal("100")));
+
+        System.out.printf("%n%s payload bytes: AccountResponse=%d, OperationRequest=%d, AccountRequest=%d%n", format,
+                serializeAccountResponse().length, operationRequest.length, accountRequest.length);
+    }
+
+    @Benchmark
+    public byte[] serializeAccountResponse() throws IOException {
+        return accountResponseWriter.writeValueAsBytes(accountResponse);
+    }
+
+    @Benchmark
+    public OperationRequest deserializeOperationRequest() throws IOException {
+        return operationRequestReader.readValue(operationRequest);
+    }
+
+    @Benchmark
+    public AccountRequest deserializeAccountRequest() throws IOException {
+        return accountRequestReader.readValue(accountRequest);
+    }
+
+    private static Jackson2ObjectMapperBuilder builder(String format) {
+        return switch (format) {
+            case "json" -> Jackson2ObjectMapperBuilder.json();
+            case "cbor" -> Jackson2ObjectMapperBuilder.cbor();
+            case "smile" -> Jackson2ObjectMapperBuilder.smile();
+            default -> throw new IllegalArgumentException("Unknown format " + format);
+        };
+    }
+
+}
@@ -0,0 +1,164 @@
+package com.bank.accountmanager.router;
+
+import com.bank.accountmanager.cache.AccountCurrencyCache;
+import com.bank.accountmanager.coalescing.BalanceCoalescer;
+import com.bank.accountmanager.coalescing.GroupCommitter;
+import com.bank.accountmanager.coalescing.MicroBatchWriter;
+import com.bank.accountmanager.cache.BalanceCache;
+import com.bank.accountmanager.cache.CustomerNameFilter;
+import com.bank.accountmanager.cache.InMemoryBalanceChangeChannel;
+import com.bank.accountmanager.concurrency.AdaptiveConcurrencyLimiter;
+import com.bank.accountmanager.configuration.BalanceCacheProperties;
+import com.bank.accountmanager.configuration.BalanceLookupProperties;
+import com.bank.accountmanager.configuration.BulkImportProperties;
+import com.bank.accountmanager.configuration.CoalescingProperties;
+import com.bank.accountmanager.configuration.ConcurrencyLimitProperties;
+import com.bank.accountmanager.configuration.CustomerFilterProperties;
+import com.bank.accountmanager.configuration.FxProperties;
+import com.bank.accountmanager.configuration.GroupCommitProperties;
+import com.bank.accountmanager.configuration.IdempotencyProperties;
+import com.bank.accountmanager.configuration.LedgerProperties;
+import com.bank.accountmanager.configuration.TransferBatchProperties;
+import com.bank.accountmanager.fx.FxRates;
+import com.bank.accountmanager.handler.AccountHandler;
+import com.bank.accountmanager.handler.CustomerHandler;
+import com.bank.accountmanager.handler.FxRatesHandler;
+import com.bank.accountmanager.idempotency.IdempotencyService;
+import com.bank.accountmanager.metrics.RouteMetrics;
+import com.bank.accountmanager.metrics.StageMetrics;
+import com.bank.accountmanager.repository.AccountRepository;
+import com.bank.accountmanager.repository.CustomerRepository;
+import com.bank.accountmanager.repository.IdempotencyRepository;
+import com.bank.accountmanager.repository.LedgerRepository;
+import com.bank.accountmanager.repository.model.Account;
+import com.bank.accountmanager.repository.model.Customer;
+import com.bank.accountmanager.service.BalanceLookupService;
+import com.bank.accountmanager.service.BalanceService;
+import com.bank.accountmanager.service.BatchTransferService;
+import com.bank.accountmanager.service.BulkImportService;
+import com.bank.accountmanager.service.LedgerService;
+import com.bank.accountmanager.service.PortfolioService;
+import com.bank.accountmanager.service.RepositoryAccountOperations;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.server.reactive.HttpHandler;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.http.server.reactive.MockServerHttpResponse;
+import org.springframework.transaction.ReactiveTransactionManager;
+import org.springframework.web.reactive.function.server.HandlerStrategies;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static com.bank.accountmanager.repository.model.Currency.EUR;
+import static com.fasterxml.jackson.annotation.JsonInclude.Include.NON_NULL;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// full dispatch through routes() with the repositories mocked
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class AccountManagerRouterBenchmark {
+    private static final long ACCOUNT_ID = 11L;
+
+    private HttpHandler httpHandler;
+
+    @Setup
+    public void init() {
+        var accountRepository = mock(AccountRepository.class);
+        when(accountRepository.findById(anyLong())).thenAnswer(invocation -> Mono.just(account()));
+        when(accountRepository.addToBalance(anyLong(), anyLong())).thenAnswer(invocation -> Mono.just(account()));
+        when(accountRepository.findCurrencyById(anyLong())).thenReturn(Mono.just(EUR.name()));
+
+        var customerRepository = mock(CustomerRepository.class);
+        when(customerRepository.insertIfAbsent(any())).thenAnswer(invocation -> {
+            Customer customer = invocation.getArgument(0);
+            customer.setId(1L);
+            return Mono.just(customer);
+        });
+
+        var balanceService = new BalanceService();
+        var transactionManager = mock(ReactiveTransactionManager.class);
+        var meterRegistry = new SimpleMeterRegistry();
+        var cacheProperties = new BalanceCacheProperties(100_000, Duration.ofSeconds(2), "in-memory");
+        var batchWriter = new MicroBatchWriter(accountRepository, mock(LedgerRepository.class), balanceService, transactionManager, meterRegistry);
+        var fxProperties = new FxProperties(Map.of(EUR, BigDecimal.ONE), "", Duration.ofSeconds(5), "", false);
+        var fxRates = new FxRates(fxProperties);
+        var accountOperations = new RepositoryAccountOperations(accountRepository, balanceService,
+                new BatchTransferService(accountRepository, mock(LedgerRepository.class), balanceService, fxRates, transactionManager,
+                        new TransferBatchProperties(500)),
+                new AccountCurrencyCache(accountRepository, cacheProperties),
+                new BalanceCoalescer(batchWriter, new CoalescingProperties(false, 64, Duration.ofMillis(2), 256, 4096)),
+                new GroupCommitter(batchWriter, new GroupCommitProperties(false, Duration.ofMillis(1), 128, 4, 16384), meterRegistry),
+                fxRates);
+        var balanceCache = new BalanceCache(cacheProperties, new InMemoryBalanceChangeChannel(), meterRegistry);
+        var idempotencyService = new IdempotencyService(mock(IdempotencyRepository.class), transactionManager,
+                new IdempotencyProperties(100_000, Duration.ofHours(24), false), meterRegistry);
+        var objectMapper = Jackson2ObjectMapperBuilder.json().serializationInclusion(NON_NULL).build();
+
+        var stageMetrics = new StageMetrics(meterRegistry);
+
+        var ledgerService = new LedgerService(mock(LedgerRepository.class), new LedgerProperties(500));
+
+        var accountHandler = new AccountHandler(accountRepository, accountOperations, ledgerService, balanceCache, idempotencyService, objectMapper,
+                stageMetrics, new BalanceLookupService(accountOperations, balanceCache, new BalanceLookupProperties(500)));
+        var nameFilter = new CustomerNameFilter(customerRepository, new CustomerFilterProperties(1_000_000, 0.01), meterRegistry);
+        var customerHandler = new CustomerHandler(customerRepository, stageMetrics, nameFilter,
+                new BulkImportService(customerRepository, accountRepository, nameFilter, transactionManager, new BulkImportProperties(1000)),
+                new PortfolioService(accountOperations));
+        var routeMetrics = new RouteMetrics(meterRegistry);
+        var concurrencyLimiter = new AdaptiveConcurrencyLimiter(
+                new ConcurrencyLimitProperties(false, 20, 4, 200, 2.0, 0.2, 100, Duration.ofMillis(50)), meterRegistry);
+        var router = new AccountManagerRouter(customerHandler, accountHandler, new FxRatesHandler(fxRates, fxProperties),
+                routeMetrics, concurrencyLimiter);
+        httpHandler = RouterFunctions.toHttpHandler(router.routes(), HandlerStrategies.builder().webFilter(routeMetrics).build());
+    }
+
+    @Benchmark
+    public MockServerHttpResponse getAccountBalance() {
+        return handle(MockServerHttpRequest.get("/account/{accountId}", ACCOUNT_ID).build());
+    }
+
+    @Benchmark
+    public MockServerHttpResponse deposit() {
+        return handle(MockServerHttpRequest.put("/account/{accountId}/deposit", ACCOUNT_ID)
+                .header("Content-Type", "application/json")
+                .body("{\"amount\":25.5}"));
+    }
+
+    @Benchmark
+    public MockServerHttpResponse createCustomer() {
+        return handle(MockServerHttpRequest.post("/customer")
+                .header("Content-Type", "application/json")
+                .body("{\"firstName\":\"Fancy\",\"lastName\":\"Customer\"}"));
+    }
+
+    private MockServerHttpResponse handle(MockServerHttpRequest request) {
+        var response = new MockServerHttpResponse();
+        httpHandler.handle(request, response).block();
+        return response;
+    }
+
+    private Account account() {
+        var account = new Account(EUR, 1L, Instant.parse("2020-11-15T13:00:00Z"));
+        account.setId(ACCOUNT_ID);
+        account.setBalance(1_524_625);
+        return account;
+    }
+
+}
@@ -0,0 +1,72 @@
+package com.bank.accountmanager.service;
+
+import com.bank.accountmanager.repository.model.Account;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import reactor.util.function.Tuple2;
+import reactor.util.function.Tuples;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+import static com.bank.accountmanager.repository.model.Currency.EUR;
+import static com.bank.accountmanager.service.BalanceService.Operation.DEPOSIT;
+
+// every method resets the balances first, a plain field write that is part of the measured time
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class BalanceServiceBenchmark {
+    private static final long BALANCE = 1_524_625;
+    private static final long AMOUNT = 2_550;
+    private static final BigDecimal REQUESTED_AMOUNT = new BigDecimal("25.50");
+
+    private final BalanceService balanceService = new BalanceService();
+
+    private Account account;
+    private Tuple2<Account, Account> accounts;
+
+    @Setup
+    public void init() {
+        account = account(1L);
+        accounts = Tuples.of(account(2L), account(3L));
+    }
+
+    @Benchmark
+    public Account addAmountToBalance() {
+        account.setBalance(BALANCE);
+        return balanceService.addAmountToBalance(account, AMOUNT).block();
+    }
+
+    @Benchmark
+    public Account subtractAmountFromBalance() {
+        account.setBalance(BALANCE);
+        return balanceService.subtractAmountFromBalance(account, AMOUNT).block();
+    }
+
+    @Benchmark
+    public Tuple2<Account, Account> modifyBalances() {
+        accounts.getT1().setBalance(BALANCE);
+        accounts.getT2().setBalance(BALANCE);
+        return balanceService.modifyBalances(accounts, AMOUNT).block();
+    }
+
+    @Benchmark
+    public Long checkAmount() {
+        return balanceService.checkAmount(DEPOSIT, EUR, REQUESTED_AMOUNT).block();
+    }
+
+    private Account account(long id) {
+        var account = new Account(EUR, 1L, Instant.now());
+        account.setId(id);
+        account.setBalance(BALANCE);
+        return account;
+    }
+
+}
@@ -0,0 +1,117 @@
+package com.bank.accountmanager.loadtest;
+
+import com.bank.accountmanager.TestConfig;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.RANDOM_PORT;
+
+// the open workload sends at a fixed rate, which shows how latency behaves beyond saturation
+@ActiveProfiles("it")
+@SpringBootTest(webEnvironment = RANDOM_PORT, properties = "logging.level.com.bank=warn")
+@Import(TestConfig.class)
+public class AccountManagerLoadTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    public void shouldNotRegressFromBaseline() throws IOException {
+        // given
+        var settings = LoadTestSettings.fromSystemProperties();
+        var workload = new Workload(WebClient.create("http://localhost:" + port), settings.mix(), settings.hotAccountShare());
+        workload.seed(settings.accounts());
+        var stats = new EnumMap<Endpoint, EndpointStats>(Endpoint.class);
+        Arrays.stream(Endpoint.values()).forEach(endpoint -> stats.put(endpoint, new EndpointStats(endpoint)));
+
+        // when
+        run(workload, stats, settings, settings.warmup());
+        stats.values().forEach(EndpointStats::reset);
+        var start = System.nanoTime();
+        run(workload, stats, settings, settings.duration());
+        var elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+        // then
+        var results = settings.mix().keySet().stream()
+                .map(endpoint -> stats.get(endpoint).result(elapsed))
+                .collect(Collectors.toList());
+        results.forEach(System.out::println);
+        Files.createDirectories(settings.reportFile().getParent());
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(settings.reportFile().toFile(), results);
+
+        if (settings.updateBaseline()) {
+            Baseline.store(settings.baselineFile(), results);
+            return;
+        }
+        List<String> regressions = new ArrayList<>(Baseline.load(settings.baselineFile()).regressions(results, settings.tolerance()));
+        if (!settings.maxP99().isZero()) {
+            var maxP99Millis = settings.maxP99().toNanos() / 1e6;
+            results.stream()
+                    .filter(result -> result.p99Millis() > maxP99Millis)
+                    .forEach(result -> regressions.add("%s p99 %.2f ms is above the maximum of %.2f ms"
+                            .formatted(result.endpoint(), result.p99Millis(), maxP99Millis)));
+        }
+        assertTrue(regressions.isEmpty(), String.join(System.lineSeparator(), regressions));
+    }
+
+    private void run(Workload workload, Map<Endpoint, EndpointStats> stats, LoadTestSettings settings, Duration duration) {
+        if (settings.rate() > 0) {
+            runOpen(workload, stats, settings.rate(), duration);
+        } else {
+            runClosed(workload, stats, settings.concurrency(), duration);
+        }
+    }
+
+    private void runClosed(Workload workload, Map<Endpoint, EndpointStats> stats, int concurrency, Duration duration) {
+        var deadline = System.nanoTime() + duration.toNanos();
+        Flux.range(0, concurrency)
+                .flatMap(worker -> request(workload, stats).repeat(() -> System.nanoTime() < deadline), concurrency)
+                .blockLast();
+    }
+
+    // every millisecond sends the requests due by then, so the rate holds without a timer per request
+    private void runOpen(Workload workload, Map<Endpoint, EndpointStats> stats, double rate, Duration duration) {
+        Flux.interval(Duration.ofMillis(1))
+                .take(duration.toMillis())
+                .flatMap(tick -> Flux.range(0, (int) ((long) ((tick + 1) * rate / 1000) - (long) (tick * rate / 1000))))
+                .flatMap(i -> request(workload, stats), Integer.MAX_VALUE)
+                .blockLast();
+    }
+
+    private Mono<Integer> request(Workload workload, Map<Endpoint, EndpointStats> stats) {
+        return Mono.defer(() -> {
+            var endpoint = workload.next();
+            var endpointStats = stats.get(endpoint);
+            var start = System.nanoTime();
+            return workload.execute(endpoint)
+                    .doOnNext(status -> endpointStats.record(status, System.nanoTime() - start))
+                    .onErrorResume(error -> {
+                        endpointStats.recordError();
+                        return Mono.empty();
+                    });
+        });
+    }
+
+}
@@ -0,0 +1,68 @@
+package com.bank.accountmanager.loadtest;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+
+// a result regresses when it is worse than the baseline by more than the tolerance
+class Baseline {
+    private static final String P99 = ".p99-millis";
+    private static final String THROUGHPUT = ".throughput";
+
+    private final Properties values;
+
+    private Baseline(Properties values) {
+        this.values = values;
+    }
+
+    static Baseline load(Path file) throws IOException {
+        var values = new Properties();
+        if (Files.exists(file)) {
+            try (Reader reader = Files.newBufferedReader(file)) {
+                values.load(reader);
+            }
+        }
+        return new Baseline(values);
+    }
+
+    static void store(Path file, List<EndpointResult> results) throws IOException {
+        var values = new Properties();
+        for (var result : results) {
+            values.setProperty(result.endpoint() + P99, format(result.p99Millis()));
+            values.setProperty(result.endpoint() + THROUGHPUT, format(result.throughput()));
+        }
+        try (Writer writer = Files.newBufferedWriter(file)) {
+            values.store(writer, "Load test baseline, regenerate with ./gradlew loadTest -Ploadtest.update-baseline=true");
+        }
+    }
+
+    List<String> regressions(List<EndpointResult> results, double tolerance) {
+        var regressions = new ArrayList<String>();
+        for (var result : results) {
+            var p99 = values.getProperty(result.endpoint() + P99);
+            if (p99 != null && result.p99Millis() > Double.parseDouble(p99) * (1 + tolerance)) {
+                regressions.add("%s p99 %.2f ms is above the baseline of %s ms".formatted(result.endpoint(), result.p99Millis(), p99));
+            }
+            var throughput = values.getProperty(result.endpoint() + THROUGHPUT);
+            if (throughput != null && result.throughput() < Double.parseDouble(throughput) * (1 - tolerance)) {
+                regressions.add("%s throughput %.1f req/s is below the baseline of %s req/s"
+                        .formatted(result.endpoint(), result.throughput(), throughput));
+            }
+            if (result.errors() > 0) {
+                regressions.add("%s failed %d requests".formatted(result.endpoint(), result.errors()));
+            }
+        }
+        return regressions;
+    }
+
+    private static String format(double value) {
+        return String.format(Locale.ROOT, "%.2f", value);
+    }
+
+}
@@ -0,0 +1,29 @@
+package com.bank.accountmanager.loadtest;
+
+import java.util.Arrays;
+
+public enum Endpoint {
+    CREATE_CUSTOMER("createCustomer"),
+    OPEN_ACCOUNT("openAccount"),
+    DEPOSIT("deposit"),
+    WITHDRAW("withdraw"),
+    TRANSFER("transfer"),
+    BALANCE("balance");
+
+    private final String key;
+
+    Endpoint(String key) {
+        this.key = key;
+    }
+
+    public String key() {
+        return key;
+    }
+
+    public static Endpoint ofKey(String key) {
+        return Arrays.stream(values())
+                .filter(endpoint -> endpoint.key.equals(key))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown endpoint %s".formatted(key)));
+    }
+}
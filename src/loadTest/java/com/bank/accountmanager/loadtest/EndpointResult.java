@@ -0,0 +1,17 @@
+package com.bank.accountmanager.loadtest;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+public record EndpointResult(@JsonProperty("endpoint") String endpoint, @JsonProperty("requests") long requests,
+                             @JsonProperty("rejected") long rejected, @JsonProperty("errors") long errors,
+                             @JsonProperty("shed") long shed,
+                             @JsonProperty("throughput") double throughput, @JsonProperty("p50Millis") double p50Millis,
+                             @JsonProperty("p99Millis") double p99Millis, @JsonProperty("p999Millis") double p999Millis) {
+
+    @Override
+    public String toString() {
+        return "%-15s %9d req %7d rejected %5d errors %7d shed %10.1f req/s  p50 %8.2f ms  p99 %8.2f ms  p99.9 %8.2f ms"
+                .formatted(endpoint, requests, rejected, errors, shed, throughput, p50Millis, p99Millis, p999Millis);
+    }
+
+}
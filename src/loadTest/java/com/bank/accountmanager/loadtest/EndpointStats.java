@@ -0,0 +1,56 @@
+package com.bank.accountmanager.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// requests shed by the rate or concurrency limit (429, 503) are only counted, not timed
+class EndpointStats {
+    private static final double MICROS_PER_MILLI = 1000.0;
+
+    private final Endpoint endpoint;
+    private final ConcurrentHistogram latencies = new ConcurrentHistogram(TimeUnit.MINUTES.toMicros(1), 3);
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder shed = new LongAdder();
+
+    EndpointStats(Endpoint endpoint) {
+        this.endpoint = endpoint;
+    }
+
+    void record(int status, long elapsedNanos) {
+        if (status == 429 || status == 503) {
+            shed.increment();
+            return;
+        }
+        latencies.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(elapsedNanos), latencies.getHighestTrackableValue()));
+        if (status >= 500) {
+            errors.increment();
+        } else if (status >= 400) {
+            rejected.increment();
+        }
+    }
+
+    void recordError() {
+        errors.increment();
+    }
+
+    void reset() {
+        latencies.reset();
+        rejected.reset();
+        errors.reset();
+        shed.reset();
+    }
+
+    EndpointResult result(Duration elapsed) {
+        var requests = latencies.getTotalCount();
+        return new EndpointResult(endpoint.key(), requests, rejected.sum(), errors.sum(), shed.sum(),
+                requests * 1000.0 / elapsed.toMillis(),
+                latencies.getValueAtPercentile(50) / MICROS_PER_MILLI,
+                latencies.getValueAtPercentile(99) / MICROS_PER_MILLI,
+                latencies.getValueAtPercentile(99.9) / MICROS_PER_MILLI);
+    }
+
+}
@@ -0,0 +1,45 @@
+package com.bank.accountmanager.loadtest;
+
+import org.springframework.boot.convert.DurationStyle;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+// every setting can be overridden with a loadtest.<name> system property
+public record LoadTestSettings(Duration warmup, Duration duration, int concurrency, double rate, int accounts, double hotAccountShare,
+                               Map<Endpoint, Integer> mix, double tolerance, Duration maxP99, boolean updateBaseline,
+                               Path baselineFile, Path reportFile) {
+    private static final String PREFIX = "loadtest.";
+
+    public static LoadTestSettings fromSystemProperties() {
+        return new LoadTestSettings(
+                DurationStyle.detectAndParse(property("warmup", "10s")),
+                DurationStyle.detectAndParse(property("duration", "30s")),
+                Integer.parseInt(property("concurrency", "64")),
+                Double.parseDouble(property("rate", "0")),
+                Integer.parseInt(property("accounts", "100")),
+                Double.parseDouble(property("hot-account-share", "0.2")),
+                parseMix(property("mix", "balance=60,deposit=15,withdraw=10,transfer=10,createCustomer=3,openAccount=2")),
+                Double.parseDouble(property("tolerance", "0.25")),
+                DurationStyle.detectAndParse(property("max-p99", "0ms")),
+                Boolean.parseBoolean(property("update-baseline", "false")),
+                Path.of(property("baseline-file", "src/loadTest/resources/baseline.properties")),
+                Path.of(property("report-file", "build/reports/loadtest/results.json")));
+    }
+
+    private static Map<Endpoint, Integer> parseMix(String mix) {
+        var weights = new EnumMap<Endpoint, Integer>(Endpoint.class);
+        for (var entry : mix.split(",")) {
+            var weight = entry.split("=");
+            weights.put(Endpoint.ofKey(weight[0].trim()), Integer.parseInt(weight[1].trim()));
+        }
+        return weights;
+    }
+
+    private static String property(String name, String defaultValue) {
+        return System.getProperty(PREFIX + name, defaultValue);
+    }
+
+}
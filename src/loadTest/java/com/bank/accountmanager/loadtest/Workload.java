@@ -0,0 +1,123 @@
+package com.bank.accountmanager.loadtest;
+
+import com.bank.accountmanager.handler.request.AccountRequest;
+import com.bank.accountmanager.handler.request.CustomerRequest;
+import com.bank.accountmanager.handler.request.OperationRequest;
+import com.bank.accountmanager.handler.response.AccountResponse;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.bank.accountmanager.repository.model.Currency.EUR;
+import static org.springframework.http.MediaType.APPLICATION_JSON;
+
+// money movements hit the first account with the hot account share and pick uniformly from the others otherwise
+class Workload {
+    private static final BigDecimal INITIAL_DEPOSIT = BigDecimal.valueOf(1_000_000_000);
+    private static final OperationRequest AMOUNT = new OperationRequest(BigDecimal.ONE);
+
+    private final WebClient webClient;
+    private final Endpoint[] endpoints;
+    private final int[] cumulativeWeights;
+    private final double hotAccountShare;
+    private final AtomicLong customerSequence = new AtomicLong();
+    private final String runId = Long.toString(System.nanoTime(), 36);
+    private List<Long> accountIds;
+    private long customerId;
+
+    Workload(WebClient webClient, Map<Endpoint, Integer> mix, double hotAccountShare) {
+        this.webClient = webClient;
+        this.hotAccountShare = hotAccountShare;
+        this.endpoints = mix.keySet().toArray(Endpoint[]::new);
+        this.cumulativeWeights = new int[endpoints.length];
+        var total = 0;
+        for (int i = 0; i < endpoints.length; i++) {
+            total += mix.get(endpoints[i]);
+            cumulativeWeights[i] = total;
+        }
+    }
+
+    void seed(int accounts) {
+        customerId = createCustomer("seed").block();
+        accountIds = Flux.range(0, accounts)
+                .concatMap(i -> openAccount())
+                .map(AccountResponse::accountId)
+                .collectList()
+                .block();
+    }
+
+    Endpoint next() {
+        var weight = ThreadLocalRandom.current().nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (weight < cumulativeWeights[i]) {
+                return endpoints[i];
+            }
+        }
+        throw new IllegalStateException("Weight %d is out of the mix".formatted(weight));
+    }
+
+    Mono<Integer> execute(Endpoint endpoint) {
+        return switch (endpoint) {
+            case CREATE_CUSTOMER -> status(webClient.post().uri("/customer").contentType(APPLICATION_JSON)
+                    .bodyValue(customer("customer")));
+            case OPEN_ACCOUNT -> status(webClient.post().uri("/account").contentType(APPLICATION_JSON)
+                    .bodyValue(new AccountRequest(customerId, EUR.name(), INITIAL_DEPOSIT)));
+            case DEPOSIT -> status(webClient.put().uri("/account/{accountId}/deposit", account()).contentType(APPLICATION_JSON)
+                    .bodyValue(AMOUNT));
+            case WITHDRAW -> status(webClient.put().uri("/account/{accountId}/withdraw", account()).contentType(APPLICATION_JSON)
+                    .bodyValue(AMOUNT));
+            case TRANSFER -> transfer();
+            case BALANCE -> status(webClient.get().uri("/account/{accountId}", account()));
+        };
+    }
+
+    private Mono<Integer> transfer() {
+        var from = account();
+        var to = account();
+        while (to == from) {
+            to = accountIds.get(ThreadLocalRandom.current().nextInt(accountIds.size()));
+        }
+        return status(webClient.put().uri("/transfer/{accountIdFrom}/{accountIdTo}", from, to).contentType(APPLICATION_JSON)
+                .bodyValue(AMOUNT));
+    }
+
+    private long account() {
+        var random = ThreadLocalRandom.current();
+        if (random.nextDouble() < hotAccountShare) {
+            return accountIds.get(0);
+        }
+        return accountIds.get(random.nextInt(accountIds.size()));
+    }
+
+    private Mono<Long> createCustomer(String prefix) {
+        return webClient.post().uri("/customer").contentType(APPLICATION_JSON)
+                .bodyValue(customer(prefix))
+                .retrieve()
+                .bodyToMono(JsonNode.class)
+                .map(customer -> customer.get("id").asLong());
+    }
+
+    private Mono<AccountResponse> openAccount() {
+        return webClient.post().uri("/account").contentType(APPLICATION_JSON)
+                .bodyValue(new AccountRequest(customerId, EUR.name(), INITIAL_DEPOSIT))
+                .retrieve()
+                .bodyToMono(AccountResponse.class);
+    }
+
+    // names are limited to 25 characters by the schema
+    private CustomerRequest customer(String prefix) {
+        return new CustomerRequest(prefix + runId, Long.toString(customerSequence.incrementAndGet(), 36));
+    }
+
+    private Mono<Integer> status(WebClient.RequestHeadersSpec<?> request) {
+        return request.exchangeToMono(response -> response.releaseBody().thenReturn(response.rawStatusCode()));
+    }
+
+}
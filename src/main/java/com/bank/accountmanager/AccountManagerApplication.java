@@ -1,11 +1,13 @@
 package com.bank.accountmanager;
 
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
 
 import static org.springframework.boot.SpringApplication.run;
 
 @SpringBootApplication
+@ConfigurationPropertiesScan
 @EnableTransactionManagement
 public class AccountManagerApplication {
 
@@ -0,0 +1,35 @@
+package com.bank.accountmanager.cache;
+
+import com.bank.accountmanager.configuration.BalanceCacheProperties;
+import com.bank.accountmanager.repository.AccountRepository;
+import com.bank.accountmanager.repository.model.Currency;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+// the currency of an account never changes, entries are only evicted by size
+@Component
+public class AccountCurrencyCache {
+
+    private final AccountRepository accountRepository;
+    private final Cache<Long, Currency> cache;
+
+    public AccountCurrencyCache(AccountRepository accountRepository, BalanceCacheProperties properties) {
+        this.accountRepository = accountRepository;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(properties.maximumSize())
+                .build();
+    }
+
+    public Mono<Currency> get(long accountId) {
+        var cached = cache.getIfPresent(accountId);
+        if (cached != null) {
+            return Mono.just(cached);
+        }
+        return accountRepository.findCurrencyById(accountId)
+                .map(Currency::valueOf)
+                .doOnNext(currency -> cache.put(accountId, currency));
+    }
+
+}
@@ -0,0 +1,173 @@
+package com.bank.accountmanager.cache;
+
+import com.bank.accountmanager.configuration.BalanceCacheProperties;
+import com.bank.accountmanager.repository.model.Account;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.function.Tuple2;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Function;
+import java.util.function.LongFunction;
+
+// a value is only cached if no write or invalidation of its stripe happened since the read started
+@Slf4j
+@Component
+public class BalanceCache implements InitializingBean, DisposableBean {
+    private static final int STRIPES = 4096;
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private final AtomicLongArray versions = new AtomicLongArray(STRIPES);
+    private final Cache<Long, Account> cache;
+    private final BalanceChangeChannel channel;
+    private Disposable changes;
+
+    public BalanceCache(BalanceCacheProperties properties, BalanceChangeChannel channel, MeterRegistry meterRegistry) {
+        this.channel = channel;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(properties.maximumSize())
+                .expireAfterWrite(properties.maxStaleness())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "balance");
+    }
+
+    public Mono<Account> get(long accountId, LongFunction<Mono<Account>> loader) {
+        var cached = cache.getIfPresent(accountId);
+        if (cached != null) {
+            return Mono.just(cached);
+        }
+        return Mono.defer(() -> {
+            var version = versions.get(stripe(accountId));
+            return loader.apply(accountId)
+                    .doOnNext(account -> cache.asMap().compute(accountId,
+                            (id, current) -> versions.get(stripe(id)) == version ? account : current));
+        });
+    }
+
+    // the cached accounts are emitted first, all misses are loaded with a single call of the loader
+    public Flux<Account> getAll(Collection<Long> accountIds, Function<Collection<Long>, Flux<Account>> loader) {
+        return Flux.defer(() -> {
+            var hits = new ArrayList<Account>();
+            var misses = new HashMap<Long, Long>();
+            for (var accountId : accountIds) {
+                var cached = cache.getIfPresent(accountId);
+                if (cached != null) {
+                    hits.add(cached);
+                } else {
+                    misses.put(accountId, versions.get(stripe(accountId)));
+                }
+            }
+            if (misses.isEmpty()) {
+                return Flux.fromIterable(hits);
+            }
+            return Flux.fromIterable(hits).concatWith(loader.apply(List.copyOf(misses.keySet()))
+                    .doOnNext(account -> {
+                        var version = misses.get(account.getId());
+                        if (version != null) {
+                            cache.asMap().compute(account.getId(),
+                                    (id, current) -> versions.get(stripe(id)) == version ? account : current);
+                        }
+                    }));
+        });
+    }
+
+    public Mono<Account> update(long accountId, Mono<Account> write) {
+        return Mono.defer(() -> {
+            var version = begin(accountId);
+            return write.doOnNext(account -> complete(accountId, version, account))
+                    .doOnError(error -> complete(accountId, version, null))
+                    .doOnCancel(() -> complete(accountId, version, null));
+        });
+    }
+
+    public Mono<Tuple2<Account, Account>> update(long idFrom, long idTo, Mono<Tuple2<Account, Account>> write) {
+        return Mono.defer(() -> {
+            var versionFrom = begin(idFrom);
+            var versionTo = begin(idTo);
+            return write.doOnNext(accounts -> {
+                        complete(idFrom, versionFrom, accounts.getT1());
+                        complete(idTo, versionTo, accounts.getT2());
+                    })
+                    .doOnError(error -> {
+                        complete(idFrom, versionFrom, null);
+                        complete(idTo, versionTo, null);
+                    })
+                    .doOnCancel(() -> {
+                        complete(idFrom, versionFrom, null);
+                        complete(idTo, versionTo, null);
+                    });
+        });
+    }
+
+    // for writes that do not return the new balance
+    public void invalidate(long accountId) {
+        evict(accountId);
+        publish(accountId);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        changes = channel.changes()
+                .filter(change -> !nodeId.equals(change.nodeId()))
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1))
+                        .maxBackoff(Duration.ofSeconds(30))
+                        .doBeforeRetry(signal -> {
+                            log.warn("Balance change channel failed, clearing cache", signal.failure());
+                            cache.invalidateAll();
+                        }))
+                .subscribe(change -> evict(change.accountId()));
+    }
+
+    @Override
+    public void destroy() {
+        changes.dispose();
+    }
+
+    private long begin(long accountId) {
+        return versions.incrementAndGet(stripe(accountId));
+    }
+
+    private void complete(long accountId, long version, Account account) {
+        cache.asMap().compute(accountId, (id, current) -> {
+            var latest = versions.getAndIncrement(stripe(id)) == version;
+            return latest && account != null ? account : null;
+        });
+        if (account != null) {
+            publish(accountId);
+        }
+    }
+
+    private void evict(long accountId) {
+        cache.asMap().compute(accountId, (id, current) -> {
+            versions.incrementAndGet(stripe(id));
+            return null;
+        });
+    }
+
+    private void publish(long accountId) {
+        channel.publish(new BalanceChange(nodeId, accountId))
+                .subscribe(null, error -> log.warn("Could not publish balance change of account {}", accountId, error));
+    }
+
+    private static int stripe(long accountId) {
+        return (int) (Long.hashCode(accountId) & (STRIPES - 1));
+    }
+
+}
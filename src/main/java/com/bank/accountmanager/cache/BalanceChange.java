@@ -0,0 +1,16 @@
+package com.bank.accountmanager.cache;
+
+public record BalanceChange(String nodeId, long accountId) {
+
+    private static final char SEPARATOR = ':';
+
+    static BalanceChange parse(String payload) {
+        var separator = payload.lastIndexOf(SEPARATOR);
+        return new BalanceChange(payload.substring(0, separator), Long.parseLong(payload.substring(separator + 1)));
+    }
+
+    String toPayload() {
+        return nodeId + SEPARATOR + accountId;
+    }
+
+}
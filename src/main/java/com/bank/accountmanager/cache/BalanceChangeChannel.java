@@ -0,0 +1,14 @@
+package com.bank.accountmanager.cache;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+// carries balance changes between the application instances
+public interface BalanceChangeChannel {
+
+    Mono<Void> publish(BalanceChange change);
+
+    // changes published by every instance, the own ones included
+    Flux<BalanceChange> changes();
+
+}
@@ -0,0 +1,103 @@
+package com.bank.accountmanager.cache;
+
+import com.bank.accountmanager.configuration.CustomerFilterProperties;
+import com.bank.accountmanager.repository.CustomerRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// never misses a stored name, a positive answer has to be confirmed by the database
+@Slf4j
+@Component
+public class CustomerNameFilter {
+
+    private final CustomerRepository customerRepository;
+    private final AtomicLongArray bits;
+    private final long bitCount;
+    private final int hashFunctions;
+    private final Counter negatives;
+    private final Counter positives;
+
+    public CustomerNameFilter(CustomerRepository customerRepository, CustomerFilterProperties properties, MeterRegistry meterRegistry) {
+        this.customerRepository = customerRepository;
+        var expected = Math.max(1, properties.expectedCustomers());
+        var words = (int) Math.ceil(-expected * Math.log(properties.falsePositiveProbability()) / (Math.log(2) * Math.log(2)) / Long.SIZE);
+        this.bits = new AtomicLongArray(Math.max(1, words));
+        this.bitCount = (long) bits.length() * Long.SIZE;
+        this.hashFunctions = Math.max(1, (int) Math.round((double) bitCount / expected * Math.log(2)));
+        this.negatives = Counter.builder("accountmanager.customer.filter")
+                .tag("answer", "negative")
+                .description("Customer name lookups answered by the filter")
+                .register(meterRegistry);
+        this.positives = Counter.builder("accountmanager.customer.filter")
+                .tag("answer", "positive")
+                .description("Customer name lookups answered by the filter")
+                .register(meterRegistry);
+    }
+
+    public boolean mightContain(String firstName, String lastName) {
+        var hash = hash(firstName, lastName);
+        for (int i = 0; i < hashFunctions; i++) {
+            var bit = index(hash, i);
+            if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                negatives.increment();
+                return false;
+            }
+        }
+        positives.increment();
+        return true;
+    }
+
+    public void put(String firstName, String lastName) {
+        var hash = hash(firstName, lastName);
+        for (int i = 0; i < hashFunctions; i++) {
+            var bit = index(hash, i);
+            var word = (int) (bit >>> 6);
+            var mask = 1L << bit;
+            bits.getAndAccumulate(word, mask, (current, added) -> current | added);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        customerRepository.findAll()
+                .doOnNext(customer -> put(customer.getFirstName(), customer.getLastName()))
+                .count()
+                .subscribe(count -> log.info("Warmed up customer name filter with {} customers, {} bits and {} hash functions",
+                                count, bitCount, hashFunctions),
+                        error -> log.error("Could not warm up customer name filter, message {}", error.getMessage()));
+    }
+
+    // double hashing, the second hash is derived from the first with another finalizer round
+    private long index(long hash, int i) {
+        return Math.floorMod(hash + i * mix(hash ^ 0x9E3779B97F4A7C15L), bitCount);
+    }
+
+    private long hash(String firstName, String lastName) {
+        var hash = 0xCBF29CE484222325L;
+        hash = fnv(hash, lastName);
+        // a separator, otherwise ("ab", "c") and ("a", "bc") would hash alike
+        hash *= 0x100000001B3L;
+        hash = fnv(hash, firstName);
+        return mix(hash);
+    }
+
+    private long fnv(long hash, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            hash = (hash ^ value.charAt(i)) * 0x100000001B3L;
+        }
+        return hash;
+    }
+
+    private long mix(long hash) {
+        hash = (hash ^ (hash >>> 33)) * 0xFF51AFD7ED558CCDL;
+        hash = (hash ^ (hash >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return hash ^ (hash >>> 33);
+    }
+
+}
@@ -0,0 +1,28 @@
+package com.bank.accountmanager.cache;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import static reactor.core.publisher.Sinks.EmitResult.FAIL_NON_SERIALIZED;
+
+// for instances running in the same JVM, e.g. in tests
+@Component
+@ConditionalOnProperty(prefix = "accountmanager.balance-cache", name = "channel", havingValue = "in-memory")
+public class InMemoryBalanceChangeChannel implements BalanceChangeChannel {
+
+    private final Sinks.Many<BalanceChange> sink = Sinks.many().multicast().directBestEffort();
+
+    @Override
+    public Mono<Void> publish(BalanceChange change) {
+        return Mono.fromRunnable(() -> sink.emitNext(change, (signalType, result) -> result == FAIL_NON_SERIALIZED));
+    }
+
+    @Override
+    public Flux<BalanceChange> changes() {
+        return sink.asFlux();
+    }
+
+}
@@ -0,0 +1,49 @@
+package com.bank.accountmanager.cache;
+
+import io.r2dbc.postgresql.api.Notification;
+import io.r2dbc.postgresql.api.PostgresqlConnection;
+import io.r2dbc.postgresql.api.PostgresqlResult;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+// LISTEN holds its connection for good, so it is opened outside of the pool
+@Component
+@ConditionalOnProperty(prefix = "accountmanager.balance-cache", name = "channel", havingValue = "postgres", matchIfMissing = true)
+public class PostgresBalanceChangeChannel implements BalanceChangeChannel {
+    private static final String CHANNEL = "account_balance_changes";
+
+    private final DatabaseClient databaseClient;
+    private final ConnectionFactory listenerConnectionFactory;
+
+    public PostgresBalanceChangeChannel(DatabaseClient databaseClient, @Value("${spring.r2dbc.url}") String url) {
+        this.databaseClient = databaseClient;
+        this.listenerConnectionFactory = ConnectionFactories.get(url);
+    }
+
+    @Override
+    public Mono<Void> publish(BalanceChange change) {
+        return databaseClient.sql("SELECT pg_notify(:channel, :payload)")
+                .bind("channel", CHANNEL)
+                .bind("payload", change.toPayload())
+                .fetch().rowsUpdated()
+                .then();
+    }
+
+    @Override
+    public Flux<BalanceChange> changes() {
+        return Flux.usingWhen(Mono.from(listenerConnectionFactory.create()).cast(PostgresqlConnection.class),
+                connection -> connection.createStatement("LISTEN " + CHANNEL).execute()
+                        .flatMap(PostgresqlResult::getRowsUpdated)
+                        .thenMany(connection.getNotifications()),
+                PostgresqlConnection::close)
+                .map(Notification::getParameter)
+                .map(BalanceChange::parse);
+    }
+
+}
@@ -0,0 +1,87 @@
+package com.bank.accountmanager.coalescing;
+
+import com.bank.accountmanager.configuration.CoalescingProperties;
+import com.bank.accountmanager.handler.exception.QueueFullException;
+import com.bank.accountmanager.repository.model.Account;
+import com.bank.accountmanager.service.BalanceService.Operation;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.bank.accountmanager.service.BalanceService.Operation.DEPOSIT;
+import static com.bank.accountmanager.service.BalanceService.Operation.WITHDRAW;
+import static reactor.core.publisher.Sinks.EmitResult.FAIL_NON_SERIALIZED;
+
+// the micro-batches of a stripe are committed one after the other
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BalanceCoalescer implements InitializingBean, DisposableBean {
+
+    private final MicroBatchWriter writer;
+    private final CoalescingProperties properties;
+    private final List<Sinks.Many<PendingOperation>> stripes = new ArrayList<>();
+    private final List<AtomicInteger> queued = new ArrayList<>();
+    private final Disposable.Composite subscriptions = Disposables.composite();
+
+    public boolean enabled() {
+        return properties.enabled();
+    }
+
+    public Mono<Account> deposit(long accountId, BigDecimal amount) {
+        return enqueue(DEPOSIT, accountId, amount);
+    }
+
+    public Mono<Account> withdraw(long accountId, BigDecimal amount) {
+        return enqueue(WITHDRAW, accountId, amount);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        if (!properties.enabled()) {
+            return;
+        }
+        for (int i = 0; i < properties.stripes(); i++) {
+            Sinks.Many<PendingOperation> stripe = Sinks.many().unicast().onBackpressureBuffer();
+            var stripeQueued = new AtomicInteger();
+            stripes.add(stripe);
+            queued.add(stripeQueued);
+            subscriptions.add(stripe.asFlux()
+                    .bufferTimeout(properties.maxBatchSize(), properties.window())
+                    .onBackpressureBuffer()
+                    .concatMap(batch -> writer.commit(batch).doFinally(signal -> stripeQueued.addAndGet(-batch.size())))
+                    .subscribe());
+        }
+        log.info("Coalescing deposits and withdrawals on {} stripes", properties.stripes());
+    }
+
+    @Override
+    public void destroy() {
+        subscriptions.dispose();
+    }
+
+    private Mono<Account> enqueue(Operation operation, long accountId, BigDecimal amount) {
+        return Mono.defer(() -> {
+            var stripe = (int) Math.floorMod(accountId, (long) stripes.size());
+            if (queued.get(stripe).incrementAndGet() > properties.maxQueued()) {
+                queued.get(stripe).decrementAndGet();
+                return Mono.error(new QueueFullException("Too many queued operations, retry later"));
+            }
+            var pending = new PendingOperation(operation, accountId, amount, Sinks.one());
+            stripes.get(stripe).emitNext(pending, (signalType, result) -> result == FAIL_NON_SERIALIZED);
+            return pending.result().asMono();
+        });
+    }
+
+}
@@ -0,0 +1,92 @@
+package com.bank.accountmanager.coalescing;
+
+import com.bank.accountmanager.configuration.GroupCommitProperties;
+import com.bank.accountmanager.handler.exception.QueueFullException;
+import com.bank.accountmanager.repository.model.Account;
+import com.bank.accountmanager.service.BalanceService.Operation;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.math.BigDecimal;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.bank.accountmanager.service.BalanceService.Operation.DEPOSIT;
+import static com.bank.accountmanager.service.BalanceService.Operation.WITHDRAW;
+import static reactor.core.publisher.Sinks.EmitResult.FAIL_NON_SERIALIZED;
+
+// concurrent callers share a commit, the ordered locking keeps overlapping groups from deadlocking
+@Slf4j
+@Component
+public class GroupCommitter implements InitializingBean, DisposableBean {
+
+    private final MicroBatchWriter writer;
+    private final GroupCommitProperties properties;
+    private final Sinks.Many<PendingOperation> queue = Sinks.many().unicast().onBackpressureBuffer();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final DistributionSummary groupSize;
+    private Disposable subscription;
+
+    public GroupCommitter(MicroBatchWriter writer, GroupCommitProperties properties, MeterRegistry meterRegistry) {
+        this.writer = writer;
+        this.properties = properties;
+        this.groupSize = DistributionSummary.builder("accountmanager.group-commit.batch.size")
+                .description("Deposits and withdrawals committed by one transaction")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    public boolean enabled() {
+        return properties.enabled();
+    }
+
+    public Mono<Account> deposit(long accountId, BigDecimal amount) {
+        return enqueue(DEPOSIT, accountId, amount);
+    }
+
+    public Mono<Account> withdraw(long accountId, BigDecimal amount) {
+        return enqueue(WITHDRAW, accountId, amount);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        if (!properties.enabled()) {
+            return;
+        }
+        subscription = queue.asFlux()
+                .bufferTimeout(properties.maxBatchSize(), properties.window())
+                .onBackpressureBuffer()
+                .doOnNext(group -> groupSize.record(group.size()))
+                .flatMap(group -> writer.commit(group).doFinally(signal -> queued.addAndGet(-group.size())),
+                        properties.concurrency())
+                .subscribe();
+        log.info("Group committing deposits and withdrawals, window {} and up to {} concurrent groups",
+                properties.window(), properties.concurrency());
+    }
+
+    @Override
+    public void destroy() {
+        if (subscription != null) {
+            subscription.dispose();
+        }
+    }
+
+    private Mono<Account> enqueue(Operation operation, long accountId, BigDecimal amount) {
+        return Mono.defer(() -> {
+            if (queued.incrementAndGet() > properties.maxQueued()) {
+                queued.decrementAndGet();
+                return Mono.error(new QueueFullException("Too many queued operations, retry later"));
+            }
+            var pending = new PendingOperation(operation, accountId, amount, Sinks.one());
+            queue.emitNext(pending, (signalType, result) -> result == FAIL_NON_SERIALIZED);
+            return pending.result().asMono();
+        });
+    }
+
+}
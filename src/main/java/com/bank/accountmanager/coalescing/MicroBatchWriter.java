@@ -0,0 +1,114 @@
+package com.bank.accountmanager.coalescing;
+
+import com.bank.accountmanager.repository.AccountRepository;
+import com.bank.accountmanager.repository.LedgerRepository;
+import com.bank.accountmanager.repository.model.Account;
+import com.bank.accountmanager.repository.model.LedgerEntry;
+import com.bank.accountmanager.repository.model.LedgerEntry.EntryType;
+import com.bank.accountmanager.service.BalanceService;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.ReactiveTransactionManager;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static com.bank.accountmanager.service.BalanceService.Operation.DEPOSIT;
+
+// a rejected operation only fails its own caller, a failed transaction fails the whole batch
+@Slf4j
+@Component
+public class MicroBatchWriter {
+
+    private final AccountRepository accountRepository;
+    private final LedgerRepository ledgerRepository;
+    private final BalanceService balanceService;
+    private final TransactionalOperator transactionalOperator;
+    private final DistributionSummary accountBatchSize;
+
+    public MicroBatchWriter(AccountRepository accountRepository, LedgerRepository ledgerRepository, BalanceService balanceService,
+                            ReactiveTransactionManager transactionManager, MeterRegistry meterRegistry) {
+        this.accountRepository = accountRepository;
+        this.ledgerRepository = ledgerRepository;
+        this.balanceService = balanceService;
+        this.transactionalOperator = TransactionalOperator.create(transactionManager);
+        // operations per account update, its mean is the coalescing ratio
+        this.accountBatchSize = DistributionSummary.builder("accountmanager.coalescing.batch.size")
+                .description("Deposits and withdrawals applied by one account update")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    Mono<Void> commit(List<PendingOperation> batch) {
+        var answers = new ArrayList<Runnable>(batch.size());
+        var byAccount = new TreeMap<Long, List<PendingOperation>>();
+        batch.forEach(pending -> byAccount.computeIfAbsent(pending.accountId(), id -> new ArrayList<>()).add(pending));
+
+        return accountRepository.findAllByIdForUpdate(List.copyOf(byAccount.keySet()))
+                .collectMap(Account::getId)
+                .flatMap(accounts -> apply(byAccount, accounts, answers))
+                .as(transactionalOperator::transactional)
+                .doOnSuccess(done -> answers.forEach(Runnable::run))
+                .onErrorResume(error -> {
+                    log.error("Could not commit {} queued operations, message {}", batch.size(), error.getMessage());
+                    batch.forEach(pending -> pending.result().tryEmitError(error));
+                    return Mono.empty();
+                });
+    }
+
+    private Mono<Void> apply(Map<Long, List<PendingOperation>> byAccount, Map<Long, Account> accounts, List<Runnable> answers) {
+        var updated = new ArrayList<Account>();
+        var entries = new ArrayList<LedgerEntry>();
+        return Flux.fromIterable(byAccount.entrySet())
+                .concatMap(group -> {
+                    var account = accounts.get(group.getKey());
+                    if (account == null) {
+                        group.getValue().forEach(pending -> answers.add(() -> pending.result().tryEmitEmpty()));
+                        return Mono.empty();
+                    }
+                    var applied = entries.size();
+                    return Flux.fromIterable(group.getValue())
+                            .concatMap(pending -> apply(account, pending, entries, answers))
+                            .then(Mono.fromRunnable(() -> {
+                                if (entries.size() > applied) {
+                                    accountBatchSize.record(entries.size() - applied);
+                                    updated.add(account);
+                                }
+                            }));
+                })
+                .then(Mono.defer(() -> updated.isEmpty() ? Mono.empty() : accountRepository.setBalances(updated)
+                        .thenMany(ledgerRepository.saveAll(entries))
+                        .then()));
+    }
+
+    private Mono<Account> apply(Account account, PendingOperation pending, List<LedgerEntry> entries, List<Runnable> answers) {
+        return balanceService.checkAmount(pending.operation(), account.getCurrency(), pending.amount())
+                .flatMap(amount -> (pending.operation() == DEPOSIT
+                        ? balanceService.addAmountToBalance(account, amount)
+                        : balanceService.subtractAmountFromBalance(account, amount))
+                        .doOnNext(updated -> entries.add(new LedgerEntry(updated.getId(), EntryType.valueOf(pending.operation().name()),
+                                pending.operation() == DEPOSIT ? amount : -amount, updated.getBalance(), null, Instant.now()))))
+                .map(this::snapshot)
+                .doOnNext(snapshot -> answers.add(() -> pending.result().tryEmitValue(snapshot)))
+                .onErrorResume(error -> {
+                    answers.add(() -> pending.result().tryEmitError(error));
+                    return Mono.empty();
+                });
+    }
+
+    private Account snapshot(Account account) {
+        var snapshot = new Account(account.getCurrency(), account.getCustomerId(), account.getCreatedAt());
+        snapshot.setId(account.getId());
+        snapshot.setBalance(account.getBalance());
+        return snapshot;
+    }
+
+}
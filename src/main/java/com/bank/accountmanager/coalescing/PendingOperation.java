@@ -0,0 +1,12 @@
+package com.bank.accountmanager.coalescing;
+
+import com.bank.accountmanager.repository.model.Account;
+import com.bank.accountmanager.service.BalanceService.Operation;
+import reactor.core.publisher.Sinks;
+
+import java.math.BigDecimal;
+
+// the result is completed once the batch has been committed
+record PendingOperation(Operation operation, long accountId, BigDecimal amount, Sinks.One<Account> result) {
+
+}
@@ -0,0 +1,234 @@
+package com.bank.accountmanager.concurrency;
+
+import com.bank.accountmanager.configuration.ConcurrencyLimitProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.HandlerFunction;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+import reactor.core.publisher.Sinks;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+// gradient limiter: grows while latency stays near its long-term average, shrinks once requests queue
+@Component
+public class AdaptiveConcurrencyLimiter {
+    private static final int LONG_WINDOW = 600;
+    private static final double MIN_GRADIENT = 0.5;
+
+    private final ConcurrencyLimitProperties properties;
+    private final LongSupplier clock;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final Queue<Waiter> waiters = new ConcurrentLinkedQueue<>();
+    private final Counter rejected;
+    private final ReentrantLock sampling = new ReentrantLock();
+    private double estimatedLimit;
+    private double longLatency;
+    private volatile int limit;
+
+    public AdaptiveConcurrencyLimiter(ConcurrencyLimitProperties properties, MeterRegistry meterRegistry) {
+        this(properties, meterRegistry, System::nanoTime);
+    }
+
+    AdaptiveConcurrencyLimiter(ConcurrencyLimitProperties properties, MeterRegistry meterRegistry, LongSupplier clock) {
+        this.properties = properties;
+        this.clock = clock;
+        this.estimatedLimit = properties.initialLimit();
+        this.limit = properties.initialLimit();
+        Gauge.builder("accountmanager.concurrency.limit", this, AdaptiveConcurrencyLimiter::limit)
+                .description("Requests allowed in flight")
+                .register(meterRegistry);
+        Gauge.builder("accountmanager.concurrency.inflight", this, AdaptiveConcurrencyLimiter::inFlight)
+                .description("Requests in flight")
+                .register(meterRegistry);
+        Gauge.builder("accountmanager.concurrency.queued", this, AdaptiveConcurrencyLimiter::queued)
+                .description("Requests waiting for a permit")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("accountmanager.concurrency.rejected")
+                .description("Requests rejected because the limit was reached and the wait for a permit failed")
+                .register(meterRegistry);
+    }
+
+    public HandlerFunction<ServerResponse> limited(HandlerFunction<ServerResponse> handler) {
+        if (!properties.enabled()) {
+            return handler;
+        }
+        return request -> Mono.defer(() -> {
+            var permit = tryAcquire();
+            if (permit != null) {
+                return run(permit, Mono.defer(() -> handler.handle(request)));
+            }
+            if (queued.incrementAndGet() > properties.queueSize()) {
+                queued.decrementAndGet();
+                return reject();
+            }
+            var waiter = new Waiter();
+            waiters.offer(waiter);
+            drain();
+            return waiter.permit.asMono()
+                    .timeout(properties.maxWait(), Mono.defer(() -> waiter.expire() ? Mono.<Permit>empty() : waiter.permit.asMono()))
+                    .doOnCancel(waiter::abandon)
+                    .map(granted -> {
+                        waiter.delivered = true;
+                        return run(granted, Mono.defer(() -> handler.handle(request)));
+                    })
+                    .defaultIfEmpty(reject())
+                    .flatMap(Function.identity());
+        });
+    }
+
+    public int limit() {
+        return limit;
+    }
+
+    public int inFlight() {
+        return inFlight.get();
+    }
+
+    public int queued() {
+        return queued.get();
+    }
+
+    private Mono<ServerResponse> run(Permit permit, Mono<ServerResponse> response) {
+        return response.doFinally(signal -> permit.release(signal != SignalType.CANCEL));
+    }
+
+    private Mono<ServerResponse> reject() {
+        return Mono.defer(() -> {
+            rejected.increment();
+            return ServerResponse.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .build();
+        });
+    }
+
+    private Permit tryAcquire() {
+        while (true) {
+            var current = inFlight.get();
+            if (current >= limit) {
+                return null;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return new Permit(current + 1);
+            }
+        }
+    }
+
+    // hands free permits to waiters, called whenever a permit is released or a waiter arrives
+    private void drain() {
+        while (!waiters.isEmpty()) {
+            var permit = tryAcquire();
+            if (permit == null) {
+                return;
+            }
+            if (!grant(permit)) {
+                permit.release(false);
+                return;
+            }
+        }
+    }
+
+    private boolean grant(Permit permit) {
+        Waiter waiter;
+        while ((waiter = waiters.poll()) != null) {
+            if (waiter.grant(permit)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void sample(long latency, int inFlightAtStart) {
+        if (!sampling.tryLock()) {
+            return;
+        }
+        try {
+            update(latency, inFlightAtStart);
+        } finally {
+            sampling.unlock();
+        }
+    }
+
+    private void update(long latency, int inFlightAtStart) {
+        longLatency = longLatency == 0 ? latency : longLatency + (latency - longLatency) / LONG_WINDOW;
+        // the average decays towards the latest latency, otherwise queueing could not be detected again
+        if (longLatency > 2.0 * latency) {
+            longLatency = 0.95 * longLatency + 0.05 * latency;
+        }
+        if (inFlightAtStart < estimatedLimit / 2) {
+            return;
+        }
+        var gradient = Math.max(MIN_GRADIENT, Math.min(1.0, properties.tolerance() * longLatency / Math.max(1, latency)));
+        var newLimit = estimatedLimit * gradient + Math.sqrt(estimatedLimit);
+        newLimit = estimatedLimit * (1 - properties.smoothing()) + newLimit * properties.smoothing();
+        estimatedLimit = Math.max(properties.minLimit(), Math.min(properties.maxLimit(), newLimit));
+        limit = (int) estimatedLimit;
+    }
+
+    private class Permit {
+        private final AtomicBoolean released = new AtomicBoolean();
+        private final long start = clock.getAsLong();
+        private final int inFlightAtStart;
+
+        Permit(int inFlightAtStart) {
+            this.inFlightAtStart = inFlightAtStart;
+        }
+
+        void release(boolean sample) {
+            if (!released.compareAndSet(false, true)) {
+                return;
+            }
+            if (sample) {
+                sample(clock.getAsLong() - start, inFlightAtStart);
+            }
+            inFlight.decrementAndGet();
+            drain();
+        }
+    }
+
+    // a waiter is claimed exactly once, either by a released permit or by its timeout
+    private class Waiter {
+        private final Sinks.One<Permit> permit = Sinks.one();
+        private final AtomicBoolean claimed = new AtomicBoolean();
+        private volatile boolean delivered;
+
+        boolean grant(Permit permit) {
+            if (!claimed.compareAndSet(false, true)) {
+                return false;
+            }
+            queued.decrementAndGet();
+            this.permit.tryEmitValue(permit);
+            return true;
+        }
+
+        // true when the waiter timed out, false when a permit was granted concurrently and is on its way
+        boolean expire() {
+            if (!claimed.compareAndSet(false, true)) {
+                return false;
+            }
+            queued.decrementAndGet();
+            waiters.remove(this);
+            return true;
+        }
+
+        // a permit granted to a request cancelled before it could run goes back right away
+        void abandon() {
+            if (!expire() && !delivered) {
+                permit.asMono().subscribe(granted -> granted.release(false));
+            }
+        }
+    }
+
+}
@@ -0,0 +1,15 @@
+package com.bank.accountmanager.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.ConstructorBinding;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+@ConstructorBinding
+@ConfigurationProperties("accountmanager.balance-cache")
+public record BalanceCacheProperties(@DefaultValue("100000") long maximumSize,
+                                     @DefaultValue("2s") Duration maxStaleness,
+                                     @DefaultValue("postgres") String channel) {
+
+}
@@ -0,0 +1,11 @@
+package com.bank.accountmanager.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.ConstructorBinding;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+@ConstructorBinding
+@ConfigurationProperties("accountmanager.balance-lookup")
+public record BalanceLookupProperties(@DefaultValue("500") int maxIds) {
+
+}
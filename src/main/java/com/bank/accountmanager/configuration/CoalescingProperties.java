@@ -0,0 +1,17 @@
+package com.bank.accountmanager.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.ConstructorBinding;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+@ConstructorBinding
+@ConfigurationProperties("accountmanager.coalescing")
+public record CoalescingProperties(@DefaultValue("false") boolean enabled,
+                                   @DefaultValue("64") int stripes,
+                                   @DefaultValue("2ms") Duration window,
+                                   @DefaultValue("256") int maxBatchSize,
+                                   @DefaultValue("4096") int maxQueued) {
+
+}
@@ -0,0 +1,20 @@
+package com.bank.accountmanager.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.ConstructorBinding;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+@ConstructorBinding
+@ConfigurationProperties("accountmanager.concurrency-limit")
+public record ConcurrencyLimitProperties(@DefaultValue("false") boolean enabled,
+                                         @DefaultValue("20") int initialLimit,
+                                         @DefaultValue("4") int minLimit,
+                                         @DefaultValue("200") int maxLimit,
+                                         @DefaultValue("2.0") double tolerance,
+                                         @DefaultValue("0.2") double smoothing,
+                                         @DefaultValue("100") int queueSize,
+                                         @DefaultValue("50ms") Duration maxWait) {
+
+}
@@ -0,0 +1,19 @@
+package com.bank.accountmanager.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.ConstructorBinding;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+@ConstructorBinding
+@ConfigurationProperties("accountmanager.r2dbc.pool")
+public record ConnectionPoolProperties(@DefaultValue("10") int initialSize,
+                                       @DefaultValue("20") int maxSize,
+                                       @DefaultValue("5s") Duration maxAcquireTime,
+                                       @DefaultValue("5s") Duration maxCreateConnectionTime,
+                                       @DefaultValue("10m") Duration maxIdleTime,
+                                       @DefaultValue("true") boolean warmup,
+                                       @DefaultValue("256") int preparedStatementCacheQueries) {
+
+}
@@ -0,0 +1,12 @@
+package com.bank.accountmanager.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.ConstructorBinding;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+@ConstructorBinding
+@ConfigurationProperties("accountmanager.customer-filter")
+public record CustomerFilterProperties(@DefaultValue("1000000") int expectedCustomers,
+                                       @DefaultValue("0.01") double falsePositiveProbability) {
+
+}
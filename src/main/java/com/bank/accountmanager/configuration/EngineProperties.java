@@ -0,0 +1,19 @@
+package com.bank.accountmanager.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.ConstructorBinding;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+@ConstructorBinding
+@ConfigurationProperties("accountmanager.engine")
+public record EngineProperties(@DefaultValue("4") int shards,
+                               @DefaultValue("./journal") String journalDirectory,
+                               @DefaultValue("64MB") DataSize journalSize,
+                               @DefaultValue("false") boolean journalForce,
+                               @DefaultValue("100ms") Duration flushInterval,
+                               @DefaultValue("1000") int flushBatchSize) {
+
+}
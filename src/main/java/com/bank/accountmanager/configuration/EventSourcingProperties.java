@@ -0,0 +1,12 @@
+package com.bank.accountmanager.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.ConstructorBinding;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+@ConstructorBinding
+@ConfigurationProperties("accountmanager.event-sourcing")
+public record EventSourcingProperties(@DefaultValue("100") int snapshotInterval,
+                                      @DefaultValue("8") int rebuildPartitions) {
+
+}
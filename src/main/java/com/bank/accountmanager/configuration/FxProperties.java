@@ -0,0 +1,21 @@
+package com.bank.accountmanager.configuration;
+
+import com.bank.accountmanager.repository.model.Currency;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.ConstructorBinding;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Map;
+
+// rates are the value of one unit of each currency in a common reference currency
+@ConstructorBinding
+@ConfigurationProperties("accountmanager.fx")
+public record FxProperties(Map<Currency, BigDecimal> rates,
+                           @DefaultValue("") String ratesFile,
+                           @DefaultValue("5s") Duration reloadInterval,
+                           @DefaultValue("") String adminToken,
+                           @DefaultValue("false") boolean failOnMissingRates) {
+
+}
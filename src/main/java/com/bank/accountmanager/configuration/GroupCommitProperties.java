@@ -0,0 +1,17 @@
+package com.bank.accountmanager.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.ConstructorBinding;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+@ConstructorBinding
+@ConfigurationProperties("accountmanager.group-commit")
+public record GroupCommitProperties(@DefaultValue("false") boolean enabled,
+                                    @DefaultValue("1ms") Duration window,
+                                    @DefaultValue("128") int maxBatchSize,
+                                    @DefaultValue("4") int concurrency,
+                                    @DefaultValue("16384") int maxQueued) {
+
+}
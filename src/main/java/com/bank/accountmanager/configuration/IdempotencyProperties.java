@@ -0,0 +1,15 @@
+package com.bank.accountmanager.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.ConstructorBinding;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+@ConstructorBinding
+@ConfigurationProperties("accountmanager.idempotency")
+public record IdempotencyProperties(@DefaultValue("100000") long maximumSize,
+                                    @DefaultValue("24h") Duration retention,
+                                    @DefaultValue("false") boolean tableEnabled) {
+
+}
@@ -0,0 +1,50 @@
+package com.bank.accountmanager.configuration;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryMetadata;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+
+// times how long callers wait for a pooled connection, disposing it closes the pool
+class InstrumentedConnectionFactory implements ConnectionFactory, Disposable {
+
+    private final ConnectionPool pool;
+    private final Timer acquireTimer;
+
+    InstrumentedConnectionFactory(String name, ConnectionPool pool, MeterRegistry meterRegistry) {
+        this.pool = pool;
+        this.acquireTimer = Timer.builder("r2dbc.pool.acquire")
+                .description("Time spent waiting for a pooled connection")
+                .tag("name", name)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Mono<Connection> create() {
+        return Mono.defer(() -> {
+            var sample = Timer.start();
+            return pool.create().doOnSuccess(connection -> sample.stop(acquireTimer));
+        });
+    }
+
+    @Override
+    public ConnectionFactoryMetadata getMetadata() {
+        return pool.getMetadata();
+    }
+
+    @Override
+    public void dispose() {
+        pool.dispose();
+    }
+
+    @Override
+    public boolean isDisposed() {
+        return pool.isDisposed();
+    }
+
+}
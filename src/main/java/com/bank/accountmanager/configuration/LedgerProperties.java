@@ -0,0 +1,11 @@
+package com.bank.accountmanager.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.ConstructorBinding;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+@ConstructorBinding
+@ConfigurationProperties("accountmanager.ledger")
+public record LedgerProperties(@DefaultValue("500") int pageSize) {
+
+}
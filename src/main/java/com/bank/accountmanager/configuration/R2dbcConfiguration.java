@@ -1,21 +1,64 @@
 package com.bank.accountmanager.configuration;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
 import io.r2dbc.spi.ConnectionFactories;
 import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import io.r2dbc.spi.Option;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.metrics.r2dbc.ConnectionPoolMetrics;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
 import org.springframework.r2dbc.connection.R2dbcTransactionManager;
 import org.springframework.transaction.ReactiveTransactionManager;
 
+import java.util.ArrayList;
+
+import static io.r2dbc.spi.ConnectionFactoryOptions.DRIVER;
+
+@Slf4j
 @Configuration
 public class R2dbcConfiguration {
+    private static final Option<Integer> PREPARED_STATEMENT_CACHE_QUERIES = Option.valueOf("preparedStatementCacheQueries");
+    private static final String POOL_NAME = "accountmanager";
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionPool connectionPool(@Value("${spring.r2dbc.url}") String url, ConnectionPoolProperties properties) {
+        var pool = pool(POOL_NAME, url, properties.initialSize(), properties.maxSize(), properties);
+        if (properties.warmup()) {
+            var warmedUp = pool.warmup().block(properties.maxCreateConnectionTime());
+            log.info("Warmed up connection pool with {} connections", warmedUp);
+        }
+        return pool;
+    }
 
+    // the replica pools are no beans, so their gauges are bound here
     @Bean
     @Primary
-    public ConnectionFactory connectionFactory(@Value("${spring.r2dbc.url}") String url) {
-        return ConnectionFactories.get(url);
+    public ConnectionFactory connectionFactory(ConnectionPool connectionPool, ConnectionPoolProperties poolProperties,
+                                               ReplicaProperties replicaProperties, MeterRegistry meterRegistry) {
+        var primary = new InstrumentedConnectionFactory(POOL_NAME, connectionPool, meterRegistry);
+        if (replicaProperties.urls().isEmpty()) {
+            return primary;
+        }
+        var replicas = new ArrayList<Replica>();
+        for (int i = 0; i < replicaProperties.urls().size(); i++) {
+            var name = "accountmanager-replica-%d".formatted(i);
+            var pool = pool(name, replicaProperties.urls().get(i), replicaProperties.initialSize(),
+                    replicaProperties.maxSize(), poolProperties);
+            new ConnectionPoolMetrics(pool, name, Tags.empty()).bindTo(meterRegistry);
+            replicas.add(new Replica(name, new InstrumentedConnectionFactory(name, pool, meterRegistry),
+                    replicaProperties.failureThreshold()));
+        }
+        var routing = new RoutingConnectionFactory(primary, replicas, meterRegistry);
+        routing.startHealthChecks(replicaProperties.healthCheckInterval(), replicaProperties.healthCheckTimeout());
+        log.info("Routing replica reads to {} replicas", replicas.size());
+        return routing;
     }
 
     @Bean
@@ -23,4 +66,23 @@ public class R2dbcConfiguration {
         return new R2dbcTransactionManager(connectionFactory);
     }
 
+    private static ConnectionPool pool(String name, String url, int initialSize, int maxSize, ConnectionPoolProperties properties) {
+        var options = ConnectionFactoryOptions.parse(url);
+        if ("postgresql".equals(options.getValue(DRIVER))) {
+            options = options.mutate()
+                    .option(PREPARED_STATEMENT_CACHE_QUERIES, properties.preparedStatementCacheQueries())
+                    .build();
+        }
+
+        var configuration = ConnectionPoolConfiguration.builder(ConnectionFactories.get(options))
+                .name(name)
+                .initialSize(initialSize)
+                .maxSize(maxSize)
+                .maxAcquireTime(properties.maxAcquireTime())
+                .maxCreateConnectionTime(properties.maxCreateConnectionTime())
+                .maxIdleTime(properties.maxIdleTime())
+                .build();
+        return new ConnectionPool(configuration);
+    }
+
 }
@@ -0,0 +1,28 @@
+package com.bank.accountmanager.configuration;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.rsocket.context.RSocketServerBootstrap;
+import org.springframework.boot.rsocket.netty.NettyRSocketServerFactory;
+import org.springframework.boot.rsocket.server.RSocketServer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorResourceFactory;
+import org.springframework.messaging.rsocket.annotation.support.RSocketMessageHandler;
+
+// the WebSocket transport comes from spring.rsocket.server, this adds the TCP server
+@Configuration
+public class RSocketConfiguration {
+
+    @Bean
+    @ConditionalOnProperty(prefix = "accountmanager.rsocket", name = "tcp-enabled", havingValue = "true")
+    public RSocketServerBootstrap tcpRSocketServerBootstrap(RSocketMessageHandler messageHandler, RSocketTcpProperties properties,
+                                                            ObjectProvider<ReactorResourceFactory> resourceFactory) {
+        var factory = new NettyRSocketServerFactory();
+        factory.setTransport(RSocketServer.Transport.TCP);
+        factory.setPort(properties.tcpPort());
+        resourceFactory.ifAvailable(factory::setResourceFactory);
+        return new RSocketServerBootstrap(factory, messageHandler.responder());
+    }
+
+}
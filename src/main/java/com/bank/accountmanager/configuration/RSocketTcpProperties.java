@@ -0,0 +1,12 @@
+package com.bank.accountmanager.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.ConstructorBinding;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+@ConstructorBinding
+@ConfigurationProperties("accountmanager.rsocket")
+public record RSocketTcpProperties(@DefaultValue("false") boolean tcpEnabled,
+                                   @DefaultValue("7000") int tcpPort) {
+
+}
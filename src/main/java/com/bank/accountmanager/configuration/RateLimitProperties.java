@@ -0,0 +1,22 @@
+package com.bank.accountmanager.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.ConstructorBinding;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.Set;
+
+@ConstructorBinding
+@ConfigurationProperties("accountmanager.rate-limit")
+public record RateLimitProperties(@DefaultValue("false") boolean enabled,
+                                  @DefaultValue("X-Api-Key") String apiKeyHeader,
+                                  @DefaultValue Set<String> apiKeys,
+                                  @DefaultValue("500") double readsPerSecond,
+                                  @DefaultValue("1000") int readBurst,
+                                  @DefaultValue("100") double writesPerSecond,
+                                  @DefaultValue("200") int writeBurst,
+                                  @DefaultValue("100000") long maximumClients,
+                                  @DefaultValue("10m") Duration idleExpiry) {
+
+}
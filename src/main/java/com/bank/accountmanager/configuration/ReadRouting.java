@@ -0,0 +1,29 @@
+package com.bank.accountmanager.configuration;
+
+import org.springframework.web.reactive.function.server.ServerRequest;
+import reactor.util.context.Context;
+
+import java.util.function.Function;
+
+// only reads marked with replicaRead may be served by a replica, transactions always run on the primary
+public final class ReadRouting {
+    static final String REPLICA_READ = ReadRouting.class.getName() + ".replicaRead";
+    private static final String READ_YOUR_WRITES = "Read-Your-Writes";
+
+    private ReadRouting() {
+    }
+
+    public static Context replicaRead(Context context) {
+        return context.put(REPLICA_READ, true);
+    }
+
+    public static boolean readYourWrites(ServerRequest request) {
+        return Boolean.parseBoolean(request.headers().firstHeader(READ_YOUR_WRITES));
+    }
+
+    // the routing of the reads of a request, to be passed to contextWrite
+    public static Function<Context, Context> of(ServerRequest request) {
+        return readYourWrites(request) ? Function.identity() : ReadRouting::replicaRead;
+    }
+
+}
@@ -0,0 +1,72 @@
+package com.bank.accountmanager.configuration;
+
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// ejected after failureThreshold consecutive failures, readmitted by the next successful health check
+@Slf4j
+class Replica {
+
+    private final String name;
+    private final ConnectionFactory connectionFactory;
+    private final int failureThreshold;
+    private final AtomicInteger failures = new AtomicInteger();
+    private volatile boolean healthy = true;
+
+    Replica(String name, ConnectionFactory connectionFactory, int failureThreshold) {
+        this.name = name;
+        this.connectionFactory = connectionFactory;
+        this.failureThreshold = failureThreshold;
+    }
+
+    boolean healthy() {
+        return healthy;
+    }
+
+    Mono<Connection> create() {
+        return Mono.<Connection>from(connectionFactory.create())
+                .doOnSuccess(connection -> succeeded())
+                .doOnError(this::failed);
+    }
+
+    Mono<Void> check(Duration timeout) {
+        return Mono.usingWhen(Mono.from(connectionFactory.create()),
+                        connection -> Flux.from(connection.createStatement("SELECT 1").execute())
+                                .flatMap(result -> result.map((row, metadata) -> 1))
+                                .then(),
+                        Connection::close)
+                .timeout(timeout)
+                .doOnSuccess(done -> succeeded())
+                .doOnError(this::failed)
+                .onErrorResume(error -> Mono.empty());
+    }
+
+    void dispose() {
+        if (connectionFactory instanceof Disposable disposable) {
+            disposable.dispose();
+        }
+    }
+
+    private void succeeded() {
+        failures.set(0);
+        if (!healthy) {
+            healthy = true;
+            log.info("Readmitted {}", name);
+        }
+    }
+
+    private void failed(Throwable error) {
+        if (failures.incrementAndGet() >= failureThreshold && healthy) {
+            healthy = false;
+            log.warn("Ejected {} after {} failures, message {}", name, failureThreshold, error.getMessage());
+        }
+    }
+
+}
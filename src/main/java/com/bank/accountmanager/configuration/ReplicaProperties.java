@@ -0,0 +1,19 @@
+package com.bank.accountmanager.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.ConstructorBinding;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.List;
+
+@ConstructorBinding
+@ConfigurationProperties("accountmanager.r2dbc.replicas")
+public record ReplicaProperties(@DefaultValue List<String> urls,
+                                @DefaultValue("2") int initialSize,
+                                @DefaultValue("10") int maxSize,
+                                @DefaultValue("5s") Duration healthCheckInterval,
+                                @DefaultValue("2s") Duration healthCheckTimeout,
+                                @DefaultValue("3") int failureThreshold) {
+
+}
@@ -0,0 +1,83 @@
+package com.bank.accountmanager.configuration;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryMetadata;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// connections bound to a transaction are looked up first, so transactions stay on their connection
+class RoutingConnectionFactory implements ConnectionFactory {
+
+    private final ConnectionFactory primary;
+    private final List<Replica> replicas;
+    private final AtomicInteger next = new AtomicInteger();
+    private final Counter fallbacks;
+    private Disposable healthChecks;
+
+    RoutingConnectionFactory(ConnectionFactory primary, List<Replica> replicas, MeterRegistry meterRegistry) {
+        this.primary = primary;
+        this.replicas = replicas;
+        this.fallbacks = Counter.builder("r2dbc.replicas.fallback")
+                .description("Replica reads served by the primary")
+                .register(meterRegistry);
+        Gauge.builder("r2dbc.replicas.healthy", replicas, all -> all.stream().filter(Replica::healthy).count())
+                .description("Replicas receiving reads")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Mono<Connection> create() {
+        return Mono.deferContextual(context -> {
+            if (!context.getOrDefault(ReadRouting.REPLICA_READ, false)) {
+                return Mono.from(primary.create());
+            }
+            var replica = nextHealthy();
+            if (replica == null) {
+                fallbacks.increment();
+                return Mono.from(primary.create());
+            }
+            return replica.create().onErrorResume(error -> {
+                fallbacks.increment();
+                return Mono.from(primary.create());
+            });
+        });
+    }
+
+    @Override
+    public ConnectionFactoryMetadata getMetadata() {
+        return primary.getMetadata();
+    }
+
+    void startHealthChecks(Duration interval, Duration timeout) {
+        healthChecks = Flux.interval(interval)
+                .concatMap(tick -> Flux.fromIterable(replicas).flatMap(replica -> replica.check(timeout)))
+                .subscribe();
+    }
+
+    public void close() {
+        if (healthChecks != null) {
+            healthChecks.dispose();
+        }
+        replicas.forEach(Replica::dispose);
+    }
+
+    private Replica nextHealthy() {
+        for (int i = 0; i < replicas.size(); i++) {
+            var replica = replicas.get(Math.floorMod(next.getAndIncrement(), replicas.size()));
+            if (replica.healthy()) {
+                return replica;
+            }
+        }
+        return null;
+    }
+
+}
@@ -0,0 +1,19 @@
+package com.bank.accountmanager.configuration;
+
+import com.bank.accountmanager.cache.BalanceCache;
+import com.bank.accountmanager.fx.FxRates;
+import io.r2dbc.pool.ConnectionPool;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+// beans are created on first use, except those that have to be ready before the first request
+@Configuration
+public class StartupConfiguration {
+
+    @Bean
+    public static LazyInitializationExcludeFilter eagerBeans() {
+        return LazyInitializationExcludeFilter.forBeanTypes(ConnectionPool.class, BalanceCache.class, FxRates.class);
+    }
+
+}
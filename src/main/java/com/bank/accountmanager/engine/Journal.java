@@ -0,0 +1,280 @@
+package com.bank.accountmanager.engine;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+
+import static java.nio.channels.FileChannel.MapMode.READ_WRITE;
+import static java.nio.file.StandardOpenOption.*;
+
+// memory-mapped log in two segment files used in turn, a record is visible once its type byte is written
+final class Journal implements Closeable {
+    private static final byte END = 0;
+    private static final byte SET = 1;
+    private static final byte DEBIT = 2;
+    private static final byte CREDIT = 3;
+    private static final byte GENERATION = 4;
+    private static final byte PENDING = 5;
+    private static final byte CREDITED = 6;
+    private static final int GENERATION_BYTES = 1 + Long.BYTES;
+    private static final int SET_BYTES = 1 + 2 * Long.BYTES;
+    private static final int DEBIT_BYTES = 1 + 5 * Long.BYTES;
+    private static final int CREDIT_BYTES = 1 + 3 * Long.BYTES;
+    private static final int PENDING_BYTES = 1 + 3 * Long.BYTES;
+    private static final int CREDITED_BYTES = 1 + Long.BYTES;
+
+    private final Segment[] segments;
+    private final boolean force;
+    private int active;
+
+    private Journal(Segment[] segments, boolean force) {
+        this.segments = segments;
+        this.force = force;
+    }
+
+    static Journal open(Path file, int size, boolean force) throws IOException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        var segments = new Segment[]{Segment.open(file, size), Segment.open(file.resolveSibling(file.getFileName() + ".1"), size)};
+        var journal = new Journal(segments, force);
+        if (segments[0].isEmpty() && segments[1].isEmpty()) {
+            segments[0].begin(1, force);
+        }
+        journal.active = segments[0].isEmpty() || (!segments[1].isEmpty() && segments[1].generation > segments[0].generation) ? 1 : 0;
+        return journal;
+    }
+
+    boolean appendSet(long accountId, long balance) {
+        var segment = segments[active];
+        if (!segment.fits(SET_BYTES)) {
+            return false;
+        }
+        segment.putLong(1, accountId);
+        segment.putLong(1 + Long.BYTES, balance);
+        return commit(segment, SET, SET_BYTES);
+    }
+
+    boolean appendDebit(long transferId, long accountId, long balance, long creditAccountId, long amount) {
+        var segment = segments[active];
+        if (!segment.fits(DEBIT_BYTES)) {
+            return false;
+        }
+        segment.putLong(1, transferId);
+        segment.putLong(1 + Long.BYTES, accountId);
+        segment.putLong(1 + 2 * Long.BYTES, balance);
+        segment.putLong(1 + 3 * Long.BYTES, creditAccountId);
+        segment.putLong(1 + 4 * Long.BYTES, amount);
+        return commit(segment, DEBIT, DEBIT_BYTES);
+    }
+
+    boolean appendCredit(long transferId, long accountId, long balance) {
+        var segment = segments[active];
+        if (!segment.fits(CREDIT_BYTES)) {
+            return false;
+        }
+        segment.putLong(1, transferId);
+        segment.putLong(1 + Long.BYTES, accountId);
+        segment.putLong(1 + 2 * Long.BYTES, balance);
+        return commit(segment, CREDIT, CREDIT_BYTES);
+    }
+
+    // a debited transfer whose credit leg is not journaled yet, carried over from the previous segment
+    boolean appendPending(long transferId, long creditAccountId, long amount) {
+        var segment = segments[active];
+        if (!segment.fits(PENDING_BYTES)) {
+            return false;
+        }
+        segment.putLong(1, transferId);
+        segment.putLong(1 + Long.BYTES, creditAccountId);
+        segment.putLong(1 + 2 * Long.BYTES, amount);
+        return commit(segment, PENDING, PENDING_BYTES);
+    }
+
+    // a credit leg already applied, carried over while the journal of the debit still holds the transfer
+    boolean appendCredited(long transferId) {
+        var segment = segments[active];
+        if (!segment.fits(CREDITED_BYTES)) {
+            return false;
+        }
+        segment.putLong(1, transferId);
+        return commit(segment, CREDITED, CREDITED_BYTES);
+    }
+
+    void replay(Visitor visitor) {
+        var ordered = Arrays.stream(segments)
+                .filter(segment -> !segment.isEmpty())
+                .sorted(Comparator.comparingLong(segment -> segment.generation))
+                .toArray(Segment[]::new);
+        for (Segment segment : ordered) {
+            visitor.segment(segment == segments[active]);
+            segment.replay(visitor);
+        }
+    }
+
+    boolean canSwitch() {
+        return segments[1 - active].isEmpty();
+    }
+
+    // only called when the other segment is empty
+    void switchSegment() {
+        var next = segments[1 - active];
+        next.begin(segments[active].generation + 1, force);
+        active = 1 - active;
+    }
+
+    // only called once every balance journaled in the previous segment is persisted in the database
+    void resetPrevious() {
+        segments[1 - active].reset(force);
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (Segment segment : segments) {
+            segment.close();
+        }
+    }
+
+    private boolean commit(Segment segment, byte type, int length) {
+        segment.commit(type, length);
+        if (force) {
+            segment.buffer.force();
+        }
+        return true;
+    }
+
+    private static final class Segment implements Closeable {
+        private final FileChannel channel;
+        private final MappedByteBuffer buffer;
+        private long generation;
+        private int start;
+        private int position;
+
+        private Segment(FileChannel channel, MappedByteBuffer buffer) {
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+
+        static Segment open(Path file, int size) throws IOException {
+            var channel = FileChannel.open(file, CREATE, READ, WRITE);
+            var segment = new Segment(channel, channel.map(READ_WRITE, 0, size));
+            if (segment.buffer.get(0) == GENERATION) {
+                segment.generation = segment.buffer.getLong(1);
+                segment.start = GENERATION_BYTES;
+            }
+            segment.replay(new Visitor() {
+            });
+            return segment;
+        }
+
+        boolean isEmpty() {
+            return buffer.get(0) == END;
+        }
+
+        boolean fits(int length) {
+            return position + length <= buffer.capacity();
+        }
+
+        void putLong(int offset, long value) {
+            buffer.putLong(position + offset, value);
+        }
+
+        void commit(byte type, int length) {
+            buffer.put(position, type);
+            position += length;
+        }
+
+        void begin(long generation, boolean force) {
+            this.generation = generation;
+            buffer.putLong(1, generation);
+            buffer.put(0, GENERATION);
+            start = GENERATION_BYTES;
+            position = start;
+            if (force) {
+                buffer.force();
+            }
+        }
+
+        // the first byte is cleared first, so a crash while clearing leaves an empty segment
+        void reset(boolean force) {
+            for (int i = 0; i < position; i++) {
+                buffer.put(i, END);
+            }
+            generation = 0;
+            start = 0;
+            position = 0;
+            if (force) {
+                buffer.force();
+            }
+        }
+
+        void replay(Visitor visitor) {
+            position = start;
+            while (position < buffer.capacity()) {
+                int offset = position + 1;
+                var type = buffer.get(position);
+                switch (type) {
+                    case SET -> {
+                        visitor.set(buffer.getLong(offset), buffer.getLong(offset + Long.BYTES));
+                        position += SET_BYTES;
+                    }
+                    case DEBIT -> {
+                        visitor.debit(buffer.getLong(offset), buffer.getLong(offset + Long.BYTES),
+                                buffer.getLong(offset + 2 * Long.BYTES), buffer.getLong(offset + 3 * Long.BYTES),
+                                buffer.getLong(offset + 4 * Long.BYTES));
+                        position += DEBIT_BYTES;
+                    }
+                    case CREDIT -> {
+                        visitor.credit(buffer.getLong(offset), buffer.getLong(offset + Long.BYTES),
+                                buffer.getLong(offset + 2 * Long.BYTES));
+                        position += CREDIT_BYTES;
+                    }
+                    case PENDING -> {
+                        visitor.pending(buffer.getLong(offset), buffer.getLong(offset + Long.BYTES),
+                                buffer.getLong(offset + 2 * Long.BYTES));
+                        position += PENDING_BYTES;
+                    }
+                    case CREDITED -> {
+                        visitor.credited(buffer.getLong(offset));
+                        position += CREDITED_BYTES;
+                    }
+                    default -> {
+                        return;
+                    }
+                }
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            buffer.force();
+            channel.close();
+        }
+    }
+
+    interface Visitor {
+
+        default void segment(boolean active) {
+        }
+
+        default void set(long accountId, long balance) {
+        }
+
+        default void debit(long transferId, long accountId, long balance, long creditAccountId, long amount) {
+        }
+
+        default void credit(long transferId, long accountId, long balance) {
+        }
+
+        default void pending(long transferId, long creditAccountId, long amount) {
+        }
+
+        default void credited(long transferId) {
+        }
+
+    }
+
+}
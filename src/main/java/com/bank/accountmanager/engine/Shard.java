@@ -0,0 +1,382 @@
+package com.bank.accountmanager.engine;
+
+import com.bank.accountmanager.fx.Conversion;
+import com.bank.accountmanager.repository.AccountRepository;
+import com.bank.accountmanager.repository.model.Account;
+import com.bank.accountmanager.service.BalanceService;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.function.Tuple2;
+import reactor.util.function.Tuples;
+import reactor.util.retry.Retry;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+import static com.bank.accountmanager.service.BalanceService.Operation.*;
+
+// all state is only touched from the shard thread, saves run one at a time in the order they were taken
+@Slf4j
+final class Shard {
+    private static final long SEQUENCE_MASK = (1L << 48) - 1;
+
+    private final int index;
+    private final Journal journal;
+    private final AccountRepository accountRepository;
+    private final BalanceService balanceService;
+    private final Set<Long> journaledDebits;
+    private final int flushBatchSize;
+    private final ScheduledExecutorService executor;
+    private final Scheduler scheduler;
+
+    private final LongObjectHashMap<Account> accounts = new LongObjectHashMap<>();
+    private final Queue<Save> saves = new ArrayDeque<>();
+    private final Queue<PendingAppend> pendingAppends = new ArrayDeque<>();
+    private final Map<Long, CreditLeg> openTransfers = new HashMap<>();
+    private final Map<Long, Long> reservedCredits = new HashMap<>();
+    private Map<Long, Account> dirty = new HashMap<>();
+    private Set<Long> activeDebits = new HashSet<>();
+    private Set<Long> activeCredits = new HashSet<>();
+    private Set<Long> previousDebits = new HashSet<>();
+    private Set<Long> previousCredits = new HashSet<>();
+    private boolean saving;
+    private long transferSequence;
+
+    // journaledDebits is shared by all shards and holds the transfers whose debit or pending record is in a journal
+    Shard(int index, Journal journal, AccountRepository accountRepository, BalanceService balanceService,
+          Set<Long> journaledDebits, int flushBatchSize) {
+        this.index = index;
+        this.journal = journal;
+        this.accountRepository = accountRepository;
+        this.balanceService = balanceService;
+        this.journaledDebits = journaledDebits;
+        this.flushBatchSize = flushBatchSize;
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            var thread = new Thread(runnable, "ledger-shard-" + index);
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.scheduler = Schedulers.fromExecutorService(executor, "ledger-shard-" + index);
+    }
+
+    // a segment left behind by a switch is only reset once the replayed balances are persisted
+    void start(Duration flushInterval) {
+        executor.execute(() -> {
+            if (!journal.canSwitch()) {
+                resetPrevious();
+            }
+        });
+        executor.scheduleWithFixedDelay(this::flush, flushInterval.toMillis(), flushInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    Mono<Account> find(long accountId) {
+        return execute(() -> Mono.justOrEmpty(accounts.get(accountId)));
+    }
+
+    Mono<Account> register(Account account) {
+        return execute(() -> {
+            var existing = accounts.putIfAbsent(account.getId(), account);
+            return Mono.just(existing != null ? existing : account);
+        });
+    }
+
+    Mono<Account> deposit(long accountId, BigDecimal amount) {
+        return execute(() -> Mono.justOrEmpty(accounts.get(accountId))
+                .flatMap(account -> balanceService.checkAmount(DEPOSIT, account.getCurrency(), amount)
+                        .flatMap(minorUnits -> balanceService.checkCredit(DEPOSIT, reservedCopyOf(account), minorUnits))
+                        .flatMap(minorUnits -> balanceService.addAmountToBalance(copyOf(account), minorUnits)))
+                .flatMap(account -> commit(account, () -> journal.appendSet(account.getId(), account.getBalance()), null)));
+    }
+
+    Mono<Account> withdraw(long accountId, BigDecimal amount) {
+        return execute(() -> Mono.justOrEmpty(accounts.get(accountId))
+                .flatMap(account -> balanceService.checkAmount(WITHDRAW, account.getCurrency(), amount)
+                        .flatMap(minorUnits -> balanceService.subtractAmountFromBalance(copyOf(account), minorUnits)))
+                .flatMap(account -> commit(account, () -> journal.appendSet(account.getId(), account.getBalance()), null)));
+    }
+
+    // the credit was reserved on the target shard before
+    Mono<Tuple2<Account, CreditLeg>> debit(long accountId, Account target, Conversion conversion) {
+        return execute(() -> Mono.justOrEmpty(accounts.get(accountId))
+                .flatMap(account -> balanceService.modifyBalances(Tuples.of(copyOf(account), detachedCopyOf(target)),
+                        conversion.amount(), conversion.converted()))
+                .flatMap(accounts -> {
+                    var debited = accounts.getT1();
+                    var credit = new CreditLeg(nextTransferId(), target.getId(), conversion.converted());
+                    return commit(debited,
+                            () -> journal.appendDebit(credit.transferId(), debited.getId(), debited.getBalance(),
+                                    credit.accountId(), credit.amount()),
+                            () -> {
+                                journaledDebits.add(credit.transferId());
+                                activeDebits.add(credit.transferId());
+                                openTransfers.put(credit.transferId(), credit);
+                            })
+                            .map(committed -> Tuples.of(committed, credit));
+                }));
+    }
+
+    // deposits leave room for the reserved credits
+    Mono<Account> reserveCredit(long accountId, long amount) {
+        return execute(() -> Mono.justOrEmpty(accounts.get(accountId))
+                .flatMap(account -> balanceService.checkCredit(TRANSFER, reservedCopyOf(account), amount)
+                        .doOnNext(reserved -> reservedCredits.merge(accountId, amount, Long::sum))
+                        .thenReturn(account)));
+    }
+
+    void releaseCredit(long accountId, long amount) {
+        scheduler.schedule(() -> release(accountId, amount));
+    }
+
+    Mono<Account> credit(CreditLeg credit) {
+        return execute(() -> Mono.justOrEmpty(accounts.get(credit.accountId()))
+                .flatMap(account -> {
+                    release(credit.accountId(), credit.amount());
+                    var credited = copyOf(account);
+                    credited.setBalance(Math.addExact(account.getBalance(), credit.amount()));
+                    return commit(credited, () -> journal.appendCredit(credit.transferId(), credited.getId(), credited.getBalance()),
+                            () -> activeCredits.add(credit.transferId()));
+                }));
+    }
+
+    void settle(long transferId) {
+        scheduler.schedule(() -> openTransfers.remove(transferId));
+    }
+
+    void load(Account account) {
+        accounts.put(account.getId(), account);
+    }
+
+    Account get(long accountId) {
+        return accounts.get(accountId);
+    }
+
+    Journal journal() {
+        return journal;
+    }
+
+    // called before the shard is started
+    void replayed(Account account) {
+        accounts.put(account.getId(), account);
+        dirty.put(account.getId(), account);
+    }
+
+    void replayedDebit(boolean activeSegment, CreditLeg credit) {
+        journaledDebits.add(credit.transferId());
+        (activeSegment ? activeDebits : previousDebits).add(credit.transferId());
+    }
+
+    void replayedCredit(boolean activeSegment, long transferId) {
+        (activeSegment ? activeCredits : previousCredits).add(transferId);
+    }
+
+    void replayedOpen(CreditLeg credit) {
+        openTransfers.put(credit.transferId(), credit);
+    }
+
+    // a transfer id must not be reused while a journal may still mention it
+    void startSequenceAfter(long transferId) {
+        if (transferId >>> 48 == index) {
+            transferSequence = Math.max(transferSequence, transferId & SEQUENCE_MASK);
+        }
+    }
+
+    Mono<Void> persistReplayed() {
+        var batch = new ArrayList<>(dirty.values());
+        dirty = new HashMap<>();
+        return accountRepository.saveAll(batch).then();
+    }
+
+    void shutdown() throws IOException {
+        execute(() -> {
+            var saved = Sinks.<Void>empty();
+            persist(takeDirty(), () -> saved.tryEmitEmpty());
+            return saved.asMono();
+        }).block();
+        executor.shutdown();
+        journal.close();
+    }
+
+    private <T> Mono<T> execute(Supplier<Mono<T>> task) {
+        return Mono.defer(task)
+                .subscribeOn(scheduler)
+                .publishOn(Schedulers.parallel());
+    }
+
+    // acknowledged once the record is journaled, the next operation of the shard already sees the balance
+    private Mono<Account> commit(Account account, BooleanSupplier write, Runnable onAppended) {
+        accounts.put(account.getId(), account);
+        dirty.put(account.getId(), account);
+        if (dirty.size() >= flushBatchSize) {
+            flush();
+        }
+        return append(write, onAppended).thenReturn(account);
+    }
+
+    private Mono<Void> append(BooleanSupplier write, Runnable onAppended) {
+        if (pendingAppends.isEmpty() && write.getAsBoolean()) {
+            if (onAppended != null) {
+                onAppended.run();
+            }
+            return Mono.empty();
+        }
+        var appended = Sinks.<Void>empty();
+        pendingAppends.add(new PendingAppend(write, onAppended, appended));
+        if (pendingAppends.size() == 1) {
+            switchSegment();
+        }
+        return appended.asMono();
+    }
+
+    private void switchSegment() {
+        if (!journal.canSwitch()) {
+            log.info("Journal of shard {} is full, waiting for the previous segment to be persisted", index);
+            return;
+        }
+        journal.switchSegment();
+        previousDebits = activeDebits;
+        previousCredits = activeCredits;
+        activeDebits = new HashSet<>();
+        activeCredits = new HashSet<>();
+        for (CreditLeg credit : openTransfers.values()) {
+            carry(journal.appendPending(credit.transferId(), credit.accountId(), credit.amount()));
+            activeDebits.add(credit.transferId());
+        }
+        for (Long transferId : previousCredits) {
+            if (journaledDebits.contains(transferId)) {
+                carry(journal.appendCredited(transferId));
+                activeCredits.add(transferId);
+            }
+        }
+        log.info("Journal segment of shard {} is full, persisting its balances before reuse", index);
+        persist(takeDirty(), this::resetPrevious);
+        appendPending();
+    }
+
+    private void resetPrevious() {
+        journal.resetPrevious();
+        for (Long transferId : previousDebits) {
+            if (!activeDebits.contains(transferId)) {
+                journaledDebits.remove(transferId);
+            }
+        }
+        previousDebits = new HashSet<>();
+        previousCredits = new HashSet<>();
+        if (!pendingAppends.isEmpty()) {
+            switchSegment();
+        }
+    }
+
+    private void appendPending() {
+        for (PendingAppend next; (next = pendingAppends.peek()) != null; pendingAppends.poll()) {
+            if (!next.write().getAsBoolean()) {
+                return;
+            }
+            if (next.onAppended() != null) {
+                next.onAppended().run();
+            }
+            next.appended().tryEmitEmpty();
+        }
+    }
+
+    private void carry(boolean appended) {
+        if (!appended) {
+            throw new IllegalStateException("Journal segment of shard %d cannot hold the records carried over".formatted(index));
+        }
+    }
+
+    private void flush() {
+        if (!dirty.isEmpty() && saves.isEmpty()) {
+            persist(takeDirty(), null);
+        }
+    }
+
+    private List<Account> takeDirty() {
+        List<Account> batch = new ArrayList<>(dirty.values());
+        dirty = new HashMap<>();
+        return batch;
+    }
+
+    private void persist(List<Account> batch, Runnable onSaved) {
+        saves.add(new Save(batch, onSaved));
+        saveNext();
+    }
+
+    // a failed save is retried before any later one
+    private void saveNext() {
+        if (saving || saves.isEmpty()) {
+            return;
+        }
+        var save = saves.poll();
+        saving = true;
+        accountRepository.saveAll(save.batch())
+                .then()
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofMillis(100))
+                        .maxBackoff(Duration.ofSeconds(5))
+                        .doBeforeRetry(signal -> log.error("Could not persist {} balances of shard {}, retrying, message {}",
+                                save.batch().size(), index, signal.failure().getMessage())))
+                .publishOn(scheduler)
+                .subscribe(null, null, () -> {
+                    saving = false;
+                    if (save.onSaved() != null) {
+                        save.onSaved().run();
+                    }
+                    saveNext();
+                });
+    }
+
+    // credits re-applied at startup were never reserved
+    private void release(long accountId, long amount) {
+        reservedCredits.computeIfPresent(accountId, (id, reserved) -> reserved > amount ? reserved - amount : null);
+    }
+
+    private Account reservedCopyOf(Account account) {
+        var copy = copyOf(account);
+        copy.setBalance(account.getBalance() + reservedCredits.getOrDefault(account.getId(), 0L));
+        return copy;
+    }
+
+    private long nextTransferId() {
+        return (long) index << 48 | ++transferSequence;
+    }
+
+    static Account copyOf(Account account) {
+        var copy = detachedCopyOf(account);
+        copy.setId(account.getId());
+        copy.setBalance(account.getBalance());
+        return copy;
+    }
+
+    private static Account detachedCopyOf(Account account) {
+        return new Account(account.getCurrency(), account.getCustomerId(), account.getCreatedAt());
+    }
+
+    record CreditLeg(long transferId, long accountId, long amount) {
+
+    }
+
+    private record Save(List<Account> batch, Runnable onSaved) {
+
+    }
+
+    private record PendingAppend(BooleanSupplier write, Runnable onAppended, Sinks.Empty<Void> appended) {
+
+    }
+
+}
@@ -0,0 +1,268 @@
+package com.bank.accountmanager.engine;
+
+import com.bank.accountmanager.configuration.EngineProperties;
+import com.bank.accountmanager.fx.Conversion;
+import com.bank.accountmanager.fx.FxRates;
+import com.bank.accountmanager.handler.exception.InvalidAmountException;
+import com.bank.accountmanager.handler.request.TransferRequest;
+import com.bank.accountmanager.handler.response.TransferResult;
+import com.bank.accountmanager.repository.AccountRepository;
+import com.bank.accountmanager.repository.model.Account;
+import com.bank.accountmanager.service.AccountOperations;
+import com.bank.accountmanager.service.BalanceService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.function.Tuple2;
+import reactor.util.function.Tuples;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import static com.bank.accountmanager.service.BalanceService.Operation.TRANSFER;
+
+// balances are owned by single-writer shards, a write is acknowledged once it is in the shard journal
+@Slf4j
+@Service
+@ConditionalOnProperty(prefix = "accountmanager.operations", name = "mode", havingValue = "sharded")
+public class ShardedAccountOperations implements AccountOperations, InitializingBean, DisposableBean {
+
+    private final AccountRepository accountRepository;
+    private final BalanceService balanceService;
+    private final FxRates fxRates;
+    private final EngineProperties properties;
+    private final Shard[] shards;
+    private final Set<Long> journaledDebits = ConcurrentHashMap.newKeySet();
+
+    public ShardedAccountOperations(AccountRepository accountRepository, BalanceService balanceService, FxRates fxRates,
+                                    EngineProperties properties) throws IOException {
+        this.accountRepository = accountRepository;
+        this.balanceService = balanceService;
+        this.fxRates = fxRates;
+        this.properties = properties;
+        this.shards = new Shard[properties.shards()];
+        for (int i = 0; i < shards.length; i++) {
+            var journal = Journal.open(Path.of(properties.journalDirectory(), "shard-%d.journal".formatted(i)),
+                    (int) properties.journalSize().toBytes(), properties.journalForce());
+            shards[i] = new Shard(i, journal, accountRepository, balanceService, journaledDebits,
+                    properties.flushBatchSize());
+        }
+    }
+
+    @Override
+    public Mono<Account> findAccount(long accountId) {
+        return load(accountId);
+    }
+
+    // accounts the shards do not hold yet are loaded with one query
+    @Override
+    public Flux<Account> findAccounts(Collection<Long> accountIds) {
+        return Flux.fromIterable(accountIds)
+                .flatMap(accountId -> shardOf(accountId).find(accountId))
+                .collectMap(Account::getId)
+                .flatMapMany(held -> {
+                    var missing = accountIds.stream().filter(accountId -> !held.containsKey(accountId)).collect(Collectors.toList());
+                    var loaded = missing.isEmpty()
+                            ? Flux.<Account>empty()
+                            : accountRepository.findAllById(missing).flatMap(account -> shardOf(account.getId()).register(account));
+                    return Flux.fromIterable(held.values()).concatWith(loaded);
+                });
+    }
+
+    // the shards hold newer balances than the table for the accounts they loaded
+    @Override
+    public Flux<Account> findCustomerAccounts(long customerId) {
+        return accountRepository.findAllByCustomerId(customerId)
+                .flatMapSequential(account -> shardOf(account.getId()).find(account.getId()).defaultIfEmpty(account));
+    }
+
+    @Override
+    public Mono<Account> deposit(long accountId, BigDecimal amount) {
+        return load(accountId).flatMap(account -> shardOf(accountId).deposit(accountId, amount));
+    }
+
+    @Override
+    public Mono<Account> withdraw(long accountId, BigDecimal amount) {
+        return load(accountId).flatMap(account -> shardOf(accountId).withdraw(accountId, amount));
+    }
+
+    // the credit is reserved before the debit is journaled, a journaled debit must always be creditable
+    @Override
+    public Mono<Tuple2<Account, Account>> transfer(long idFrom, long idTo, BigDecimal amount) {
+        if (idFrom == idTo) {
+            return Mono.error(new InvalidAmountException("Cannot transfer from account %d to itself".formatted(idFrom)));
+        }
+        return load(idFrom)
+                .zipWith(load(idTo))
+                .flatMap(accounts -> balanceService.checkAmount(TRANSFER, accounts.getT1().getCurrency(), amount)
+                        .flatMap(minorUnits -> fxRates.convert(accounts.getT1().getCurrency(), accounts.getT2().getCurrency(), minorUnits))
+                        .flatMap(conversion -> reserveAndDebit(idFrom, idTo, conversion)))
+                .flatMap(debit -> shardOf(idTo).credit(debit.getT2())
+                        .doOnNext(credited -> shardOf(idFrom).settle(debit.getT2().transferId()))
+                        .map(credited -> Tuples.of(debit.getT1(), credited)));
+    }
+
+    private Mono<Tuple2<Account, CreditLeg>> reserveAndDebit(long idFrom, long idTo, Conversion conversion) {
+        Runnable release = () -> shardOf(idTo).releaseCredit(idTo, conversion.converted());
+        return shardOf(idTo).reserveCredit(idTo, conversion.converted())
+                .flatMap(target -> shardOf(idFrom).debit(idFrom, target, conversion)
+                        .doOnError(error -> release.run())
+                        .switchIfEmpty(Mono.fromRunnable(release)));
+    }
+
+    // batches are applied item by item, the shards have no chunk transactions
+    @Override
+    public Flux<TransferResult> transferAll(Flux<TransferRequest> transfers, boolean allOrNothing) {
+        return transfers.concatMap(transfer -> {
+            if (allOrNothing) {
+                return Mono.just(TransferResult.failed(transfer, "All-or-nothing batches are not supported by the sharded engine"));
+            }
+            if (transfer.from() == null || transfer.to() == null || transfer.amount() == null) {
+                return Mono.just(TransferResult.failed(transfer, "Transfer requires from, to and amount"));
+            }
+            return transfer(transfer.from(), transfer.to(), transfer.amount())
+                    .map(accounts -> TransferResult.completed(transfer))
+                    .onErrorResume(error -> Mono.just(TransferResult.failed(transfer, error.getMessage())))
+                    .defaultIfEmpty(TransferResult.failed(transfer, "Account not found"));
+        });
+    }
+
+    // credits that did not reach their shard are journaled again before the debit can be dropped
+    @Override
+    public void afterPropertiesSet() {
+        accountRepository.findAll()
+                .doOnNext(account -> shardOf(account.getId()).load(account))
+                .then()
+                .block();
+        var pendingCredits = replayJournals();
+        Flux.fromArray(shards)
+                .concatMap(Shard::persistReplayed)
+                .then()
+                .block();
+        for (Shard shard : shards) {
+            shard.start(properties.flushInterval());
+        }
+        Flux.fromIterable(pendingCredits)
+                .concatMap(this::reapply)
+                .then()
+                .block();
+        log.info("Started {} ledger shards", shards.length);
+    }
+
+    @Override
+    public void destroy() throws IOException {
+        for (Shard shard : shards) {
+            shard.shutdown();
+        }
+    }
+
+    private Mono<Account> load(long accountId) {
+        var shard = shardOf(accountId);
+        return shard.find(accountId)
+                .switchIfEmpty(Mono.defer(() -> accountRepository.findById(accountId).flatMap(shard::register)));
+    }
+
+    // only the credit legs that did not reach their shard are returned
+    private List<Tuple2<Shard, Shard.CreditLeg>> replayJournals() {
+        Map<Long, Shard.CreditLeg> pendingCredits = new HashMap<>();
+        Map<Long, Shard> debitShards = new HashMap<>();
+        Set<Long> appliedCredits = new HashSet<>();
+        for (Shard shard : shards) {
+            shard.journal().replay(new Journal.Visitor() {
+                private boolean active;
+
+                @Override
+                public void segment(boolean active) {
+                    this.active = active;
+                }
+
+                @Override
+                public void set(long accountId, long balance) {
+                    replay(accountId, balance);
+                }
+
+                @Override
+                public void debit(long transferId, long accountId, long balance, long creditAccountId, long amount) {
+                    replay(accountId, balance);
+                    pending(transferId, creditAccountId, amount);
+                }
+
+                @Override
+                public void pending(long transferId, long creditAccountId, long amount) {
+                    var credit = new Shard.CreditLeg(transferId, creditAccountId, amount);
+                    shard.replayedDebit(active, credit);
+                    pendingCredits.put(transferId, credit);
+                    debitShards.put(transferId, shard);
+                    startSequencesAfter(transferId);
+                }
+
+                @Override
+                public void credit(long transferId, long accountId, long balance) {
+                    replay(accountId, balance);
+                    credited(transferId);
+                }
+
+                @Override
+                public void credited(long transferId) {
+                    shard.replayedCredit(active, transferId);
+                    appliedCredits.add(transferId);
+                    startSequencesAfter(transferId);
+                }
+
+            });
+        }
+        pendingCredits.keySet().removeAll(appliedCredits);
+        pendingCredits.values().forEach(credit -> debitShards.get(credit.transferId()).replayedOpen(credit));
+        return pendingCredits.values().stream()
+                .map(credit -> Tuples.of(debitShards.get(credit.transferId()), credit))
+                .collect(Collectors.toList());
+    }
+
+    // an id still journaled by any shard must not be reused, even by a shard that dropped its own record of it
+    private void startSequencesAfter(long transferId) {
+        for (Shard shard : shards) {
+            shard.startSequenceAfter(transferId);
+        }
+    }
+
+    // an overflow stops the startup instead of wrapping the balance
+    private Mono<Account> reapply(Tuple2<Shard, Shard.CreditLeg> pending) {
+        var credit = pending.getT2();
+        log.info("Re-applying credit of transfer {} to account {}", credit.transferId(), credit.accountId());
+        return shardOf(credit.accountId()).credit(credit)
+                .onErrorMap(ArithmeticException.class, error -> new IllegalStateException(
+                        "Re-applying transfer %d overflows the balance of account %d".formatted(credit.transferId(), credit.accountId()), error))
+                .switchIfEmpty(Mono.error(() -> new IllegalStateException(
+                        "Account %d credited by transfer %d is missing".formatted(credit.accountId(), credit.transferId()))))
+                .doOnNext(credited -> pending.getT1().settle(credit.transferId()));
+    }
+
+    private void replay(long accountId, long balance) {
+        var shard = shardOf(accountId);
+        var account = shard.get(accountId);
+        if (account == null) {
+            throw new IllegalStateException("Journaled account %d is missing from the database".formatted(accountId));
+        }
+        var replayed = Shard.copyOf(account);
+        replayed.setBalance(balance);
+        shard.replayed(replayed);
+    }
+
+    private Shard shardOf(long accountId) {
+        return shards[(int) Math.floorMod(accountId, (long) shards.length)];
+    }
+
+}
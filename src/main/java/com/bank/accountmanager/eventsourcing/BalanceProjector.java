@@ -0,0 +1,97 @@
+package com.bank.accountmanager.eventsourcing;
+
+import com.bank.accountmanager.configuration.EventSourcingProperties;
+import com.bank.accountmanager.repository.BalanceSnapshotRepository;
+import com.bank.accountmanager.repository.LedgerRepository;
+import com.bank.accountmanager.repository.model.Account;
+import com.bank.accountmanager.repository.model.BalanceSnapshot;
+import com.bank.accountmanager.repository.model.LedgerEntry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.util.List;
+
+// the balance column of an account without a snapshot stands in as its genesis snapshot
+@Component
+@ConditionalOnProperty(prefix = "accountmanager.operations", name = "mode", havingValue = "event-sourced")
+public class BalanceProjector {
+
+    private final LedgerRepository ledgerRepository;
+    private final BalanceSnapshotRepository snapshotRepository;
+    private final int snapshotInterval;
+
+    public BalanceProjector(LedgerRepository ledgerRepository, BalanceSnapshotRepository snapshotRepository,
+                            EventSourcingProperties properties) {
+        this.ledgerRepository = ledgerRepository;
+        this.snapshotRepository = snapshotRepository;
+        this.snapshotInterval = properties.snapshotInterval();
+    }
+
+    // the balance of the returned account is replaced by the projected one
+    public Mono<Projection> current(Account account) {
+        return snapshotRepository.findLatest(account.getId())
+                .switchIfEmpty(Mono.defer(() -> genesis(account)))
+                .flatMap(snapshot -> ledgerRepository.findTail(account.getId(), snapshot.getEntryId())
+                        .collectList()
+                        .map(tail -> {
+                            account.setBalance(tail.stream().mapToLong(LedgerEntry::getAmount).sum() + snapshot.getBalance());
+                            return new Projection(account, snapshot, tail);
+                        }));
+    }
+
+    // replays forward from the latest snapshot before asOf, or undoes entries from the earliest one when there is none
+    public Mono<Account> balanceAt(Account account, Instant asOf) {
+        if (asOf.isBefore(account.getCreatedAt())) {
+            return Mono.empty();
+        }
+        var accountId = account.getId();
+        return snapshotRepository.findLatestAt(accountId, asOf)
+                .flatMap(snapshot -> ledgerRepository.findTailUntil(accountId, snapshot.getEntryId(), asOf)
+                        .reduce(snapshot.getBalance(), (balance, entry) -> balance + entry.getAmount()))
+                .switchIfEmpty(Mono.defer(() -> snapshotRepository.findEarliest(accountId)
+                        .switchIfEmpty(Mono.defer(() -> genesis(account)))
+                        .flatMap(snapshot -> ledgerRepository.findCreatedAfter(accountId, asOf, snapshot.getEntryId())
+                                .reduce(snapshot.getBalance(), (balance, entry) -> balance - entry.getAmount()))))
+                .map(balance -> {
+                    account.setBalance(balance);
+                    return account;
+                });
+    }
+
+    // called in the transaction of the event, persists the genesis snapshot and every snapshotInterval-th one
+    public Mono<Void> appended(Projection projection, LedgerEntry entry) {
+        var genesis = projection.base().getId() == null
+                ? snapshotRepository.save(projection.base()).then()
+                : Mono.<Void>empty();
+        var snapshot = projection.tail().size() + 1 >= snapshotInterval
+                ? snapshotRepository.save(new BalanceSnapshot(entry.getAccountId(), entry.getId(), entry.getBalance(), entry.getCreatedAt())).then()
+                : Mono.<Void>empty();
+        return genesis.then(snapshot);
+    }
+
+    // persists the snapshots a rebuild of the account would need
+    public Mono<Void> compact(Projection projection) {
+        var genesis = projection.base().getId() == null
+                ? snapshotRepository.save(projection.base()).then()
+                : Mono.<Void>empty();
+        if (projection.tail().size() < snapshotInterval) {
+            return genesis;
+        }
+        var last = projection.tail().get(projection.tail().size() - 1);
+        return genesis.then(snapshotRepository.save(new BalanceSnapshot(last.getAccountId(), last.getId(),
+                projection.account().getBalance(), last.getCreatedAt())).then());
+    }
+
+    private Mono<BalanceSnapshot> genesis(Account account) {
+        return ledgerRepository.findLast(account.getId())
+                .map(entry -> new BalanceSnapshot(account.getId(), entry.getId(), account.getBalance(), entry.getCreatedAt()))
+                .defaultIfEmpty(new BalanceSnapshot(account.getId(), 0, account.getBalance(), account.getCreatedAt()));
+    }
+
+    public record Projection(Account account, BalanceSnapshot base, List<LedgerEntry> tail) {
+
+    }
+
+}
@@ -0,0 +1,185 @@
+package com.bank.accountmanager.eventsourcing;
+
+import com.bank.accountmanager.configuration.EventSourcingProperties;
+import com.bank.accountmanager.eventsourcing.BalanceProjector.Projection;
+import com.bank.accountmanager.fx.FxRates;
+import com.bank.accountmanager.handler.exception.InvalidAmountException;
+import com.bank.accountmanager.handler.request.TransferRequest;
+import com.bank.accountmanager.handler.response.TransferResult;
+import com.bank.accountmanager.repository.AccountRepository;
+import com.bank.accountmanager.repository.LedgerRepository;
+import com.bank.accountmanager.repository.model.Account;
+import com.bank.accountmanager.repository.model.LedgerEntry;
+import com.bank.accountmanager.repository.model.LedgerEntry.EntryType;
+import com.bank.accountmanager.service.AccountOperations;
+import com.bank.accountmanager.service.BalanceService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.ReactiveTransactionManager;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.function.Tuple2;
+import reactor.util.function.Tuples;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import static com.bank.accountmanager.service.BalanceService.Operation.*;
+
+// balances are derived from the append-only ledger, the balance column is written along so other modes can take over
+@Slf4j
+@Service
+@ConditionalOnProperty(prefix = "accountmanager.operations", name = "mode", havingValue = "event-sourced")
+public class EventSourcedAccountOperations implements AccountOperations {
+
+    private final AccountRepository accountRepository;
+    private final LedgerRepository ledgerRepository;
+    private final BalanceService balanceService;
+    private final BalanceProjector projector;
+    private final FxRates fxRates;
+    private final TransactionalOperator transactionalOperator;
+    private final int rebuildPartitions;
+
+    public EventSourcedAccountOperations(AccountRepository accountRepository, LedgerRepository ledgerRepository,
+                                         BalanceService balanceService, BalanceProjector projector, FxRates fxRates,
+                                         ReactiveTransactionManager transactionManager, EventSourcingProperties properties) {
+        this.accountRepository = accountRepository;
+        this.ledgerRepository = ledgerRepository;
+        this.balanceService = balanceService;
+        this.projector = projector;
+        this.fxRates = fxRates;
+        this.transactionalOperator = TransactionalOperator.create(transactionManager);
+        this.rebuildPartitions = properties.rebuildPartitions();
+    }
+
+    @Override
+    public Mono<Account> findAccount(long accountId) {
+        return accountRepository.findById(accountId)
+                .flatMap(projector::current)
+                .map(Projection::account);
+    }
+
+    // the accounts are read with one query, their tails are still replayed one by one
+    @Override
+    public Flux<Account> findAccounts(Collection<Long> accountIds) {
+        return accountRepository.findAllById(accountIds)
+                .flatMap(projector::current)
+                .map(Projection::account);
+    }
+
+    @Override
+    public Flux<Account> findCustomerAccounts(long customerId) {
+        return accountRepository.findAllByCustomerId(customerId)
+                .flatMapSequential(projector::current)
+                .map(Projection::account);
+    }
+
+    @Override
+    public Mono<Account> findAccount(long accountId, Instant asOf) {
+        return accountRepository.findById(accountId)
+                .flatMap(account -> projector.balanceAt(account, asOf));
+    }
+
+    @Override
+    public Mono<Account> deposit(long accountId, BigDecimal amount) {
+        return locked(List.of(accountId), projections -> {
+            var projection = projections.get(accountId);
+            return balanceService.checkAmount(DEPOSIT, projection.account().getCurrency(), amount)
+                    .flatMap(validAmount -> balanceService.addAmountToBalance(projection.account(), validAmount)
+                            .flatMap(account -> append(projection, EntryType.DEPOSIT, validAmount, null, null)));
+        });
+    }
+
+    @Override
+    public Mono<Account> withdraw(long accountId, BigDecimal amount) {
+        return locked(List.of(accountId), projections -> {
+            var projection = projections.get(accountId);
+            return balanceService.checkAmount(WITHDRAW, projection.account().getCurrency(), amount)
+                    .flatMap(validAmount -> balanceService.subtractAmountFromBalance(projection.account(), validAmount)
+                            .flatMap(account -> append(projection, EntryType.WITHDRAW, -validAmount, null, null)));
+        });
+    }
+
+    @Override
+    public Mono<Tuple2<Account, Account>> transfer(long idFrom, long idTo, BigDecimal amount) {
+        if (idFrom == idTo) {
+            return Mono.error(new InvalidAmountException("Cannot transfer from account %d to itself".formatted(idFrom)));
+        }
+        return locked(List.of(Math.min(idFrom, idTo), Math.max(idFrom, idTo)), projections -> {
+            var from = projections.get(idFrom);
+            var to = projections.get(idTo);
+            return balanceService.checkAmount(TRANSFER, from.account().getCurrency(), amount)
+                    .flatMap(validAmount -> fxRates.convert(from.account().getCurrency(), to.account().getCurrency(), validAmount))
+                    .flatMap(conversion -> balanceService.modifyBalances(Tuples.of(from.account(), to.account()),
+                                    conversion.amount(), conversion.converted())
+                            .flatMap(accounts -> append(from, EntryType.TRANSFER_OUT, -conversion.amount(), idTo, conversion.rateVersion()))
+                            .flatMap(debited -> append(to, EntryType.TRANSFER_IN, conversion.converted(), idFrom, conversion.rateVersion())
+                                    .map(credited -> Tuples.of(debited, credited))));
+        });
+    }
+
+    // every transfer of a batch is its own transaction
+    @Override
+    public Flux<TransferResult> transferAll(Flux<TransferRequest> transfers, boolean allOrNothing) {
+        return transfers.concatMap(transfer -> {
+            if (allOrNothing) {
+                return Mono.just(TransferResult.failed(transfer, "All-or-nothing batches are not supported by the event-sourced mode"));
+            }
+            if (transfer.from() == null || transfer.to() == null || transfer.amount() == null) {
+                return Mono.just(TransferResult.failed(transfer, "Transfer requires from, to and amount"));
+            }
+            return transfer(transfer.from(), transfer.to(), transfer.amount())
+                    .map(accounts -> TransferResult.completed(transfer))
+                    .onErrorResume(error -> Mono.just(TransferResult.failed(transfer, error.getMessage())))
+                    .defaultIfEmpty(TransferResult.failed(transfer, "Account not found"));
+        });
+    }
+
+    // writes missing genesis snapshots and compacts long tails, balances are correct without it
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        accountRepository.findMaxId()
+                .flatMapMany(maxId -> {
+                    var rangeSize = maxId / rebuildPartitions + 1;
+                    return Flux.range(0, rebuildPartitions)
+                            .flatMap(range -> accountRepository.findIdsBetween(range * rangeSize + 1, (range + 1) * rangeSize)
+                                    .concatMap(this::rebuildAccount), rebuildPartitions);
+                })
+                .count()
+                .subscribe(rebuilt -> log.info("Rebuilt the balance projections of {} accounts in {} partitions", rebuilt, rebuildPartitions),
+                        error -> log.error("Could not rebuild the balance projections, message {}", error.getMessage()));
+    }
+
+    private Mono<Long> rebuildAccount(long accountId) {
+        return locked(List.of(accountId), projections -> projector.compact(projections.get(accountId)).thenReturn(accountId));
+    }
+
+    // empty when one of the accounts does not exist
+    private <T> Mono<T> locked(List<Long> accountIds, Function<Map<Long, Projection>, Mono<T>> operation) {
+        return accountRepository.findAllByIdForUpdate(accountIds)
+                .concatMap(projector::current)
+                .collectMap(projection -> projection.account().getId())
+                .filter(projections -> projections.size() == accountIds.size())
+                .flatMap(operation)
+                .as(transactionalOperator::transactional);
+    }
+
+    private Mono<Account> append(Projection projection, EntryType type, long amount, Long counterpartyAccountId, Long fxVersion) {
+        var account = projection.account();
+        var entry = new LedgerEntry(account.getId(), type, amount, account.getBalance(), counterpartyAccountId, Instant.now());
+        entry.setFxVersion(fxVersion);
+        return ledgerRepository.save(entry)
+                .flatMap(entry -> projector.appended(projection, entry))
+                .then(accountRepository.setBalances(List.of(account)))
+                .thenReturn(account);
+    }
+
+}
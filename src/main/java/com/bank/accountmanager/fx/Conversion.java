@@ -0,0 +1,6 @@
+package com.bank.accountmanager.fx;
+
+// amount in minor units of the source currency, converted in minor units of the target currency
+public record Conversion(long amount, long converted, long rateVersion) {
+
+}
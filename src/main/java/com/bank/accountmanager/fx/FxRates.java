@@ -0,0 +1,95 @@
+package com.bank.accountmanager.fx;
+
+import com.bank.accountmanager.configuration.FxProperties;
+import com.bank.accountmanager.repository.model.Currency;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicReference;
+
+// a reload swaps the whole snapshot, versions are the load time in epoch milliseconds and kept increasing
+@Slf4j
+@Component
+public class FxRates implements InitializingBean, DisposableBean {
+
+    private final FxProperties properties;
+    private final AtomicReference<RateSnapshot> snapshot;
+    private Disposable reloads;
+    private long ratesFileModified;
+
+    public FxRates(FxProperties properties) {
+        this.properties = properties;
+        this.snapshot = new AtomicReference<>(RateSnapshot.of(System.currentTimeMillis(),
+                properties.rates() == null ? Map.of() : properties.rates()));
+    }
+
+    public RateSnapshot snapshot() {
+        return snapshot.get();
+    }
+
+    public Mono<Conversion> convert(Currency from, Currency to, long amount) {
+        return snapshot.get().convert(from, to, amount);
+    }
+
+    // replaces all rates, throws IllegalArgumentException if a rate is not positive
+    public RateSnapshot update(Map<Currency, BigDecimal> rates) {
+        var updated = snapshot.updateAndGet(current -> RateSnapshot.of(Math.max(current.version() + 1, System.currentTimeMillis()), rates));
+        log.info("Loaded exchange rates version {}, rates {}", updated.version(), updated.rates());
+        return updated;
+    }
+
+    // the file is read before the first request and then polled for changes
+    @Override
+    public void afterPropertiesSet() {
+        if (properties.ratesFile().isBlank()) {
+            return;
+        }
+        var ratesFile = Path.of(properties.ratesFile());
+        reload(ratesFile);
+        reloads = Flux.interval(properties.reloadInterval(), Schedulers.boundedElastic())
+                .subscribe(tick -> reload(ratesFile));
+    }
+
+    @Override
+    public void destroy() {
+        if (reloads != null) {
+            reloads.dispose();
+        }
+    }
+
+    // a file that cannot be read or holds invalid rates keeps the current snapshot
+    private void reload(Path ratesFile) {
+        try {
+            var modified = Files.getLastModifiedTime(ratesFile).toMillis();
+            if (modified == ratesFileModified) {
+                return;
+            }
+            ratesFileModified = modified;
+            var entries = new Properties();
+            try (var reader = Files.newBufferedReader(ratesFile)) {
+                entries.load(reader);
+            }
+            var rates = new EnumMap<Currency, BigDecimal>(Currency.class);
+            for (var currency : entries.stringPropertyNames()) {
+                rates.put(Currency.valueOf(currency.trim()), new BigDecimal(entries.getProperty(currency).trim()));
+            }
+            update(rates);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not load exchange rates from {}, keeping version {}, message {}", ratesFile, snapshot().version(), e.getMessage());
+        }
+    }
+
+}
@@ -0,0 +1,61 @@
+package com.bank.accountmanager.fx;
+
+import com.bank.accountmanager.configuration.FxProperties;
+import com.bank.accountmanager.repository.AccountRepository;
+import com.bank.accountmanager.repository.model.Currency;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+// warns when accounts are held in currencies without an exchange rate, with fail-on-missing-rates the startup fails
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "accountmanager.fx", name = "startup-check", havingValue = "true", matchIfMissing = true)
+@RequiredArgsConstructor
+public class FxRatesCheck {
+
+    private final AccountRepository accountRepository;
+    private final FxRates fxRates;
+    private final FxProperties properties;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void check() {
+        var check = accountRepository.findCurrencies()
+                .map(Currency::valueOf)
+                .collect(Collectors.toCollection(() -> EnumSet.noneOf(Currency.class)))
+                .flatMap(this::check);
+        if (properties.failOnMissingRates()) {
+            check.block();
+        } else {
+            check.subscribe(null, error -> log.warn("Exchange rates were not checked: {}", error.getMessage()));
+        }
+    }
+
+    private Mono<Void> check(Set<Currency> currencies) {
+        if (currencies.size() < 2) {
+            return Mono.empty();
+        }
+        var missing = EnumSet.copyOf(currencies);
+        missing.removeAll(fxRates.snapshot().rates().keySet());
+        if (missing.isEmpty()) {
+            log.info("Exchange rates cover the currencies {} of the accounts", currencies);
+            return Mono.empty();
+        }
+        var message = "Accounts are held in %s but there is no exchange rate for %s, transfers between them are rejected"
+                .formatted(currencies, missing);
+        if (properties.failOnMissingRates()) {
+            return Mono.error(new IllegalStateException(message));
+        }
+        log.warn(message);
+        return Mono.empty();
+    }
+
+}
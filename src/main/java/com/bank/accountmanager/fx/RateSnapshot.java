@@ -0,0 +1,87 @@
+package com.bank.accountmanager.fx;
+
+import com.bank.accountmanager.handler.exception.InvalidAmountException;
+import com.bank.accountmanager.repository.model.Currency;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+// the factors convert minor units directly and are indexed by the currency ordinals
+public final class RateSnapshot {
+    private static final Currency[] CURRENCIES = Currency.values();
+
+    private final long version;
+    private final Map<Currency, BigDecimal> rates;
+    private final BigDecimal[][] factors;
+
+    private RateSnapshot(long version, Map<Currency, BigDecimal> rates, BigDecimal[][] factors) {
+        this.version = version;
+        this.rates = rates;
+        this.factors = factors;
+    }
+
+    // throws IllegalArgumentException if a rate is not positive
+    static RateSnapshot of(long version, Map<Currency, BigDecimal> rates) {
+        var copy = new EnumMap<Currency, BigDecimal>(Currency.class);
+        rates.forEach((currency, rate) -> {
+            if (rate == null || rate.signum() <= 0) {
+                throw new IllegalArgumentException("Exchange rate of %s must be greater than 0".formatted(currency));
+            }
+            copy.put(currency, rate);
+        });
+
+        var factors = new BigDecimal[CURRENCIES.length][CURRENCIES.length];
+        for (var from : CURRENCIES) {
+            for (var to : CURRENCIES) {
+                if (from == to) {
+                    factors[from.ordinal()][to.ordinal()] = BigDecimal.ONE;
+                } else if (copy.containsKey(from) && copy.containsKey(to)) {
+                    factors[from.ordinal()][to.ordinal()] = copy.get(from).divide(copy.get(to), MathContext.DECIMAL64)
+                            .movePointRight(to.scale() - from.scale());
+                }
+            }
+        }
+        return new RateSnapshot(version, Collections.unmodifiableMap(copy), factors);
+    }
+
+    public long version() {
+        return version;
+    }
+
+    public Map<Currency, BigDecimal> rates() {
+        return rates;
+    }
+
+    // rounded down, so the converted amount is never worth more than the amount taken
+    public Mono<Conversion> convert(Currency from, Currency to, long amount) {
+        if (from == to) {
+            return Mono.just(new Conversion(amount, amount, version));
+        }
+        var factor = factors[from.ordinal()][to.ordinal()];
+        if (factor == null) {
+            return Mono.error(new InvalidAmountException("No exchange rate from %s to %s".formatted(from, to)));
+        }
+        long converted;
+        try {
+            converted = factor.multiply(BigDecimal.valueOf(amount)).setScale(0, RoundingMode.DOWN).longValueExact();
+        } catch (ArithmeticException e) {
+            return Mono.error(new InvalidAmountException("Cannot convert %s %s to %s, the amount exceeds the maximum"
+                    .formatted(format(from, amount), from, to)));
+        }
+        if (converted <= 0) {
+            return Mono.error(new InvalidAmountException("Cannot convert %s %s to %s, the amount is too small"
+                    .formatted(format(from, amount), from, to)));
+        }
+        return Mono.just(new Conversion(amount, converted, version));
+    }
+
+    private static String format(Currency currency, long minorUnits) {
+        return currency.toMajorUnits(minorUnits).stripTrailingZeros().toPlainString();
+    }
+
+}
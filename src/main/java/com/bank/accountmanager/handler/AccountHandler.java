@@ -1,27 +1,56 @@
 package com.bank.accountmanager.handler;
 
+import com.bank.accountmanager.cache.BalanceCache;
+import com.bank.accountmanager.configuration.ReadRouting;
+import com.bank.accountmanager.handler.exception.AsOfNotSupportedException;
+import com.bank.accountmanager.handler.exception.InvalidAmountException;
 import com.bank.accountmanager.handler.request.AccountRequest;
 import com.bank.accountmanager.handler.request.OperationRequest;
+import com.bank.accountmanager.handler.request.TransferRequest;
 import com.bank.accountmanager.handler.response.AccountResponse;
+import com.bank.accountmanager.handler.response.LedgerEntryResponse;
+import com.bank.accountmanager.handler.response.TransferResult;
+import com.bank.accountmanager.idempotency.IdempotencyService;
+import com.bank.accountmanager.idempotency.StoredResponse;
+import com.bank.accountmanager.metrics.StageMetrics;
 import com.bank.accountmanager.repository.AccountRepository;
 import com.bank.accountmanager.repository.model.Account;
 import com.bank.accountmanager.repository.model.Currency;
-import com.bank.accountmanager.service.BalanceService;
+import com.bank.accountmanager.service.AccountOperations;
+import com.bank.accountmanager.service.BalanceLookupService;
+import com.bank.accountmanager.service.LedgerService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.reactive.function.server.ServerRequest;
 import org.springframework.web.reactive.function.server.ServerResponse;
 import reactor.core.publisher.Mono;
 
+import java.math.BigDecimal;
+import java.math.BigInteger;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
-import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
+import static com.bank.accountmanager.metrics.StageMetrics.*;
 import static org.springframework.http.MediaType.APPLICATION_JSON;
+import static org.springframework.http.MediaType.APPLICATION_NDJSON;
+import static org.springframework.http.MediaType.TEXT_PLAIN;
 
 @Component
 @Slf4j
@@ -30,90 +59,285 @@ public class AccountHandler {
     private static final String ACCOUNT_ID = "accountId";
     private static final String ACCOUNT_ID_FROM = "accountIdFrom";
     private static final String ACCOUNT_ID_TO = "accountIdTo";
+    private static final String ALL_OR_NOTHING = "allOrNothing";
+    private static final String AFTER = "after";
+    private static final String AFTER_ID = "afterId";
+    private static final String LIMIT = "limit";
+    private static final String AS_OF = "asOf";
+    private static final String IDS = "ids";
+    private static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+    private static final String GET_BALANCE = "get_balance";
+    private static final String GET_BALANCES = "get_balances";
+    private static final String GET_TRANSACTIONS = "get_transactions";
+    private static final String CREATE_ACCOUNT = "create_account";
+    private static final String DEPOSIT = "deposit";
+    private static final String WITHDRAW = "withdraw";
+    private static final String TRANSFER = "transfer";
+    private static final ParameterizedTypeReference<List<Long>> ACCOUNT_IDS = new ParameterizedTypeReference<>() {
+    };
 
     private final AccountRepository accountRepository;
-    private final BalanceService balanceService;
+    private final AccountOperations accountOperations;
+    private final LedgerService ledgerService;
+    private final BalanceCache balanceCache;
+    private final IdempotencyService idempotencyService;
+    private final ObjectMapper objectMapper;
+    private final StageMetrics stageMetrics;
+    private final BalanceLookupService balanceLookupService;
 
+    // cache misses are read from the primary, a lagging replica could cache a balance older than its invalidation
     public Mono<ServerResponse> getAccountBalance(ServerRequest request) {
-        return accountRepository.findById(Long.parseLong(request.pathVariable(ACCOUNT_ID)))
-                .flatMap(account -> ServerResponse.ok().bodyValue(new AccountResponse(account.getId(), account.getBalance(),
-                        account.getCurrency().name(), Instant.now())))
+        var accountId = Long.parseLong(request.pathVariable(ACCOUNT_ID));
+        var asOf = request.queryParam(AS_OF);
+        if (asOf.isPresent()) {
+            return Mono.fromCallable(() -> Instant.parse(asOf.get()))
+                    .flatMap(instant -> accountOperations.findAccount(accountId, instant))
+                    .contextWrite(ReadRouting.of(request))
+                    .transform(stageMetrics.timed(GET_BALANCE, LOOKUP))
+                    .flatMap(this::balanceResponse)
+                    .switchIfEmpty(ServerResponse.notFound().build())
+                    .onErrorResume(DateTimeParseException.class, error -> ServerResponse.badRequest()
+                            .bodyValue("asOf must be an ISO-8601 instant"))
+                    .onErrorResume(AsOfNotSupportedException.class, error -> ServerResponse.status(HttpStatus.NOT_IMPLEMENTED)
+                            .contentType(TEXT_PLAIN)
+                            .bodyValue(error.getMessage()));
+        }
+        var account = ReadRouting.readYourWrites(request)
+                ? accountOperations.findAccount(accountId)
+                : balanceCache.get(accountId, accountOperations::findAccount);
+        return account
+                .transform(stageMetrics.timed(GET_BALANCE, LOOKUP))
+                .flatMap(this::balanceResponse)
                 .switchIfEmpty(ServerResponse.notFound().build());
     }
 
+    public Mono<ServerResponse> getAccountBalances(ServerRequest request) {
+        return request.bodyToMono(ACCOUNT_IDS)
+                .transform(stageMetrics.timed(GET_BALANCES, DECODE))
+                .defaultIfEmpty(List.of())
+                .flatMap(accountIds -> balancesResponse(request, accountIds));
+    }
+
+    // the ids are comma separated or repeated, e.g. ?ids=1,2&ids=3
+    public Mono<ServerResponse> getAccounts(ServerRequest request) {
+        return Mono.fromCallable(() -> request.queryParams().getOrDefault(IDS, List.of()).stream()
+                        .flatMap(ids -> Arrays.stream(ids.split(",")))
+                        .filter(id -> !id.isBlank())
+                        .map(id -> Long.valueOf(id.trim()))
+                        .collect(Collectors.toList()))
+                .flatMap(accountIds -> balancesResponse(request, accountIds))
+                .onErrorResume(NumberFormatException.class, error -> ServerResponse.badRequest()
+                        .bodyValue("ids must be account ids"));
+    }
+
+    public Mono<ServerResponse> getTransactions(ServerRequest request) {
+        var accountId = Long.parseLong(request.pathVariable(ACCOUNT_ID));
+
+        return Mono.fromCallable(() -> new Page(
+                        request.queryParam(AFTER).map(Instant::parse).orElse(Instant.EPOCH),
+                        request.queryParam(AFTER_ID).map(Long::parseLong).orElse(0L),
+                        request.queryParam(LIMIT).map(Long::parseLong).orElse(Long.MAX_VALUE)))
+                .flatMap(page -> accountOperations.findAccount(accountId)
+                        .contextWrite(ReadRouting.of(request))
+                        .transform(stageMetrics.timed(GET_TRANSACTIONS, LOOKUP))
+                        .flatMap(account -> ServerResponse.ok().contentType(APPLICATION_NDJSON)
+                                .body(ledgerService.statement(accountId, page.after(), page.afterId(), page.limit())
+                                        .map(entry -> LedgerEntryResponse.of(entry, account.getCurrency()))
+                                        .contextWrite(ReadRouting.of(request)), LedgerEntryResponse.class))
+                        .switchIfEmpty(ServerResponse.notFound().build()))
+                .onErrorResume(DateTimeParseException.class, error -> ServerResponse.badRequest()
+                        .bodyValue("after must be an ISO-8601 instant"))
+                .onErrorResume(NumberFormatException.class, error -> ServerResponse.badRequest()
+                        .bodyValue("afterId and limit must be numbers"));
+    }
+
     public Mono<ServerResponse> createAccount(ServerRequest request) {
         return request.bodyToMono(AccountRequest.class)
+                .transform(stageMetrics.timed(CREATE_ACCOUNT, DECODE))
                 .map(this::createAccount)
-                .flatMap(accountRepository::save)
+                .flatMap(account -> accountRepository.save(account).transform(stageMetrics.timed(CREATE_ACCOUNT, SAVE)))
                 .doOnNext(savedAccount -> log.info("Successfully created account with id {}", savedAccount.getId()))
                 .flatMap(createdAccount -> ServerResponse.created(URI.create("/account/%s".formatted(createdAccount.getId())))
-                        .contentType(APPLICATION_JSON)
-                        .bodyValue(new AccountResponse(createdAccount.getId(), createdAccount.getBalance(),
-                                createdAccount.getCurrency().name(), Instant.now())))
-                .onErrorResume(this::isCustomerMissing, error -> ServerResponse.notFound().build());
+                        .bodyValue(AccountResponse.of(createdAccount)))
+                .onErrorResume(this::isCustomerMissing, error -> ServerResponse.notFound().build())
+                .onErrorResume(ArithmeticException.class, error -> ServerResponse.badRequest()
+                        .bodyValue("Initial deposit is not a valid amount of the account currency"));
     }
 
-    @Transactional
     public Mono<ServerResponse> deposit(ServerRequest request) {
         var accountId = Long.parseLong(request.pathVariable(ACCOUNT_ID));
 
-        return accountRepository.findById(accountId)
-                .flatMap(account -> request.bodyToMono(OperationRequest.class)
-                        .map(OperationRequest::amount)
-                        .flatMap(amount -> balanceService.addAmountToBalance(account, amount)))
-                .flatMap(accountRepository::save)
+        return respond(request, DEPOSIT, amount -> accountOperations.deposit(accountId, amount)
+                .transform(stageMetrics.timed(DEPOSIT, UPDATE))
                 .doOnNext(account -> log.info("Successfully deposited amount for account {}, balance {}",
-                        account.getId(), account.getBalance()))
-                .flatMap(updatedAccount -> ServerResponse.ok().contentType(APPLICATION_JSON)
-                        .bodyValue(new AccountResponse(updatedAccount.getId(), updatedAccount.getBalance(),
-                                updatedAccount.getCurrency().name(), Instant.now())))
-                .onErrorResume(error -> ServerResponse.badRequest().bodyValue(error.getMessage()))
-                .switchIfEmpty(ServerResponse.notFound().build());
+                        account.getId(), account.balanceAmount()))
+                .map(updatedAccount -> Outcome.ok(AccountResponse.of(updatedAccount))), accountId);
     }
 
-    @Transactional
     public Mono<ServerResponse> withdraw(ServerRequest request) {
-        var accountId = request.pathVariable(ACCOUNT_ID);
+        var accountId = Long.parseLong(request.pathVariable(ACCOUNT_ID));
 
-        return accountRepository.findById(Long.parseLong(accountId))
-                .flatMap(account -> request.bodyToMono(OperationRequest.class)
-                        .map(OperationRequest::amount)
-                        .flatMap(amount -> balanceService.subtractAmountFromBalance(account, amount)))
-                .flatMap(accountRepository::save)
+        return respond(request, WITHDRAW, amount -> accountOperations.withdraw(accountId, amount)
+                .transform(stageMetrics.timed(WITHDRAW, UPDATE))
                 .doOnNext(account -> log.info("Successfully withdrew amount from account {}, balance {}",
-                        account.getId(), account.getBalance()))
-                .flatMap(updatedAccount -> ServerResponse.ok().contentType(APPLICATION_JSON)
-                        .bodyValue(new AccountResponse(updatedAccount.getId(), updatedAccount.getBalance(),
-                                updatedAccount.getCurrency().name(), Instant.now())))
-                .onErrorResume(error -> ServerResponse.badRequest().contentType(APPLICATION_JSON).bodyValue(error.getMessage()))
-                .switchIfEmpty(ServerResponse.notFound().build());
+                        account.getId(), account.balanceAmount()))
+                .map(updatedAccount -> Outcome.ok(AccountResponse.of(updatedAccount))), accountId);
     }
 
-    @Transactional
     public Mono<ServerResponse> transfer(ServerRequest request) {
         var idFrom = Long.parseLong(request.pathVariable(ACCOUNT_ID_FROM));
         var idTo = Long.parseLong(request.pathVariable(ACCOUNT_ID_TO));
 
-        // note: currency conversion logic should be added, but it is out of task scope
-
-        return accountRepository.findById(idFrom)
-                .zipWith(accountRepository.findById(idTo))
-                .flatMap(accounts -> request.bodyToMono(OperationRequest.class)
-                        .map(OperationRequest::amount)
-                        .flatMap(amount -> balanceService.modifyBalances(accounts, amount)))
-                .map(accounts -> accountRepository.saveAll(Set.of(accounts.getT1(), accounts.getT2()))
-                        .doOnNext(account -> log.info("Successfully updated account {} with transfer, balance {}", account.getId(), account.getBalance())))
-                .flatMap(updatedAccounts -> ServerResponse.ok().contentType(APPLICATION_JSON).body(updatedAccounts, Account.class))
-                .onErrorResume(error -> ServerResponse.badRequest().contentType(APPLICATION_JSON).bodyValue(error.getMessage()))
-                .switchIfEmpty(ServerResponse.notFound().build());
+        return respond(request, TRANSFER, amount -> accountOperations.transfer(idFrom, idTo, amount)
+                .transform(stageMetrics.timed(TRANSFER, UPDATE))
+                .map(accounts -> List.of(accounts.getT1(), accounts.getT2()))
+                .doOnNext(accounts -> accounts.forEach(account ->
+                        log.info("Successfully updated account {} with transfer, balance {}", account.getId(), account.balanceAmount())))
+                .map(Outcome::ok), idFrom, idTo);
+    }
+
+    public Mono<ServerResponse> transferBatch(ServerRequest request) {
+        var allOrNothing = request.queryParam(ALL_OR_NOTHING).map(Boolean::parseBoolean).orElse(false);
+
+        return ServerResponse.ok().contentType(APPLICATION_NDJSON)
+                .body(accountOperations.transferAll(request.bodyToFlux(TransferRequest.class), allOrNothing)
+                        .doOnNext(this::invalidateTransferred), TransferResult.class);
+    }
+
+    // only rejections are stored outcomes, any other failure propagates so a retry runs the operation again
+    private Mono<ServerResponse> respond(ServerRequest request, String operation, Function<BigDecimal, Mono<Outcome>> apply,
+                                         long... accountIds) {
+        return request.bodyToMono(OperationRequest.class)
+                .transform(stageMetrics.timed(operation, DECODE))
+                .flatMap(body -> body.amount() == null
+                        ? Outcome.badRequest("amount is required").toServerResponse()
+                        : respond(request, body.amount(), apply.apply(body.amount())
+                                .onErrorResume(AccountHandler::isRejected, error -> Mono.just(Outcome.badRequest(error.getMessage())))
+                                .defaultIfEmpty(Outcome.NOT_FOUND), accountIds))
+                .switchIfEmpty(Mono.defer(Outcome.NOT_FOUND::toServerResponse));
+    }
+
+    // the key is hashed with the method and path, a retry with another amount is refused
+    private Mono<ServerResponse> respond(ServerRequest request, BigDecimal amount, Mono<Outcome> outcome, long... accountIds) {
+        var idempotencyKey = request.headers().firstHeader(IDEMPOTENCY_KEY);
+        if (idempotencyKey == null) {
+            return outcome
+                    .doOnNext(committed -> invalidateBalances(committed.status().value(), accountIds))
+                    .flatMap(Outcome::toServerResponse);
+        }
+        var key = sha256("%s %s %s".formatted(request.methodName(), request.path(), idempotencyKey));
+        var requestHash = sha256(amount.stripTrailingZeros().toPlainString());
+        var executed = new AtomicReference<Outcome>();
+        return idempotencyService.execute(key, outcome.doOnNext(executed::set)
+                        .flatMap(result -> Mono.fromCallable(() -> store(result, requestHash))))
+                .flatMap(stored -> {
+                    if (stored.requestHash() != null && !stored.requestHash().equals(requestHash)) {
+                        return ServerResponse.unprocessableEntity().contentType(TEXT_PLAIN)
+                                .bodyValue("Idempotency-Key was already used with another request");
+                    }
+                    invalidateBalances(stored.status(), accountIds);
+                    var live = executed.get();
+                    return live != null ? live.toServerResponse() : replay(stored);
+                });
+    }
+
+    private StoredResponse store(Outcome outcome, String requestHash) throws JsonProcessingException {
+        var body = outcome.body() == null || outcome.body() instanceof String
+                ? (String) outcome.body()
+                : objectMapper.writeValueAsString(outcome.body());
+        var contentType = outcome.contentType() == null ? null : outcome.contentType().toString();
+        return new StoredResponse(outcome.status().value(), contentType, body, requestHash);
+    }
+
+    private Mono<ServerResponse> replay(StoredResponse stored) {
+        var response = ServerResponse.status(stored.status());
+        if (stored.body() == null) {
+            return response.build();
+        }
+        var contentType = stored.contentType() == null ? null : MediaType.parseMediaType(stored.contentType());
+        if (contentType != null && APPLICATION_JSON.isCompatibleWith(contentType)) {
+            return Mono.fromCallable(() -> objectMapper.readTree(stored.body())).flatMap(response::bodyValue);
+        }
+        if (contentType != null) {
+            response.contentType(contentType);
+        }
+        return response.bodyValue(stored.body());
+    }
+
+    private void invalidateBalances(int status, long... accountIds) {
+        if (status == HttpStatus.OK.value()) {
+            for (long accountId : accountIds) {
+                balanceCache.invalidate(accountId);
+            }
+        }
+    }
+
+    // NDJSON streams the balances as they are found, otherwise they are sent as a JSON array
+    private Mono<ServerResponse> balancesResponse(ServerRequest request, List<Long> accountIds) {
+        if (accountIds.isEmpty() || accountIds.size() > balanceLookupService.maxIds()) {
+            return ServerResponse.badRequest()
+                    .bodyValue("Between 1 and %d account ids can be looked up at once".formatted(balanceLookupService.maxIds()));
+        }
+        var ndjson = request.headers().accept().stream().anyMatch(APPLICATION_NDJSON::equalsTypeAndSubtype);
+        return ServerResponse.ok().contentType(ndjson ? APPLICATION_NDJSON : APPLICATION_JSON)
+                .body(balanceLookupService.balances(accountIds, ReadRouting.readYourWrites(request)), AccountResponse.class);
+    }
+
+    private Mono<ServerResponse> balanceResponse(Account account) {
+        return ServerResponse.ok().bodyValue(AccountResponse.of(account));
+    }
+
+    private void invalidateTransferred(TransferResult result) {
+        if (result.status() == TransferResult.Status.COMPLETED) {
+            balanceCache.invalidate(result.from());
+            balanceCache.invalidate(result.to());
+        }
     }
 
     private Account createAccount(AccountRequest request) {
-        var account = new Account(Currency.valueOf(request.currency()), request.customerId(), Instant.now());
-        Optional.ofNullable(request.initialDeposit()).ifPresent(account::setBalance);
+        var currency = Currency.valueOf(request.currency());
+        var account = new Account(currency, request.customerId(), Instant.now());
+        Optional.ofNullable(request.initialDeposit()).map(currency::toMinorUnits).ifPresent(account::setBalance);
         return account;
     }
 
+    private record Page(Instant after, long afterId, long limit) {
+    }
+
+    private record Outcome(HttpStatus status, MediaType contentType, Object body) {
+        private static final Outcome NOT_FOUND = new Outcome(HttpStatus.NOT_FOUND, null, null);
+
+        static Outcome ok(Object body) {
+            return new Outcome(HttpStatus.OK, APPLICATION_JSON, body);
+        }
+
+        static Outcome badRequest(String message) {
+            return new Outcome(HttpStatus.BAD_REQUEST, TEXT_PLAIN, message);
+        }
+
+        // a message keeps its content type, a body object is encoded in the negotiated format
+        Mono<ServerResponse> toServerResponse() {
+            var response = ServerResponse.status(status);
+            if (contentType != null && (body == null || body instanceof String)) {
+                response.contentType(contentType);
+            }
+            return body == null ? response.build() : response.bodyValue(body);
+        }
+    }
+
+    private static boolean isRejected(Throwable t) {
+        return t instanceof InvalidAmountException || t instanceof ArithmeticException;
+    }
+
+    private static String sha256(String value) {
+        try {
+            var digest = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+            return "%064x".formatted(new BigInteger(1, digest));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
     private boolean isCustomerMissing(Throwable t) {
         if (t instanceof DataIntegrityViolationException ex) {
             log.error("Could not find customer id in customers table, message {}", ex.getMessage());
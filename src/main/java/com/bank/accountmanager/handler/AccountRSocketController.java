@@ -0,0 +1,105 @@
+package com.bank.accountmanager.handler;
+
+import com.bank.accountmanager.cache.BalanceCache;
+import com.bank.accountmanager.handler.exception.InvalidAmountException;
+import com.bank.accountmanager.handler.request.OperationRequest;
+import com.bank.accountmanager.handler.response.AccountResponse;
+import com.bank.accountmanager.metrics.StageMetrics;
+import com.bank.accountmanager.service.AccountOperations;
+import com.bank.accountmanager.service.BalanceLookupService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.messaging.handler.annotation.DestinationVariable;
+import org.springframework.messaging.handler.annotation.MessageMapping;
+import org.springframework.stereotype.Controller;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import static com.bank.accountmanager.metrics.StageMetrics.LOOKUP;
+import static com.bank.accountmanager.metrics.StageMetrics.UPDATE;
+
+// a rejected operation or a missing account is signalled as an error with the message of the HTTP routes
+@Slf4j
+@Controller
+@RequiredArgsConstructor
+public class AccountRSocketController {
+    private static final String GET_BALANCE = "rsocket_get_balance";
+    private static final String DEPOSIT = "rsocket_deposit";
+    private static final String WITHDRAW = "rsocket_withdraw";
+    private static final String TRANSFER = "rsocket_transfer";
+
+    private final AccountOperations accountOperations;
+    private final BalanceCache balanceCache;
+    private final BalanceLookupService balanceLookupService;
+    private final StageMetrics stageMetrics;
+
+    @MessageMapping("account.{accountId}.balance")
+    public Mono<AccountResponse> getAccountBalance(@DestinationVariable long accountId) {
+        return balanceCache.get(accountId, accountOperations::findAccount)
+                .transform(stageMetrics.timed(GET_BALANCE, LOOKUP))
+                .map(AccountResponse::of)
+                .switchIfEmpty(notFound(accountId));
+    }
+
+    // streams the balances as they are found, the ids that were not found follow at the end
+    @MessageMapping("accounts.balances")
+    public Flux<AccountResponse> getAccountBalances(List<Long> accountIds) {
+        if (accountIds.isEmpty() || accountIds.size() > balanceLookupService.maxIds()) {
+            return Flux.error(new IllegalArgumentException("Between 1 and %d account ids can be looked up at once"
+                    .formatted(balanceLookupService.maxIds())));
+        }
+        return balanceLookupService.balances(accountIds, false);
+    }
+
+    @MessageMapping("account.{accountId}.deposit")
+    public Mono<AccountResponse> deposit(@DestinationVariable long accountId, OperationRequest request) {
+        return amountOf(request)
+                .flatMap(amount -> balanceCache.update(accountId, accountOperations.deposit(accountId, amount)))
+                .transform(stageMetrics.timed(DEPOSIT, UPDATE))
+                .doOnNext(account -> log.info("Successfully deposited amount for account {}, balance {}",
+                        account.getId(), account.balanceAmount()))
+                .map(AccountResponse::of)
+                .switchIfEmpty(notFound(accountId));
+    }
+
+    @MessageMapping("account.{accountId}.withdraw")
+    public Mono<AccountResponse> withdraw(@DestinationVariable long accountId, OperationRequest request) {
+        return amountOf(request)
+                .flatMap(amount -> balanceCache.update(accountId, accountOperations.withdraw(accountId, amount)))
+                .transform(stageMetrics.timed(WITHDRAW, UPDATE))
+                .doOnNext(account -> log.info("Successfully withdrew amount from account {}, balance {}",
+                        account.getId(), account.balanceAmount()))
+                .map(AccountResponse::of)
+                .switchIfEmpty(notFound(accountId));
+    }
+
+    // answers the source and the target account
+    @MessageMapping("transfer.{accountIdFrom}.{accountIdTo}")
+    public Mono<List<AccountResponse>> transfer(@DestinationVariable long accountIdFrom, @DestinationVariable long accountIdTo,
+                                                OperationRequest request) {
+        return amountOf(request)
+                .flatMap(amount -> balanceCache.update(accountIdFrom, accountIdTo,
+                        accountOperations.transfer(accountIdFrom, accountIdTo, amount)))
+                .transform(stageMetrics.timed(TRANSFER, UPDATE))
+                .doOnNext(accounts -> log.info("Successfully transferred from account {} to account {}, balances {} and {}",
+                        accountIdFrom, accountIdTo, accounts.getT1().balanceAmount(), accounts.getT2().balanceAmount()))
+                .map(accounts -> List.of(AccountResponse.of(accounts.getT1()), AccountResponse.of(accounts.getT2())))
+                .switchIfEmpty(Mono.error(() -> new NoSuchElementException("Account %d or %d not found"
+                        .formatted(accountIdFrom, accountIdTo))));
+    }
+
+    private static Mono<BigDecimal> amountOf(OperationRequest request) {
+        return request.amount() == null
+                ? Mono.error(new InvalidAmountException("amount is required"))
+                : Mono.just(request.amount());
+    }
+
+    private static <T> Mono<T> notFound(long accountId) {
+        return Mono.error(() -> new NoSuchElementException("Account %d not found".formatted(accountId)));
+    }
+
+}
@@ -1,11 +1,20 @@
 package com.bank.accountmanager.handler;
 
+import com.bank.accountmanager.cache.CustomerNameFilter;
+import com.bank.accountmanager.configuration.ReadRouting;
 import com.bank.accountmanager.handler.request.CustomerRequest;
+import com.bank.accountmanager.handler.request.ImportRequest;
+import com.bank.accountmanager.handler.response.ImportResult;
+import com.bank.accountmanager.handler.response.PortfolioEntry;
+import com.bank.accountmanager.metrics.StageMetrics;
 import com.bank.accountmanager.repository.CustomerRepository;
 import com.bank.accountmanager.repository.model.Customer;
+import com.bank.accountmanager.service.BulkImportService;
+import com.bank.accountmanager.service.PortfolioService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.server.ServerRequest;
 import org.springframework.web.reactive.function.server.ServerResponse;
@@ -13,20 +22,32 @@ import reactor.core.publisher.Mono;
 
 import java.net.URI;
 
+import static com.bank.accountmanager.metrics.StageMetrics.*;
 import static org.springframework.http.MediaType.APPLICATION_JSON;
+import static org.springframework.http.MediaType.APPLICATION_NDJSON;
 
 @Component
 @Slf4j
 @RequiredArgsConstructor
 public class CustomerHandler {
+    public static final MediaType TEXT_CSV = MediaType.valueOf("text/csv");
+    private static final String CREATE_CUSTOMER = "create_customer";
+    private static final String GET_PORTFOLIO = "get_portfolio";
+    private static final String CUSTOMER_ID = "customerId";
 
     private final CustomerRepository customerRepository;
+    private final StageMetrics stageMetrics;
+    private final CustomerNameFilter nameFilter;
+    private final BulkImportService bulkImportService;
+    private final PortfolioService portfolioService;
 
     public Mono<ServerResponse> createCustomer(ServerRequest serverRequest) {
         return serverRequest.bodyToMono(CustomerRequest.class)
-                .filterWhen(request -> customerRepository.notExistByFirstAndLastName(request.firstName(), request.lastName()))
+                .transform(stageMetrics.timed(CREATE_CUSTOMER, DECODE))
                 .map(request -> new Customer(request.firstName(), request.lastName()))
-                .flatMap(customerRepository::save)
+                .filterWhen(this::mightBeNew)
+                .flatMap(customer -> customerRepository.insertIfAbsent(customer).transform(stageMetrics.timed(CREATE_CUSTOMER, SAVE)))
+                .doOnNext(customer -> nameFilter.put(customer.getFirstName(), customer.getLastName()))
                 .doOnNext(customer -> log.info("Successfully created customer with id {}", customer.getId()))
                 .flatMap(savedCustomer -> ServerResponse.created(URI.create("/customers/%s".formatted(savedCustomer.getId())))
                         .contentType(APPLICATION_JSON)
@@ -34,4 +55,38 @@ public class CustomerHandler {
                 .switchIfEmpty(ServerResponse.status(HttpStatus.CONFLICT).build());
     }
 
+    // the accounts stream grouped by currency, each group followed by its total
+    public Mono<ServerResponse> getPortfolio(ServerRequest request) {
+        var customerId = Long.parseLong(request.pathVariable(CUSTOMER_ID));
+        var readRouting = ReadRouting.of(request);
+
+        return customerRepository.existsById(customerId)
+                .contextWrite(readRouting)
+                .transform(stageMetrics.timed(GET_PORTFOLIO, LOOKUP))
+                .flatMap(exists -> exists
+                        ? ServerResponse.ok().contentType(APPLICATION_NDJSON)
+                                .body(portfolioService.portfolio(customerId).contextWrite(readRouting), PortfolioEntry.class)
+                        : ServerResponse.notFound().build());
+    }
+
+    // a CSV body starts with a header line, every further line is a row
+    public Mono<ServerResponse> importCustomers(ServerRequest request) {
+        var csv = request.headers().contentType().filter(TEXT_CSV::isCompatibleWith).isPresent();
+        var results = csv
+                ? bulkImportService.importCsv(request.bodyToFlux(String.class).skip(1).filter(line -> !line.isBlank()))
+                : bulkImportService.importAll(request.bodyToFlux(ImportRequest.class));
+
+        return ServerResponse.ok().contentType(APPLICATION_NDJSON)
+                .body(results, ImportResult.class);
+    }
+
+    // only likely duplicates are looked up, the insert itself is the race-free check
+    private Mono<Boolean> mightBeNew(Customer customer) {
+        if (!nameFilter.mightContain(customer.getFirstName(), customer.getLastName())) {
+            return Mono.just(true);
+        }
+        return customerRepository.notExistByFirstAndLastName(customer.getFirstName(), customer.getLastName())
+                .transform(stageMetrics.timed(CREATE_CUSTOMER, LOOKUP));
+    }
+
 }
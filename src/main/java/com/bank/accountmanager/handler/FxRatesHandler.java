@@ -0,0 +1,55 @@
+package com.bank.accountmanager.handler;
+
+import com.bank.accountmanager.configuration.FxProperties;
+import com.bank.accountmanager.fx.FxRates;
+import com.bank.accountmanager.handler.response.FxRatesResponse;
+import com.bank.accountmanager.repository.model.Currency;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Map;
+
+import static org.springframework.http.MediaType.APPLICATION_JSON;
+
+// the admin token is compared in constant time
+@Component
+@RequiredArgsConstructor
+public class FxRatesHandler {
+    private static final ParameterizedTypeReference<Map<Currency, BigDecimal>> RATES = new ParameterizedTypeReference<>() {
+    };
+    static final String ADMIN_TOKEN = "X-Admin-Token";
+
+    private final FxRates fxRates;
+    private final FxProperties properties;
+
+    public Mono<ServerResponse> getRates(ServerRequest request) {
+        return ServerResponse.ok().contentType(APPLICATION_JSON).bodyValue(FxRatesResponse.of(fxRates.snapshot()));
+    }
+
+    public Mono<ServerResponse> updateRates(ServerRequest request) {
+        if (!isAdmin(request)) {
+            return ServerResponse.status(HttpStatus.FORBIDDEN).bodyValue("Updating exchange rates requires the admin token");
+        }
+        return request.bodyToMono(RATES)
+                .filter(rates -> !rates.isEmpty())
+                .map(fxRates::update)
+                .flatMap(snapshot -> ServerResponse.ok().contentType(APPLICATION_JSON).bodyValue(FxRatesResponse.of(snapshot)))
+                .switchIfEmpty(Mono.defer(() -> ServerResponse.badRequest().bodyValue("At least one exchange rate is required")))
+                .onErrorResume(IllegalArgumentException.class, error -> ServerResponse.badRequest().bodyValue(error.getMessage()));
+    }
+
+    private boolean isAdmin(ServerRequest request) {
+        var token = request.headers().firstHeader(ADMIN_TOKEN);
+        return !properties.adminToken().isEmpty() && token != null && MessageDigest.isEqual(
+                properties.adminToken().getBytes(StandardCharsets.UTF_8), token.getBytes(StandardCharsets.UTF_8));
+    }
+
+}
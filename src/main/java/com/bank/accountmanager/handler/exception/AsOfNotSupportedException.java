@@ -0,0 +1,14 @@
+package com.bank.accountmanager.handler.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+// a historical balance asked of a mode that does not keep the history of the balances
+@ResponseStatus(HttpStatus.NOT_IMPLEMENTED)
+public class AsOfNotSupportedException extends RuntimeException {
+
+    public AsOfNotSupportedException(String message) {
+        super(message);
+    }
+
+}
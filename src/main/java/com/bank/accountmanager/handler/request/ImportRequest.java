@@ -0,0 +1,40 @@
+package com.bank.accountmanager.handler.request;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+// a CSV line holds one row with at most one account: customerId,firstName,lastName,currency,initialDeposit
+public record ImportRequest(@JsonProperty("customerId") Long customerId, @JsonProperty("firstName") String firstName,
+                            @JsonProperty("lastName") String lastName, @JsonProperty("accounts") List<AccountRow> accounts) {
+
+    public static ImportRequest fromCsv(String line) {
+        var fields = line.split(",", -1);
+        if (fields.length != 5) {
+            throw new IllegalArgumentException("Expected 5 fields but got %d in line '%s'".formatted(fields.length, line));
+        }
+        var currency = field(fields[3]);
+        var initialDeposit = field(fields[4]);
+        var accounts = currency == null
+                ? List.<AccountRow>of()
+                : List.of(new AccountRow(currency, initialDeposit == null ? null : new BigDecimal(initialDeposit)));
+        var customerId = field(fields[0]);
+        return new ImportRequest(customerId == null ? null : Long.valueOf(customerId), field(fields[1]), field(fields[2]), accounts);
+    }
+
+    public List<AccountRow> accountRows() {
+        return accounts == null ? List.of() : accounts;
+    }
+
+    private static String field(String value) {
+        var trimmed = value.trim();
+        return trimmed.isEmpty() ? null : trimmed;
+    }
+
+    public record AccountRow(@JsonProperty("currency") String currency,
+                             @JsonProperty("initialDeposit") BigDecimal initialDeposit) {
+
+    }
+
+}
@@ -0,0 +1,10 @@
+package com.bank.accountmanager.handler.request;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.math.BigDecimal;
+
+public record TransferRequest(@JsonProperty("from") Long from, @JsonProperty("to") Long to,
+                              @JsonProperty("amount") BigDecimal amount) {
+
+}
@@ -1,11 +1,22 @@
 package com.bank.accountmanager.handler.response;
 
+import com.bank.accountmanager.repository.model.Account;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 import java.math.BigDecimal;
 import java.time.Instant;
 
+// message is only set for the accounts a multi-account lookup did not find
 public record AccountResponse(@JsonProperty("accountId") Long accountId, @JsonProperty("balance") BigDecimal balance,
-                              @JsonProperty("currency") String currency, @JsonProperty("timestamp") Instant timestamp) {
+                              @JsonProperty("currency") String currency, @JsonProperty("timestamp") Instant timestamp,
+                              @JsonProperty("message") String message) {
+
+    public static AccountResponse of(Account account) {
+        return new AccountResponse(account.getId(), account.balanceAmount(), account.getCurrency().name(), Instant.now(), null);
+    }
+
+    public static AccountResponse notFound(long accountId) {
+        return new AccountResponse(accountId, null, null, Instant.now(), "Account %d not found".formatted(accountId));
+    }
 
 }
@@ -0,0 +1,16 @@
+package com.bank.accountmanager.handler.response;
+
+import com.bank.accountmanager.fx.RateSnapshot;
+import com.bank.accountmanager.repository.model.Currency;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+public record FxRatesResponse(@JsonProperty("version") long version, @JsonProperty("rates") Map<Currency, BigDecimal> rates) {
+
+    public static FxRatesResponse of(RateSnapshot snapshot) {
+        return new FxRatesResponse(snapshot.version(), snapshot.rates());
+    }
+
+}
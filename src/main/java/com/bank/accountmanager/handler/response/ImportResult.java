@@ -0,0 +1,24 @@
+package com.bank.accountmanager.handler.response;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+// row is the 1-based position of the row in the imported stream, header lines are not counted
+public record ImportResult(@JsonProperty("row") long row, @JsonProperty("customerId") Long customerId,
+                           @JsonProperty("accountIds") List<Long> accountIds, @JsonProperty("status") Status status,
+                           @JsonProperty("message") String message) {
+
+    public static ImportResult created(long row, long customerId, List<Long> accountIds) {
+        return new ImportResult(row, customerId, accountIds, Status.CREATED, null);
+    }
+
+    public static ImportResult failed(long row, Long customerId, String message) {
+        return new ImportResult(row, customerId, null, Status.FAILED, message);
+    }
+
+    public enum Status {
+        CREATED, FAILED
+    }
+
+}
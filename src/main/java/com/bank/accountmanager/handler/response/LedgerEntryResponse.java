@@ -0,0 +1,27 @@
+package com.bank.accountmanager.handler.response;
+
+import com.bank.accountmanager.repository.model.Currency;
+import com.bank.accountmanager.repository.model.LedgerEntry;
+import com.bank.accountmanager.repository.model.LedgerEntry.EntryType;
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+import static com.fasterxml.jackson.annotation.JsonFormat.Shape.STRING;
+
+public record LedgerEntryResponse(@JsonProperty("id") Long id, @JsonProperty("accountId") Long accountId,
+                                  @JsonProperty("type") EntryType type, @JsonProperty("amount") BigDecimal amount,
+                                  @JsonProperty("balance") BigDecimal balance,
+                                  @JsonProperty("counterpartyAccountId") Long counterpartyAccountId,
+                                  @JsonProperty("createdAt") @JsonFormat(shape = STRING) Instant createdAt,
+                                  @JsonProperty("fxVersion") Long fxVersion) {
+
+    public static LedgerEntryResponse of(LedgerEntry entry, Currency currency) {
+        return new LedgerEntryResponse(entry.getId(), entry.getAccountId(), entry.getType(), currency.toMajorUnits(entry.getAmount()),
+                currency.toMajorUnits(entry.getBalance()), entry.getCounterpartyAccountId(), entry.getCreatedAt(),
+                entry.getFxVersion());
+    }
+
+}
@@ -0,0 +1,22 @@
+package com.bank.accountmanager.handler.response;
+
+import com.bank.accountmanager.repository.model.Account;
+import com.bank.accountmanager.repository.model.Currency;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.math.BigDecimal;
+
+// a line of a customer's portfolio, either an account or the total of the accounts in a currency that precede it
+public record PortfolioEntry(@JsonProperty("accountId") Long accountId, @JsonProperty("currency") String currency,
+                             @JsonProperty("balance") BigDecimal balance, @JsonProperty("total") BigDecimal total,
+                             @JsonProperty("accounts") Integer accounts) {
+
+    public static PortfolioEntry account(Account account) {
+        return new PortfolioEntry(account.getId(), account.getCurrency().name(), account.balanceAmount(), null, null);
+    }
+
+    public static PortfolioEntry total(Currency currency, BigDecimal total, int accounts) {
+        return new PortfolioEntry(null, currency.name(), null, total, accounts);
+    }
+
+}
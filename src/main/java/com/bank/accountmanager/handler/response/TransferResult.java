@@ -0,0 +1,30 @@
+package com.bank.accountmanager.handler.response;
+
+import com.bank.accountmanager.handler.request.TransferRequest;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.math.BigDecimal;
+
+public record TransferResult(@JsonProperty("from") Long from, @JsonProperty("to") Long to,
+                             @JsonProperty("amount") BigDecimal amount, @JsonProperty("status") Status status,
+                             @JsonProperty("message") String message) {
+
+    public static TransferResult completed(TransferRequest request) {
+        return new TransferResult(request.from(), request.to(), request.amount(), Status.COMPLETED, null);
+    }
+
+    public static TransferResult failed(TransferRequest request, String message) {
+        return new TransferResult(request.from(), request.to(), request.amount(), Status.FAILED, message);
+    }
+
+    public TransferResult rolledBack() {
+        return status == Status.COMPLETED
+                ? new TransferResult(from, to, amount, Status.ROLLED_BACK, "Another transfer of the chunk failed")
+                : this;
+    }
+
+    public enum Status {
+        COMPLETED, FAILED, ROLLED_BACK
+    }
+
+}
@@ -0,0 +1,89 @@
+package com.bank.accountmanager.idempotency;
+
+import com.bank.accountmanager.configuration.IdempotencyProperties;
+import com.bank.accountmanager.repository.IdempotencyRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.ReactiveTransactionManager;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+
+// with the table enabled a duplicate on another instance fails on the primary key and replays the stored outcome
+@Slf4j
+@Service
+public class IdempotencyService implements InitializingBean, DisposableBean {
+    private static final Duration PURGE_INTERVAL = Duration.ofMinutes(10);
+    private static final int CONFLICT_LOOKUPS = 50;
+    private static final Duration CONFLICT_LOOKUP_DELAY = Duration.ofMillis(20);
+
+    private final Cache<String, Mono<StoredResponse>> responses;
+    private final IdempotencyRepository idempotencyRepository;
+    private final TransactionalOperator transactionalOperator;
+    private final IdempotencyProperties properties;
+    private Disposable purge;
+
+    public IdempotencyService(IdempotencyRepository idempotencyRepository, ReactiveTransactionManager transactionManager,
+                              IdempotencyProperties properties, MeterRegistry meterRegistry) {
+        this.idempotencyRepository = idempotencyRepository;
+        this.transactionalOperator = TransactionalOperator.create(transactionManager);
+        this.properties = properties;
+        this.responses = Caffeine.newBuilder()
+                .maximumSize(properties.maximumSize())
+                .expireAfterWrite(properties.retention())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, responses, "idempotency");
+    }
+
+    public Mono<StoredResponse> execute(String key, Mono<StoredResponse> operation) {
+        var response = responses.asMap().computeIfAbsent(key, k -> run(k, operation).cache());
+        // unexpected failures are not stored, the client may retry them with the same key
+        return response.doOnError(error -> responses.asMap().remove(key, response));
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        if (properties.tableEnabled()) {
+            purge = Flux.interval(PURGE_INTERVAL)
+                    .concatMap(tick -> idempotencyRepository.deleteCreatedBefore(Instant.now().minus(properties.retention()))
+                            .onErrorResume(error -> {
+                                log.warn("Could not purge expired idempotency keys", error);
+                                return Mono.empty();
+                            }))
+                    .subscribe(deleted -> log.info("Purged {} expired idempotency keys", deleted));
+        }
+    }
+
+    @Override
+    public void destroy() {
+        if (purge != null) {
+            purge.dispose();
+        }
+    }
+
+    private Mono<StoredResponse> run(String key, Mono<StoredResponse> operation) {
+        if (!properties.tableEnabled()) {
+            return operation;
+        }
+        return idempotencyRepository.findByKey(key)
+                .switchIfEmpty(Mono.defer(() -> operation
+                        .flatMap(response -> idempotencyRepository.insert(key, response).thenReturn(response))
+                        .as(transactionalOperator::transactional)
+                        .onErrorResume(DataIntegrityViolationException.class, conflict -> idempotencyRepository.findByKey(key)
+                                .repeatWhenEmpty(CONFLICT_LOOKUPS, lookups -> lookups.delayElements(CONFLICT_LOOKUP_DELAY))
+                                .switchIfEmpty(Mono.error(conflict)))));
+    }
+
+}
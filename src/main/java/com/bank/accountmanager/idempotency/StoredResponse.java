@@ -0,0 +1,6 @@
+package com.bank.accountmanager.idempotency;
+
+// the request hash is null for outcomes stored without one
+public record StoredResponse(int status, String contentType, String body, String requestHash) {
+
+}
@@ -0,0 +1,100 @@
+package com.bank.accountmanager.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.HandlerFunction;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+// the filter records once the response is written, so streamed bodies are timed to their end
+@Component
+@RequiredArgsConstructor
+public class RouteMetrics implements WebFilter, Ordered {
+    private static final String TIMER = "accountmanager.route";
+    private static final String TIMERS_ATTRIBUTE = RouteMetrics.class.getName() + ".timers";
+
+    private final MeterRegistry meterRegistry;
+
+    public HandlerFunction<ServerResponse> timed(String route, HandlerFunction<ServerResponse> handler) {
+        var timers = new RouteTimers(route);
+        return request -> {
+            request.exchange().getAttributes().put(TIMERS_ATTRIBUTE, timers);
+            return handler.handle(request);
+        };
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        var start = System.nanoTime();
+        var response = exchange.getResponse();
+        return chain.filter(exchange)
+                .doOnSuccess(done -> record(exchange, start, timers -> timers.of(response.getRawStatusCode())))
+                .doOnError(error -> record(exchange, start, timers -> timers.serverError))
+                .doOnCancel(() -> record(exchange, start, timers -> timers.cancelled));
+    }
+
+    // before the rate limit, which rejects requests before they reach a route
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE + 5;
+    }
+
+    private static void record(ServerWebExchange exchange, long start, Function<RouteTimers, Timer> outcome) {
+        RouteTimers timers = exchange.getAttribute(TIMERS_ATTRIBUTE);
+        if (timers != null) {
+            outcome.apply(timers).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private class RouteTimers {
+        private final Timer ok;
+        private final Timer badRequest;
+        private final Timer notFound;
+        private final Timer conflict;
+        private final Timer clientError;
+        private final Timer serverError;
+        private final Timer cancelled;
+
+        RouteTimers(String route) {
+            ok = timer(route, "ok");
+            badRequest = timer(route, "bad_request");
+            notFound = timer(route, "not_found");
+            conflict = timer(route, "conflict");
+            clientError = timer(route, "client_error");
+            serverError = timer(route, "server_error");
+            cancelled = timer(route, "cancelled");
+        }
+
+        // a response without a status is written as 200
+        Timer of(Integer status) {
+            if (status == null) {
+                return ok;
+            }
+            return switch (status) {
+                case 400 -> badRequest;
+                case 404 -> notFound;
+                case 409 -> conflict;
+                default -> status < 400 ? ok : status < 500 ? clientError : serverError;
+            };
+        }
+
+        private Timer timer(String route, String outcome) {
+            return Timer.builder(TIMER)
+                    .description("Time to handle a request until its response is written")
+                    .tag("route", route)
+                    .tag("outcome", outcome)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry);
+        }
+    }
+
+}
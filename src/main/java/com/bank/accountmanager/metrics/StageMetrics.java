@@ -0,0 +1,46 @@
+package com.bank.accountmanager.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+// times a stage of a handler chain from subscription until it completes, fails or is cancelled
+@Component
+@RequiredArgsConstructor
+public class StageMetrics {
+    private static final String TIMER = "accountmanager.stage";
+
+    public static final String DECODE = "decode";
+    public static final String LOOKUP = "lookup";
+    public static final String UPDATE = "update";
+    public static final String SAVE = "save";
+
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Map<String, Timer>> timers = new ConcurrentHashMap<>();
+
+    public <T> Function<Mono<T>, Mono<T>> timed(String operation, String stage) {
+        var timer = timer(operation, stage);
+        return mono -> Mono.defer(() -> {
+            var start = System.nanoTime();
+            return mono.doFinally(signal -> timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS));
+        });
+    }
+
+    private Timer timer(String operation, String stage) {
+        return timers.computeIfAbsent(operation, key -> new ConcurrentHashMap<>())
+                .computeIfAbsent(stage, key -> Timer.builder(TIMER)
+                        .description("Time spent in a stage of a handler")
+                        .tag("operation", operation)
+                        .tag("stage", stage)
+                        .publishPercentileHistogram()
+                        .register(meterRegistry));
+    }
+
+}
@@ -0,0 +1,34 @@
+package com.bank.accountmanager.ratelimit;
+
+import com.bank.accountmanager.configuration.RateLimitProperties;
+
+import java.util.concurrent.atomic.LongAdder;
+
+public class ClientBudget {
+    private final TokenBucket reads;
+    private final TokenBucket writes;
+    private final LongAdder rejectedReads = new LongAdder();
+    private final LongAdder rejectedWrites = new LongAdder();
+
+    public ClientBudget(RateLimitProperties properties, long nowNanos) {
+        this.reads = new TokenBucket(properties.readsPerSecond(), properties.readBurst(), nowNanos);
+        this.writes = new TokenBucket(properties.writesPerSecond(), properties.writeBurst(), nowNanos);
+    }
+
+    public long tryAcquire(boolean write, long nowNanos) {
+        var wait = (write ? writes : reads).tryAcquire(nowNanos);
+        if (wait > 0) {
+            (write ? rejectedWrites : rejectedReads).increment();
+        }
+        return wait;
+    }
+
+    public long rejectedReads() {
+        return rejectedReads.sum();
+    }
+
+    public long rejectedWrites() {
+        return rejectedWrites.sum();
+    }
+
+}
@@ -0,0 +1,39 @@
+package com.bank.accountmanager.ratelimit;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+// clients are not meter tags, as there may be any number of them
+@Component
+@Endpoint(id = "ratelimits")
+@ConditionalOnProperty(prefix = "accountmanager.rate-limit", name = "enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class RateLimitEndpoint {
+
+    private final RateLimitFilter rateLimitFilter;
+
+    @ReadOperation
+    public Map<String, Rejections> rejections() {
+        var rejections = new TreeMap<String, Rejections>();
+        rateLimitFilter.forEachClient((client, budget) -> {
+            var reads = budget.rejectedReads();
+            var writes = budget.rejectedWrites();
+            if (reads > 0 || writes > 0) {
+                rejections.put(client, new Rejections(reads, writes));
+            }
+        });
+        return rejections;
+    }
+
+    public record Rejections(@JsonProperty("reads") long reads, @JsonProperty("writes") long writes) {
+
+    }
+
+}
@@ -0,0 +1,103 @@
+package com.bank.accountmanager.ratelimit;
+
+import com.bank.accountmanager.configuration.RateLimitProperties;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+// unknown API keys count against the IP address, so made-up keys do not get fresh budgets
+@Component
+@ConditionalOnProperty(prefix = "accountmanager.rate-limit", name = "enabled", havingValue = "true")
+public class RateLimitFilter implements WebFilter, Ordered {
+    private static final String ACTUATOR_PATH = "/actuator";
+    private static final String GET_BALANCES_ENDPOINT = "/accounts/balances";
+    private static final String UNKNOWN_CLIENT = "unknown";
+
+    private final RateLimitProperties properties;
+    private final Cache<String, ClientBudget> budgets;
+    private final Counter rejectedReads;
+    private final Counter rejectedWrites;
+
+    public RateLimitFilter(RateLimitProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.budgets = Caffeine.newBuilder()
+                .maximumSize(properties.maximumClients())
+                .expireAfterAccess(properties.idleExpiry())
+                .build();
+        this.rejectedReads = rejected("read", meterRegistry);
+        this.rejectedWrites = rejected("write", meterRegistry);
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        var request = exchange.getRequest();
+        var path = request.getPath().pathWithinApplication().value();
+        if (path.startsWith(ACTUATOR_PATH)) {
+            return chain.filter(exchange);
+        }
+        var write = isWrite(request.getMethod(), path);
+        var now = System.nanoTime();
+        var wait = budgets.get(clientId(request), client -> new ClientBudget(properties, now)).tryAcquire(write, now);
+        if (wait == 0) {
+            return chain.filter(exchange);
+        }
+        (write ? rejectedWrites : rejectedReads).increment();
+        var response = exchange.getResponse();
+        response.setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
+        var retryAfter = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(wait + 999_999_999));
+        response.getHeaders().set(HttpHeaders.RETRY_AFTER, Long.toString(retryAfter));
+        return response.setComplete();
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE + 10;
+    }
+
+    public void forEachClient(BiConsumer<String, ClientBudget> consumer) {
+        budgets.asMap().forEach(consumer);
+    }
+
+    private String clientId(ServerHttpRequest request) {
+        var apiKey = request.getHeaders().getFirst(properties.apiKeyHeader());
+        if (apiKey != null && properties.apiKeys().contains(apiKey)) {
+            return apiKey;
+        }
+        var remoteAddress = request.getRemoteAddress();
+        if (remoteAddress == null) {
+            return UNKNOWN_CLIENT;
+        }
+        return remoteAddress.getAddress() == null ? remoteAddress.getHostString() : remoteAddress.getAddress().getHostAddress();
+    }
+
+    // looking up many balances at once is a POST, but it only reads
+    private static boolean isWrite(HttpMethod method, String path) {
+        if (method == null || method == HttpMethod.GET || method == HttpMethod.HEAD || method == HttpMethod.OPTIONS) {
+            return false;
+        }
+        return !(method == HttpMethod.POST && path.equals(GET_BALANCES_ENDPOINT));
+    }
+
+    private static Counter rejected(String budget, MeterRegistry meterRegistry) {
+        return Counter.builder("accountmanager.ratelimit.rejected")
+                .tag("budget", budget)
+                .description("Requests rejected because the client exceeded its budget")
+                .register(meterRegistry);
+    }
+
+}
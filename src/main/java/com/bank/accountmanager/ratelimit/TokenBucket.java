@@ -0,0 +1,35 @@
+package com.bank.accountmanager.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// kept as the time at which the bucket is full again, so taking a token is a single compare-and-set
+public class TokenBucket {
+    private final long interval;
+    private final long capacity;
+    private final AtomicLong fullAt;
+
+    public TokenBucket(double tokensPerSecond, int burst, long nowNanos) {
+        if (tokensPerSecond <= 0 || burst < 1) {
+            throw new IllegalArgumentException("A token bucket needs a positive rate and burst");
+        }
+        this.interval = Math.max(1, Math.round(1_000_000_000d / tokensPerSecond));
+        this.capacity = interval * burst;
+        this.fullAt = new AtomicLong(nowNanos);
+    }
+
+    // takes a token and answers 0, or answers how many nanoseconds pass until the next token without taking one
+    public long tryAcquire(long nowNanos) {
+        while (true) {
+            var current = fullAt.get();
+            var next = Math.max(current, nowNanos) + interval;
+            var wait = next - nowNanos - capacity;
+            if (wait > 0) {
+                return wait;
+            }
+            if (fullAt.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+
+}
@@ -0,0 +1,13 @@
+package com.bank.accountmanager.repository;
+
+import com.bank.accountmanager.repository.model.Account;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+
+public interface AccountInsertRepository {
+
+    // inserts the accounts as one batched statement and emits them in the given order with their generated ids
+    Flux<Account> insertAll(List<Account> accounts);
+
+}
@@ -0,0 +1,47 @@
+package com.bank.accountmanager.repository;
+
+import com.bank.accountmanager.repository.model.Account;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+
+// every binding of the statement produces its own result, in binding order
+class AccountInsertRepositoryImpl implements AccountInsertRepository {
+    private static final String INSERT = """
+            INSERT INTO accounts (customer_id, currency, balance, created_at)
+            VALUES ($1, $2, $3, $4)""";
+
+    private final DatabaseClient databaseClient;
+
+    AccountInsertRepositoryImpl(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    @Override
+    public Flux<Account> insertAll(List<Account> accounts) {
+        if (accounts.isEmpty()) {
+            return Flux.empty();
+        }
+        return databaseClient.inConnectionMany(connection -> {
+            var statement = connection.createStatement(INSERT);
+            for (int i = 0; i < accounts.size(); i++) {
+                if (i > 0) {
+                    statement.add();
+                }
+                var account = accounts.get(i);
+                statement.bind(0, account.getCustomerId())
+                        .bind(1, account.getCurrency().name())
+                        .bind(2, account.getBalance())
+                        .bind(3, account.getCreatedAt());
+            }
+            return Flux.from(statement.returnGeneratedValues("account_id").execute())
+                    .concatMap(result -> result.map((row, metadata) -> row.get("account_id", Long.class)))
+                    .zipWithIterable(accounts, (id, account) -> {
+                        account.setId(id);
+                        return account;
+                    });
+        });
+    }
+
+}
@@ -1,10 +1,36 @@
 package com.bank.accountmanager.repository;
 
 import com.bank.accountmanager.repository.model.Account;
+import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.repository.reactive.ReactiveCrudRepository;
 import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
 
 @Repository
-public interface AccountRepository extends ReactiveCrudRepository<Account, Long> {
+public interface AccountRepository extends ReactiveCrudRepository<Account, Long>, BalanceUpdateRepository,
+        AccountInsertRepository {
+
+    // rows are locked in id order, so concurrent chunks touching the same accounts cannot deadlock
+    @Query("SELECT * FROM accounts WHERE account_id IN (:ids) ORDER BY account_id FOR UPDATE")
+    Flux<Account> findAllByIdForUpdate(Collection<Long> ids);
+
+    // a range scan of the (customer_id, currency, account_id) index, no sort needed
+    @Query("SELECT * FROM accounts WHERE customer_id = :customerId ORDER BY currency, account_id")
+    Flux<Account> findAllByCustomerId(long customerId);
+
+    @Query("SELECT currency FROM accounts WHERE account_id = :accountId")
+    Mono<String> findCurrencyById(long accountId);
+
+    @Query("SELECT DISTINCT currency FROM accounts")
+    Flux<String> findCurrencies();
+
+    @Query("SELECT MAX(account_id) FROM accounts")
+    Mono<Long> findMaxId();
+
+    @Query("SELECT account_id FROM accounts WHERE account_id BETWEEN :from AND :to ORDER BY account_id")
+    Flux<Long> findIdsBetween(long from, long to);
 
 }
@@ -0,0 +1,23 @@
+package com.bank.accountmanager.repository;
+
+import com.bank.accountmanager.repository.model.BalanceSnapshot;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+
+@Repository
+public interface BalanceSnapshotRepository extends ReactiveCrudRepository<BalanceSnapshot, Long> {
+
+    @Query("SELECT * FROM balance_snapshots WHERE account_id = :accountId ORDER BY entry_id DESC LIMIT 1")
+    Mono<BalanceSnapshot> findLatest(long accountId);
+
+    @Query("SELECT * FROM balance_snapshots WHERE account_id = :accountId AND created_at <= :asOf ORDER BY entry_id DESC LIMIT 1")
+    Mono<BalanceSnapshot> findLatestAt(long accountId, Instant asOf);
+
+    @Query("SELECT * FROM balance_snapshots WHERE account_id = :accountId ORDER BY entry_id LIMIT 1")
+    Mono<BalanceSnapshot> findEarliest(long accountId);
+
+}
@@ -0,0 +1,21 @@
+package com.bank.accountmanager.repository;
+
+import com.bank.accountmanager.repository.model.Account;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+
+// conditional updates in a single statement, an empty result means no row satisfied the condition
+public interface BalanceUpdateRepository {
+
+    Mono<Account> addToBalance(long accountId, long amount);
+
+    Mono<Account> subtractFromBalance(long accountId, long amount);
+
+    Flux<Account> transferBalance(long idFrom, long idTo, long debit, long credit, long fxVersion);
+
+    // writes the balances of accounts the caller has locked
+    Mono<Integer> setBalances(Collection<Account> accounts);
+
+}
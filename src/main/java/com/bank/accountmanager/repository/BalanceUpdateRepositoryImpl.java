@@ -0,0 +1,166 @@
+package com.bank.accountmanager.repository;
+
+import com.bank.accountmanager.repository.model.Account;
+import io.r2dbc.spi.ConnectionFactory;
+import org.springframework.data.r2dbc.convert.R2dbcConverter;
+import org.springframework.data.r2dbc.dialect.DialectResolver;
+import org.springframework.data.r2dbc.dialect.H2Dialect;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.r2dbc.core.DatabaseClient.GenericExecuteSpec;
+import org.springframework.transaction.ReactiveTransactionManager;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.StringJoiner;
+
+// H2 (used by the tests) has no data-modifying CTEs, there the statements run one by one in a transaction
+class BalanceUpdateRepositoryImpl implements BalanceUpdateRepository {
+    private static final String ADD = """
+            UPDATE accounts SET balance = balance + :amount
+            WHERE account_id = :accountId""";
+    private static final String SUBTRACT = """
+            UPDATE accounts SET balance = balance - :amount
+            WHERE account_id = :accountId AND balance >= :amount""";
+    private static final String DEPOSIT_ENTRY = """
+            INSERT INTO ledger_entries (account_id, entry_type, amount, balance, created_at)
+            SELECT account_id, 'DEPOSIT', :amount, balance, :createdAt FROM %s""";
+    private static final String WITHDRAW_ENTRY = """
+            INSERT INTO ledger_entries (account_id, entry_type, amount, balance, created_at)
+            SELECT account_id, 'WITHDRAW', -:amount, balance, :createdAt FROM %s""";
+    private static final String TRANSFER_ENTRIES = """
+            INSERT INTO ledger_entries (account_id, entry_type, amount, balance, counterparty_account_id, fx_version, created_at)
+            SELECT account_id,
+                   CASE WHEN account_id = :idFrom THEN 'TRANSFER_OUT' ELSE 'TRANSFER_IN' END,
+                   CASE WHEN account_id = :idFrom THEN -:debit ELSE :credit END,
+                   balance,
+                   CASE WHEN account_id = :idFrom THEN :idTo ELSE :idFrom END,
+                   :fxVersion,
+                   :createdAt
+            FROM %s""";
+    private static final String SELECT = "SELECT * FROM accounts WHERE account_id = :accountId";
+    private static final String POSTGRES_SINGLE_UPDATE = """
+            WITH updated AS (
+                %s
+                RETURNING *
+            ), entry AS (
+                %s
+            )
+            SELECT * FROM updated""";
+    private static final String POSTGRES_TRANSFER = """
+            WITH locked AS (
+                SELECT account_id, balance FROM accounts
+                WHERE account_id IN (:idFrom, :idTo)
+                ORDER BY account_id
+                FOR UPDATE
+            ), updated AS (
+                UPDATE accounts a
+                SET balance = a.balance + CASE WHEN a.account_id = :idFrom THEN -:debit ELSE :credit END
+                FROM locked l
+                WHERE a.account_id = l.account_id
+                  AND (SELECT COUNT(*) FROM locked) = 2
+                  AND (SELECT balance FROM locked WHERE account_id = :idFrom) >= :debit
+                RETURNING a.*
+            ), entries AS (
+                %s
+            )
+            SELECT * FROM updated""".formatted(TRANSFER_ENTRIES.formatted("updated"));
+    private static final String H2_TRANSFER = """
+            UPDATE accounts
+            SET balance = balance + CASE WHEN account_id = :idFrom THEN -:debit ELSE :credit END
+            WHERE account_id IN (:idFrom, :idTo)
+              AND (SELECT COUNT(*) FROM accounts
+                   WHERE account_id IN (:idFrom, :idTo) AND (account_id <> :idFrom OR balance >= :debit)) = 2""";
+    private static final String H2_SELECT_TRANSFER = "SELECT * FROM accounts WHERE account_id IN (:idFrom, :idTo)";
+    private static final String SET_BALANCES = """
+            UPDATE accounts SET balance = CASE account_id %s END
+            WHERE account_id IN (%s)""";
+    private static final String H2_SINGLE_ROW = "accounts WHERE account_id = :accountId";
+    private static final String H2_TRANSFER_ROWS = "accounts WHERE account_id IN (:idFrom, :idTo)";
+
+    private final DatabaseClient databaseClient;
+    private final R2dbcConverter converter;
+    private final TransactionalOperator transactionalOperator;
+    private final boolean h2;
+
+    BalanceUpdateRepositoryImpl(DatabaseClient databaseClient, R2dbcConverter converter, ConnectionFactory connectionFactory,
+                                ReactiveTransactionManager transactionManager) {
+        this.databaseClient = databaseClient;
+        this.converter = converter;
+        this.transactionalOperator = TransactionalOperator.create(transactionManager);
+        this.h2 = DialectResolver.getDialect(connectionFactory) instanceof H2Dialect;
+    }
+
+    @Override
+    public Mono<Account> addToBalance(long accountId, long amount) {
+        var parameters = Map.<String, Object>of("accountId", accountId, "amount", amount, "createdAt", Instant.now());
+        return update(ADD, DEPOSIT_ENTRY, parameters).singleOrEmpty();
+    }
+
+    @Override
+    public Mono<Account> subtractFromBalance(long accountId, long amount) {
+        var parameters = Map.<String, Object>of("accountId", accountId, "amount", amount, "createdAt", Instant.now());
+        return update(SUBTRACT, WITHDRAW_ENTRY, parameters).singleOrEmpty();
+    }
+
+    @Override
+    public Flux<Account> transferBalance(long idFrom, long idTo, long debit, long credit, long fxVersion) {
+        var parameters = Map.<String, Object>of("idFrom", idFrom, "idTo", idTo, "debit", debit, "credit", credit,
+                "fxVersion", fxVersion, "createdAt", Instant.now());
+        if (h2) {
+            return updateH2(H2_TRANSFER, TRANSFER_ENTRIES.formatted(H2_TRANSFER_ROWS), H2_SELECT_TRANSFER, parameters);
+        }
+        return read(execute(POSTGRES_TRANSFER, parameters));
+    }
+
+    // the CASE form is understood by Postgres and H2 alike
+    @Override
+    public Mono<Integer> setBalances(Collection<Account> accounts) {
+        var parameters = new HashMap<String, Object>();
+        var cases = new StringJoiner(" ");
+        var ids = new StringJoiner(", ");
+        var i = 0;
+        for (var account : accounts) {
+            parameters.put("id" + i, account.getId());
+            parameters.put("balance" + i, account.getBalance());
+            cases.add("WHEN :id%d THEN CAST(:balance%d AS BIGINT)".formatted(i, i));
+            ids.add(":id" + i);
+            i++;
+        }
+        return execute(SET_BALANCES.formatted(cases, ids), parameters).fetch().rowsUpdated();
+    }
+
+    private Flux<Account> update(String update, String entry, Map<String, Object> parameters) {
+        if (h2) {
+            return updateH2(update, entry.formatted(H2_SINGLE_ROW), SELECT, parameters);
+        }
+        return read(execute(POSTGRES_SINGLE_UPDATE.formatted(update, entry.formatted("updated")), parameters));
+    }
+
+    private Flux<Account> updateH2(String update, String entry, String select, Map<String, Object> parameters) {
+        return execute(update, parameters).fetch().rowsUpdated()
+                .filter(rowsUpdated -> rowsUpdated > 0)
+                .flatMapMany(rowsUpdated -> execute(entry, parameters).fetch().rowsUpdated()
+                        .thenMany(read(execute(select, parameters))))
+                .as(transactionalOperator::transactional);
+    }
+
+    private Flux<Account> read(GenericExecuteSpec spec) {
+        return spec.map((row, metadata) -> converter.read(Account.class, row, metadata)).all();
+    }
+
+    private GenericExecuteSpec execute(String sql, Map<String, Object> parameters) {
+        var spec = databaseClient.sql(sql);
+        for (var parameter : parameters.entrySet()) {
+            if (sql.contains(":" + parameter.getKey())) {
+                spec = spec.bind(parameter.getKey(), parameter.getValue());
+            }
+        }
+        return spec;
+    }
+
+}
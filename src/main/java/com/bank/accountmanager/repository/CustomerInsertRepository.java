@@ -0,0 +1,17 @@
+package com.bank.accountmanager.repository;
+
+import com.bank.accountmanager.repository.model.Customer;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+public interface CustomerInsertRepository {
+
+    // inserts the customer in a single statement, empty when a customer with the same name already exists
+    Mono<Customer> insertIfAbsent(Customer customer);
+
+    // inserts the customers as one batched statement, emits only the inserted ones with their generated ids
+    Flux<Customer> insertAllIfAbsent(List<Customer> customers);
+
+}
@@ -0,0 +1,84 @@
+package com.bank.accountmanager.repository;
+
+import com.bank.accountmanager.repository.model.Customer;
+import io.r2dbc.spi.ConnectionFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.r2dbc.convert.R2dbcConverter;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.data.r2dbc.dialect.DialectResolver;
+import org.springframework.data.r2dbc.dialect.H2Dialect;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+// H2 (used by the tests) has no ON CONFLICT, there the unique violation is the conflict signal
+class CustomerInsertRepositoryImpl implements CustomerInsertRepository {
+    private static final String INSERT_IF_ABSENT = """
+            INSERT INTO customers (first_name, last_name)
+            VALUES (:firstName, :lastName)
+            ON CONFLICT (last_name, first_name) DO NOTHING
+            RETURNING *""";
+    private static final String BATCH_INSERT_IF_ABSENT = """
+            INSERT INTO customers (first_name, last_name)
+            VALUES ($1, $2)
+            ON CONFLICT (last_name, first_name) DO NOTHING
+            RETURNING customer_id""";
+
+    private final DatabaseClient databaseClient;
+    private final R2dbcConverter converter;
+    private final R2dbcEntityTemplate entityTemplate;
+    private final boolean h2;
+
+    CustomerInsertRepositoryImpl(DatabaseClient databaseClient, R2dbcConverter converter, R2dbcEntityTemplate entityTemplate,
+                                 ConnectionFactory connectionFactory) {
+        this.databaseClient = databaseClient;
+        this.converter = converter;
+        this.entityTemplate = entityTemplate;
+        this.h2 = DialectResolver.getDialect(connectionFactory) instanceof H2Dialect;
+    }
+
+    @Override
+    public Mono<Customer> insertIfAbsent(Customer customer) {
+        if (h2) {
+            return entityTemplate.insert(customer)
+                    .onErrorResume(DataIntegrityViolationException.class, conflict -> Mono.empty());
+        }
+        return databaseClient.sql(INSERT_IF_ABSENT)
+                .bind("firstName", customer.getFirstName())
+                .bind("lastName", customer.getLastName())
+                .map((row, metadata) -> converter.read(Customer.class, row, metadata))
+                .one();
+    }
+
+    // every binding of the batch has its own result, an empty one for a conflicting name. H2 inserts one by one
+    @Override
+    public Flux<Customer> insertAllIfAbsent(List<Customer> customers) {
+        if (customers.isEmpty()) {
+            return Flux.empty();
+        }
+        if (h2) {
+            return Flux.fromIterable(customers).concatMap(this::insertIfAbsent);
+        }
+        return databaseClient.inConnectionMany(connection -> {
+            var statement = connection.createStatement(BATCH_INSERT_IF_ABSENT);
+            for (int i = 0; i < customers.size(); i++) {
+                if (i > 0) {
+                    statement.add();
+                }
+                statement.bind(0, customers.get(i).getFirstName()).bind(1, customers.get(i).getLastName());
+            }
+            return Flux.from(statement.execute())
+                    .concatMap(result -> Flux.from(result.map((row, metadata) -> row.get("customer_id", Long.class))).collectList())
+                    .zipWithIterable(customers)
+                    .filter(inserted -> !inserted.getT1().isEmpty())
+                    .map(inserted -> {
+                        var customer = inserted.getT2();
+                        customer.setId(inserted.getT1().get(0));
+                        return customer;
+                    });
+        });
+    }
+
+}
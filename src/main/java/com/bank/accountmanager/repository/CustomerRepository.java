@@ -7,8 +7,9 @@ import org.springframework.stereotype.Repository;
 import reactor.core.publisher.Mono;
 
 @Repository
-public interface CustomerRepository extends ReactiveCrudRepository<Customer, Long> {
+public interface CustomerRepository extends ReactiveCrudRepository<Customer, Long>, CustomerInsertRepository {
 
+    // answered from the unique (last_name, first_name) index
     @Query("SELECT NOT EXISTS(SELECT 1 from customers where last_name = :lastName AND first_name = :firstName)")
     Mono<Boolean> notExistByFirstAndLastName(String firstName, String lastName);
 
@@ -0,0 +1,47 @@
+package com.bank.accountmanager.repository;
+
+import com.bank.accountmanager.idempotency.StoredResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+
+@Repository
+@RequiredArgsConstructor
+public class IdempotencyRepository {
+    private static final String SELECT = "SELECT status, content_type, body, request_hash FROM idempotency_keys WHERE idempotency_key = :key";
+    private static final String INSERT = """
+            INSERT INTO idempotency_keys (idempotency_key, status, content_type, body, request_hash, created_at)
+            VALUES (:key, :status, :contentType, :body, :requestHash, :createdAt)""";
+    private static final String DELETE_EXPIRED = "DELETE FROM idempotency_keys WHERE created_at < :createdBefore";
+
+    private final DatabaseClient databaseClient;
+
+    public Mono<StoredResponse> findByKey(String key) {
+        return databaseClient.sql(SELECT)
+                .bind("key", key)
+                .map(row -> new StoredResponse(row.get("status", Integer.class), row.get("content_type", String.class),
+                        row.get("body", String.class), row.get("request_hash", String.class)))
+                .one();
+    }
+
+    public Mono<Void> insert(String key, StoredResponse response) {
+        var spec = databaseClient.sql(INSERT)
+                .bind("key", key)
+                .bind("status", response.status())
+                .bind("createdAt", Instant.now());
+        spec = response.contentType() == null ? spec.bindNull("contentType", String.class) : spec.bind("contentType", response.contentType());
+        spec = response.body() == null ? spec.bindNull("body", String.class) : spec.bind("body", response.body());
+        spec = response.requestHash() == null ? spec.bindNull("requestHash", String.class) : spec.bind("requestHash", response.requestHash());
+        return spec.fetch().rowsUpdated().then();
+    }
+
+    public Mono<Integer> deleteCreatedBefore(Instant createdBefore) {
+        return databaseClient.sql(DELETE_EXPIRED)
+                .bind("createdBefore", createdBefore)
+                .fetch().rowsUpdated();
+    }
+
+}
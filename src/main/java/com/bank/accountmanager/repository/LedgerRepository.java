@@ -0,0 +1,43 @@
+package com.bank.accountmanager.repository;
+
+import com.bank.accountmanager.repository.model.LedgerEntry;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+
+@Repository
+public interface LedgerRepository extends ReactiveCrudRepository<LedgerEntry, Long> {
+
+    // keyset page over the (account_id, created_at, entry_id) index
+    @Query("""
+            SELECT * FROM ledger_entries
+            WHERE account_id = :accountId AND (created_at, entry_id) > (:after, :afterId)
+            ORDER BY created_at, entry_id
+            LIMIT :limit""")
+    Flux<LedgerEntry> findPage(long accountId, Instant after, long afterId, int limit);
+
+    // the entries applied after a snapshot, in the order they were applied
+    @Query("SELECT * FROM ledger_entries WHERE account_id = :accountId AND entry_id > :afterId ORDER BY entry_id")
+    Flux<LedgerEntry> findTail(long accountId, long afterId);
+
+    @Query("""
+            SELECT * FROM ledger_entries
+            WHERE account_id = :accountId AND entry_id > :afterId AND created_at <= :asOf
+            ORDER BY entry_id""")
+    Flux<LedgerEntry> findTailUntil(long accountId, long afterId, Instant asOf);
+
+    // the entries up to a snapshot that were created after asOf, undoing them goes back in time from the snapshot
+    @Query("""
+            SELECT * FROM ledger_entries
+            WHERE account_id = :accountId AND entry_id <= :untilId AND created_at > :asOf
+            ORDER BY entry_id""")
+    Flux<LedgerEntry> findCreatedAfter(long accountId, Instant asOf, long untilId);
+
+    @Query("SELECT * FROM ledger_entries WHERE account_id = :accountId ORDER BY entry_id DESC LIMIT 1")
+    Mono<LedgerEntry> findLast(long accountId);
+
+}
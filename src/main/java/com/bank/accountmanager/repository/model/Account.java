@@ -1,6 +1,8 @@
 package com.bank.accountmanager.repository.model;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonGetter;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Data;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.relational.core.mapping.Column;
@@ -11,6 +13,7 @@ import java.time.Instant;
 
 import static com.fasterxml.jackson.annotation.JsonFormat.Shape.STRING;
 
+// the balance is stored in minor units of the currency, it is serialized as a decimal amount
 @Data
 @Table("accounts")
 public class Account {
@@ -19,7 +22,8 @@ public class Account {
     @Column("account_id")
     private Long id;
 
-    private BigDecimal balance = BigDecimal.ZERO;
+    @JsonIgnore
+    private long balance;
 
     private final Currency currency;
 
@@ -30,4 +34,9 @@ public class Account {
     @JsonFormat(shape = STRING)
     private final Instant createdAt;
 
+    @JsonGetter("balance")
+    public BigDecimal balanceAmount() {
+        return currency.toMajorUnits(balance);
+    }
+
 }
@@ -0,0 +1,30 @@
+package com.bank.accountmanager.repository.model;
+
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.time.Instant;
+
+// the balance of an account right after its ledger entry entryId (0 before any entry), created_at is the time of that state
+@Data
+@Table("balance_snapshots")
+public class BalanceSnapshot {
+
+    @Id
+    @Column("snapshot_id")
+    private Long id;
+
+    @Column("account_id")
+    private final Long accountId;
+
+    @Column("entry_id")
+    private final long entryId;
+
+    private final long balance;
+
+    @Column("created_at")
+    private final Instant createdAt;
+
+}
@@ -1,6 +1,28 @@
 package com.bank.accountmanager.repository.model;
 
+import java.math.BigDecimal;
+
 // supported currencies should be stored in DB, for MVP solution this enum should be suffice
 public enum Currency {
-    EUR, USD, GBP
+    EUR(2), USD(2), GBP(2);
+
+    private final int scale;
+
+    Currency(int scale) {
+        this.scale = scale;
+    }
+
+    public int scale() {
+        return scale;
+    }
+
+    // throws ArithmeticException if the amount has more decimals than the currency or does not fit in a long
+    public long toMinorUnits(BigDecimal amount) {
+        return amount.movePointRight(scale).longValueExact();
+    }
+
+    public BigDecimal toMajorUnits(long minorUnits) {
+        return BigDecimal.valueOf(minorUnits, scale);
+    }
+
 }
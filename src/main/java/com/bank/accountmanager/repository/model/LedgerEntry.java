@@ -0,0 +1,42 @@
+package com.bank.accountmanager.repository.model;
+
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.time.Instant;
+
+// amount is the signed change, balance the balance right after the entry, both in minor units
+@Data
+@Table("ledger_entries")
+public class LedgerEntry {
+
+    @Id
+    @Column("entry_id")
+    private Long id;
+
+    @Column("account_id")
+    private final Long accountId;
+
+    @Column("entry_type")
+    private final EntryType type;
+
+    private final long amount;
+
+    private final long balance;
+
+    @Column("counterparty_account_id")
+    private final Long counterpartyAccountId;
+
+    @Column("created_at")
+    private final Instant createdAt;
+
+    @Column("fx_version")
+    private Long fxVersion;
+
+    public enum EntryType {
+        DEPOSIT, WITHDRAW, TRANSFER_IN, TRANSFER_OUT
+    }
+
+}
@@ -1,7 +1,10 @@
 package com.bank.accountmanager.router;
 
+import com.bank.accountmanager.concurrency.AdaptiveConcurrencyLimiter;
 import com.bank.accountmanager.handler.AccountHandler;
 import com.bank.accountmanager.handler.CustomerHandler;
+import com.bank.accountmanager.handler.FxRatesHandler;
+import com.bank.accountmanager.metrics.RouteMetrics;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -10,30 +13,62 @@ import org.springframework.web.reactive.function.server.RouterFunction;
 import org.springframework.web.reactive.function.server.RouterFunctions;
 import org.springframework.web.reactive.function.server.ServerResponse;
 
+import static com.bank.accountmanager.configuration.CodecConfiguration.OBJECT_BODIES;
+import static com.bank.accountmanager.handler.CustomerHandler.TEXT_CSV;
 import static org.springframework.http.MediaType.APPLICATION_JSON;
+import static org.springframework.http.MediaType.APPLICATION_NDJSON;
 
 @Configuration
 @RequiredArgsConstructor
 public class AccountManagerRouter {
     private static final String CREATE_CUSTOMER_ENDPOINT = "/customer";
     private static final String CREATE_ACCOUNT_ENDPOINT = "/account";
+    private static final String GET_PORTFOLIO_ENDPOINT = "/customer/{customerId}/accounts";
     private static final String DEPOSIT_ENDPOINT = "/account/{accountId}/deposit";
     private static final String WITHDRAW_ENDPOINT = "/account/{accountId}/withdraw";
     private static final String GET_BALANCE_ENDPOINT = "/account/{accountId}";
+    private static final String GET_BALANCES_ENDPOINT = "/accounts/balances";
+    private static final String GET_ACCOUNTS_ENDPOINT = "/accounts";
+    private static final String GET_TRANSACTIONS_ENDPOINT = "/account/{accountId}/transactions";
     private static final String TRANSFER_BETWEEN_ACCOUNTS_ENDPOINT = "/transfer/{accountIdFrom}/{accountIdTo}";
+    private static final String TRANSFER_BATCH_ENDPOINT = "/transfers/batch";
+    private static final String IMPORT_ENDPOINT = "/customers/import";
+    private static final String FX_RATES_ENDPOINT = "/admin/fx-rates";
 
     private final CustomerHandler customerHandler;
     private final AccountHandler accountHandler;
+    private final FxRatesHandler fxRatesHandler;
+    private final RouteMetrics routeMetrics;
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
 
+    // only routes answering a single value, a streamed body is written after the handler returned
     @Bean
     public RouterFunction<ServerResponse> routes() {
         return RouterFunctions.route()
-                .GET(GET_BALANCE_ENDPOINT, accountHandler::getAccountBalance)
-                .POST(CREATE_CUSTOMER_ENDPOINT, RequestPredicates.contentType(APPLICATION_JSON), customerHandler::createCustomer)
-                .POST(CREATE_ACCOUNT_ENDPOINT, RequestPredicates.contentType(APPLICATION_JSON), accountHandler::createAccount)
-                .PUT(DEPOSIT_ENDPOINT, RequestPredicates.contentType(APPLICATION_JSON), accountHandler::deposit)
-                .PUT(WITHDRAW_ENDPOINT, RequestPredicates.contentType(APPLICATION_JSON), accountHandler::withdraw)
-                .PUT(TRANSFER_BETWEEN_ACCOUNTS_ENDPOINT, RequestPredicates.contentType(APPLICATION_JSON), accountHandler::transfer)
+                .GET(GET_BALANCE_ENDPOINT,
+                        routeMetrics.timed("get_balance", concurrencyLimiter.limited(accountHandler::getAccountBalance)))
+                .GET(GET_PORTFOLIO_ENDPOINT, routeMetrics.timed("get_portfolio", customerHandler::getPortfolio))
+                .POST(GET_BALANCES_ENDPOINT, RequestPredicates.contentType(APPLICATION_JSON),
+                        routeMetrics.timed("get_balances", accountHandler::getAccountBalances))
+                .GET(GET_ACCOUNTS_ENDPOINT, routeMetrics.timed("get_accounts", accountHandler::getAccounts))
+                .GET(GET_TRANSACTIONS_ENDPOINT, routeMetrics.timed("get_transactions", accountHandler::getTransactions))
+                .POST(CREATE_CUSTOMER_ENDPOINT, RequestPredicates.contentType(APPLICATION_JSON),
+                        routeMetrics.timed("create_customer", concurrencyLimiter.limited(customerHandler::createCustomer)))
+                .POST(CREATE_ACCOUNT_ENDPOINT, RequestPredicates.contentType(OBJECT_BODIES),
+                        routeMetrics.timed("create_account", concurrencyLimiter.limited(accountHandler::createAccount)))
+                .PUT(DEPOSIT_ENDPOINT, RequestPredicates.contentType(OBJECT_BODIES),
+                        routeMetrics.timed("deposit", concurrencyLimiter.limited(accountHandler::deposit)))
+                .PUT(WITHDRAW_ENDPOINT, RequestPredicates.contentType(OBJECT_BODIES),
+                        routeMetrics.timed("withdraw", concurrencyLimiter.limited(accountHandler::withdraw)))
+                .PUT(TRANSFER_BETWEEN_ACCOUNTS_ENDPOINT, RequestPredicates.contentType(OBJECT_BODIES),
+                        routeMetrics.timed("transfer", concurrencyLimiter.limited(accountHandler::transfer)))
+                .POST(TRANSFER_BATCH_ENDPOINT, RequestPredicates.contentType(APPLICATION_NDJSON, APPLICATION_JSON),
+                        routeMetrics.timed("transfer_batch", accountHandler::transferBatch))
+                .POST(IMPORT_ENDPOINT, RequestPredicates.contentType(APPLICATION_NDJSON, APPLICATION_JSON, TEXT_CSV),
+                        routeMetrics.timed("import_customers", customerHandler::importCustomers))
+                .GET(FX_RATES_ENDPOINT, routeMetrics.timed("get_fx_rates", fxRatesHandler::getRates))
+                .PUT(FX_RATES_ENDPOINT, RequestPredicates.contentType(APPLICATION_JSON),
+                        routeMetrics.timed("update_fx_rates", fxRatesHandler::updateRates))
                 .build();
     }
 
@@ -0,0 +1,41 @@
+package com.bank.accountmanager.service;
+
+import com.bank.accountmanager.handler.exception.AsOfNotSupportedException;
+import com.bank.accountmanager.handler.request.TransferRequest;
+import com.bank.accountmanager.handler.response.TransferResult;
+import com.bank.accountmanager.repository.model.Account;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.function.Tuple2;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Collection;
+
+// the implementation is selected by accountmanager.operations.mode
+public interface AccountOperations {
+
+    Mono<Account> findAccount(long accountId);
+
+    // empty when the account did not exist yet, only the event-sourced mode keeps the history
+    default Mono<Account> findAccount(long accountId, Instant asOf) {
+        return Mono.error(new AsOfNotSupportedException("Historical balances require the event-sourced mode"));
+    }
+
+    // the accounts found among the ids, in no particular order
+    default Flux<Account> findAccounts(Collection<Long> accountIds) {
+        return Flux.fromIterable(accountIds).flatMap(this::findAccount);
+    }
+
+    // the accounts of the customer ordered by currency and id
+    Flux<Account> findCustomerAccounts(long customerId);
+
+    Mono<Account> deposit(long accountId, BigDecimal amount);
+
+    Mono<Account> withdraw(long accountId, BigDecimal amount);
+
+    Mono<Tuple2<Account, Account>> transfer(long idFrom, long idTo, BigDecimal amount);
+
+    Flux<TransferResult> transferAll(Flux<TransferRequest> transfers, boolean allOrNothing);
+
+}
@@ -0,0 +1,48 @@
+package com.bank.accountmanager.service;
+
+import com.bank.accountmanager.cache.BalanceCache;
+import com.bank.accountmanager.configuration.BalanceLookupProperties;
+import com.bank.accountmanager.handler.response.AccountResponse;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+
+// not routed to the replicas, as the accounts it finds are put into the cache
+@Service
+public class BalanceLookupService {
+
+    private final AccountOperations accountOperations;
+    private final BalanceCache balanceCache;
+    private final int maxIds;
+
+    public BalanceLookupService(AccountOperations accountOperations, BalanceCache balanceCache, BalanceLookupProperties properties) {
+        this.accountOperations = accountOperations;
+        this.balanceCache = balanceCache;
+        this.maxIds = properties.maxIds();
+    }
+
+    public int maxIds() {
+        return maxIds;
+    }
+
+    // reads of the caller's own writes bypass the cache
+    public Flux<AccountResponse> balances(Collection<Long> accountIds, boolean readYourWrites) {
+        var ids = new LinkedHashSet<>(accountIds);
+        var accounts = readYourWrites
+                ? accountOperations.findAccounts(ids)
+                : balanceCache.getAll(ids, accountOperations::findAccounts);
+
+        return Flux.defer(() -> {
+            var found = new HashSet<Long>();
+            return accounts.filter(account -> found.add(account.getId()))
+                    .map(AccountResponse::of)
+                    .concatWith(Flux.defer(() -> Flux.fromStream(ids.stream()
+                            .filter(accountId -> !found.contains(accountId))
+                            .map(AccountResponse::notFound))));
+        });
+    }
+
+}
@@ -2,59 +2,113 @@ package com.bank.accountmanager.service;
 
 import com.bank.accountmanager.handler.exception.InvalidAmountException;
 import com.bank.accountmanager.repository.model.Account;
+import com.bank.accountmanager.repository.model.Currency;
+import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Mono;
 import reactor.util.function.Tuple2;
 
 import java.math.BigDecimal;
 
+import static com.bank.accountmanager.service.BalanceService.Operation.*;
+
+// amounts and balances are long minor units, a decimal amount is converted once with the scale of the account currency
 @Service
 public class BalanceService {
 
-    public Mono<Account> addAmountToBalance(Account account, BigDecimal amount) {
-        if (isLessOrEqualToZero(amount)) {
-            return Mono.error(new InvalidAmountException("Deposit amount must be greater than 0"));
+    public Mono<Account> addAmountToBalance(Account account, long amount) {
+        if (amount <= 0) {
+            return invalidAmount(DEPOSIT);
+        }
+        if (isOverflowing(account.getBalance(), amount)) {
+            return balanceOverflow(DEPOSIT, account, amount);
         }
-        account.setBalance(account.getBalance().add(amount));
+        account.setBalance(account.getBalance() + amount);
         return Mono.just(account);
     }
 
-    public Mono<Account> subtractAmountFromBalance(Account account, BigDecimal amount) {
-        if (isLessOrEqualToZero(amount)) {
-            return Mono.error(new InvalidAmountException("Withdraw amount must be greater than 0"));
+    public Mono<Account> subtractAmountFromBalance(Account account, long amount) {
+        if (amount <= 0) {
+            return invalidAmount(WITHDRAW);
         }
-        if (isInsufficientBalance(account.getBalance(), amount)) {
-            return Mono.error(new InvalidAmountException("Insufficient funds, cannot withdraw %s, balance %s"
-                    .formatted(amount, account.getBalance())));
+        if (account.getBalance() < amount) {
+            return insufficientFunds(WITHDRAW, account, amount);
         }
-        account.setBalance(account.getBalance().subtract(amount));
+        account.setBalance(account.getBalance() - amount);
         return Mono.just(account);
     }
 
-    public Mono<Tuple2<Account, Account>> modifyBalances(Tuple2<Account, Account> accounts, BigDecimal amount) {
-        if (isLessOrEqualToZero(amount)) {
-            return Mono.error(new InvalidAmountException("Transfer amount must be greater than 0"));
+    public Mono<Tuple2<Account, Account>> modifyBalances(Tuple2<Account, Account> accounts, long amount) {
+        return modifyBalances(accounts, amount, amount);
+    }
+
+    // debit is in minor units of the source account currency, credit in minor units of the target account currency
+    public Mono<Tuple2<Account, Account>> modifyBalances(Tuple2<Account, Account> accounts, long debit, long credit) {
+        if (debit <= 0 || credit <= 0) {
+            return invalidAmount(TRANSFER);
         }
 
         Account from = accounts.getT1();
-        BigDecimal balanceFrom = from.getBalance();
-        if (isInsufficientBalance(balanceFrom, amount)) {
-            return Mono.error(new InvalidAmountException("Insufficient funds, cannot transfer %s, balance %s"
-                    .formatted(amount, balanceFrom)));
+        if (from.getBalance() < debit) {
+            return insufficientFunds(TRANSFER, from, debit);
         }
-        from.setBalance(balanceFrom.subtract(amount));
-
         Account to = accounts.getT2();
-        to.setBalance(to.getBalance().add(amount));
+        if (isOverflowing(to.getBalance(), credit)) {
+            return balanceOverflow(TRANSFER, to, credit);
+        }
+        from.setBalance(from.getBalance() - debit);
+        to.setBalance(to.getBalance() + credit);
         return Mono.just(accounts);
     }
 
-    private boolean isLessOrEqualToZero(BigDecimal amount) {
-        return amount.signum() <= 0;
+    public Mono<Long> checkCredit(Operation operation, Account account, long amount) {
+        if (isOverflowing(account.getBalance(), amount)) {
+            return balanceOverflow(operation, account, amount);
+        }
+        return Mono.just(amount);
+    }
+
+    // same rules for operations applied by the database, where the balance is only known when the update is rejected
+    public Mono<Long> checkAmount(Operation operation, Currency currency, BigDecimal amount) {
+        if (amount.signum() <= 0) {
+            return invalidAmount(operation);
+        }
+        try {
+            return Mono.just(currency.toMinorUnits(amount));
+        } catch (ArithmeticException e) {
+            return Mono.error(new InvalidAmountException("%s amount %s is not a valid %s amount"
+                    .formatted(operation.label, amount.toPlainString(), currency)));
+        }
+    }
+
+    public <T> Mono<T> insufficientFunds(Operation operation, Account account, long amount) {
+        return Mono.error(new InvalidAmountException("Insufficient funds, cannot %s %s, balance %s"
+                .formatted(operation.name().toLowerCase(), format(account.getCurrency(), amount),
+                        format(account.getCurrency(), account.getBalance()))));
+    }
+
+    private <T> Mono<T> balanceOverflow(Operation operation, Account account, long amount) {
+        return Mono.error(new InvalidAmountException("Cannot %s %s, balance of account %d would exceed the maximum"
+                .formatted(operation.name().toLowerCase(), format(account.getCurrency(), amount), account.getId())));
+    }
+
+    private <T> Mono<T> invalidAmount(Operation operation) {
+        return Mono.error(new InvalidAmountException("%s amount must be greater than 0".formatted(operation.label)));
     }
 
-    private boolean isInsufficientBalance(BigDecimal balance, BigDecimal amount) {
-        return balance.compareTo(amount) < 0;
+    private String format(Currency currency, long minorUnits) {
+        return currency.toMajorUnits(minorUnits).stripTrailingZeros().toPlainString();
+    }
+
+    private boolean isOverflowing(long balance, long amount) {
+        return balance > Long.MAX_VALUE - amount;
+    }
+
+    @RequiredArgsConstructor
+    public enum Operation {
+        DEPOSIT("Deposit"), WITHDRAW("Withdraw"), TRANSFER("Transfer");
+
+        private final String label;
     }
 
 }
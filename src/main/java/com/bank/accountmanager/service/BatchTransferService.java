@@ -0,0 +1,146 @@
+package com.bank.accountmanager.service;
+
+import com.bank.accountmanager.configuration.TransferBatchProperties;
+import com.bank.accountmanager.fx.FxRates;
+import com.bank.accountmanager.handler.request.TransferRequest;
+import com.bank.accountmanager.handler.response.TransferResult;
+import com.bank.accountmanager.repository.AccountRepository;
+import com.bank.accountmanager.repository.LedgerRepository;
+import com.bank.accountmanager.repository.model.Account;
+import com.bank.accountmanager.repository.model.LedgerEntry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.ReactiveTransactionManager;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.function.Tuples;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+import static com.bank.accountmanager.handler.response.TransferResult.Status.FAILED;
+import static com.bank.accountmanager.repository.model.LedgerEntry.EntryType.TRANSFER_IN;
+import static com.bank.accountmanager.repository.model.LedgerEntry.EntryType.TRANSFER_OUT;
+import static com.bank.accountmanager.service.BalanceService.Operation.TRANSFER;
+
+// every chunk runs in one transaction holding the locks of all accounts it touches
+@Slf4j
+@Service
+public class BatchTransferService {
+
+    private final AccountRepository accountRepository;
+    private final LedgerRepository ledgerRepository;
+    private final BalanceService balanceService;
+    private final FxRates fxRates;
+    private final TransactionalOperator transactionalOperator;
+    private final int chunkSize;
+
+    public BatchTransferService(AccountRepository accountRepository, LedgerRepository ledgerRepository, BalanceService balanceService,
+                                FxRates fxRates, ReactiveTransactionManager transactionManager, TransferBatchProperties properties) {
+        this.accountRepository = accountRepository;
+        this.ledgerRepository = ledgerRepository;
+        this.balanceService = balanceService;
+        this.fxRates = fxRates;
+        this.transactionalOperator = TransactionalOperator.create(transactionManager);
+        this.chunkSize = properties.chunkSize();
+    }
+
+    public Flux<TransferResult> transferAll(Flux<TransferRequest> transfers, boolean allOrNothing) {
+        return transfers.buffer(chunkSize)
+                .concatMap(chunk -> transferChunk(chunk, allOrNothing));
+    }
+
+    private Flux<TransferResult> transferChunk(List<TransferRequest> chunk, boolean allOrNothing) {
+        var accountIds = new TreeSet<Long>();
+        chunk.stream()
+                .filter(this::isComplete)
+                .forEach(transfer -> {
+                    accountIds.add(transfer.from());
+                    accountIds.add(transfer.to());
+                });
+        if (accountIds.isEmpty()) {
+            return Flux.fromIterable(chunk)
+                    .map(transfer -> TransferResult.failed(transfer, "Transfer requires from, to and amount"));
+        }
+
+        return accountRepository.findAllByIdForUpdate(accountIds)
+                .collectMap(Account::getId)
+                .flatMap(accounts -> apply(chunk, accounts, allOrNothing))
+                .as(transactionalOperator::transactional)
+                .onErrorResume(RolledBackChunk.class, rolledBack -> Mono.just(rolledBack.results))
+                .doOnNext(results -> log.info("Processed chunk of {} transfers", results.size()))
+                .flatMapIterable(results -> results);
+    }
+
+    private Mono<List<TransferResult>> apply(List<TransferRequest> chunk, Map<Long, Account> accounts, boolean allOrNothing) {
+        var modified = new HashMap<Long, Account>();
+        var entries = new ArrayList<LedgerEntry>();
+
+        return Flux.fromIterable(chunk)
+                .concatMap(transfer -> apply(transfer, accounts, modified, entries))
+                .collectList()
+                .flatMap(results -> {
+                    if (allOrNothing && results.stream().anyMatch(result -> result.status() == FAILED)) {
+                        return Mono.error(new RolledBackChunk(results.stream().map(TransferResult::rolledBack).collect(Collectors.toList())));
+                    }
+                    return accountRepository.saveAll(modified.values())
+                            .thenMany(ledgerRepository.saveAll(entries))
+                            .then(Mono.just(results));
+                });
+    }
+
+    private Mono<TransferResult> apply(TransferRequest transfer, Map<Long, Account> accounts, Map<Long, Account> modified,
+                                       List<LedgerEntry> entries) {
+        if (!isComplete(transfer)) {
+            return Mono.just(TransferResult.failed(transfer, "Transfer requires from, to and amount"));
+        }
+        if (transfer.from().equals(transfer.to())) {
+            return Mono.just(TransferResult.failed(transfer, "Cannot transfer from account %d to itself".formatted(transfer.from())));
+        }
+        var from = accounts.get(transfer.from());
+        var to = accounts.get(transfer.to());
+        if (from == null || to == null) {
+            return Mono.just(TransferResult.failed(transfer, "Account %d not found"
+                    .formatted(from == null ? transfer.from() : transfer.to())));
+        }
+
+        // modifyBalances leaves both accounts untouched when the transfer is invalid
+        return balanceService.checkAmount(TRANSFER, from.getCurrency(), transfer.amount())
+                .flatMap(amount -> fxRates.convert(from.getCurrency(), to.getCurrency(), amount))
+                .flatMap(conversion -> balanceService.modifyBalances(Tuples.of(from, to), conversion.amount(), conversion.converted())
+                        .doOnNext(updated -> {
+                            modified.put(from.getId(), from);
+                            modified.put(to.getId(), to);
+                            var createdAt = Instant.now();
+                            var debit = new LedgerEntry(from.getId(), TRANSFER_OUT, -conversion.amount(), from.getBalance(), to.getId(), createdAt);
+                            var credit = new LedgerEntry(to.getId(), TRANSFER_IN, conversion.converted(), to.getBalance(), from.getId(), createdAt);
+                            debit.setFxVersion(conversion.rateVersion());
+                            credit.setFxVersion(conversion.rateVersion());
+                            entries.add(debit);
+                            entries.add(credit);
+                        }))
+                .map(updated -> TransferResult.completed(transfer))
+                .onErrorResume(error -> Mono.just(TransferResult.failed(transfer, error.getMessage())));
+    }
+
+    private boolean isComplete(TransferRequest transfer) {
+        return Objects.nonNull(transfer.from()) && Objects.nonNull(transfer.to()) && Objects.nonNull(transfer.amount());
+    }
+
+    private static class RolledBackChunk extends RuntimeException {
+        private final List<TransferResult> results;
+
+        RolledBackChunk(List<TransferResult> results) {
+            super(null, null, false, false);
+            this.results = results;
+        }
+    }
+
+}
@@ -0,0 +1,238 @@
+package com.bank.accountmanager.service;
+
+import com.bank.accountmanager.cache.CustomerNameFilter;
+import com.bank.accountmanager.configuration.BulkImportProperties;
+import com.bank.accountmanager.handler.request.ImportRequest;
+import com.bank.accountmanager.handler.response.ImportResult;
+import com.bank.accountmanager.repository.AccountRepository;
+import com.bank.accountmanager.repository.CustomerRepository;
+import com.bank.accountmanager.repository.model.Account;
+import com.bank.accountmanager.repository.model.Currency;
+import com.bank.accountmanager.repository.model.Customer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.ReactiveTransactionManager;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.function.Tuple2;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+// each chunk is one transaction, the next one is only read from the request once the previous one was written
+@Slf4j
+@Service
+public class BulkImportService {
+    private static final int MAX_NAME_LENGTH = 25;
+
+    private final CustomerRepository customerRepository;
+    private final AccountRepository accountRepository;
+    private final CustomerNameFilter nameFilter;
+    private final TransactionalOperator transactionalOperator;
+    private final int chunkSize;
+
+    public BulkImportService(CustomerRepository customerRepository, AccountRepository accountRepository, CustomerNameFilter nameFilter,
+                             ReactiveTransactionManager transactionManager, BulkImportProperties properties) {
+        this.customerRepository = customerRepository;
+        this.accountRepository = accountRepository;
+        this.nameFilter = nameFilter;
+        this.transactionalOperator = TransactionalOperator.create(transactionManager);
+        this.chunkSize = properties.chunkSize();
+    }
+
+    public Flux<ImportResult> importAll(Flux<ImportRequest> rows) {
+        return importRows(rows.index().map(indexed -> new Row(indexed.getT1() + 1, indexed.getT2())));
+    }
+
+    // every line is a row with the fields of ImportRequest.fromCsv
+    public Flux<ImportResult> importCsv(Flux<String> lines) {
+        return importRows(lines.index().map(this::parse));
+    }
+
+    private Flux<ImportResult> importRows(Flux<Row> rows) {
+        return rows.map(this::validate)
+                .buffer(chunkSize)
+                .concatMap(this::importChunk);
+    }
+
+    private Flux<ImportResult> importChunk(List<Row> chunk) {
+        return findExistingCustomers(chunk)
+                .flatMap(existing -> {
+                    chunk.stream()
+                            .filter(row -> row.isValid() && row.request.customerId() != null)
+                            .filter(row -> !existing.contains(row.request.customerId()))
+                            .forEach(row -> row.fail("Customer %d not found".formatted(row.request.customerId())));
+                    return insertCustomers(chunk);
+                })
+                .then(Mono.defer(() -> insertAccounts(chunk)))
+                .as(transactionalOperator::transactional)
+                .doOnSuccess(done -> log.info("Imported chunk of {} rows", chunk.size()))
+                .onErrorResume(error -> {
+                    log.error("Could not import chunk of rows {} to {}, message {}", chunk.get(0).number,
+                            chunk.get(chunk.size() - 1).number, error.getMessage());
+                    chunk.stream()
+                            .filter(Row::isValid)
+                            .forEach(row -> row.fail("Row could not be written, the other rows of its chunk were rolled back"));
+                    return Mono.empty();
+                })
+                .thenMany(Flux.fromIterable(chunk))
+                .map(Row::toResult);
+    }
+
+    private Mono<Set<Long>> findExistingCustomers(List<Row> chunk) {
+        var ids = chunk.stream()
+                .filter(row -> row.isValid() && row.request.customerId() != null)
+                .map(row -> row.request.customerId())
+                .collect(Collectors.toSet());
+        if (ids.isEmpty()) {
+            return Mono.just(Set.of());
+        }
+        return customerRepository.findAllById(ids).map(Customer::getId).collect(Collectors.toSet());
+    }
+
+    // a name repeated within the chunk is a conflict as well, only its first row may create the customer
+    private Mono<Void> insertCustomers(List<Row> chunk) {
+        var byName = new HashMap<String, Row>();
+        var customers = new ArrayList<Customer>();
+        for (var row : chunk) {
+            if (!row.isValid() || row.request.customerId() != null) {
+                continue;
+            }
+            if (byName.putIfAbsent(nameKey(row.request.firstName(), row.request.lastName()), row) != null) {
+                row.fail(alreadyExists(row.request));
+                continue;
+            }
+            customers.add(new Customer(row.request.firstName(), row.request.lastName()));
+        }
+
+        return customerRepository.insertAllIfAbsent(customers)
+                .doOnNext(customer -> {
+                    var row = byName.remove(nameKey(customer.getFirstName(), customer.getLastName()));
+                    row.customerId = customer.getId();
+                    nameFilter.put(customer.getFirstName(), customer.getLastName());
+                })
+                .then(Mono.fromRunnable(() -> byName.values().forEach(row -> row.fail(alreadyExists(row.request)))));
+    }
+
+    private Mono<Void> insertAccounts(List<Row> chunk) {
+        var accounts = new ArrayList<Account>();
+        for (var row : chunk) {
+            if (!row.isValid()) {
+                continue;
+            }
+            for (var opening : row.openings) {
+                var account = new Account(opening.currency(), row.customerId, opening.createdAt());
+                account.setBalance(opening.balance());
+                row.accounts.add(account);
+            }
+            accounts.addAll(row.accounts);
+        }
+        return accountRepository.insertAll(accounts).then();
+    }
+
+    private Row parse(Tuple2<Long, String> indexed) {
+        var number = indexed.getT1() + 1;
+        try {
+            return new Row(number, ImportRequest.fromCsv(indexed.getT2()));
+        } catch (IllegalArgumentException e) {
+            return new Row(number, null).fail("Malformed row: %s".formatted(e.getMessage()));
+        }
+    }
+
+    private Row validate(Row row) {
+        if (!row.isValid()) {
+            return row;
+        }
+        var request = row.request;
+        row.customerId = request.customerId();
+
+        var byId = request.customerId() != null && request.firstName() == null && request.lastName() == null;
+        var byName = request.customerId() == null && request.firstName() != null && request.lastName() != null;
+        if (!byId && !byName) {
+            return row.fail("Row requires either customerId or firstName and lastName");
+        }
+        if (byName && (request.firstName().length() > MAX_NAME_LENGTH || request.lastName().length() > MAX_NAME_LENGTH)) {
+            return row.fail("Names are limited to %d characters".formatted(MAX_NAME_LENGTH));
+        }
+
+        var createdAt = Instant.now();
+        for (var accountRow : request.accountRows()) {
+            var currency = currency(accountRow.currency());
+            if (currency == null) {
+                return row.fail("Unsupported currency %s".formatted(accountRow.currency()));
+            }
+            var balance = 0L;
+            if (accountRow.initialDeposit() != null) {
+                if (accountRow.initialDeposit().signum() < 0) {
+                    return row.fail("Initial deposit must not be negative");
+                }
+                try {
+                    balance = currency.toMinorUnits(accountRow.initialDeposit());
+                } catch (ArithmeticException e) {
+                    return row.fail("Initial deposit is not a valid amount of the account currency");
+                }
+            }
+            row.openings.add(new Opening(currency, balance, createdAt));
+        }
+        return row;
+    }
+
+    private static Currency currency(String code) {
+        if (code == null) {
+            return null;
+        }
+        try {
+            return Currency.valueOf(code);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static String nameKey(String firstName, String lastName) {
+        return lastName + '\n' + firstName;
+    }
+
+    private static String alreadyExists(ImportRequest request) {
+        return "Customer %s %s already exists".formatted(request.firstName(), request.lastName());
+    }
+
+    private static class Row {
+        private final long number;
+        private final ImportRequest request;
+        private final List<Opening> openings = new ArrayList<>();
+        private final List<Account> accounts = new ArrayList<>();
+        private Long customerId;
+        private String failure;
+
+        Row(long number, ImportRequest request) {
+            this.number = number;
+            this.request = request;
+        }
+
+        boolean isValid() {
+            return failure == null;
+        }
+
+        Row fail(String message) {
+            failure = message;
+            return this;
+        }
+
+        ImportResult toResult() {
+            if (failure != null) {
+                return ImportResult.failed(number, request == null ? null : request.customerId(), failure);
+            }
+            return ImportResult.created(number, customerId, accounts.stream().map(Account::getId).collect(Collectors.toList()));
+        }
+    }
+
+    private record Opening(Currency currency, long balance, Instant createdAt) {
+
+    }
+
+}
@@ -0,0 +1,54 @@
+package com.bank.accountmanager.service;
+
+import com.bank.accountmanager.configuration.LedgerProperties;
+import com.bank.accountmanager.repository.LedgerRepository;
+import com.bank.accountmanager.repository.model.LedgerEntry;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.util.List;
+
+// a page is queried once the previous one was emitted
+@Service
+public class LedgerService {
+
+    private final LedgerRepository ledgerRepository;
+    private final int pageSize;
+
+    public LedgerService(LedgerRepository ledgerRepository, LedgerProperties properties) {
+        this.ledgerRepository = ledgerRepository;
+        this.pageSize = properties.pageSize();
+    }
+
+    public Flux<LedgerEntry> statement(long accountId, Instant after, long afterId, long limit) {
+        if (limit <= 0) {
+            return Flux.empty();
+        }
+        return page(accountId, after, afterId, limit)
+                .expand(page -> page.isLast() ? Mono.empty()
+                        : page(accountId, page.lastEntry().getCreatedAt(), page.lastEntry().getId(), page.remaining()))
+                .concatMapIterable(Page::entries, 1);
+    }
+
+    private Mono<Page> page(long accountId, Instant after, long afterId, long remaining) {
+        var size = (int) Math.min(pageSize, remaining);
+        return ledgerRepository.findPage(accountId, after, afterId, size)
+                .collectList()
+                .map(entries -> new Page(entries, size, remaining - entries.size()));
+    }
+
+    private record Page(List<LedgerEntry> entries, int size, long remaining) {
+
+        boolean isLast() {
+            return entries.size() < size || remaining == 0;
+        }
+
+        LedgerEntry lastEntry() {
+            return entries.get(entries.size() - 1);
+        }
+
+    }
+
+}
@@ -0,0 +1,51 @@
+package com.bank.accountmanager.service;
+
+import com.bank.accountmanager.handler.response.PortfolioEntry;
+import com.bank.accountmanager.repository.model.Account;
+import com.bank.accountmanager.repository.model.Currency;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+
+// the accounts arrive grouped by currency, only the running total of the current one is held
+@Service
+@RequiredArgsConstructor
+public class PortfolioService {
+
+    private final AccountOperations accountOperations;
+
+    public Flux<PortfolioEntry> portfolio(long customerId) {
+        return accountOperations.findCustomerAccounts(customerId)
+                .windowUntilChanged(Account::getCurrency)
+                .concatMap(this::withTotal);
+    }
+
+    private Flux<PortfolioEntry> withTotal(Flux<Account> accounts) {
+        var total = new Total();
+        return accounts.doOnNext(total::add)
+                .map(PortfolioEntry::account)
+                .concatWith(Mono.fromSupplier(total::toEntry));
+    }
+
+    // summed as a decimal, the balances of a customer may add up to more than a long holds
+    private static class Total {
+        private Currency currency;
+        private BigDecimal balance = BigDecimal.ZERO;
+        private int accounts;
+
+        void add(Account account) {
+            currency = account.getCurrency();
+            balance = balance.add(account.balanceAmount());
+            accounts++;
+        }
+
+        // null for an empty window, which completes the supplier empty
+        PortfolioEntry toEntry() {
+            return accounts == 0 ? null : PortfolioEntry.total(currency, balance, accounts);
+        }
+    }
+
+}
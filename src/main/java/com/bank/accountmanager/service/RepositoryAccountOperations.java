@@ -0,0 +1,120 @@
+package com.bank.accountmanager.service;
+
+import com.bank.accountmanager.cache.AccountCurrencyCache;
+import com.bank.accountmanager.coalescing.BalanceCoalescer;
+import com.bank.accountmanager.coalescing.GroupCommitter;
+import com.bank.accountmanager.fx.FxRates;
+import com.bank.accountmanager.handler.exception.InvalidAmountException;
+import com.bank.accountmanager.handler.request.TransferRequest;
+import com.bank.accountmanager.handler.response.TransferResult;
+import com.bank.accountmanager.repository.AccountRepository;
+import com.bank.accountmanager.repository.model.Account;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.NoTransactionException;
+import org.springframework.transaction.reactive.TransactionSynchronizationManager;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.function.Tuple2;
+import reactor.util.function.Tuples;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+
+import static com.bank.accountmanager.service.BalanceService.Operation.*;
+
+// every operation is a single conditional statement, the account is only read again when it was rejected
+@Service
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "accountmanager.operations", name = "mode", havingValue = "repository", matchIfMissing = true)
+public class RepositoryAccountOperations implements AccountOperations {
+
+    private final AccountRepository accountRepository;
+    private final BalanceService balanceService;
+    private final BatchTransferService batchTransferService;
+    private final AccountCurrencyCache currencyCache;
+    private final BalanceCoalescer coalescer;
+    private final GroupCommitter groupCommitter;
+    private final FxRates fxRates;
+
+    @Override
+    public Mono<Account> findAccount(long accountId) {
+        return accountRepository.findById(accountId);
+    }
+
+    @Override
+    public Flux<Account> findAccounts(Collection<Long> accountIds) {
+        return accountRepository.findAllById(accountIds);
+    }
+
+    @Override
+    public Flux<Account> findCustomerAccounts(long customerId) {
+        return accountRepository.findAllByCustomerId(customerId);
+    }
+
+    @Override
+    public Mono<Account> deposit(long accountId, BigDecimal amount) {
+        return inTransaction().flatMap(inTransaction -> {
+            if (coalescer.enabled() && !inTransaction) {
+                return coalescer.deposit(accountId, amount);
+            }
+            if (groupCommitter.enabled() && !inTransaction) {
+                return groupCommitter.deposit(accountId, amount);
+            }
+            return currencyCache.get(accountId)
+                    .flatMap(currency -> balanceService.checkAmount(DEPOSIT, currency, amount))
+                    .flatMap(validAmount -> accountRepository.addToBalance(accountId, validAmount));
+        });
+    }
+
+    @Override
+    public Mono<Account> withdraw(long accountId, BigDecimal amount) {
+        return inTransaction().flatMap(inTransaction -> {
+            if (coalescer.enabled() && !inTransaction) {
+                return coalescer.withdraw(accountId, amount);
+            }
+            if (groupCommitter.enabled() && !inTransaction) {
+                return groupCommitter.withdraw(accountId, amount);
+            }
+            return currencyCache.get(accountId)
+                    .flatMap(currency -> balanceService.checkAmount(WITHDRAW, currency, amount))
+                    .flatMap(validAmount -> accountRepository.subtractFromBalance(accountId, validAmount)
+                            .switchIfEmpty(Mono.defer(() -> accountRepository.findById(accountId)
+                                    .flatMap(account -> balanceService.insufficientFunds(WITHDRAW, account, validAmount)))));
+        });
+    }
+
+    // the amount is in the currency of the source account, the target is credited the converted amount
+    @Override
+    public Mono<Tuple2<Account, Account>> transfer(long idFrom, long idTo, BigDecimal amount) {
+        if (idFrom == idTo) {
+            return Mono.error(new InvalidAmountException("Cannot transfer from account %d to itself".formatted(idFrom)));
+        }
+        return currencyCache.get(idFrom)
+                .zipWith(currencyCache.get(idTo))
+                .flatMap(currencies -> balanceService.checkAmount(TRANSFER, currencies.getT1(), amount)
+                        .flatMap(validAmount -> fxRates.convert(currencies.getT1(), currencies.getT2(), validAmount)))
+                .flatMap(conversion -> accountRepository.transferBalance(idFrom, idTo, conversion.amount(), conversion.converted(),
+                                conversion.rateVersion())
+                        .collectMap(Account::getId)
+                        .filter(accounts -> accounts.size() == 2)
+                        .map(accounts -> Tuples.of(accounts.get(idFrom), accounts.get(idTo)))
+                        .switchIfEmpty(Mono.defer(() -> accountRepository.findById(idFrom)
+                                .zipWith(accountRepository.findById(idTo))
+                                .flatMap(accounts -> balanceService.insufficientFunds(TRANSFER, accounts.getT1(), conversion.amount())))));
+    }
+
+    @Override
+    public Flux<TransferResult> transferAll(Flux<TransferRequest> transfers, boolean allOrNothing) {
+        return batchTransferService.transferAll(transfers, allOrNothing);
+    }
+
+    // operations of a transaction of the caller are applied directly, queued ones commit on their own
+    private static Mono<Boolean> inTransaction() {
+        return TransactionSynchronizationManager.forCurrentTransaction()
+                .map(TransactionSynchronizationManager::isActualTransactionActive)
+                .onErrorReturn(NoTransactionException.class, false);
+    }
+
+}
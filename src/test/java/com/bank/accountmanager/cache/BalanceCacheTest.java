@@ -0,0 +1,136 @@
+package com.bank.accountmanager.cache;
+
+import com.bank.accountmanager.configuration.BalanceCacheProperties;
+import com.bank.accountmanager.repository.model.Account;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static com.bank.accountmanager.repository.model.Currency.EUR;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class BalanceCacheTest {
+    private static final long ACCOUNT_ID = 1L;
+
+    private InMemoryBalanceChangeChannel channel;
+    private BalanceCache balanceCache;
+    private BalanceCache otherNodeCache;
+    private AtomicInteger loads;
+
+    @BeforeEach
+    public void init() {
+        channel = new InMemoryBalanceChangeChannel();
+        balanceCache = cache();
+        otherNodeCache = cache();
+        loads = new AtomicInteger();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        balanceCache.destroy();
+        otherNodeCache.destroy();
+    }
+
+    @Test
+    public void shouldLoadBalanceOnlyOnMiss() {
+        balanceCache.get(ACCOUNT_ID, this::load).block();
+        var cached = balanceCache.get(ACCOUNT_ID, this::load).block();
+
+        assertEquals(1, loads.get());
+        assertEquals(1L, cached.getBalance());
+    }
+
+    @Test
+    public void shouldCacheBalanceOfWrite() {
+        balanceCache.update(ACCOUNT_ID, Mono.just(account(10L))).block();
+
+        assertEquals(10L, balanceCache.get(ACCOUNT_ID, this::load).block().getBalance());
+        assertEquals(0, loads.get());
+    }
+
+    @Test
+    public void shouldInvalidateOtherNodesOnWrite() {
+        otherNodeCache.get(ACCOUNT_ID, this::load).block();
+
+        balanceCache.update(ACCOUNT_ID, Mono.just(account(10L))).block();
+        otherNodeCache.get(ACCOUNT_ID, this::load).block();
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void shouldNotCacheReadThatStartedBeforeWrite() {
+        var slowRead = Sinks.<Account>one();
+        var read = balanceCache.get(ACCOUNT_ID, accountId -> slowRead.asMono()).toFuture();
+
+        balanceCache.update(ACCOUNT_ID, Mono.just(account(10L))).block();
+        slowRead.tryEmitValue(account(1L));
+
+        assertEquals(1L, read.join().getBalance());
+        assertEquals(10L, balanceCache.get(ACCOUNT_ID, this::load).block().getBalance());
+    }
+
+    @Test
+    public void shouldNotCacheOlderOfConcurrentWrites() {
+        var slowWrite = Sinks.<Account>one();
+        var older = balanceCache.update(ACCOUNT_ID, slowWrite.asMono()).toFuture();
+
+        balanceCache.update(ACCOUNT_ID, Mono.just(account(10L))).block();
+        slowWrite.tryEmitValue(account(1L));
+        older.join();
+
+        assertEquals(1L, balanceCache.get(ACCOUNT_ID, this::load).block().getBalance());
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    public void shouldLoadOnlyMissesOfMultiAccountLookup() {
+        var otherAccountId = 2L;
+        var requested = new ArrayList<Collection<Long>>();
+        Function<Collection<Long>, Flux<Account>> loader = accountIds -> {
+            requested.add(accountIds);
+            var account = account(5L);
+            account.setId(otherAccountId);
+            return Flux.just(account);
+        };
+        balanceCache.update(ACCOUNT_ID, Mono.just(account(10L))).block();
+
+        var balances = balanceCache.getAll(List.of(ACCOUNT_ID, otherAccountId), loader).map(Account::getBalance).collectList().block();
+        balanceCache.getAll(List.of(ACCOUNT_ID, otherAccountId), loader).blockLast();
+
+        assertEquals(List.of(10L, 5L), balances);
+        assertEquals(List.of(List.of(otherAccountId)), requested);
+    }
+
+    private BalanceCache cache() {
+        var cache = new BalanceCache(new BalanceCacheProperties(100, Duration.ofMinutes(1), "in-memory"), channel,
+                new SimpleMeterRegistry());
+        cache.afterPropertiesSet();
+        return cache;
+    }
+
+    private Mono<Account> load(long accountId) {
+        loads.incrementAndGet();
+        return Mono.just(account(1L));
+    }
+
+    private Account account(long balance) {
+        var account = new Account(EUR, 2L, Instant.now());
+        account.setId(ACCOUNT_ID);
+        account.setBalance(balance);
+        return account;
+    }
+
+}
@@ -0,0 +1,58 @@
+package com.bank.accountmanager.cache;
+
+import com.bank.accountmanager.configuration.CustomerFilterProperties;
+import com.bank.accountmanager.repository.CustomerRepository;
+import com.bank.accountmanager.repository.model.Customer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class CustomerNameFilterTest {
+    private static final int CUSTOMERS = 10_000;
+
+    private final CustomerRepository customerRepository = mock(CustomerRepository.class);
+    private final CustomerNameFilter filter = new CustomerNameFilter(customerRepository,
+            new CustomerFilterProperties(CUSTOMERS, 0.01), new SimpleMeterRegistry());
+
+    @Test
+    public void shouldContainEveryPutName() {
+        IntStream.range(0, CUSTOMERS).forEach(i -> filter.put("first" + i, "last" + i));
+
+        IntStream.range(0, CUSTOMERS).forEach(i -> assertTrue(filter.mightContain("first" + i, "last" + i)));
+    }
+
+    @Test
+    public void shouldRejectMostUnknownNames() {
+        IntStream.range(0, CUSTOMERS).forEach(i -> filter.put("first" + i, "last" + i));
+
+        var falsePositives = IntStream.range(0, CUSTOMERS)
+                .filter(i -> filter.mightContain("other" + i, "last" + i))
+                .count();
+
+        assertTrue(falsePositives < CUSTOMERS * 0.03, "false positives: " + falsePositives);
+    }
+
+    @Test
+    public void shouldTellSwappedNamesApart() {
+        filter.put("ab", "c");
+
+        assertFalse(filter.mightContain("a", "bc"));
+    }
+
+    @Test
+    public void shouldWarmUpFromStoredCustomers() {
+        when(customerRepository.findAll()).thenReturn(Flux.just(new Customer("Fancy", "Customer")));
+
+        filter.warmUp();
+
+        assertTrue(filter.mightContain("Fancy", "Customer"));
+    }
+
+}
@@ -0,0 +1,120 @@
+package com.bank.accountmanager.coalescing;
+
+import com.bank.accountmanager.configuration.CoalescingProperties;
+import com.bank.accountmanager.repository.AccountRepository;
+import com.bank.accountmanager.repository.LedgerRepository;
+import com.bank.accountmanager.repository.model.Account;
+import com.bank.accountmanager.repository.model.LedgerEntry;
+import com.bank.accountmanager.service.BalanceService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.ReactiveTransaction;
+import org.springframework.transaction.ReactiveTransactionManager;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static com.bank.accountmanager.repository.model.Currency.EUR;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class BalanceCoalescerTest {
+
+    @Mock
+    private AccountRepository accountRepository;
+
+    @Mock
+    private LedgerRepository ledgerRepository;
+
+    @Mock
+    private ReactiveTransactionManager transactionManager;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private BalanceCoalescer coalescer;
+
+    @BeforeEach
+    public void init() {
+        when(transactionManager.getReactiveTransaction(any())).thenReturn(Mono.just(mock(ReactiveTransaction.class)));
+        lenient().when(transactionManager.commit(any())).thenReturn(Mono.empty());
+        lenient().when(transactionManager.rollback(any())).thenReturn(Mono.empty());
+
+        var writer = new MicroBatchWriter(accountRepository, ledgerRepository, new BalanceService(), transactionManager, meterRegistry);
+        coalescer = new BalanceCoalescer(writer, new CoalescingProperties(true, 1, Duration.ofSeconds(1), 3, 100));
+        coalescer.afterPropertiesSet();
+    }
+
+    @AfterEach
+    public void destroy() {
+        coalescer.destroy();
+    }
+
+    @Test
+    public void shouldApplyBatchWithOneAccountUpdateAndIsolateRejectedOperation() {
+        var account = account(1L, 1000);
+
+        when(accountRepository.findAllByIdForUpdate(List.of(1L))).thenReturn(Flux.just(account));
+        when(accountRepository.setBalances(anyCollection())).thenReturn(Mono.just(1));
+        when(ledgerRepository.saveAll(anyIterable())).thenAnswer(invocation -> Flux.fromIterable(invocation.getArgument(0)));
+
+        var balances = Flux.merge(coalescer.deposit(1L, BigDecimal.valueOf(5)).map(Account::getBalance),
+                coalescer.withdraw(1L, BigDecimal.valueOf(100)).map(Account::getBalance).onErrorReturn(-1L),
+                coalescer.withdraw(1L, new BigDecimal("2.50")).map(Account::getBalance));
+
+        StepVerifier.create(balances)
+                .expectNext(1500L, -1L, 1250L)
+                .verifyComplete();
+
+        assertEquals(1250, account.getBalance());
+        verify(accountRepository).setBalances(List.of(account));
+        verify(ledgerRepository).saveAll(argThat((Iterable<LedgerEntry> entries) -> entries.spliterator().getExactSizeIfKnown() == 2));
+        verify(transactionManager).commit(any());
+        assertEquals(2, meterRegistry.get("accountmanager.coalescing.batch.size").summary().mean());
+    }
+
+    @Test
+    public void shouldCompleteEmptyForUnknownAccount() {
+        when(accountRepository.findAllByIdForUpdate(List.of(3L))).thenReturn(Flux.empty());
+
+        StepVerifier.create(coalescer.deposit(3L, BigDecimal.ONE))
+                .verifyComplete();
+
+        verify(accountRepository, never()).setBalances(anyCollection());
+    }
+
+    @Test
+    public void shouldFailEveryOperationOfBatchWhenCommitFails() {
+        var account = account(1L, 1000);
+
+        when(accountRepository.findAllByIdForUpdate(List.of(1L))).thenReturn(Flux.just(account));
+        when(accountRepository.setBalances(anyCollection())).thenReturn(Mono.error(new IllegalStateException("connection lost")));
+
+        StepVerifier.create(coalescer.deposit(1L, BigDecimal.ONE))
+                .expectErrorMessage("connection lost")
+                .verify();
+
+        verify(transactionManager).rollback(any());
+    }
+
+    private Account account(long id, long balance) {
+        var account = new Account(EUR, 1L, Instant.now());
+        account.setId(id);
+        account.setBalance(balance);
+        return account;
+    }
+
+}
@@ -0,0 +1,98 @@
+package com.bank.accountmanager.coalescing;
+
+import com.bank.accountmanager.configuration.GroupCommitProperties;
+import com.bank.accountmanager.repository.AccountRepository;
+import com.bank.accountmanager.repository.LedgerRepository;
+import com.bank.accountmanager.repository.model.Account;
+import com.bank.accountmanager.service.BalanceService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.ReactiveTransaction;
+import org.springframework.transaction.ReactiveTransactionManager;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static com.bank.accountmanager.repository.model.Currency.EUR;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class GroupCommitterTest {
+
+    @Mock
+    private AccountRepository accountRepository;
+
+    @Mock
+    private LedgerRepository ledgerRepository;
+
+    @Mock
+    private ReactiveTransactionManager transactionManager;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private GroupCommitter groupCommitter;
+
+    @BeforeEach
+    public void init() {
+        when(transactionManager.getReactiveTransaction(any())).thenReturn(Mono.just(mock(ReactiveTransaction.class)));
+        lenient().when(transactionManager.commit(any())).thenReturn(Mono.empty());
+
+        var writer = new MicroBatchWriter(accountRepository, ledgerRepository, new BalanceService(), transactionManager, meterRegistry);
+        groupCommitter = new GroupCommitter(writer, new GroupCommitProperties(true, Duration.ofSeconds(1), 4, 1, 100), meterRegistry);
+        groupCommitter.afterPropertiesSet();
+    }
+
+    @AfterEach
+    public void destroy() {
+        groupCommitter.destroy();
+    }
+
+    @Test
+    public void shouldCommitOperationsOfDifferentAccountsInOneTransaction() {
+        var account1 = account(1L, 1000);
+        var account2 = account(2L, 0);
+
+        when(accountRepository.findAllByIdForUpdate(List.of(1L, 2L))).thenReturn(Flux.just(account1, account2));
+        when(accountRepository.setBalances(anyCollection())).thenReturn(Mono.just(1));
+        when(ledgerRepository.saveAll(anyIterable())).thenAnswer(invocation -> Flux.fromIterable(invocation.getArgument(0)));
+
+        var balances = Flux.merge(coalesced(groupCommitter.withdraw(2L, BigDecimal.ONE)),
+                coalesced(groupCommitter.deposit(1L, BigDecimal.ONE)),
+                coalesced(groupCommitter.deposit(2L, BigDecimal.valueOf(3))),
+                coalesced(groupCommitter.withdraw(1L, BigDecimal.valueOf(4))));
+
+        StepVerifier.create(balances)
+                .expectNext(1100L, 700L, -1L, 300L)
+                .verifyComplete();
+
+        verify(transactionManager).commit(any());
+        verify(accountRepository).setBalances(List.of(account1, account2));
+        assertEquals(4, meterRegistry.get("accountmanager.group-commit.batch.size").summary().mean());
+    }
+
+    private Mono<Long> coalesced(Mono<Account> result) {
+        return result.map(Account::getBalance).onErrorReturn(-1L);
+    }
+
+    private Account account(long id, long balance) {
+        var account = new Account(EUR, 1L, Instant.now());
+        account.setId(id);
+        account.setBalance(balance);
+        return account;
+    }
+
+}
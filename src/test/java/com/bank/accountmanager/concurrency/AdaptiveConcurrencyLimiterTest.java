@@ -0,0 +1,165 @@
+package com.bank.accountmanager.concurrency;
+
+import com.bank.accountmanager.configuration.ConcurrencyLimitProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.reactive.function.server.MockServerRequest;
+import org.springframework.web.reactive.function.server.HandlerFunction;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AdaptiveConcurrencyLimiterTest {
+    private static final ServerResponse OK = ServerResponse.ok().build().block();
+
+    private final AtomicLong clock = new AtomicLong();
+    private List<Sinks.One<ServerResponse>> pending;
+    private List<ServerResponse> responses;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    public void init() {
+        pending = new ArrayList<>();
+        responses = new ArrayList<>();
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    public void shouldNotWrapWhenDisabled() {
+        var limiter = limiter(new ConcurrencyLimitProperties(false, 1, 1, 1, 2.0, 0.2, 1, Duration.ofSeconds(1)));
+        HandlerFunction<ServerResponse> handler = request -> pendingResponse();
+
+        assertSame(handler, limiter.limited(handler));
+    }
+
+    @Test
+    public void shouldQueueOverLimitAndRejectOverQueue() {
+        var limiter = limiter(new ConcurrencyLimitProperties(true, 1, 1, 1, 2.0, 0.2, 1, Duration.ofMinutes(1)));
+        var handler = limiter.limited(request -> pendingResponse());
+
+        handler.handle(MockServerRequest.builder().build()).subscribe(responses::add);
+        handler.handle(MockServerRequest.builder().build()).subscribe(responses::add);
+        handler.handle(MockServerRequest.builder().build()).subscribe(responses::add);
+
+        assertEquals(1, pending.size());
+        assertEquals(1, limiter.inFlight());
+        assertEquals(1, limiter.queued());
+        assertEquals(1, responses.size());
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, responses.get(0).statusCode());
+
+        pending.get(0).tryEmitValue(OK);
+
+        assertEquals(2, pending.size());
+        assertEquals(1, limiter.inFlight());
+        assertEquals(0, limiter.queued());
+
+        pending.get(1).tryEmitValue(OK);
+
+        assertEquals(0, limiter.inFlight());
+        assertEquals(3, responses.size());
+        assertEquals(1.0, meterRegistry.get("accountmanager.concurrency.rejected").counter().count());
+    }
+
+    @Test
+    public void shouldRejectAfterMaxWait() {
+        var limiter = limiter(new ConcurrencyLimitProperties(true, 1, 1, 1, 2.0, 0.2, 1, Duration.ofMillis(10)));
+        var handler = limiter.limited(request -> pendingResponse());
+        handler.handle(MockServerRequest.builder().build()).subscribe(responses::add);
+
+        var response = handler.handle(MockServerRequest.builder().build()).block(Duration.ofSeconds(5));
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.statusCode());
+        assertEquals(0, limiter.queued());
+        pending.get(0).tryEmitValue(OK);
+        assertEquals(0, limiter.inFlight());
+    }
+
+    @Test
+    public void shouldReleasePermitWhenHandlerThrows() {
+        var limiter = limiter(new ConcurrencyLimitProperties(true, 1, 1, 1, 2.0, 0.2, 1, Duration.ofSeconds(1)));
+        var handler = limiter.limited(request -> {
+            throw new NumberFormatException("For input string: \"abc\"");
+        });
+
+        StepVerifier.create(handler.handle(MockServerRequest.builder().build()))
+                .verifyError(NumberFormatException.class);
+
+        assertEquals(0, limiter.inFlight());
+    }
+
+    @Test
+    public void shouldReleaseQueuedPermitWhenHandlerThrows() {
+        var limiter = limiter(new ConcurrencyLimitProperties(true, 1, 1, 1, 2.0, 0.2, 1, Duration.ofMinutes(1)));
+        var calls = new AtomicInteger();
+        var handler = limiter.limited(request -> {
+            if (calls.incrementAndGet() == 2) {
+                throw new NumberFormatException("For input string: \"abc\"");
+            }
+            return pendingResponse();
+        });
+        handler.handle(MockServerRequest.builder().build()).subscribe(responses::add);
+        var queued = handler.handle(MockServerRequest.builder().build()).toFuture();
+
+        pending.get(0).tryEmitValue(OK);
+
+        assertTrue(queued.isCompletedExceptionally());
+        assertEquals(0, limiter.inFlight());
+        assertEquals(0, limiter.queued());
+    }
+
+    @Test
+    public void shouldGrowLimitWhileLatencyIsSteady() {
+        var limiter = limiter(new ConcurrencyLimitProperties(true, 2, 1, 100, 2.0, 1.0, 10, Duration.ofSeconds(1)));
+        var handler = limiter.limited(request -> pendingResponse());
+
+        handler.handle(MockServerRequest.builder().build()).subscribe(responses::add);
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(1));
+        pending.get(0).tryEmitValue(OK);
+
+        assertEquals(3, limiter.limit());
+    }
+
+    @Test
+    public void shouldShrinkLimitWhenLatencyRises() {
+        var limiter = limiter(new ConcurrencyLimitProperties(true, 16, 1, 100, 1.0, 1.0, 0, Duration.ofSeconds(1)));
+        var handler = limiter.limited(request -> pendingResponse());
+        handler.handle(MockServerRequest.builder().build()).subscribe(responses::add);
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(1));
+        pending.get(0).tryEmitValue(OK);
+
+        for (int i = 0; i < 16; i++) {
+            handler.handle(MockServerRequest.builder().build()).subscribe(responses::add);
+        }
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(100));
+        pending.subList(1, pending.size()).forEach(response -> response.tryEmitValue(OK));
+
+        assertTrue(limiter.limit() < 16, "limit " + limiter.limit());
+        assertEquals(17, responses.size());
+        assertEquals(0, limiter.inFlight());
+    }
+
+    private AdaptiveConcurrencyLimiter limiter(ConcurrencyLimitProperties properties) {
+        return new AdaptiveConcurrencyLimiter(properties, meterRegistry, clock::get);
+    }
+
+    private Mono<ServerResponse> pendingResponse() {
+        var response = Sinks.<ServerResponse>one();
+        pending.add(response);
+        return response.asMono();
+    }
+
+}
@@ -0,0 +1,94 @@
+package com.bank.accountmanager.configuration;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class RoutingConnectionFactoryTest {
+
+    @Mock
+    private ConnectionFactory primary;
+
+    @Mock
+    private ConnectionFactory replicaFactory1;
+
+    @Mock
+    private ConnectionFactory replicaFactory2;
+
+    @Mock
+    private Connection primaryConnection;
+
+    @Mock
+    private Connection replicaConnection1;
+
+    @Mock
+    private Connection replicaConnection2;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private Replica replica1;
+
+    private RoutingConnectionFactory routingConnectionFactory;
+
+    @BeforeEach
+    public void init() {
+        replica1 = new Replica("replica-1", replicaFactory1, 2);
+        routingConnectionFactory = new RoutingConnectionFactory(primary,
+                List.of(replica1, new Replica("replica-2", replicaFactory2, 2)), meterRegistry);
+    }
+
+    @Test
+    public void shouldUsePrimaryForUnmarkedWork() {
+        doReturn(Mono.just(primaryConnection)).when(primary).create();
+
+        StepVerifier.create(routingConnectionFactory.create())
+                .expectNext(primaryConnection)
+                .verifyComplete();
+
+        verifyNoInteractions(replicaFactory1, replicaFactory2);
+    }
+
+    @Test
+    public void shouldBalanceReplicaReadsRoundRobin() {
+        doReturn(Mono.just(replicaConnection1)).when(replicaFactory1).create();
+        doReturn(Mono.just(replicaConnection2)).when(replicaFactory2).create();
+
+        StepVerifier.create(routingConnectionFactory.create().repeat(3).contextWrite(ReadRouting::replicaRead))
+                .expectNext(replicaConnection1, replicaConnection2, replicaConnection1, replicaConnection2)
+                .verifyComplete();
+
+        verifyNoInteractions(primary);
+    }
+
+    @Test
+    public void shouldFallBackToPrimaryAndEjectFailingReplica() {
+        doReturn(Mono.just(primaryConnection)).when(primary).create();
+        doReturn(Mono.error(new IllegalStateException("replica down"))).when(replicaFactory1).create();
+        doReturn(Mono.just(replicaConnection2)).when(replicaFactory2).create();
+
+        StepVerifier.create(routingConnectionFactory.create().repeat(5).contextWrite(ReadRouting::replicaRead))
+                .expectNext(primaryConnection, replicaConnection2, primaryConnection, replicaConnection2,
+                        replicaConnection2, replicaConnection2)
+                .verifyComplete();
+
+        assertFalse(replica1.healthy());
+        verify(replicaFactory1, times(2)).create();
+        assertEquals(2, meterRegistry.get("r2dbc.replicas.fallback").counter().count());
+        assertEquals(1, meterRegistry.get("r2dbc.replicas.healthy").gauge().value());
+    }
+
+}
@@ -0,0 +1,199 @@
+package com.bank.accountmanager.engine;
+
+import com.bank.accountmanager.configuration.EngineProperties;
+import com.bank.accountmanager.configuration.FxProperties;
+import com.bank.accountmanager.fx.FxRates;
+import com.bank.accountmanager.handler.exception.InvalidAmountException;
+import com.bank.accountmanager.repository.AccountRepository;
+import com.bank.accountmanager.repository.model.Account;
+import com.bank.accountmanager.repository.model.Currency;
+import com.bank.accountmanager.service.BalanceService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.util.unit.DataSize;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.bank.accountmanager.repository.model.Currency.EUR;
+import static com.bank.accountmanager.repository.model.Currency.USD;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.lenient;
+
+@ExtendWith(MockitoExtension.class)
+public class ShardedAccountOperationsTest {
+
+    @TempDir
+    Path journalDirectory;
+
+    @Mock
+    private AccountRepository accountRepository;
+
+    private final Map<Long, Account> database = new ConcurrentHashMap<>();
+
+    private ShardedAccountOperations accountOperations;
+
+    @BeforeEach
+    public void init() throws IOException {
+        database.put(11L, account(11L, 10000));
+        database.put(12L, account(12L, 0));
+        database.put(13L, account(13L, USD, 0));
+
+        lenient().when(accountRepository.findAll()).thenAnswer(invocation -> Flux.fromIterable(database.values()));
+        lenient().when(accountRepository.findById(anyLong()))
+                .thenAnswer(invocation -> Mono.justOrEmpty(database.get(invocation.<Long>getArgument(0))));
+        lenient().when(accountRepository.saveAll(anyIterable())).thenAnswer(invocation -> {
+            Iterable<Account> accounts = invocation.getArgument(0);
+            accounts.forEach(account -> database.put(account.getId(), account));
+            return Flux.fromIterable(accounts);
+        });
+
+        accountOperations = start();
+    }
+
+    @AfterEach
+    public void shutdown() throws IOException {
+        if (accountOperations != null) {
+            accountOperations.destroy();
+        }
+    }
+
+    @Test
+    public void shouldDepositAndWithdraw() {
+        StepVerifier.create(accountOperations.deposit(11L, BigDecimal.TEN))
+                .assertNext(account -> assertEquals(11000, account.getBalance()))
+                .verifyComplete();
+
+        StepVerifier.create(accountOperations.withdraw(11L, BigDecimal.valueOf(30)))
+                .assertNext(account -> assertEquals(8000, account.getBalance()))
+                .verifyComplete();
+    }
+
+    @Test
+    public void shouldRejectInsufficientFunds() {
+        StepVerifier.create(accountOperations.withdraw(12L, BigDecimal.ONE))
+                .expectError(InvalidAmountException.class)
+                .verify();
+    }
+
+    @Test
+    public void shouldTransferAcrossShards() {
+        StepVerifier.create(accountOperations.transfer(11L, 12L, BigDecimal.valueOf(25)))
+                .assertNext(accounts -> {
+                    assertEquals(7500, accounts.getT1().getBalance());
+                    assertEquals(2500, accounts.getT2().getBalance());
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    public void shouldRejectTransferOverflowingTargetBeforeDebit() {
+        database.put(14L, account(14L, Long.MAX_VALUE - 50));
+
+        StepVerifier.create(accountOperations.transfer(11L, 14L, BigDecimal.ONE))
+                .expectError(InvalidAmountException.class)
+                .verify();
+
+        assertEquals(10000, accountOperations.findAccount(11L).block().getBalance());
+        StepVerifier.create(accountOperations.deposit(14L, new BigDecimal("0.5")))
+                .assertNext(account -> assertEquals(Long.MAX_VALUE, account.getBalance()))
+                .verifyComplete();
+    }
+
+    @Test
+    public void shouldRejectTransferToSameAccount() {
+        StepVerifier.create(accountOperations.transfer(11L, 11L, BigDecimal.ONE))
+                .expectError(InvalidAmountException.class)
+                .verify();
+    }
+
+    @Test
+    public void shouldReturnEmptyForMissingAccount() {
+        StepVerifier.create(accountOperations.deposit(99L, BigDecimal.ONE))
+                .verifyComplete();
+    }
+
+    @Test
+    public void shouldFlushBalancesOnShutdown() throws IOException {
+        accountOperations.deposit(11L, BigDecimal.ONE).block();
+
+        accountOperations.destroy();
+        accountOperations = null;
+
+        assertEquals(10100, database.get(11L).getBalance());
+    }
+
+    @Test
+    public void shouldCreditConvertedAmountForCrossCurrencyTransfer() {
+        StepVerifier.create(accountOperations.transfer(11L, 13L, BigDecimal.TEN))
+                .assertNext(accounts -> {
+                    assertEquals(9000, accounts.getT1().getBalance());
+                    assertEquals(1250, accounts.getT2().getBalance());
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    public void shouldRebuildFromJournalTail() throws IOException {
+        accountOperations.transfer(11L, 12L, BigDecimal.TEN).block();
+        assertEquals(10000, database.get(11L).getBalance());
+
+        // the first instance is abandoned without shutdown, as if the process died before the asynchronous flush
+        accountOperations = start();
+
+        assertEquals(9000, accountOperations.findAccount(11L).block().getBalance());
+        assertEquals(1000, accountOperations.findAccount(12L).block().getBalance());
+        assertEquals(9000, database.get(11L).getBalance());
+    }
+
+    @Test
+    public void shouldNotCreditTwiceAfterJournalSegmentsWereSwitched() throws IOException {
+        // a debit record takes 41 bytes, so the 4 KB segments of the debiting shard are switched several times
+        for (int i = 0; i < 300; i++) {
+            accountOperations.transfer(11L, 12L, new BigDecimal("0.01")).block();
+        }
+
+        accountOperations = start();
+
+        assertEquals(9700, accountOperations.findAccount(11L).block().getBalance());
+        assertEquals(300, accountOperations.findAccount(12L).block().getBalance());
+        assertEquals(9700, database.get(11L).getBalance());
+        assertEquals(300, database.get(12L).getBalance());
+    }
+
+    private ShardedAccountOperations start() throws IOException {
+        var properties = new EngineProperties(2, journalDirectory.toString(), DataSize.ofKilobytes(4), false,
+                Duration.ofHours(1), 1000);
+        var fxRates = new FxRates(new FxProperties(Map.of(EUR, BigDecimal.ONE, USD, new BigDecimal("0.8")), "", Duration.ofSeconds(5), "", false));
+        var operations = new ShardedAccountOperations(accountRepository, new BalanceService(), fxRates, properties);
+        operations.afterPropertiesSet();
+        return operations;
+    }
+
+    private Account account(long id, long balance) {
+        return account(id, EUR, balance);
+    }
+
+    private Account account(long id, Currency currency, long balance) {
+        var account = new Account(currency, 1L, Instant.now());
+        account.setId(id);
+        account.setBalance(balance);
+        return account;
+    }
+
+}
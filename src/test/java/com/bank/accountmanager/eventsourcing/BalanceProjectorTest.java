@@ -0,0 +1,160 @@
+package com.bank.accountmanager.eventsourcing;
+
+import com.bank.accountmanager.configuration.EventSourcingProperties;
+import com.bank.accountmanager.repository.BalanceSnapshotRepository;
+import com.bank.accountmanager.repository.LedgerRepository;
+import com.bank.accountmanager.repository.model.Account;
+import com.bank.accountmanager.repository.model.BalanceSnapshot;
+import com.bank.accountmanager.repository.model.LedgerEntry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Instant;
+import java.util.List;
+
+import static com.bank.accountmanager.repository.model.Currency.EUR;
+import static com.bank.accountmanager.repository.model.LedgerEntry.EntryType.DEPOSIT;
+import static com.bank.accountmanager.repository.model.LedgerEntry.EntryType.WITHDRAW;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class BalanceProjectorTest {
+    private static final Instant CREATED_AT = Instant.parse("2020-11-15T10:00:00Z");
+
+    @Mock
+    private LedgerRepository ledgerRepository;
+
+    @Mock
+    private BalanceSnapshotRepository snapshotRepository;
+
+    private BalanceProjector projector;
+
+    @BeforeEach
+    public void init() {
+        projector = new BalanceProjector(ledgerRepository, snapshotRepository, new EventSourcingProperties(3, 1));
+    }
+
+    @Test
+    public void shouldReplayTailAfterLatestSnapshot() {
+        var account = account(1000);
+        var snapshot = snapshot(1L, 7L, 5000, CREATED_AT.plusSeconds(70));
+
+        when(snapshotRepository.findLatest(11L)).thenReturn(Mono.just(snapshot));
+        when(ledgerRepository.findTail(11L, 7L)).thenReturn(Flux.just(entry(8L, DEPOSIT, 200, 5200, 80),
+                entry(9L, WITHDRAW, -700, 4500, 90)));
+
+        StepVerifier.create(projector.current(account))
+                .assertNext(projection -> {
+                    assertEquals(4500, projection.account().getBalance());
+                    assertEquals(snapshot, projection.base());
+                    assertEquals(2, projection.tail().size());
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    public void shouldUseBalanceColumnAsGenesisOfAccountWithoutSnapshot() {
+        var account = account(1000);
+
+        when(snapshotRepository.findLatest(11L)).thenReturn(Mono.empty());
+        when(ledgerRepository.findLast(11L)).thenReturn(Mono.just(entry(4L, DEPOSIT, 1000, 1000, 10)));
+        when(ledgerRepository.findTail(11L, 4L)).thenReturn(Flux.empty());
+
+        StepVerifier.create(projector.current(account))
+                .assertNext(projection -> {
+                    assertEquals(1000, projection.account().getBalance());
+                    assertNull(projection.base().getId());
+                    assertEquals(4L, projection.base().getEntryId());
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    public void shouldReplayForwardFromSnapshotBeforeAsOf() {
+        var asOf = CREATED_AT.plusSeconds(85);
+
+        when(snapshotRepository.findLatestAt(11L, asOf)).thenReturn(Mono.just(snapshot(1L, 7L, 5000, CREATED_AT.plusSeconds(70))));
+        when(ledgerRepository.findTailUntil(11L, 7L, asOf)).thenReturn(Flux.just(entry(8L, DEPOSIT, 200, 5200, 80)));
+
+        StepVerifier.create(projector.balanceAt(account(0), asOf))
+                .assertNext(account -> assertEquals(5200, account.getBalance()))
+                .verifyComplete();
+    }
+
+    @Test
+    public void shouldUndoEntriesOfEarliestSnapshotAfterAsOf() {
+        var asOf = CREATED_AT.plusSeconds(15);
+
+        when(snapshotRepository.findLatestAt(11L, asOf)).thenReturn(Mono.empty());
+        when(snapshotRepository.findEarliest(11L)).thenReturn(Mono.just(snapshot(1L, 7L, 5000, CREATED_AT.plusSeconds(70))));
+        when(ledgerRepository.findCreatedAfter(11L, asOf, 7L)).thenReturn(Flux.just(entry(5L, DEPOSIT, 3000, 4000, 20),
+                entry(7L, DEPOSIT, 1000, 5000, 70)));
+
+        StepVerifier.create(projector.balanceAt(account(0), asOf))
+                .assertNext(account -> assertEquals(1000, account.getBalance()))
+                .verifyComplete();
+    }
+
+    @Test
+    public void shouldNotFindBalanceBeforeAccountWasCreated() {
+        StepVerifier.create(projector.balanceAt(account(0), CREATED_AT.minusSeconds(1)))
+                .verifyComplete();
+    }
+
+    @Test
+    public void shouldPersistGenesisAndSnapshotEveryIntervalEvents() {
+        var genesis = snapshot(null, 4L, 1000, CREATED_AT);
+        var projection = new BalanceProjector.Projection(account(1500), genesis,
+                List.of(entry(5L, DEPOSIT, 200, 1200, 20), entry(6L, DEPOSIT, 200, 1400, 30)));
+
+        when(snapshotRepository.save(any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+
+        StepVerifier.create(projector.appended(projection, entry(7L, DEPOSIT, 100, 1500, 40)))
+                .verifyComplete();
+
+        verify(snapshotRepository).save(genesis);
+        verify(snapshotRepository).save(new BalanceSnapshot(11L, 7L, 1500, CREATED_AT.plusSeconds(40)));
+    }
+
+    @Test
+    public void shouldNotSnapshotShortTail() {
+        var projection = new BalanceProjector.Projection(account(1200), snapshot(1L, 4L, 1000, CREATED_AT),
+                List.of(entry(5L, DEPOSIT, 200, 1200, 20)));
+
+        StepVerifier.create(projector.appended(projection, entry(6L, DEPOSIT, 100, 1300, 30)))
+                .verifyComplete();
+
+        verify(snapshotRepository, never()).save(any());
+    }
+
+    private Account account(long balance) {
+        var account = new Account(EUR, 2L, CREATED_AT);
+        account.setId(11L);
+        account.setBalance(balance);
+        return account;
+    }
+
+    private BalanceSnapshot snapshot(Long id, long entryId, long balance, Instant createdAt) {
+        var snapshot = new BalanceSnapshot(11L, entryId, balance, createdAt);
+        snapshot.setId(id);
+        return snapshot;
+    }
+
+    private LedgerEntry entry(long id, LedgerEntry.EntryType type, long amount, long balance, long secondsAfterCreation) {
+        var entry = new LedgerEntry(11L, type, amount, balance, null, CREATED_AT.plusSeconds(secondsAfterCreation));
+        entry.setId(id);
+        return entry;
+    }
+
+}
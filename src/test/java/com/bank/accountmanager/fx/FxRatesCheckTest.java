@@ -0,0 +1,62 @@
+package com.bank.accountmanager.fx;
+
+import com.bank.accountmanager.configuration.FxProperties;
+import com.bank.accountmanager.repository.AccountRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Map;
+
+import static com.bank.accountmanager.repository.model.Currency.EUR;
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class FxRatesCheckTest {
+
+    @Mock
+    private AccountRepository accountRepository;
+
+    private final FxProperties properties = new FxProperties(Map.of(EUR, BigDecimal.ONE), "", Duration.ofSeconds(5), "", false);
+
+    private final FxRates fxRates = new FxRates(properties);
+
+    @Test
+    public void shouldOnlyWarnWhenCurrencyOfAccountsHasNoRate() {
+        when(accountRepository.findCurrencies()).thenReturn(Flux.just("EUR", "USD"));
+
+        assertDoesNotThrow(() -> new FxRatesCheck(accountRepository, fxRates, properties).check());
+    }
+
+    @Test
+    public void shouldFailWhenCurrencyOfAccountsHasNoRateAndFailureIsEnabled() {
+        when(accountRepository.findCurrencies()).thenReturn(Flux.just("EUR", "USD"));
+        var failing = new FxProperties(Map.of(EUR, BigDecimal.ONE), "", Duration.ofSeconds(5), "", true);
+
+        var error = assertThrows(IllegalStateException.class, () -> new FxRatesCheck(accountRepository, fxRates, failing).check());
+
+        assertTrue(error.getMessage().contains("no exchange rate for [USD]"));
+    }
+
+    @Test
+    public void shouldPassWhenAccountsHaveSingleCurrency() {
+        when(accountRepository.findCurrencies()).thenReturn(Flux.just("USD"));
+
+        assertDoesNotThrow(() -> new FxRatesCheck(accountRepository, fxRates, properties).check());
+    }
+
+    @Test
+    public void shouldOnlyWarnWhenCurrenciesCannotBeLoaded() {
+        when(accountRepository.findCurrencies()).thenReturn(Flux.error(new IllegalStateException("Connection refused")));
+
+        assertDoesNotThrow(() -> new FxRatesCheck(accountRepository, fxRates, properties).check());
+    }
+
+}
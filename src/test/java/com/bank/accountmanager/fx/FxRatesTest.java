@@ -0,0 +1,123 @@
+package com.bank.accountmanager.fx;
+
+import com.bank.accountmanager.configuration.FxProperties;
+import com.bank.accountmanager.handler.exception.InvalidAmountException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import reactor.test.StepVerifier;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+
+import static com.bank.accountmanager.repository.model.Currency.EUR;
+import static com.bank.accountmanager.repository.model.Currency.GBP;
+import static com.bank.accountmanager.repository.model.Currency.USD;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class FxRatesTest {
+
+    @TempDir
+    Path directory;
+
+    private FxRates fxRates = new FxRates(new FxProperties(Map.of(EUR, BigDecimal.ONE, USD, new BigDecimal("0.8")), "",
+            Duration.ofSeconds(5), "", false));
+
+    @AfterEach
+    public void destroy() {
+        fxRates.destroy();
+    }
+
+    @Test
+    public void shouldConvertWithCrossRate() {
+        StepVerifier.create(fxRates.convert(EUR, USD, 1000))
+                .expectNext(new Conversion(1000, 1250, fxRates.snapshot().version()))
+                .verifyComplete();
+        StepVerifier.create(fxRates.convert(USD, EUR, 1250))
+                .expectNext(new Conversion(1250, 1000, fxRates.snapshot().version()))
+                .verifyComplete();
+    }
+
+    @Test
+    public void shouldRoundConvertedAmountDown() {
+        fxRates.update(Map.of(EUR, BigDecimal.ONE, USD, new BigDecimal("3")));
+
+        StepVerifier.create(fxRates.convert(EUR, USD, 100))
+                .expectNext(new Conversion(100, 33, fxRates.snapshot().version()))
+                .verifyComplete();
+    }
+
+    @Test
+    public void shouldRejectAmountTooSmallToConvert() {
+        StepVerifier.create(fxRates.convert(USD, EUR, 1))
+                .expectErrorMessage("Cannot convert 0.01 USD to EUR, the amount is too small")
+                .verify();
+    }
+
+    @Test
+    public void shouldRejectPairWithoutRate() {
+        StepVerifier.create(fxRates.convert(EUR, GBP, 100))
+                .expectError(InvalidAmountException.class)
+                .verify();
+    }
+
+    @Test
+    public void shouldNotConvertSameCurrency() {
+        StepVerifier.create(fxRates.convert(GBP, GBP, 100))
+                .expectNext(new Conversion(100, 100, fxRates.snapshot().version()))
+                .verifyComplete();
+    }
+
+    @Test
+    public void shouldIncreaseVersionOnUpdate() {
+        var previous = fxRates.snapshot();
+
+        var updated = fxRates.update(Map.of(EUR, BigDecimal.ONE, GBP, new BigDecimal("1.2")));
+
+        assertTrue(updated.version() > previous.version());
+        assertSame(updated, fxRates.snapshot());
+        StepVerifier.create(previous.convert(EUR, USD, 1000))
+                .expectNext(new Conversion(1000, 1250, previous.version()))
+                .verifyComplete();
+    }
+
+    @Test
+    public void shouldKeepSnapshotWhenRateIsInvalid() {
+        var previous = fxRates.snapshot();
+
+        assertThrows(IllegalArgumentException.class, () -> fxRates.update(Map.of(EUR, BigDecimal.ZERO)));
+
+        assertSame(previous, fxRates.snapshot());
+    }
+
+    @Test
+    public void shouldReloadRatesFileWhenModified() throws IOException, InterruptedException {
+        var ratesFile = directory.resolve("rates.properties");
+        Files.writeString(ratesFile, "EUR=1\nGBP=1.25\n");
+        fxRates = new FxRates(new FxProperties(null, ratesFile.toString(), Duration.ofMillis(10), "", false));
+        fxRates.afterPropertiesSet();
+
+        StepVerifier.create(fxRates.convert(GBP, EUR, 100))
+                .expectNextMatches(conversion -> conversion.converted() == 125)
+                .verifyComplete();
+
+        Files.writeString(ratesFile, "EUR=1\nGBP=1.5\n");
+        Files.setLastModifiedTime(ratesFile, FileTime.from(Instant.now().plusSeconds(1)));
+        var deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (fxRates.snapshot().rates().get(GBP).compareTo(new BigDecimal("1.5")) != 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+
+        assertEquals(new BigDecimal("1.5"), fxRates.snapshot().rates().get(GBP));
+    }
+
+}
@@ -1,31 +1,62 @@
 package com.bank.accountmanager.handler;
 
+import com.bank.accountmanager.cache.BalanceCache;
+import com.bank.accountmanager.cache.InMemoryBalanceChangeChannel;
+import com.bank.accountmanager.configuration.BalanceCacheProperties;
+import com.bank.accountmanager.configuration.IdempotencyProperties;
+import com.bank.accountmanager.handler.exception.AsOfNotSupportedException;
+import com.bank.accountmanager.handler.exception.InvalidAmountException;
 import com.bank.accountmanager.handler.request.AccountRequest;
 import com.bank.accountmanager.handler.request.OperationRequest;
+import com.bank.accountmanager.handler.response.AccountResponse;
+import com.bank.accountmanager.idempotency.IdempotencyService;
+import com.bank.accountmanager.metrics.StageMetrics;
 import com.bank.accountmanager.repository.AccountRepository;
 import com.bank.accountmanager.repository.model.Account;
-import com.bank.accountmanager.service.BalanceService;
+import com.bank.accountmanager.service.AccountOperations;
+import com.bank.accountmanager.service.BalanceLookupService;
+import com.bank.accountmanager.service.LedgerService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
 import org.springframework.mock.web.reactive.function.server.MockServerRequest;
+import org.springframework.transaction.ReactiveTransactionManager;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
 import reactor.util.function.Tuples;
 
 import java.math.BigDecimal;
+import java.net.URI;
+import java.time.Duration;
 import java.time.Instant;
+import java.util.List;
 
 import static com.bank.accountmanager.repository.model.Currency.*;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Answers.RETURNS_DEEP_STUBS;
-import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.http.HttpMethod.PUT;
+import static org.springframework.http.HttpStatus.BAD_REQUEST;
+import static org.springframework.http.HttpStatus.NOT_FOUND;
+import static org.springframework.http.HttpStatus.NOT_IMPLEMENTED;
+import static org.springframework.http.HttpStatus.UNPROCESSABLE_ENTITY;
 
 @ExtendWith(MockitoExtension.class)
 public class AccountHandlerTest {
@@ -34,7 +65,27 @@ public class AccountHandlerTest {
     private AccountRepository accountRepository;
 
     @Mock
-    private BalanceService balanceService;
+    private AccountOperations accountOperations;
+
+    @Mock
+    private LedgerService ledgerService;
+
+    @Mock
+    private BalanceLookupService balanceLookupService;
+
+    @Spy
+    private BalanceCache balanceCache = new BalanceCache(new BalanceCacheProperties(100, Duration.ofSeconds(1), "in-memory"),
+            new InMemoryBalanceChangeChannel(), new SimpleMeterRegistry());
+
+    @Spy
+    private IdempotencyService idempotencyService = new IdempotencyService(null, mock(ReactiveTransactionManager.class),
+            new IdempotencyProperties(100, Duration.ofHours(1), false), new SimpleMeterRegistry());
+
+    @Spy
+    private ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    @Spy
+    private StageMetrics stageMetrics = new StageMetrics(new SimpleMeterRegistry());
 
     @Captor
     private ArgumentCaptor<Account> accountCaptor;
@@ -46,7 +97,7 @@ public class AccountHandlerTest {
     public void shouldGetAccountBalance() {
         var usdAccount = new Account(USD, 12L, Instant.now());
 
-        when(accountRepository.findById(12L)).thenReturn(Mono.just(usdAccount));
+        when(accountOperations.findAccount(12L)).thenReturn(Mono.just(usdAccount));
 
         var request = MockServerRequest.builder()
                 .pathVariable("accountId", "12")
@@ -55,6 +106,146 @@ public class AccountHandlerTest {
         accountHandler.getAccountBalance(request).subscribe(response -> assertTrue(response.statusCode().is2xxSuccessful()));
     }
 
+    @Test
+    public void shouldGetBalancesOfQueriedIds() {
+        when(balanceLookupService.maxIds()).thenReturn(10);
+        when(balanceLookupService.balances(List.of(1L, 2L, 3L), false)).thenReturn(Flux.just(AccountResponse.notFound(1L)));
+
+        var request = MockServerRequest.builder()
+                .queryParam("ids", "1,2")
+                .queryParam("ids", "3")
+                .build();
+
+        StepVerifier.create(accountHandler.getAccounts(request))
+                .assertNext(response -> assertTrue(response.statusCode().is2xxSuccessful()))
+                .verifyComplete();
+    }
+
+    @Test
+    public void shouldRejectTooManyIds() {
+        when(balanceLookupService.maxIds()).thenReturn(2);
+
+        var request = MockServerRequest.builder()
+                .body(Mono.just(List.of(1L, 2L, 3L)));
+
+        StepVerifier.create(accountHandler.getAccountBalances(request))
+                .assertNext(response -> assertEquals(BAD_REQUEST, response.statusCode()))
+                .verifyComplete();
+
+        verify(balanceLookupService, never()).balances(any(), anyBoolean());
+    }
+
+    @Test
+    public void shouldRejectMalformedIds() {
+        var request = MockServerRequest.builder()
+                .queryParam("ids", "1,two")
+                .build();
+
+        StepVerifier.create(accountHandler.getAccounts(request))
+                .assertNext(response -> assertEquals(BAD_REQUEST, response.statusCode()))
+                .verifyComplete();
+    }
+
+    @Test
+    public void shouldGetAccountBalanceAsOfInstant() {
+        var asOf = Instant.parse("2020-11-15T13:05:00Z");
+        var usdAccount = new Account(USD, 12L, asOf);
+
+        when(accountOperations.findAccount(12L, asOf)).thenReturn(Mono.just(usdAccount));
+
+        var request = MockServerRequest.builder()
+                .pathVariable("accountId", "12")
+                .queryParam("asOf", asOf.toString())
+                .build();
+
+        StepVerifier.create(accountHandler.getAccountBalance(request))
+                .assertNext(response -> assertTrue(response.statusCode().is2xxSuccessful()))
+                .verifyComplete();
+        verify(accountOperations, never()).findAccount(12L);
+    }
+
+    @Test
+    public void shouldAnswerAsOfNotImplementedWithoutHistory() {
+        var asOf = Instant.parse("2020-11-15T13:05:00Z");
+        when(accountOperations.findAccount(12L, asOf))
+                .thenReturn(Mono.error(new AsOfNotSupportedException("Historical balances require the event-sourced mode")));
+
+        var request = MockServerRequest.builder()
+                .pathVariable("accountId", "12")
+                .queryParam("asOf", asOf.toString())
+                .build();
+
+        StepVerifier.create(accountHandler.getAccountBalance(request))
+                .assertNext(response -> assertEquals(NOT_IMPLEMENTED, response.statusCode()))
+                .verifyComplete();
+    }
+
+    @Test
+    public void shouldRejectInvalidAsOf() {
+        var request = MockServerRequest.builder()
+                .pathVariable("accountId", "12")
+                .queryParam("asOf", "yesterday")
+                .build();
+
+        StepVerifier.create(accountHandler.getAccountBalance(request))
+                .assertNext(response -> assertEquals(BAD_REQUEST, response.statusCode()))
+                .verifyComplete();
+    }
+
+    @Test
+    public void shouldReturnNotFoundForTransactionsOfMissingAccount() {
+        when(accountOperations.findAccount(12L)).thenReturn(Mono.empty());
+
+        var request = MockServerRequest.builder()
+                .pathVariable("accountId", "12")
+                .build();
+
+        StepVerifier.create(accountHandler.getTransactions(request))
+                .assertNext(response -> assertEquals(NOT_FOUND, response.statusCode()))
+                .verifyComplete();
+        verify(ledgerService, never()).statement(anyLong(), any(), anyLong(), anyLong());
+    }
+
+    @Test
+    public void shouldRejectInvalidTransactionsAfter() {
+        var request = MockServerRequest.builder()
+                .pathVariable("accountId", "12")
+                .queryParam("after", "yesterday")
+                .build();
+
+        StepVerifier.create(accountHandler.getTransactions(request))
+                .assertNext(response -> assertEquals(BAD_REQUEST, response.statusCode()))
+                .verifyComplete();
+        verify(accountOperations, never()).findAccount(anyLong());
+    }
+
+    @Test
+    public void shouldRejectInvalidTransactionsAfterId() {
+        var request = MockServerRequest.builder()
+                .pathVariable("accountId", "12")
+                .queryParam("after", "2020-11-15T13:05:00Z")
+                .queryParam("afterId", "first")
+                .build();
+
+        StepVerifier.create(accountHandler.getTransactions(request))
+                .assertNext(response -> assertEquals(BAD_REQUEST, response.statusCode()))
+                .verifyComplete();
+        verify(accountOperations, never()).findAccount(anyLong());
+    }
+
+    @Test
+    public void shouldRejectInvalidTransactionsLimit() {
+        var request = MockServerRequest.builder()
+                .pathVariable("accountId", "12")
+                .queryParam("limit", "all")
+                .build();
+
+        StepVerifier.create(accountHandler.getTransactions(request))
+                .assertNext(response -> assertEquals(BAD_REQUEST, response.statusCode()))
+                .verifyComplete();
+        verify(accountOperations, never()).findAccount(anyLong());
+    }
+
     @Test
     public void shouldCreateAccount() {
         var accountRequest = new AccountRequest(12L, GBP.name(), BigDecimal.ONE);
@@ -68,14 +259,11 @@ public class AccountHandlerTest {
 
         assertEquals(12L, accountCaptor.getValue().getCustomerId());
         assertEquals(GBP, accountCaptor.getValue().getCurrency());
-        assertEquals(1, accountCaptor.getValue().getBalance().intValue());
+        assertEquals(100, accountCaptor.getValue().getBalance());
     }
 
     @Test
     public void shouldDeposit() {
-        var usdAccount = new Account(USD, 12L, Instant.now());
-        usdAccount.setBalance(BigDecimal.TEN);
-
         var amount = BigDecimal.ONE;
         var body = Mono.just(new OperationRequest(amount));
 
@@ -83,26 +271,89 @@ public class AccountHandlerTest {
                 .pathVariable("accountId", "12")
                 .body(body);
 
-        when(accountRepository.findById(12L)).thenReturn(Mono.just(usdAccount));
+        Account updatedAccount = new Account(USD, 12L, Instant.now());
+        updatedAccount.setBalance(1100);
+        when(accountOperations.deposit(12L, amount)).thenReturn(Mono.just(updatedAccount));
+
+        StepVerifier.create(accountHandler.deposit(request))
+                .assertNext(response -> assertTrue(response.statusCode().is2xxSuccessful()))
+                .verifyComplete();
+    }
+
+    @Test
+    public void shouldReplayDepositWithSameIdempotencyKey() {
+        var amount = BigDecimal.ONE;
 
         Account updatedAccount = new Account(USD, 12L, Instant.now());
-        updatedAccount.setBalance(BigDecimal.valueOf(11));
-        when(balanceService.addAmountToBalance(usdAccount, amount)).thenReturn(Mono.just(updatedAccount));
+        updatedAccount.setBalance(1100);
+        when(accountOperations.deposit(12L, amount)).thenReturn(Mono.just(updatedAccount));
+
+        for (int i = 0; i < 2; i++) {
+            var request = MockServerRequest.builder()
+                    .method(PUT)
+                    .uri(URI.create("/account/12/deposit"))
+                    .header("Idempotency-Key", "retried-deposit")
+                    .pathVariable("accountId", "12")
+                    .body(Mono.just(new OperationRequest(amount)));
+
+            StepVerifier.create(accountHandler.deposit(request))
+                    .assertNext(response -> assertTrue(response.statusCode().is2xxSuccessful()))
+                    .verifyComplete();
+        }
+
+        verify(accountOperations, times(1)).deposit(12L, amount);
+    }
 
-        accountHandler.deposit(request).subscribe(response -> assertTrue(response.statusCode().is2xxSuccessful()));
+    @Test
+    public void shouldRejectIdempotencyKeyReusedWithAnotherAmount() {
+        Account updatedAccount = new Account(USD, 12L, Instant.now());
+        updatedAccount.setBalance(1100);
+        when(accountOperations.deposit(12L, BigDecimal.ONE)).thenReturn(Mono.just(updatedAccount));
 
-        verify(accountRepository).save(accountCaptor.capture());
+        StepVerifier.create(accountHandler.deposit(idempotentDeposit("reused-key", BigDecimal.ONE)))
+                .assertNext(response -> assertTrue(response.statusCode().is2xxSuccessful()))
+                .verifyComplete();
 
-        assertEquals(12L, accountCaptor.getValue().getCustomerId());
-        assertEquals(USD, accountCaptor.getValue().getCurrency());
-        assertEquals(11, accountCaptor.getValue().getBalance().intValue());
+        StepVerifier.create(accountHandler.deposit(idempotentDeposit("reused-key", BigDecimal.TEN)))
+                .assertNext(response -> assertEquals(UNPROCESSABLE_ENTITY, response.statusCode()))
+                .verifyComplete();
+
+        verify(accountOperations, never()).deposit(12L, BigDecimal.TEN);
     }
 
     @Test
-    public void shouldWithdraw() {
-        var usdAccount = new Account(USD, 12L, Instant.now());
-        usdAccount.setBalance(BigDecimal.TEN);
+    public void shouldNotStoreUnexpectedFailure() {
+        Account updatedAccount = new Account(USD, 12L, Instant.now());
+        updatedAccount.setBalance(1100);
+        when(accountOperations.deposit(12L, BigDecimal.ONE))
+                .thenReturn(Mono.error(new IllegalStateException("connection lost")))
+                .thenReturn(Mono.just(updatedAccount));
+
+        StepVerifier.create(accountHandler.deposit(idempotentDeposit("failed-deposit", BigDecimal.ONE)))
+                .verifyError(IllegalStateException.class);
+
+        StepVerifier.create(accountHandler.deposit(idempotentDeposit("failed-deposit", BigDecimal.ONE)))
+                .assertNext(response -> assertTrue(response.statusCode().is2xxSuccessful()))
+                .verifyComplete();
+    }
+
+    @Test
+    public void shouldReturnNotFoundForMissingDepositAccount() {
+        var amount = BigDecimal.ONE;
+
+        var request = MockServerRequest.builder()
+                .pathVariable("accountId", "12")
+                .body(Mono.just(new OperationRequest(amount)));
+
+        when(accountOperations.deposit(12L, amount)).thenReturn(Mono.empty());
 
+        StepVerifier.create(accountHandler.deposit(request))
+                .assertNext(response -> assertEquals(NOT_FOUND, response.statusCode()))
+                .verifyComplete();
+    }
+
+    @Test
+    public void shouldWithdraw() {
         var amount = BigDecimal.ONE;
         var body = Mono.just(new OperationRequest(amount));
 
@@ -110,19 +361,29 @@ public class AccountHandlerTest {
                 .pathVariable("accountId", "12")
                 .body(body);
 
-        when(accountRepository.findById(12L)).thenReturn(Mono.just(usdAccount));
-
         Account updatedAccount = new Account(USD, 12L, Instant.now());
-        updatedAccount.setBalance(BigDecimal.valueOf(9));
-        when(balanceService.subtractAmountFromBalance(usdAccount, amount)).thenReturn(Mono.just(updatedAccount));
+        updatedAccount.setBalance(900);
+        when(accountOperations.withdraw(12L, amount)).thenReturn(Mono.just(updatedAccount));
 
-        accountHandler.withdraw(request).subscribe(response -> assertTrue(response.statusCode().is2xxSuccessful()));
+        StepVerifier.create(accountHandler.withdraw(request))
+                .assertNext(response -> assertTrue(response.statusCode().is2xxSuccessful()))
+                .verifyComplete();
+    }
 
-        verify(accountRepository).save(accountCaptor.capture());
+    @Test
+    public void shouldReturnBadRequestForFailedWithdraw() {
+        var amount = BigDecimal.TEN;
 
-        assertEquals(12L, accountCaptor.getValue().getCustomerId());
-        assertEquals(USD, accountCaptor.getValue().getCurrency());
-        assertEquals(9, accountCaptor.getValue().getBalance().intValue());
+        var request = MockServerRequest.builder()
+                .pathVariable("accountId", "12")
+                .body(Mono.just(new OperationRequest(amount)));
+
+        when(accountOperations.withdraw(12L, amount))
+                .thenReturn(Mono.error(new InvalidAmountException("Insufficient funds, cannot withdraw 10, balance 9")));
+
+        StepVerifier.create(accountHandler.withdraw(request))
+                .assertNext(response -> assertEquals(BAD_REQUEST, response.statusCode()))
+                .verifyComplete();
     }
 
     @Test
@@ -138,13 +399,20 @@ public class AccountHandlerTest {
         var account1 = new Account(EUR, 12L, Instant.now());
         var account2 = new Account(EUR, 13L, Instant.now());
 
-        when(accountRepository.findById(12L)).thenReturn(Mono.just(account1));
-        when(accountRepository.findById(13L)).thenReturn(Mono.just(account2));
-        when(balanceService.modifyBalances(any(), eq(amount))).thenReturn(Mono.just(Tuples.of(account1, account2)));
+        when(accountOperations.transfer(12L, 13L, amount)).thenReturn(Mono.just(Tuples.of(account1, account2)));
 
-        accountHandler.transfer(request).subscribe(response -> assertTrue(response.statusCode().is2xxSuccessful()));
+        StepVerifier.create(accountHandler.transfer(request))
+                .assertNext(response -> assertTrue(response.statusCode().is2xxSuccessful()))
+                .verifyComplete();
+    }
 
-        verify(accountRepository).saveAll(anySet());
+    private MockServerRequest idempotentDeposit(String idempotencyKey, BigDecimal amount) {
+        return MockServerRequest.builder()
+                .method(PUT)
+                .uri(URI.create("/account/12/deposit"))
+                .header("Idempotency-Key", idempotencyKey)
+                .pathVariable("accountId", "12")
+                .body(Mono.just(new OperationRequest(amount)));
     }
 
 }
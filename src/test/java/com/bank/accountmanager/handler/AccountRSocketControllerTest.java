@@ -0,0 +1,139 @@
+package com.bank.accountmanager.handler;
+
+import com.bank.accountmanager.cache.BalanceCache;
+import com.bank.accountmanager.cache.InMemoryBalanceChangeChannel;
+import com.bank.accountmanager.configuration.BalanceCacheProperties;
+import com.bank.accountmanager.handler.exception.InvalidAmountException;
+import com.bank.accountmanager.handler.request.OperationRequest;
+import com.bank.accountmanager.handler.response.AccountResponse;
+import com.bank.accountmanager.metrics.StageMetrics;
+import com.bank.accountmanager.repository.model.Account;
+import com.bank.accountmanager.service.AccountOperations;
+import com.bank.accountmanager.service.BalanceLookupService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import reactor.util.function.Tuples;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import static com.bank.accountmanager.repository.model.Currency.EUR;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class AccountRSocketControllerTest {
+
+    @Mock
+    private AccountOperations accountOperations;
+
+    @Mock
+    private BalanceLookupService balanceLookupService;
+
+    @Spy
+    private BalanceCache balanceCache = new BalanceCache(new BalanceCacheProperties(100, Duration.ofSeconds(1), "in-memory"),
+            new InMemoryBalanceChangeChannel(), new SimpleMeterRegistry());
+
+    @Spy
+    private StageMetrics stageMetrics = new StageMetrics(new SimpleMeterRegistry());
+
+    @InjectMocks
+    private AccountRSocketController controller;
+
+    @Test
+    public void shouldDeposit() {
+        when(accountOperations.deposit(12L, BigDecimal.ONE)).thenReturn(Mono.just(account(12L, 1100)));
+
+        StepVerifier.create(controller.deposit(12L, new OperationRequest(BigDecimal.ONE)))
+                .assertNext(response -> assertEquals(new BigDecimal("11.00"), response.balance()))
+                .verifyComplete();
+    }
+
+    @Test
+    public void shouldAnswerDepositFromBalanceCache() {
+        when(accountOperations.deposit(12L, BigDecimal.ONE)).thenReturn(Mono.just(account(12L, 1100)));
+        controller.deposit(12L, new OperationRequest(BigDecimal.ONE)).block();
+
+        StepVerifier.create(controller.getAccountBalance(12L).map(AccountResponse::balance))
+                .expectNext(new BigDecimal("11.00"))
+                .verifyComplete();
+
+        verify(accountOperations, never()).findAccount(12L);
+    }
+
+    @Test
+    public void shouldSignalRejectedWithdrawal() {
+        when(accountOperations.withdraw(12L, BigDecimal.TEN))
+                .thenReturn(Mono.error(new InvalidAmountException("Insufficient funds, cannot withdraw 10, balance 1")));
+
+        StepVerifier.create(controller.withdraw(12L, new OperationRequest(BigDecimal.TEN)))
+                .expectErrorMessage("Insufficient funds, cannot withdraw 10, balance 1")
+                .verify();
+    }
+
+    @Test
+    public void shouldRejectMissingAmount() {
+        StepVerifier.create(controller.deposit(12L, new OperationRequest(null)))
+                .expectErrorMatches(error -> error instanceof InvalidAmountException && error.getMessage().equals("amount is required"))
+                .verify();
+        StepVerifier.create(controller.transfer(12L, 13L, new OperationRequest(null)))
+                .expectError(InvalidAmountException.class)
+                .verify();
+
+        verify(accountOperations, never()).deposit(anyLong(), any());
+        verify(accountOperations, never()).transfer(anyLong(), anyLong(), any());
+    }
+
+    @Test
+    public void shouldSignalMissingAccount() {
+        when(accountOperations.findAccount(99L)).thenReturn(Mono.empty());
+
+        StepVerifier.create(controller.getAccountBalance(99L))
+                .expectErrorMatches(error -> error instanceof NoSuchElementException && error.getMessage().equals("Account 99 not found"))
+                .verify();
+    }
+
+    @Test
+    public void shouldTransfer() {
+        when(accountOperations.transfer(12L, 13L, BigDecimal.ONE))
+                .thenReturn(Mono.just(Tuples.of(account(12L, 900), account(13L, 100))));
+
+        StepVerifier.create(controller.transfer(12L, 13L, new OperationRequest(BigDecimal.ONE)))
+                .assertNext(accounts -> assertEquals(List.of(12L, 13L), List.of(accounts.get(0).accountId(), accounts.get(1).accountId())))
+                .verifyComplete();
+    }
+
+    @Test
+    public void shouldRejectTooManyIds() {
+        when(balanceLookupService.maxIds()).thenReturn(2);
+
+        StepVerifier.create(controller.getAccountBalances(List.of(1L, 2L, 3L)))
+                .expectError(IllegalArgumentException.class)
+                .verify();
+
+        verify(balanceLookupService, never()).balances(any(), anyBoolean());
+    }
+
+    private Account account(long id, long balance) {
+        var account = new Account(EUR, 1L, Instant.now());
+        account.setId(id);
+        account.setBalance(balance);
+        return account;
+    }
+
+}
@@ -1,29 +1,51 @@
 package com.bank.accountmanager.handler;
 
+import com.bank.accountmanager.cache.CustomerNameFilter;
 import com.bank.accountmanager.handler.request.CustomerRequest;
+import com.bank.accountmanager.metrics.StageMetrics;
 import com.bank.accountmanager.repository.CustomerRepository;
 import com.bank.accountmanager.repository.model.Customer;
+import com.bank.accountmanager.service.BulkImportService;
+import com.bank.accountmanager.service.PortfolioService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
 import org.springframework.mock.web.reactive.function.server.MockServerRequest;
 import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
-import static org.mockito.Answers.RETURNS_DEEP_STUBS;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
 public class CustomerHandlerTest {
 
-    @Mock(answer = RETURNS_DEEP_STUBS)
+    @Mock
     private CustomerRepository customerRepository;
 
+    @Mock
+    private CustomerNameFilter nameFilter;
+
+    @Mock
+    private BulkImportService bulkImportService;
+
+    @Mock
+    private PortfolioService portfolioService;
+
+    @Spy
+    private StageMetrics stageMetrics = new StageMetrics(new SimpleMeterRegistry());
+
     @Captor
     private ArgumentCaptor<Customer> customerCaptor;
 
@@ -35,16 +57,77 @@ public class CustomerHandlerTest {
         var customerRequest = new CustomerRequest("first", "last");
         var body = Mono.just(customerRequest);
 
-        when(customerRepository.notExistByFirstAndLastName("first", "last")).thenReturn(Mono.just(true));
+        when(nameFilter.mightContain("first", "last")).thenReturn(false);
+        when(customerRepository.insertIfAbsent(any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
 
         var request = MockServerRequest.builder().body(body);
 
-        customerHandler.createCustomer(request).subscribe();
+        StepVerifier.create(customerHandler.createCustomer(request))
+                .assertNext(response -> assertEquals(HttpStatus.CREATED, response.statusCode()))
+                .verifyComplete();
 
-        verify(customerRepository).save(customerCaptor.capture());
+        verify(customerRepository).insertIfAbsent(customerCaptor.capture());
+        verify(customerRepository, never()).notExistByFirstAndLastName(any(), any());
+        verify(nameFilter).put("first", "last");
 
         assertEquals(customerRequest.firstName(), customerCaptor.getValue().getFirstName());
         assertEquals(customerRequest.lastName(), customerCaptor.getValue().getLastName());
     }
 
+    @Test
+    public void shouldReturnConflictWhenInsertFindsExistingCustomer() {
+        var request = MockServerRequest.builder().body(Mono.just(new CustomerRequest("first", "last")));
+
+        when(nameFilter.mightContain("first", "last")).thenReturn(false);
+        when(customerRepository.insertIfAbsent(any())).thenReturn(Mono.empty());
+
+        StepVerifier.create(customerHandler.createCustomer(request))
+                .assertNext(response -> assertEquals(HttpStatus.CONFLICT, response.statusCode()))
+                .verifyComplete();
+
+        verify(nameFilter, never()).put(any(), any());
+    }
+
+    @Test
+    public void shouldLookUpNamesTheFilterMightContain() {
+        var request = MockServerRequest.builder().body(Mono.just(new CustomerRequest("first", "last")));
+
+        when(nameFilter.mightContain("first", "last")).thenReturn(true);
+        when(customerRepository.notExistByFirstAndLastName("first", "last")).thenReturn(Mono.just(false));
+
+        StepVerifier.create(customerHandler.createCustomer(request))
+                .assertNext(response -> assertEquals(HttpStatus.CONFLICT, response.statusCode()))
+                .verifyComplete();
+
+        verify(customerRepository, never()).insertIfAbsent(any());
+    }
+
+    @Test
+    public void shouldCreateCustomerWhenFilterAnswerIsFalsePositive() {
+        var request = MockServerRequest.builder().body(Mono.just(new CustomerRequest("first", "last")));
+
+        when(nameFilter.mightContain("first", "last")).thenReturn(true);
+        when(customerRepository.notExistByFirstAndLastName("first", "last")).thenReturn(Mono.just(true));
+        when(customerRepository.insertIfAbsent(any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+
+        StepVerifier.create(customerHandler.createCustomer(request))
+                .assertNext(response -> assertEquals(HttpStatus.CREATED, response.statusCode()))
+                .verifyComplete();
+    }
+
+    @Test
+    public void shouldReturnNotFoundForPortfolioOfMissingCustomer() {
+        var request = MockServerRequest.builder()
+                .pathVariable("customerId", "7")
+                .build();
+
+        when(customerRepository.existsById(7L)).thenReturn(Mono.just(false));
+
+        StepVerifier.create(customerHandler.getPortfolio(request))
+                .assertNext(response -> assertEquals(HttpStatus.NOT_FOUND, response.statusCode()))
+                .verifyComplete();
+
+        verify(portfolioService, never()).portfolio(anyLong());
+    }
+
 }
@@ -0,0 +1,126 @@
+package com.bank.accountmanager.idempotency;
+
+import com.bank.accountmanager.configuration.IdempotencyProperties;
+import com.bank.accountmanager.repository.IdempotencyRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.transaction.ReactiveTransaction;
+import org.springframework.transaction.ReactiveTransactionManager;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class IdempotencyServiceTest {
+    private static final String KEY = "PUT /account/1/deposit key";
+    private static final StoredResponse RESPONSE = new StoredResponse(200, "application/json", "{\"accountId\":1}", "hash");
+
+    @Mock
+    private IdempotencyRepository idempotencyRepository;
+
+    @Mock
+    private ReactiveTransactionManager transactionManager;
+
+    private AtomicInteger runs;
+
+    @BeforeEach
+    public void init() {
+        runs = new AtomicInteger();
+    }
+
+    @Test
+    public void shouldRunOperationOnceForConcurrentDuplicates() {
+        var idempotencyService = service(false);
+        var result = Sinks.<StoredResponse>one();
+        var operation = Mono.defer(() -> {
+            runs.incrementAndGet();
+            return result.asMono();
+        });
+
+        var first = idempotencyService.execute(KEY, operation).toFuture();
+        var duplicate = idempotencyService.execute(KEY, operation).toFuture();
+        result.tryEmitValue(RESPONSE);
+
+        assertEquals(RESPONSE, first.join());
+        assertEquals(RESPONSE, duplicate.join());
+        assertEquals(RESPONSE, idempotencyService.execute(KEY, operation).block());
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    public void shouldRunOperationAgainAfterUnexpectedFailure() {
+        var idempotencyService = service(false);
+
+        StepVerifier.create(idempotencyService.execute(KEY, Mono.error(new IllegalStateException("connection lost"))))
+                .verifyError(IllegalStateException.class);
+
+        assertEquals(RESPONSE, idempotencyService.execute(KEY, operation()).block());
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    public void shouldReplayOutcomeStoredInTable() {
+        var idempotencyService = service(true);
+        when(idempotencyRepository.findByKey(KEY)).thenReturn(Mono.just(RESPONSE));
+
+        assertEquals(RESPONSE, idempotencyService.execute(KEY, operation()).block());
+        assertEquals(0, runs.get());
+    }
+
+    @Test
+    public void shouldStoreOutcomeInTransactionOfOperation() {
+        var idempotencyService = service(true);
+        mockTransaction();
+        when(idempotencyRepository.findByKey(KEY)).thenReturn(Mono.empty());
+        when(idempotencyRepository.insert(KEY, RESPONSE)).thenReturn(Mono.empty());
+
+        assertEquals(RESPONSE, idempotencyService.execute(KEY, operation()).block());
+
+        verify(idempotencyRepository).insert(KEY, RESPONSE);
+        verify(transactionManager).commit(any());
+    }
+
+    @Test
+    public void shouldReplayOutcomeOfConcurrentInstanceOnKeyConflict() {
+        var idempotencyService = service(true);
+        mockTransaction();
+        var stored = new StoredResponse(400, null, "Insufficient funds", "hash");
+        when(idempotencyRepository.findByKey(KEY)).thenReturn(Mono.empty(), Mono.just(stored));
+        when(idempotencyRepository.insert(KEY, RESPONSE)).thenReturn(Mono.error(new DuplicateKeyException(KEY)));
+
+        assertEquals(stored, idempotencyService.execute(KEY, operation()).block());
+
+        verify(transactionManager).rollback(any());
+    }
+
+    private void mockTransaction() {
+        when(transactionManager.getReactiveTransaction(any())).thenReturn(Mono.just(mock(ReactiveTransaction.class)));
+        lenient().when(transactionManager.commit(any())).thenReturn(Mono.empty());
+        lenient().when(transactionManager.rollback(any())).thenReturn(Mono.empty());
+    }
+
+    private Mono<StoredResponse> operation() {
+        return Mono.fromSupplier(() -> {
+            runs.incrementAndGet();
+            return RESPONSE;
+        });
+    }
+
+    private IdempotencyService service(boolean tableEnabled) {
+        return new IdempotencyService(idempotencyRepository, transactionManager,
+                new IdempotencyProperties(100, Duration.ofHours(1), tableEnabled), new SimpleMeterRegistry());
+    }
+
+}
@@ -4,6 +4,7 @@ import com.bank.accountmanager.TestConfig;
 import com.bank.accountmanager.handler.request.AccountRequest;
 import com.bank.accountmanager.handler.request.CustomerRequest;
 import com.bank.accountmanager.handler.request.OperationRequest;
+import com.bank.accountmanager.handler.response.TransferResult;
 import com.bank.accountmanager.repository.AccountRepository;
 import com.bank.accountmanager.repository.CustomerRepository;
 import com.bank.accountmanager.router.AccountManagerRouter;
@@ -23,14 +24,19 @@ import reactor.core.publisher.Mono;
 import java.io.InputStream;
 import java.math.BigDecimal;
 import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 import java.util.Scanner;
 
+import static com.bank.accountmanager.handler.response.TransferResult.Status.*;
 import static com.bank.accountmanager.repository.model.Currency.USD;
 import static java.math.BigDecimal.TEN;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.springframework.http.HttpStatus.CONFLICT;
 import static org.springframework.http.MediaType.APPLICATION_JSON;
+import static org.springframework.http.MediaType.APPLICATION_NDJSON;
 
 @ActiveProfiles("it")
 @SpringBootTest
@@ -41,9 +47,11 @@ public class AccountManagerIntegrationTest {
     private static final String CREATE_CUSTOMER_ENDPOINT = "/customer";
     private static final String CREATE_ACCOUNT_ENDPOINT = "/account";
     private static final String GET_BALANCE_ENDPOINT = "/account/{accountId}";
+    private static final String GET_TRANSACTIONS_ENDPOINT = "/account/{accountId}/transactions";
     private static final String DEPOSIT_ENDPOINT = "/account/{accountId}/deposit";
     private static final String WITHDRAW_ENDPOINT = "/account/{accountId}/withdraw";
     private static final String TRANSFER_BETWEEN_ACCOUNTS_ENDPOINT = "/transfer/{accountIdFrom}/{accountIdTo}";
+    private static final String TRANSFER_BATCH_ENDPOINT = "/transfers/batch";
 
     @Autowired
     private AccountManagerRouter accountManagerRouter;
@@ -156,7 +164,7 @@ public class AccountManagerIntegrationTest {
 
         // and
         accountRepository.findById(23L).subscribe(account -> {
-            assertEquals(10, account.getBalance().intValue());
+            assertEquals(1000, account.getBalance());
             assertNotNull(account.getCreatedAt());
         });
     }
@@ -197,7 +205,7 @@ public class AccountManagerIntegrationTest {
                 .expectBody().json(readFile(getClass().getResourceAsStream("/response_bodies/deposit.json")));
 
         // and
-        accountRepository.findById(23L).subscribe(account -> assertEquals(110, account.getBalance().intValue()));
+        accountRepository.findById(23L).subscribe(account -> assertEquals(11000, account.getBalance()));
     }
 
     @Test
@@ -218,7 +226,7 @@ public class AccountManagerIntegrationTest {
                 .expectBody(String.class).isEqualTo("Deposit amount must be greater than 0");
 
         // and
-        accountRepository.findById(23L).subscribe(account -> assertEquals(110, account.getBalance().intValue()));
+        accountRepository.findById(23L).subscribe(account -> assertEquals(11000, account.getBalance()));
     }
 
     @Test
@@ -239,7 +247,7 @@ public class AccountManagerIntegrationTest {
                 .expectBody(String.class).isEqualTo("Deposit amount must be greater than 0");
 
         // and
-        accountRepository.findById(23L).subscribe(account -> assertEquals(110, account.getBalance().intValue()));
+        accountRepository.findById(23L).subscribe(account -> assertEquals(11000, account.getBalance()));
     }
 
     @Test
@@ -278,7 +286,7 @@ public class AccountManagerIntegrationTest {
                 .expectBody().json(readFile(getClass().getResourceAsStream("/response_bodies/withdraw.json")));
 
         // and
-        accountRepository.findById(23L).subscribe(account -> assertEquals(105, account.getBalance().intValue()));
+        accountRepository.findById(23L).subscribe(account -> assertEquals(10500, account.getBalance()));
     }
 
     @Test
@@ -299,7 +307,7 @@ public class AccountManagerIntegrationTest {
                 .expectBody(String.class).isEqualTo("Withdraw amount must be greater than 0");
 
         // and
-        accountRepository.findById(23L).subscribe(account -> assertEquals(105, account.getBalance().intValue()));
+        accountRepository.findById(23L).subscribe(account -> assertEquals(10500, account.getBalance()));
     }
 
     @Test
@@ -320,7 +328,7 @@ public class AccountManagerIntegrationTest {
                 .expectBody(String.class).isEqualTo("Withdraw amount must be greater than 0");
 
         // and
-        accountRepository.findById(23L).subscribe(account -> assertEquals(105, account.getBalance().intValue()));
+        accountRepository.findById(23L).subscribe(account -> assertEquals(10500, account.getBalance()));
     }
 
     @Test
@@ -359,8 +367,8 @@ public class AccountManagerIntegrationTest {
                 .expectBody().json(readFile(getClass().getResourceAsStream("/response_bodies/transfer.json")));
 
         // and
-        accountRepository.findById(23L).subscribe(account -> assertEquals(79.5, account.getBalance().doubleValue()));
-        accountRepository.findById(22L).subscribe(account -> assertEquals(25.5, account.getBalance().doubleValue()));
+        accountRepository.findById(23L).subscribe(account -> assertEquals(7950, account.getBalance()));
+        accountRepository.findById(22L).subscribe(account -> assertEquals(2550, account.getBalance()));
     }
 
     @Test
@@ -381,8 +389,8 @@ public class AccountManagerIntegrationTest {
                 .expectBody(String.class).isEqualTo("Transfer amount must be greater than 0");
 
         // and
-        accountRepository.findById(23L).subscribe(account -> assertEquals(79.5, account.getBalance().doubleValue()));
-        accountRepository.findById(22L).subscribe(account -> assertEquals(25.5, account.getBalance().doubleValue()));
+        accountRepository.findById(23L).subscribe(account -> assertEquals(7950, account.getBalance()));
+        accountRepository.findById(22L).subscribe(account -> assertEquals(2550, account.getBalance()));
     }
 
     @Test
@@ -403,8 +411,8 @@ public class AccountManagerIntegrationTest {
                 .expectBody(String.class).isEqualTo("Transfer amount must be greater than 0");
 
         // and
-        accountRepository.findById(23L).subscribe(account -> assertEquals(79.5, account.getBalance().doubleValue()));
-        accountRepository.findById(22L).subscribe(account -> assertEquals(25.5, account.getBalance().doubleValue()));
+        accountRepository.findById(23L).subscribe(account -> assertEquals(7950, account.getBalance()));
+        accountRepository.findById(22L).subscribe(account -> assertEquals(2550, account.getBalance()));
     }
 
     @Test
@@ -424,7 +432,7 @@ public class AccountManagerIntegrationTest {
                 .expectStatus().isNotFound();
 
         // and
-        accountRepository.findById(22L).subscribe(account -> assertEquals(25.5, account.getBalance().doubleValue()));
+        accountRepository.findById(22L).subscribe(account -> assertEquals(2550, account.getBalance()));
     }
 
     @Test
@@ -444,7 +452,140 @@ public class AccountManagerIntegrationTest {
                 .expectStatus().isNotFound();
 
         // and
-        accountRepository.findById(23L).subscribe(account -> assertEquals(79.5, account.getBalance().doubleValue()));
+        accountRepository.findById(23L).subscribe(account -> assertEquals(7950, account.getBalance()));
+    }
+
+    @Test
+    @Order(20)
+    public void shouldTransferBatch() {
+        // given
+        var transfers = """
+                {"from":23,"to":22,"amount":1.5}
+                {"from":22,"to":23,"amount":1000}
+                {"from":23,"to":11,"amount":2}
+                """;
+
+        // when
+        webTestClient.post()
+                .uri(TRANSFER_BATCH_ENDPOINT)
+                .contentType(APPLICATION_NDJSON)
+                .accept(APPLICATION_NDJSON)
+                .bodyValue(transfers)
+                .exchange()
+
+                // then
+                .expectStatus().isOk()
+                .expectBodyList(TransferResult.class)
+                .value(results -> assertEquals(List.of(COMPLETED, FAILED, COMPLETED),
+                        results.stream().map(TransferResult::status).collect(Collectors.toList())));
+
+        // and
+        assertEquals(7600, accountRepository.findById(23L).block().getBalance());
+        assertEquals(2700, accountRepository.findById(22L).block().getBalance());
+    }
+
+    @Test
+    @Order(21)
+    public void shouldRollBackTransferBatchInAllOrNothingMode() {
+        // given
+        var transfers = """
+                {"from":23,"to":22,"amount":1}
+                {"from":22,"to":23,"amount":1000}
+                """;
+
+        // when
+        webTestClient.post()
+                .uri(uriBuilder -> uriBuilder.path(TRANSFER_BATCH_ENDPOINT).queryParam("allOrNothing", true).build())
+                .contentType(APPLICATION_NDJSON)
+                .accept(APPLICATION_NDJSON)
+                .bodyValue(transfers)
+                .exchange()
+
+                // then
+                .expectStatus().isOk()
+                .expectBodyList(TransferResult.class)
+                .value(results -> assertEquals(List.of(ROLLED_BACK, FAILED), results.stream().map(TransferResult::status).collect(Collectors.toList())));
+
+        // and
+        assertEquals(7600, accountRepository.findById(23L).block().getBalance());
+        assertEquals(2700, accountRepository.findById(22L).block().getBalance());
+    }
+
+    @Test
+    @Order(22)
+    public void shouldApplyRetriedDepositOnce() {
+        // given
+        var deposit = new OperationRequest(BigDecimal.valueOf(5));
+
+        // when
+        for (int i = 0; i < 2; i++) {
+            webTestClient.put()
+                    .uri(DEPOSIT_ENDPOINT, "22")
+                    .contentType(APPLICATION_JSON)
+                    .accept(APPLICATION_JSON)
+                    .header("Idempotency-Key", "retried-deposit")
+                    .body(Mono.just(deposit), OperationRequest.class)
+                    .exchange()
+
+                    // then
+                    .expectStatus().isOk()
+                    .expectBody().jsonPath("$.accountId").isEqualTo(22);
+        }
+
+        // and
+        assertEquals(3200, accountRepository.findById(22L).block().getBalance());
+    }
+
+    @Test
+    @Order(23)
+    public void shouldStreamTransactionsAcrossPages() {
+        // given
+
+        // when
+        webTestClient.get()
+                .uri(GET_TRANSACTIONS_ENDPOINT, "23")
+                .accept(APPLICATION_NDJSON)
+                .exchange()
+
+                // then
+                .expectStatus().isOk()
+                .expectBodyList(Map.class)
+                .value(entries -> {
+                    assertEquals(List.of("DEPOSIT", "WITHDRAW", "TRANSFER_OUT", "TRANSFER_OUT", "TRANSFER_OUT"),
+                            entries.stream().map(entry -> entry.get("type")).collect(Collectors.toList()));
+                    assertEquals(76, ((Number) entries.get(4).get("balance")).intValue());
+                });
+    }
+
+    @Test
+    @Order(24)
+    public void shouldLimitTransactions() {
+        // given
+
+        // when
+        webTestClient.get()
+                .uri(uriBuilder -> uriBuilder.path(GET_TRANSACTIONS_ENDPOINT).queryParam("limit", 3).build("23"))
+                .accept(APPLICATION_NDJSON)
+                .exchange()
+
+                // then
+                .expectStatus().isOk()
+                .expectBodyList(Map.class).hasSize(3);
+    }
+
+    @Test
+    @Order(25)
+    public void shouldReturnNotFoundForTransactionsOfMissingAccount() {
+        // given
+
+        // when
+        webTestClient.get()
+                .uri(GET_TRANSACTIONS_ENDPOINT, "868")
+                .accept(APPLICATION_NDJSON)
+                .exchange()
+
+                // then
+                .expectStatus().isNotFound();
     }
 
     private String readFile(InputStream stream) {
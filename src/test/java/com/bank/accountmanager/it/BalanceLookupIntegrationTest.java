@@ -0,0 +1,97 @@
+package com.bank.accountmanager.it;
+
+import com.bank.accountmanager.TestConfig;
+import com.bank.accountmanager.handler.response.AccountResponse;
+import com.bank.accountmanager.router.AccountManagerRouter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.springframework.http.MediaType.APPLICATION_JSON;
+import static org.springframework.http.MediaType.APPLICATION_NDJSON;
+
+@ActiveProfiles("it")
+@SpringBootTest(properties = "accountmanager.balance-lookup.max-ids=3")
+@Import(TestConfig.class)
+public class BalanceLookupIntegrationTest {
+    private static final String GET_BALANCES_ENDPOINT = "/accounts/balances";
+    private static final String GET_ACCOUNTS_ENDPOINT = "/accounts?ids={ids}";
+
+    @Autowired
+    private AccountManagerRouter accountManagerRouter;
+
+    private WebTestClient webTestClient;
+
+    @BeforeEach
+    public void init() {
+        webTestClient = WebTestClient.bindToRouterFunction(accountManagerRouter.routes()).build();
+    }
+
+    @Test
+    public void shouldReportFoundAndMissingAccounts() {
+        // given
+
+        // when
+        var balances = webTestClient.post()
+                .uri(GET_BALANCES_ENDPOINT)
+                .contentType(APPLICATION_JSON)
+                .accept(APPLICATION_JSON)
+                .bodyValue(List.of(11L, 999L, 22L))
+                .exchange()
+
+                // then
+                .expectStatus().isOk()
+                .expectBodyList(AccountResponse.class)
+                .returnResult()
+                .getResponseBody()
+                .stream()
+                .collect(Collectors.toMap(AccountResponse::accountId, Function.identity()));
+
+        assertEquals(new BigDecimal("15246.25"), balances.get(11L).balance());
+        assertEquals(new BigDecimal("0.00"), balances.get(22L).balance());
+        assertNull(balances.get(999L).balance());
+        assertEquals("Account 999 not found", balances.get(999L).message());
+    }
+
+    @Test
+    public void shouldStreamBalancesOfQueriedIds() {
+        // given
+
+        // when
+        webTestClient.get()
+                .uri(GET_ACCOUNTS_ENDPOINT, "11,22")
+                .accept(APPLICATION_NDJSON)
+                .exchange()
+
+                // then
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(APPLICATION_NDJSON)
+                .expectBodyList(AccountResponse.class)
+                .hasSize(2);
+    }
+
+    @Test
+    public void shouldRejectMoreIdsThanAllowed() {
+        // given
+
+        // when
+        webTestClient.get()
+                .uri(GET_ACCOUNTS_ENDPOINT, "1,2,3,4")
+                .exchange()
+
+                // then
+                .expectStatus().isBadRequest();
+    }
+
+}
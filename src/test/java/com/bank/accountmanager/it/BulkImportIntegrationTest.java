@@ -0,0 +1,118 @@
+package com.bank.accountmanager.it;
+
+import com.bank.accountmanager.TestConfig;
+import com.bank.accountmanager.handler.response.ImportResult;
+import com.bank.accountmanager.repository.AccountRepository;
+import com.bank.accountmanager.repository.CustomerRepository;
+import com.bank.accountmanager.router.AccountManagerRouter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static com.bank.accountmanager.handler.CustomerHandler.TEXT_CSV;
+import static com.bank.accountmanager.handler.response.ImportResult.Status.CREATED;
+import static com.bank.accountmanager.handler.response.ImportResult.Status.FAILED;
+import static com.bank.accountmanager.repository.model.Currency.USD;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.http.MediaType.APPLICATION_NDJSON;
+
+@ActiveProfiles("it")
+@SpringBootTest(properties = "accountmanager.bulk-import.chunk-size=2")
+@Import(TestConfig.class)
+public class BulkImportIntegrationTest {
+    private static final String IMPORT_ENDPOINT = "/customers/import";
+
+    @Autowired
+    private AccountManagerRouter accountManagerRouter;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    private WebTestClient webTestClient;
+
+    @BeforeEach
+    public void init() {
+        webTestClient = WebTestClient.bindToRouterFunction(accountManagerRouter.routes()).build();
+    }
+
+    @Test
+    public void shouldImportNdjsonRows() {
+        // given
+        var rows = """
+                {"firstName":"Imported","lastName":"Customer","accounts":[{"currency":"EUR","initialDeposit":10},{"currency":"USD"}]}
+                {"customerId":1,"accounts":[{"currency":"USD","initialDeposit":2.5}]}
+                {"firstName":"first","lastName":"last"}
+                {"customerId":999,"accounts":[{"currency":"EUR"}]}
+                {"firstName":"Imported","lastName":"Twice","accounts":[{"currency":"CHF"}]}
+                """;
+
+        // when
+        var results = webTestClient.post()
+                .uri(IMPORT_ENDPOINT)
+                .contentType(APPLICATION_NDJSON)
+                .accept(APPLICATION_NDJSON)
+                .bodyValue(rows)
+                .exchange()
+
+                // then
+                .expectStatus().isOk()
+                .expectBodyList(ImportResult.class)
+                .returnResult()
+                .getResponseBody();
+
+        assertEquals(List.of(CREATED, CREATED, FAILED, FAILED, FAILED),
+                results.stream().map(ImportResult::status).collect(Collectors.toList()));
+
+        // and
+        var imported = results.get(0);
+        assertEquals("Imported", customerRepository.findById(imported.customerId()).block().getFirstName());
+        assertEquals(2, imported.accountIds().size());
+        assertEquals(1000L, accountRepository.findById(imported.accountIds().get(0)).block().getBalance());
+
+        var opened = accountRepository.findById(results.get(1).accountIds().get(0)).block();
+        assertEquals(1L, opened.getCustomerId());
+        assertEquals(USD, opened.getCurrency());
+        assertEquals(250L, opened.getBalance());
+    }
+
+    @Test
+    public void shouldImportCsvRows() {
+        // given
+        var rows = """
+                customerId,firstName,lastName,currency,initialDeposit
+                ,Csv,Customer,GBP,7.25
+                2,,,EUR,
+                ,Csv,Customer,EUR,1
+                """;
+
+        // when
+        var results = webTestClient.post()
+                .uri(IMPORT_ENDPOINT)
+                .contentType(TEXT_CSV)
+                .accept(APPLICATION_NDJSON)
+                .bodyValue(rows)
+                .exchange()
+
+                // then
+                .expectStatus().isOk()
+                .expectBodyList(ImportResult.class)
+                .returnResult()
+                .getResponseBody();
+
+        assertEquals(List.of(CREATED, CREATED, FAILED), results.stream().map(ImportResult::status).collect(Collectors.toList()));
+        assertEquals(List.of(1L, 2L, 3L), results.stream().map(ImportResult::row).collect(Collectors.toList()));
+        assertEquals(725L, accountRepository.findById(results.get(0).accountIds().get(0)).block().getBalance());
+        assertEquals(2L, results.get(1).customerId());
+    }
+
+}
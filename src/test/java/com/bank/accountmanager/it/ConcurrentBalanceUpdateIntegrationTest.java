@@ -0,0 +1,53 @@
+package com.bank.accountmanager.it;
+
+import com.bank.accountmanager.TestConfig;
+import com.bank.accountmanager.repository.AccountRepository;
+import com.bank.accountmanager.service.AccountOperations;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@ActiveProfiles("it")
+@SpringBootTest
+@Import(TestConfig.class)
+public class ConcurrentBalanceUpdateIntegrationTest {
+    private static final long ACCOUNT_ID = 11L;
+    private static final int OPERATIONS = 300;
+
+    @Autowired
+    private AccountOperations accountOperations;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Test
+    public void shouldNotLoseConcurrentUpdates() {
+        // given
+        var initialBalance = accountRepository.findById(ACCOUNT_ID).block().getBalance();
+
+        // when
+        Flux.range(0, OPERATIONS)
+                .flatMap(i -> accountOperations.deposit(ACCOUNT_ID, BigDecimal.ONE).subscribeOn(Schedulers.parallel()), OPERATIONS)
+                .blockLast();
+
+        // then
+        assertEquals(initialBalance + OPERATIONS * 100L, accountRepository.findById(ACCOUNT_ID).block().getBalance());
+
+        // when
+        Flux.range(0, OPERATIONS)
+                .flatMap(i -> accountOperations.withdraw(ACCOUNT_ID, BigDecimal.ONE).subscribeOn(Schedulers.parallel()), OPERATIONS)
+                .blockLast();
+
+        // then
+        assertEquals(initialBalance, accountRepository.findById(ACCOUNT_ID).block().getBalance());
+    }
+
+}
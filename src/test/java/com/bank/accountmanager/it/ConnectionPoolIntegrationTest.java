@@ -0,0 +1,50 @@
+package com.bank.accountmanager.it;
+
+import com.bank.accountmanager.TestConfig;
+import com.bank.accountmanager.service.AccountOperations;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.r2dbc.pool.ConnectionPool;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@ActiveProfiles("it")
+@SpringBootTest(properties = {"accountmanager.r2dbc.pool.initial-size=2", "accountmanager.r2dbc.pool.max-size=4"})
+@Import(TestConfig.class)
+public class ConnectionPoolIntegrationTest {
+    private static final long ACCOUNT_ID = 22L;
+
+    @Autowired
+    private ConnectionPool connectionPool;
+
+    @Autowired
+    private AccountOperations accountOperations;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    public void shouldServeTransactionalOperationsFromWarmPool() {
+        // given
+        var metrics = connectionPool.getMetrics().orElseThrow();
+        assertTrue(metrics.allocatedSize() >= 2);
+        var balance = accountOperations.findAccount(ACCOUNT_ID).block().getBalance();
+
+        // when
+        accountOperations.deposit(ACCOUNT_ID, BigDecimal.ONE).block();
+        accountOperations.withdraw(ACCOUNT_ID, BigDecimal.ONE).block();
+
+        // then
+        assertEquals(balance, accountOperations.findAccount(ACCOUNT_ID).block().getBalance());
+        assertEquals(4, metrics.getMaxAllocatedSize());
+        assertTrue(meterRegistry.get("r2dbc.pool.acquire").tag("name", "accountmanager").timer().count() > 0);
+    }
+
+}
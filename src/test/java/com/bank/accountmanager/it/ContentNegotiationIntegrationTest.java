@@ -0,0 +1,133 @@
+package com.bank.accountmanager.it;
+
+import com.bank.accountmanager.TestConfig;
+import com.bank.accountmanager.handler.request.AccountRequest;
+import com.bank.accountmanager.handler.request.OperationRequest;
+import com.bank.accountmanager.handler.response.AccountResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.math.BigDecimal;
+
+import static com.bank.accountmanager.configuration.CodecConfiguration.APPLICATION_SMILE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.http.MediaType.APPLICATION_CBOR;
+import static org.springframework.http.MediaType.APPLICATION_JSON;
+
+// the client is bound to the application context, so it has the codecs of the application
+@ActiveProfiles("it")
+@SpringBootTest
+@AutoConfigureWebTestClient
+@Import(TestConfig.class)
+public class ContentNegotiationIntegrationTest {
+    private static final String CREATE_ACCOUNT_ENDPOINT = "/account";
+    private static final String GET_BALANCE_ENDPOINT = "/account/{accountId}";
+    private static final String DEPOSIT_ENDPOINT = "/account/{accountId}/deposit";
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Test
+    public void shouldDepositWithCbor() {
+        // given
+        var account = openAccount(APPLICATION_CBOR);
+
+        // when
+        var response = deposit(account.accountId(), APPLICATION_CBOR);
+
+        // then
+        assertEquals(0, BigDecimal.valueOf(11).compareTo(response.balance()));
+    }
+
+    @Test
+    public void shouldDepositWithSmile() {
+        // given
+        var account = openAccount(APPLICATION_SMILE);
+
+        // when
+        var response = deposit(account.accountId(), APPLICATION_SMILE);
+
+        // then
+        assertEquals(0, BigDecimal.valueOf(11).compareTo(response.balance()));
+    }
+
+    @Test
+    public void shouldReplayIdempotentDepositInNegotiatedFormat() {
+        // given
+        var account = openAccount(APPLICATION_JSON);
+
+        // when
+        var first = idempotentDeposit(account.accountId(), APPLICATION_CBOR);
+        var replayed = idempotentDeposit(account.accountId(), APPLICATION_SMILE);
+
+        // then
+        assertEquals(0, BigDecimal.valueOf(11).compareTo(first.balance()));
+        assertEquals(0, BigDecimal.valueOf(11).compareTo(replayed.balance()));
+    }
+
+    @Test
+    public void shouldDefaultToJson() {
+        // given
+
+        // when
+        webTestClient.get()
+                .uri(GET_BALANCE_ENDPOINT, 11L)
+                .accept(MediaType.ALL)
+                .exchange()
+
+                // then
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(APPLICATION_JSON)
+                .expectBody().jsonPath("$.accountId").isEqualTo(11);
+    }
+
+    private AccountResponse openAccount(MediaType mediaType) {
+        return webTestClient.post()
+                .uri(CREATE_ACCOUNT_ENDPOINT)
+                .contentType(mediaType)
+                .accept(mediaType)
+                .bodyValue(new AccountRequest(1L, "EUR", BigDecimal.TEN))
+                .exchange()
+                .expectStatus().isCreated()
+                .expectHeader().contentTypeCompatibleWith(mediaType)
+                .expectBody(AccountResponse.class)
+                .returnResult()
+                .getResponseBody();
+    }
+
+    private AccountResponse idempotentDeposit(long accountId, MediaType mediaType) {
+        return webTestClient.put()
+                .uri(DEPOSIT_ENDPOINT, accountId)
+                .contentType(APPLICATION_JSON)
+                .accept(mediaType)
+                .header("Idempotency-Key", "negotiated-deposit-" + accountId)
+                .bodyValue(new OperationRequest(BigDecimal.ONE))
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(mediaType)
+                .expectBody(AccountResponse.class)
+                .returnResult()
+                .getResponseBody();
+    }
+
+    private AccountResponse deposit(long accountId, MediaType mediaType) {
+        return webTestClient.put()
+                .uri(DEPOSIT_ENDPOINT, accountId)
+                .contentType(mediaType)
+                .accept(mediaType)
+                .bodyValue(new OperationRequest(BigDecimal.ONE))
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(mediaType)
+                .expectBody(AccountResponse.class)
+                .returnResult()
+                .getResponseBody();
+    }
+
+}
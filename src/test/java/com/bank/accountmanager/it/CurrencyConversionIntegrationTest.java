@@ -0,0 +1,162 @@
+package com.bank.accountmanager.it;
+
+import com.bank.accountmanager.TestConfig;
+import com.bank.accountmanager.handler.request.AccountRequest;
+import com.bank.accountmanager.handler.request.OperationRequest;
+import com.bank.accountmanager.handler.response.AccountResponse;
+import com.bank.accountmanager.handler.response.FxRatesResponse;
+import com.bank.accountmanager.router.AccountManagerRouter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static com.bank.accountmanager.repository.model.Currency.GBP;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.http.MediaType.APPLICATION_JSON;
+import static org.springframework.http.MediaType.APPLICATION_NDJSON;
+
+@ActiveProfiles("it")
+@SpringBootTest(properties = {"accountmanager.fx.rates.GBP=1.25",
+        "accountmanager.fx.admin-token=" + CurrencyConversionIntegrationTest.ADMIN_TOKEN})
+@Import(TestConfig.class)
+public class CurrencyConversionIntegrationTest {
+    private static final String CREATE_ACCOUNT_ENDPOINT = "/account";
+    private static final String GET_BALANCE_ENDPOINT = "/account/{accountId}";
+    private static final String GET_TRANSACTIONS_ENDPOINT = "/account/{accountId}/transactions";
+    private static final String TRANSFER_BETWEEN_ACCOUNTS_ENDPOINT = "/transfer/{accountIdFrom}/{accountIdTo}";
+    static final String ADMIN_TOKEN = "admin-secret";
+    private static final String FX_RATES_ENDPOINT = "/admin/fx-rates";
+
+    @Autowired
+    private AccountManagerRouter accountManagerRouter;
+
+    private WebTestClient webTestClient;
+
+    @BeforeEach
+    public void init() {
+        webTestClient = WebTestClient.bindToRouterFunction(accountManagerRouter.routes()).build();
+    }
+
+    @Test
+    public void shouldCreditConvertedAmountAndRecordRateVersion() {
+        // given
+        var gbpAccountId = createAccount(GBP.name());
+        var initialVersion = rates().version();
+
+        // when
+        transfer(11L, gbpAccountId, BigDecimal.TEN);
+        var updated = webTestClient.put()
+                .uri(FX_RATES_ENDPOINT)
+                .header("X-Admin-Token", ADMIN_TOKEN)
+                .contentType(APPLICATION_JSON)
+                .bodyValue(Map.of("EUR", 1, "USD", 1, "GBP", 2))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(FxRatesResponse.class)
+                .returnResult()
+                .getResponseBody();
+        transfer(11L, gbpAccountId, BigDecimal.TEN);
+
+        // then
+        assertTrue(updated.version() > initialVersion);
+        webTestClient.get()
+                .uri(GET_BALANCE_ENDPOINT, gbpAccountId)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.balance").isEqualTo(13.0);
+        webTestClient.get()
+                .uri(GET_TRANSACTIONS_ENDPOINT, gbpAccountId)
+                .accept(APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(Map.class)
+                .value(entries -> {
+                    assertEquals(List.of(8.0, 5.0), entries.stream()
+                            .map(entry -> ((Number) entry.get("amount")).doubleValue())
+                            .collect(Collectors.toList()));
+                    assertEquals(List.of(initialVersion, updated.version()), entries.stream()
+                            .map(entry -> ((Number) entry.get("fxVersion")).longValue())
+                            .collect(Collectors.toList()));
+                });
+    }
+
+    @Test
+    public void shouldRejectNonPositiveRate() {
+        // given
+        var version = rates().version();
+
+        // when
+        webTestClient.put()
+                .uri(FX_RATES_ENDPOINT)
+                .header("X-Admin-Token", ADMIN_TOKEN)
+                .contentType(APPLICATION_JSON)
+                .bodyValue(Map.of("EUR", 1, "GBP", 0))
+                .exchange()
+
+                // then
+                .expectStatus().isBadRequest()
+                .expectBody(String.class).isEqualTo("Exchange rate of GBP must be greater than 0");
+        assertEquals(version, rates().version());
+    }
+
+    @Test
+    public void shouldRejectUpdateWithoutAdminToken() {
+        // given
+        var version = rates().version();
+
+        // when
+        webTestClient.put()
+                .uri(FX_RATES_ENDPOINT)
+                .header("X-Admin-Token", "guessed")
+                .contentType(APPLICATION_JSON)
+                .bodyValue(Map.of("EUR", 1, "USD", 1, "GBP", 2))
+                .exchange()
+
+                // then
+                .expectStatus().isForbidden();
+        assertEquals(version, rates().version());
+    }
+
+    private long createAccount(String currency) {
+        return webTestClient.post()
+                .uri(CREATE_ACCOUNT_ENDPOINT)
+                .contentType(APPLICATION_JSON)
+                .bodyValue(new AccountRequest(1L, currency, null))
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody(AccountResponse.class)
+                .returnResult()
+                .getResponseBody()
+                .accountId();
+    }
+
+    private void transfer(long idFrom, long idTo, BigDecimal amount) {
+        webTestClient.put()
+                .uri(TRANSFER_BETWEEN_ACCOUNTS_ENDPOINT, idFrom, idTo)
+                .contentType(APPLICATION_JSON)
+                .bodyValue(new OperationRequest(amount))
+                .exchange()
+                .expectStatus().isOk();
+    }
+
+    private FxRatesResponse rates() {
+        return webTestClient.get()
+                .uri(FX_RATES_ENDPOINT)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(FxRatesResponse.class)
+                .returnResult()
+                .getResponseBody();
+    }
+
+}
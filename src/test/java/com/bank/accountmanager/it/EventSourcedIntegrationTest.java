@@ -0,0 +1,56 @@
+package com.bank.accountmanager.it;
+
+import com.bank.accountmanager.TestConfig;
+import com.bank.accountmanager.repository.AccountRepository;
+import com.bank.accountmanager.repository.BalanceSnapshotRepository;
+import com.bank.accountmanager.service.AccountOperations;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@ActiveProfiles("it")
+@SpringBootTest(properties = {"accountmanager.operations.mode=event-sourced", "accountmanager.event-sourcing.snapshot-interval=2"})
+@Import(TestConfig.class)
+public class EventSourcedIntegrationTest {
+    private static final long ACCOUNT_ID = 11L;
+
+    @Autowired
+    private AccountOperations accountOperations;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private BalanceSnapshotRepository snapshotRepository;
+
+    @Test
+    public void shouldDeriveCurrentAndHistoricalBalancesFromLedger() throws InterruptedException {
+        // given
+        var initialBalance = accountOperations.findAccount(ACCOUNT_ID).block().getBalance();
+        var beforeOperations = Instant.now();
+        Thread.sleep(10);
+
+        // when
+        accountOperations.deposit(ACCOUNT_ID, BigDecimal.ONE).block();
+        accountOperations.deposit(ACCOUNT_ID, BigDecimal.ONE).block();
+        accountOperations.deposit(ACCOUNT_ID, BigDecimal.ONE).block();
+        var afterWithdraw = accountOperations.withdraw(ACCOUNT_ID, new BigDecimal("0.50")).block();
+
+        // then
+        assertEquals(initialBalance + 250, afterWithdraw.getBalance());
+        assertEquals(initialBalance + 250, accountOperations.findAccount(ACCOUNT_ID).block().getBalance());
+        assertEquals(initialBalance + 250, accountRepository.findById(ACCOUNT_ID).block().getBalance());
+        assertTrue(snapshotRepository.findLatest(ACCOUNT_ID).block().getEntryId() > 0);
+        assertEquals(initialBalance, accountOperations.findAccount(ACCOUNT_ID, beforeOperations).block().getBalance());
+        assertTrue(accountOperations.findAccount(ACCOUNT_ID, Instant.EPOCH).blockOptional().isEmpty());
+    }
+
+}
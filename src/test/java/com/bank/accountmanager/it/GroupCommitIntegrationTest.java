@@ -0,0 +1,72 @@
+package com.bank.accountmanager.it;
+
+import com.bank.accountmanager.TestConfig;
+import com.bank.accountmanager.repository.AccountRepository;
+import com.bank.accountmanager.service.AccountOperations;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.ReactiveTransactionManager;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@ActiveProfiles("it")
+@SpringBootTest(properties = {"accountmanager.group-commit.enabled=true", "accountmanager.group-commit.concurrency=2"})
+@Import(TestConfig.class)
+public class GroupCommitIntegrationTest {
+    private static final long ACCOUNT_ID = 11L;
+    private static final int OPERATIONS = 300;
+
+    @Autowired
+    private AccountOperations accountOperations;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private ReactiveTransactionManager transactionManager;
+
+    @Test
+    public void shouldNotLoseGroupCommittedUpdates() {
+        // given
+        var initialBalance = accountRepository.findById(ACCOUNT_ID).block().getBalance();
+
+        // when
+        var failed = Flux.range(0, OPERATIONS)
+                .flatMap(i -> accountOperations.deposit(ACCOUNT_ID, BigDecimal.ONE)
+                        .then(accountOperations.withdraw(ACCOUNT_ID, BigDecimal.valueOf(2)).hasElement().onErrorReturn(false))
+                        .subscribeOn(Schedulers.parallel()), OPERATIONS)
+                .filter(withdrawn -> !withdrawn)
+                .count()
+                .block();
+
+        // then
+        assertEquals(initialBalance + OPERATIONS * 100L - (OPERATIONS - failed) * 200L,
+                accountRepository.findById(ACCOUNT_ID).block().getBalance());
+    }
+
+    @Test
+    public void shouldApplyWithdrawalInTransactionOfCaller() {
+        // given
+        var initialBalance = accountRepository.findById(ACCOUNT_ID).block().getBalance();
+
+        // when
+        StepVerifier.create(accountOperations.withdraw(ACCOUNT_ID, BigDecimal.ONE)
+                        .then(Mono.error(new IllegalStateException("caller failed")))
+                        .as(TransactionalOperator.create(transactionManager)::transactional))
+                .verifyError(IllegalStateException.class);
+
+        // then
+        assertEquals(initialBalance, accountRepository.findById(ACCOUNT_ID).block().getBalance());
+    }
+
+}
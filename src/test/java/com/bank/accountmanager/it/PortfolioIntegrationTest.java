@@ -0,0 +1,85 @@
+package com.bank.accountmanager.it;
+
+import com.bank.accountmanager.TestConfig;
+import com.bank.accountmanager.handler.response.PortfolioEntry;
+import com.bank.accountmanager.router.AccountManagerRouter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.http.MediaType.APPLICATION_NDJSON;
+
+@ActiveProfiles("it")
+@SpringBootTest
+@Import(TestConfig.class)
+public class PortfolioIntegrationTest {
+    private static final String GET_PORTFOLIO_ENDPOINT = "/customer/{customerId}/accounts";
+
+    @Autowired
+    private AccountManagerRouter accountManagerRouter;
+
+    private WebTestClient webTestClient;
+
+    @BeforeEach
+    public void init() {
+        webTestClient = WebTestClient.bindToRouterFunction(accountManagerRouter.routes()).build();
+    }
+
+    // other tests of the shared context may open accounts for the customer, so only the shape is asserted
+    @Test
+    public void shouldStreamAccountsWithTotalPerCurrency() {
+        // given
+
+        // when
+        var entries = webTestClient.get()
+                .uri(GET_PORTFOLIO_ENDPOINT, 1L)
+                .accept(APPLICATION_NDJSON)
+                .exchange()
+
+                // then
+                .expectStatus().isOk()
+                .expectBodyList(PortfolioEntry.class)
+                .returnResult()
+                .getResponseBody();
+
+        assertTrue(entries.stream().anyMatch(entry -> Long.valueOf(11L).equals(entry.accountId())));
+        var sum = BigDecimal.ZERO;
+        var accounts = 0;
+        for (var entry : entries) {
+            if (entry.accountId() != null) {
+                sum = sum.add(entry.balance());
+                accounts++;
+            } else {
+                assertNotNull(entry.currency());
+                assertEquals(0, sum.compareTo(entry.total()));
+                assertEquals(accounts, entry.accounts());
+                sum = BigDecimal.ZERO;
+                accounts = 0;
+            }
+        }
+        assertEquals(0, accounts);
+    }
+
+    @Test
+    public void shouldReturnNotFoundForMissingCustomer() {
+        // given
+
+        // when
+        webTestClient.get()
+                .uri(GET_PORTFOLIO_ENDPOINT, 999L)
+                .exchange()
+
+                // then
+                .expectStatus().isNotFound();
+    }
+
+}
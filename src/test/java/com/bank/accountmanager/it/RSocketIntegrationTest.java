@@ -0,0 +1,132 @@
+package com.bank.accountmanager.it;
+
+import com.bank.accountmanager.TestConfig;
+import com.bank.accountmanager.handler.request.OperationRequest;
+import com.bank.accountmanager.handler.response.AccountResponse;
+import io.rsocket.exceptions.ApplicationErrorException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.rsocket.context.LocalRSocketServerPort;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.messaging.rsocket.RSocketRequester;
+import org.springframework.test.context.ActiveProfiles;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.util.MimeTypeUtils.parseMimeType;
+
+@ActiveProfiles("it")
+@SpringBootTest(properties = "accountmanager.rsocket.tcp-enabled=true")
+@Import(TestConfig.class)
+public class RSocketIntegrationTest {
+    private static final ParameterizedTypeReference<List<AccountResponse>> ACCOUNTS = new ParameterizedTypeReference<>() {
+    };
+
+    @LocalRSocketServerPort
+    private int port;
+
+    @Autowired
+    private RSocketRequester.Builder requesterBuilder;
+
+    private RSocketRequester requester;
+
+    @BeforeEach
+    public void init() {
+        requester = requesterBuilder
+                .dataMimeType(parseMimeType("application/cbor"))
+                .tcp("localhost", port);
+    }
+
+    @AfterEach
+    public void close() {
+        requester.rsocketClient().dispose();
+    }
+
+    @Test
+    public void shouldDepositWithdrawAndTransfer() {
+        // given
+
+        // when
+        var deposited = requester.route("account.22.deposit").data(new OperationRequest(BigDecimal.TEN))
+                .retrieveMono(AccountResponse.class);
+        var withdrawn = requester.route("account.22.withdraw").data(new OperationRequest(BigDecimal.ONE))
+                .retrieveMono(AccountResponse.class);
+        var transferred = requester.route("transfer.22.11").data(new OperationRequest(BigDecimal.ONE))
+                .retrieveMono(ACCOUNTS);
+
+        // then
+        StepVerifier.create(deposited.map(AccountResponse::balance))
+                .expectNext(new BigDecimal("10.00"))
+                .verifyComplete();
+        StepVerifier.create(withdrawn.map(AccountResponse::balance))
+                .expectNext(new BigDecimal("9.00"))
+                .verifyComplete();
+        StepVerifier.create(transferred)
+                .assertNext(accounts -> {
+                    assertEquals(new BigDecimal("8.00"), accounts.get(0).balance());
+                    assertEquals(new BigDecimal("15247.25"), accounts.get(1).balance());
+                })
+                .verifyComplete();
+        StepVerifier.create(requester.route("account.22.balance").retrieveMono(AccountResponse.class).map(AccountResponse::balance))
+                .expectNext(new BigDecimal("8.00"))
+                .verifyComplete();
+    }
+
+    @Test
+    public void shouldSignalRejectedOperation() {
+        // given
+
+        // when
+        var withdrawn = requester.route("account.11.withdraw").data(new OperationRequest(BigDecimal.valueOf(-1)))
+                .retrieveMono(AccountResponse.class);
+
+        // then
+        StepVerifier.create(withdrawn)
+                .expectErrorMatches(error -> error instanceof ApplicationErrorException
+                        && error.getMessage().equals("Withdraw amount must be greater than 0"))
+                .verify();
+    }
+
+    @Test
+    public void shouldMultiplexConcurrentRequestsOnOneConnection() {
+        // given
+        var requests = 1000;
+
+        // when
+        var balances = Flux.range(0, requests)
+                .flatMap(i -> requester.route("account.11.balance").retrieveMono(AccountResponse.class), requests)
+                .map(AccountResponse::accountId)
+                .collectList();
+
+        // then
+        StepVerifier.create(balances)
+                .assertNext(accountIds -> assertEquals(requests, accountIds.stream().filter(id -> id == 11L).count()))
+                .verifyComplete();
+    }
+
+    @Test
+    public void shouldStreamBalancesOfRequestedIds() {
+        // given
+
+        // when
+        var balances = requester.route("accounts.balances").data(List.of(11L, 999L))
+                .retrieveFlux(AccountResponse.class)
+                .collectList();
+
+        // then
+        StepVerifier.create(balances)
+                .assertNext(responses -> assertEquals(List.of(11L, 999L),
+                        responses.stream().map(AccountResponse::accountId).collect(Collectors.toList())))
+                .verifyComplete();
+    }
+
+}
@@ -0,0 +1,136 @@
+package com.bank.accountmanager.it;
+
+import com.bank.accountmanager.TestConfig;
+import com.bank.accountmanager.handler.request.OperationRequest;
+import com.bank.accountmanager.handler.response.AccountResponse;
+import com.bank.accountmanager.handler.response.PortfolioEntry;
+import com.bank.accountmanager.repository.AccountRepository;
+import com.bank.accountmanager.router.AccountManagerRouter;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.r2dbc.connection.init.ResourceDatabasePopulator;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.http.MediaType.APPLICATION_JSON;
+import static org.springframework.http.MediaType.APPLICATION_NDJSON;
+
+// two in-memory H2 databases stand in for the replicas, their balances differ from the primary to tell the reads apart
+@ActiveProfiles("it")
+@SpringBootTest(properties = {"accountmanager.r2dbc.replicas.urls[0]=" + ReadReplicaIntegrationTest.REPLICA_1,
+        "accountmanager.r2dbc.replicas.urls[1]=" + ReadReplicaIntegrationTest.REPLICA_2})
+@Import(TestConfig.class)
+public class ReadReplicaIntegrationTest {
+    static final String REPLICA_1 = "r2dbc:h2:mem:///replica1?options=DB_CLOSE_DELAY=-1";
+    static final String REPLICA_2 = "r2dbc:h2:mem:///replica2?options=DB_CLOSE_DELAY=-1";
+    private static final String GET_BALANCE_ENDPOINT = "/account/{accountId}";
+    private static final String GET_PORTFOLIO_ENDPOINT = "/customer/{customerId}/accounts";
+    private static final String DEPOSIT_ENDPOINT = "/account/{accountId}/deposit";
+    private static final long REPLICA_BALANCE = 1;
+
+    @Autowired
+    private AccountManagerRouter accountManagerRouter;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    private WebTestClient webTestClient;
+
+    private final List<ConnectionFactory> replicas = List.of(ConnectionFactories.get(REPLICA_1), ConnectionFactories.get(REPLICA_2));
+
+    @BeforeEach
+    public void init() {
+        webTestClient = WebTestClient.bindToRouterFunction(accountManagerRouter.routes()).build();
+        var populator = new ResourceDatabasePopulator(new ClassPathResource("schema.sql"), new ClassPathResource("data.sql"));
+        replicas.forEach(replica -> {
+            populator.populate(replica).block();
+            DatabaseClient.create(replica).sql("UPDATE accounts SET balance = :balance")
+                    .bind("balance", REPLICA_BALANCE)
+                    .fetch().rowsUpdated()
+                    .block();
+        });
+    }
+
+    @Test
+    public void shouldServePortfoliosFromReplicas() {
+        // given
+
+        // when
+        var entries = webTestClient.get()
+                .uri(GET_PORTFOLIO_ENDPOINT, 1L)
+                .accept(APPLICATION_NDJSON)
+                .exchange()
+
+                // then
+                .expectStatus().isOk()
+                .expectBodyList(PortfolioEntry.class)
+                .returnResult()
+                .getResponseBody();
+
+        var account = entries.stream()
+                .filter(entry -> Long.valueOf(11L).equals(entry.accountId()))
+                .findFirst()
+                .orElseThrow();
+        assertEquals(0, new BigDecimal("0.01").compareTo(account.balance()));
+    }
+
+    @Test
+    public void shouldLoadCachedBalancesFromPrimary() {
+        // given
+
+        // when
+        var balance = balance(11L, false);
+
+        // then
+        var primaryBalance = accountRepository.findById(11L).block().balanceAmount();
+        assertEquals(0, primaryBalance.compareTo(balance));
+    }
+
+    @Test
+    public void shouldReadOwnWritesFromPrimary() {
+        // given
+        webTestClient.put()
+                .uri(DEPOSIT_ENDPOINT, 22L)
+                .contentType(APPLICATION_JSON)
+                .bodyValue(new OperationRequest(BigDecimal.TEN))
+                .exchange()
+                .expectStatus().isOk();
+
+        // when
+        var balance = balance(22L, true);
+
+        // then
+        var primaryBalance = accountRepository.findById(22L).block().balanceAmount();
+        assertEquals(0, primaryBalance.compareTo(balance));
+        replicas.forEach(replica -> assertEquals(REPLICA_BALANCE, DatabaseClient.create(replica)
+                .sql("SELECT balance FROM accounts WHERE account_id = 22")
+                .map(row -> row.get("balance", Long.class))
+                .one()
+                .block()));
+    }
+
+    private BigDecimal balance(long accountId, boolean readYourWrites) {
+        var request = webTestClient.get().uri(GET_BALANCE_ENDPOINT, accountId);
+        if (readYourWrites) {
+            request = request.header("Read-Your-Writes", "true");
+        }
+        return request.exchange()
+                .expectStatus().isOk()
+                .expectBody(AccountResponse.class)
+                .returnResult()
+                .getResponseBody()
+                .balance();
+    }
+
+}
@@ -0,0 +1,71 @@
+package com.bank.accountmanager.metrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.reactive.function.server.MockServerRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.reactive.function.server.HandlerFunction;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class RouteMetricsTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final RouteMetrics routeMetrics = new RouteMetrics(meterRegistry);
+    private final MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/account/1"));
+
+    @Test
+    public void shouldTimeRouteByOutcome() {
+        var handler = routeMetrics.timed("get_balance", request -> ServerResponse.notFound().build());
+
+        StepVerifier.create(handle(handler, Mono.empty()))
+                .verifyComplete();
+
+        assertEquals(1, timerCount("get_balance", "not_found"));
+        assertEquals(0, timerCount("get_balance", "ok"));
+    }
+
+    @Test
+    public void shouldTimeFailedRouteAsServerError() {
+        var handler = routeMetrics.timed("deposit", request -> Mono.error(new IllegalStateException()));
+
+        StepVerifier.create(handle(handler, Mono.empty()))
+                .verifyError(IllegalStateException.class);
+
+        assertEquals(1, timerCount("deposit", "server_error"));
+    }
+
+    @Test
+    public void shouldTimeStreamedRouteUntilBodyIsWritten() {
+        var handler = routeMetrics.timed("get_transactions", request -> ServerResponse.ok().build());
+
+        StepVerifier.create(handle(handler, Mono.never()))
+                .expectSubscription()
+                .then(() -> assertEquals(0, timerCount("get_transactions", "ok")))
+                .thenCancel()
+                .verify();
+
+        assertEquals(0, timerCount("get_transactions", "ok"));
+        assertEquals(1, timerCount("get_transactions", "cancelled"));
+    }
+
+    // the chain stands in for the router: the route is handled, then its body is written
+    private Mono<Void> handle(HandlerFunction<ServerResponse> handler, Mono<Void> body) {
+        return routeMetrics.filter(exchange, filtered -> handler
+                .handle(MockServerRequest.builder().exchange(filtered).build())
+                .flatMap(response -> {
+                    filtered.getResponse().setStatusCode(HttpStatus.valueOf(response.rawStatusCode()));
+                    return body;
+                }));
+    }
+
+    private long timerCount(String route, String outcome) {
+        return meterRegistry.get("accountmanager.route").tag("route", route).tag("outcome", outcome).timer().count();
+    }
+
+}
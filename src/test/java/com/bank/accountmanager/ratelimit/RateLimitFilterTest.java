@@ -0,0 +1,110 @@
+package com.bank.accountmanager.ratelimit;
+
+import com.bank.accountmanager.configuration.RateLimitProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class RateLimitFilterTest {
+    private static final RateLimitProperties PROPERTIES =
+            new RateLimitProperties(true, "X-Api-Key", Set.of("batch", "teller"), 0.001, 2, 0.001, 1, 100, Duration.ofMinutes(10));
+
+    private SimpleMeterRegistry meterRegistry;
+    private RateLimitFilter rateLimitFilter;
+    private AtomicInteger passed;
+    private WebFilterChain chain;
+
+    @BeforeEach
+    public void init() {
+        meterRegistry = new SimpleMeterRegistry();
+        rateLimitFilter = new RateLimitFilter(PROPERTIES, meterRegistry);
+        passed = new AtomicInteger();
+        chain = exchange -> Mono.fromRunnable(passed::incrementAndGet);
+    }
+
+    @Test
+    public void shouldRejectWritesOverBudget() {
+        var admitted = filter(MockServerHttpRequest.put("/account/1/deposit").header("X-Api-Key", "batch"));
+        var rejected = filter(MockServerHttpRequest.put("/account/1/deposit").header("X-Api-Key", "batch"));
+
+        assertNull(admitted.getResponse().getStatusCode());
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, rejected.getResponse().getStatusCode());
+        assertEquals("1000", rejected.getResponse().getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        assertEquals(1, passed.get());
+        assertEquals(1.0, meterRegistry.get("accountmanager.ratelimit.rejected").tag("budget", "write").counter().count());
+    }
+
+    @Test
+    public void shouldKeepReadBudgetApartFromWrites() {
+        filter(MockServerHttpRequest.put("/account/1/deposit").header("X-Api-Key", "batch"));
+        filter(MockServerHttpRequest.put("/account/1/withdraw").header("X-Api-Key", "batch"));
+        filter(MockServerHttpRequest.get("/account/1").header("X-Api-Key", "batch"));
+        filter(MockServerHttpRequest.post("/accounts/balances").header("X-Api-Key", "batch"));
+        var rejected = filter(MockServerHttpRequest.get("/account/1").header("X-Api-Key", "batch"));
+
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, rejected.getResponse().getStatusCode());
+        assertEquals(3, passed.get());
+    }
+
+    @Test
+    public void shouldKeepClientsApart() {
+        filter(MockServerHttpRequest.put("/account/1/deposit").header("X-Api-Key", "batch"));
+        var other = filter(MockServerHttpRequest.put("/account/1/deposit").header("X-Api-Key", "teller"));
+
+        assertNull(other.getResponse().getStatusCode());
+        assertEquals(2, passed.get());
+    }
+
+    @Test
+    public void shouldLimitUnknownKeysByAddress() {
+        var address = new InetSocketAddress("10.0.0.1", 4000);
+        filter(MockServerHttpRequest.put("/account/1/deposit").header("X-Api-Key", "made-up-1").remoteAddress(address));
+        var rejected = filter(MockServerHttpRequest.put("/account/1/deposit").header("X-Api-Key", "made-up-2")
+                .remoteAddress(address));
+
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, rejected.getResponse().getStatusCode());
+        assertEquals(1, passed.get());
+    }
+
+    @Test
+    public void shouldNotLimitActuator() {
+        for (int i = 0; i < 5; i++) {
+            filter(MockServerHttpRequest.get("/actuator/health"));
+        }
+
+        assertEquals(5, passed.get());
+    }
+
+    @Test
+    public void shouldListRejectionsPerClient() {
+        filter(MockServerHttpRequest.put("/account/1/deposit").header("X-Api-Key", "batch"));
+        filter(MockServerHttpRequest.put("/account/1/deposit").header("X-Api-Key", "batch"));
+        filter(MockServerHttpRequest.put("/account/1/deposit").header("X-Api-Key", "teller"));
+
+        var rejections = new RateLimitEndpoint(rateLimitFilter).rejections();
+
+        assertEquals(1, rejections.size());
+        assertEquals(new RateLimitEndpoint.Rejections(0, 1), rejections.get("batch"));
+    }
+
+    private MockServerWebExchange filter(MockServerHttpRequest.BaseBuilder<?> request) {
+        var exchange = MockServerWebExchange.from(request);
+        rateLimitFilter.filter(exchange, chain).block();
+        return exchange;
+    }
+
+}
@@ -0,0 +1,30 @@
+package com.bank.accountmanager.repository.model;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.Instant;
+
+import static com.bank.accountmanager.repository.model.Currency.EUR;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AccountTest {
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    @Test
+    public void shouldSerializeMinorUnitBalanceAsDecimal() throws JsonProcessingException {
+        var account = new Account(EUR, 2L, Instant.parse("2020-11-15T13:05:00Z"));
+        account.setId(22L);
+        account.setBalance(2550);
+
+        var json = objectMapper.writeValueAsString(account);
+
+        assertTrue(json.contains("\"balance\":25.50"), json);
+        assertEquals(5, objectMapper.readTree(json).size());
+    }
+
+}
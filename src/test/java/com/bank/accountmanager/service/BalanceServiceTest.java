@@ -12,6 +12,7 @@ import java.math.BigDecimal;
 import java.time.Instant;
 
 import static com.bank.accountmanager.repository.model.Currency.EUR;
+import static com.bank.accountmanager.service.BalanceService.Operation.DEPOSIT;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
 public class BalanceServiceTest {
@@ -22,20 +23,16 @@ public class BalanceServiceTest {
     public void shouldAddAmountToBalance() {
         var account = new Account(EUR, 123L, Instant.now());
 
-        var ten = BigDecimal.TEN;
+        Mono<Account> accountMono = balanceService.addAmountToBalance(account, 1000);
 
-        Mono<Account> accountMono = balanceService.addAmountToBalance(account, ten);
-
-        accountMono.subscribe(acc -> assertEquals(10, acc.getBalance().intValue()));
+        accountMono.subscribe(acc -> assertEquals(1000, acc.getBalance()));
     }
 
     @Test
     public void shouldReturnErrorWhenAmountIsInvalid() {
         var account = new Account(EUR, 123L, Instant.now());
 
-        var zero = BigDecimal.ZERO;
-
-        Mono<Account> accountMono = balanceService.addAmountToBalance(account, zero);
+        Mono<Account> accountMono = balanceService.addAmountToBalance(account, 0);
 
         StepVerifier.create(accountMono)
                 .expectErrorMatches(t -> t instanceof InvalidAmountException
@@ -46,30 +43,26 @@ public class BalanceServiceTest {
     @Test
     public void shouldSubtractAmountFromBalance() {
         var account = new Account(EUR, 123L, Instant.now());
-        account.setBalance(BigDecimal.valueOf(21));
-
-        var ten = BigDecimal.TEN;
+        account.setBalance(2100);
 
-        Mono<Account> accountMono = balanceService.subtractAmountFromBalance(account, ten);
+        Mono<Account> accountMono = balanceService.subtractAmountFromBalance(account, 1000);
 
-        accountMono.subscribe(acc -> assertEquals(11, acc.getBalance().intValue()));
+        accountMono.subscribe(acc -> assertEquals(1100, acc.getBalance()));
     }
 
     @Test
     public void shouldReturnErrorWhenAmountIsInvalidForSubtract() {
         var account = new Account(EUR, 123L, Instant.now());
-        account.setBalance(BigDecimal.TEN);
+        account.setBalance(1000);
 
-        var eleven = BigDecimal.valueOf(11);
-
-        Mono<Account> accountMono = balanceService.subtractAmountFromBalance(account, eleven);
+        Mono<Account> accountMono = balanceService.subtractAmountFromBalance(account, 1100);
 
         StepVerifier.create(accountMono)
                 .expectErrorMatches(t -> t instanceof InvalidAmountException
                         && t.getMessage().equals("Insufficient funds, cannot withdraw 11, balance 10"))
                 .verify();
 
-        Mono<Account> otherAccountMono = balanceService.subtractAmountFromBalance(account, BigDecimal.ZERO);
+        Mono<Account> otherAccountMono = balanceService.subtractAmountFromBalance(account, 0);
 
         StepVerifier.create(otherAccountMono)
                 .expectErrorMatches(t -> t instanceof InvalidAmountException
@@ -80,45 +73,39 @@ public class BalanceServiceTest {
     @Test
     public void shouldModifyBalances() {
         var account = new Account(EUR, 1L, Instant.now());
-        account.setBalance(BigDecimal.TEN);
+        account.setBalance(1000);
 
         var account2 = new Account(EUR, 2L, Instant.now());
 
-        BigDecimal five = BigDecimal.valueOf(4);
-
         Tuple2<Account, Account> accountTuple = Tuples.of(account, account2);
 
-        Mono<Tuple2<Account, Account>> tupleMono = balanceService.modifyBalances(accountTuple, five);
+        Mono<Tuple2<Account, Account>> tupleMono = balanceService.modifyBalances(accountTuple, 400);
 
         tupleMono.subscribe(accounts -> {
-            assertEquals(6, accounts.getT1().getBalance().intValue());
-            assertEquals(4, accounts.getT2().getBalance().intValue());
+            assertEquals(600, accounts.getT1().getBalance());
+            assertEquals(400, accounts.getT2().getBalance());
         });
     }
 
     @Test
     public void shouldReturnErrorWhenTransferAmountIsZeroOrNegative() {
         var account = new Account(EUR, 1L, Instant.now());
-        account.setBalance(BigDecimal.TEN);
+        account.setBalance(1000);
 
         var account2 = new Account(EUR, 2L, Instant.now());
 
-        BigDecimal zero = BigDecimal.ZERO;
-
         Tuple2<Account, Account> accountTuple = Tuples.of(account, account2);
 
-        Mono<Tuple2<Account, Account>> tupleMono = balanceService.modifyBalances(accountTuple, zero);
+        Mono<Tuple2<Account, Account>> tupleMono = balanceService.modifyBalances(accountTuple, 0);
 
         StepVerifier.create(tupleMono)
                 .expectErrorMatches(t -> t instanceof InvalidAmountException
                         && t.getMessage().equals("Transfer amount must be greater than 0"))
                 .verify();
 
-        BigDecimal minusOne = BigDecimal.valueOf(-1);
-
         Tuple2<Account, Account> otherAccountTuple = Tuples.of(account, account2);
 
-        Mono<Tuple2<Account, Account>> otherTupleMono = balanceService.modifyBalances(otherAccountTuple, minusOne);
+        Mono<Tuple2<Account, Account>> otherTupleMono = balanceService.modifyBalances(otherAccountTuple, -100);
 
         StepVerifier.create(otherTupleMono)
                 .expectErrorMatches(t -> t instanceof InvalidAmountException
@@ -129,19 +116,48 @@ public class BalanceServiceTest {
     @Test
     public void shouldReturnErrorWhenInsufficientFunds() {
         var account = new Account(EUR, 1L, Instant.now());
-        account.setBalance(BigDecimal.TEN);
+        account.setBalance(1000);
 
         var account2 = new Account(EUR, 2L, Instant.now());
 
-        BigDecimal zero = BigDecimal.valueOf(15);
-
         Tuple2<Account, Account> accountTuple = Tuples.of(account, account2);
 
-        Mono<Tuple2<Account, Account>> tupleMono = balanceService.modifyBalances(accountTuple, zero);
+        Mono<Tuple2<Account, Account>> tupleMono = balanceService.modifyBalances(accountTuple, 1550);
 
         StepVerifier.create(tupleMono)
                 .expectErrorMatches(t -> t instanceof InvalidAmountException
-                        && t.getMessage().equals("Insufficient funds, cannot transfer 15, balance 10"))
+                        && t.getMessage().equals("Insufficient funds, cannot transfer 15.5, balance 10"))
+                .verify();
+    }
+
+    @Test
+    public void shouldReturnErrorWhenBalanceWouldOverflow() {
+        var account = new Account(EUR, 1L, Instant.now());
+        account.setId(1L);
+        account.setBalance(Long.MAX_VALUE - 1);
+
+        StepVerifier.create(balanceService.addAmountToBalance(account, 2))
+                .expectErrorMatches(t -> t instanceof InvalidAmountException
+                        && t.getMessage().equals("Cannot deposit 0.02, balance of account 1 would exceed the maximum"))
+                .verify();
+        assertEquals(Long.MAX_VALUE - 1, account.getBalance());
+    }
+
+    @Test
+    public void shouldConvertAmountToMinorUnits() {
+        StepVerifier.create(balanceService.checkAmount(DEPOSIT, EUR, new BigDecimal("25.5")))
+                .expectNext(2550L)
+                .verifyComplete();
+    }
+
+    @Test
+    public void shouldReturnErrorWhenAmountHasMoreDecimalsThanCurrency() {
+        StepVerifier.create(balanceService.checkAmount(DEPOSIT, EUR, new BigDecimal("0.001")))
+                .expectErrorMatches(t -> t instanceof InvalidAmountException
+                        && t.getMessage().equals("Deposit amount 0.001 is not a valid EUR amount"))
+                .verify();
+        StepVerifier.create(balanceService.checkAmount(DEPOSIT, EUR, new BigDecimal("1e20")))
+                .expectError(InvalidAmountException.class)
                 .verify();
     }
 
@@ -0,0 +1,154 @@
+package com.bank.accountmanager.service;
+
+import com.bank.accountmanager.configuration.FxProperties;
+import com.bank.accountmanager.configuration.TransferBatchProperties;
+import com.bank.accountmanager.fx.FxRates;
+import com.bank.accountmanager.handler.request.TransferRequest;
+import com.bank.accountmanager.handler.response.TransferResult;
+import com.bank.accountmanager.repository.AccountRepository;
+import com.bank.accountmanager.repository.LedgerRepository;
+import com.bank.accountmanager.repository.model.Account;
+import com.bank.accountmanager.repository.model.Currency;
+import com.bank.accountmanager.repository.model.LedgerEntry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.ReactiveTransaction;
+import org.springframework.transaction.ReactiveTransactionManager;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static com.bank.accountmanager.handler.response.TransferResult.Status.*;
+import static com.bank.accountmanager.repository.model.Currency.EUR;
+import static com.bank.accountmanager.repository.model.Currency.USD;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class BatchTransferServiceTest {
+
+    @Mock
+    private AccountRepository accountRepository;
+
+    @Mock
+    private LedgerRepository ledgerRepository;
+
+    @Mock
+    private ReactiveTransactionManager transactionManager;
+
+    private FxRates fxRates;
+
+    private BatchTransferService batchTransferService;
+
+    private Account account1;
+    private Account account2;
+
+    @BeforeEach
+    public void init() {
+        account1 = account(1L, 1000);
+        account2 = account(2L, 0);
+
+        lenient().when(transactionManager.getReactiveTransaction(any())).thenReturn(Mono.just(mock(ReactiveTransaction.class)));
+        lenient().when(transactionManager.commit(any())).thenReturn(Mono.empty());
+        lenient().when(transactionManager.rollback(any())).thenReturn(Mono.empty());
+        lenient().when(accountRepository.findAllByIdForUpdate(anyCollection())).thenReturn(Flux.just(account1, account2));
+
+        fxRates = new FxRates(new FxProperties(Map.of(EUR, BigDecimal.ONE, USD, new BigDecimal("0.8")), "", Duration.ofSeconds(5), "", false));
+        batchTransferService = new BatchTransferService(accountRepository, ledgerRepository, new BalanceService(), fxRates,
+                transactionManager, new TransferBatchProperties(10));
+    }
+
+    @Test
+    public void shouldKeepSuccessfulTransfersOfChunkWithFailure() {
+        when(accountRepository.saveAll(anyIterable())).thenReturn(Flux.just(account1, account2));
+        when(ledgerRepository.saveAll(anyIterable())).thenAnswer(invocation -> Flux.fromIterable(invocation.getArgument(0)));
+
+        var transfers = Flux.just(new TransferRequest(1L, 2L, BigDecimal.valueOf(4)),
+                new TransferRequest(2L, 1L, BigDecimal.valueOf(100)),
+                new TransferRequest(1L, 3L, BigDecimal.ONE));
+
+        StepVerifier.create(batchTransferService.transferAll(transfers, false).map(TransferResult::status))
+                .expectNext(COMPLETED, FAILED, FAILED)
+                .verifyComplete();
+
+        assertEquals(600, account1.getBalance());
+        assertEquals(400, account2.getBalance());
+        verify(ledgerRepository).saveAll(argThat((Iterable<LedgerEntry> entries) -> entries.spliterator().getExactSizeIfKnown() == 2));
+        verify(transactionManager).commit(any());
+    }
+
+    @Test
+    public void shouldRollBackWholeChunkInAllOrNothingMode() {
+        var transfers = Flux.just(new TransferRequest(1L, 2L, BigDecimal.valueOf(4)),
+                new TransferRequest(2L, 1L, BigDecimal.valueOf(100)));
+
+        StepVerifier.create(batchTransferService.transferAll(transfers, true).collectList())
+                .assertNext(results -> assertEquals(List.of(ROLLED_BACK, FAILED), results.stream().map(TransferResult::status).collect(Collectors.toList())))
+                .verifyComplete();
+
+        verify(accountRepository, never()).saveAll(anyIterable());
+        verify(ledgerRepository, never()).saveAll(anyIterable());
+        verify(transactionManager).rollback(any());
+    }
+
+    @Test
+    public void shouldNotQueryAccountsForChunkWithoutCompleteTransfer() {
+        var transfers = Flux.just(new TransferRequest(null, 2L, BigDecimal.ONE), new TransferRequest(1L, null, BigDecimal.ONE));
+
+        StepVerifier.create(batchTransferService.transferAll(transfers, true).map(TransferResult::status))
+                .expectNext(FAILED, FAILED)
+                .verifyComplete();
+
+        verify(accountRepository, never()).findAllByIdForUpdate(anyCollection());
+        verify(transactionManager, never()).getReactiveTransaction(any());
+    }
+
+    @Test
+    public void shouldCreditConvertedAmountAndRecordRateVersion() {
+        var usdAccount = account(3L, USD, 0);
+        var entries = new ArrayList<LedgerEntry>();
+        when(accountRepository.findAllByIdForUpdate(anyCollection())).thenReturn(Flux.just(account1, usdAccount));
+        when(accountRepository.saveAll(anyIterable())).thenReturn(Flux.just(account1, usdAccount));
+        when(ledgerRepository.saveAll(anyIterable())).thenAnswer(invocation -> {
+            Iterable<LedgerEntry> saved = invocation.getArgument(0);
+            saved.forEach(entries::add);
+            return Flux.fromIterable(saved);
+        });
+
+        StepVerifier.create(batchTransferService.transferAll(Flux.just(new TransferRequest(1L, 3L, BigDecimal.valueOf(4))), false)
+                        .map(TransferResult::status))
+                .expectNext(COMPLETED)
+                .verifyComplete();
+
+        assertEquals(600, account1.getBalance());
+        assertEquals(500, usdAccount.getBalance());
+        assertEquals(List.of(-400L, 500L), entries.stream().map(LedgerEntry::getAmount).collect(Collectors.toList()));
+        entries.forEach(entry -> assertEquals(fxRates.snapshot().version(), entry.getFxVersion()));
+    }
+
+    private Account account(long id, long balance) {
+        return account(id, EUR, balance);
+    }
+
+    private Account account(long id, Currency currency, long balance) {
+        var account = new Account(currency, 1L, Instant.now());
+        account.setId(id);
+        account.setBalance(balance);
+        return account;
+    }
+
+}
@@ -0,0 +1,174 @@
+package com.bank.accountmanager.service;
+
+import com.bank.accountmanager.cache.CustomerNameFilter;
+import com.bank.accountmanager.configuration.BulkImportProperties;
+import com.bank.accountmanager.handler.request.ImportRequest;
+import com.bank.accountmanager.handler.request.ImportRequest.AccountRow;
+import com.bank.accountmanager.handler.response.ImportResult;
+import com.bank.accountmanager.repository.AccountRepository;
+import com.bank.accountmanager.repository.CustomerRepository;
+import com.bank.accountmanager.repository.model.Account;
+import com.bank.accountmanager.repository.model.Customer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.transaction.ReactiveTransaction;
+import org.springframework.transaction.ReactiveTransactionManager;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.bank.accountmanager.handler.response.ImportResult.Status.CREATED;
+import static com.bank.accountmanager.handler.response.ImportResult.Status.FAILED;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class BulkImportServiceTest {
+
+    @Mock
+    private CustomerRepository customerRepository;
+
+    @Mock
+    private AccountRepository accountRepository;
+
+    @Mock
+    private CustomerNameFilter nameFilter;
+
+    @Mock
+    private ReactiveTransactionManager transactionManager;
+
+    private BulkImportService bulkImportService;
+
+    @BeforeEach
+    public void init() {
+        when(transactionManager.getReactiveTransaction(any())).thenReturn(Mono.just(mock(ReactiveTransaction.class)));
+        lenient().when(transactionManager.commit(any())).thenReturn(Mono.empty());
+        lenient().when(transactionManager.rollback(any())).thenReturn(Mono.empty());
+
+        var customerIds = new AtomicLong(100);
+        lenient().when(customerRepository.insertAllIfAbsent(anyList())).thenAnswer(invocation -> {
+            List<Customer> customers = invocation.getArgument(0);
+            return Flux.fromIterable(customers)
+                    .filter(customer -> !customer.getLastName().equals("Existing"))
+                    .doOnNext(customer -> customer.setId(customerIds.incrementAndGet()));
+        });
+        var accountIds = new AtomicLong(1000);
+        lenient().when(accountRepository.insertAll(anyList())).thenAnswer(invocation -> {
+            List<Account> accounts = invocation.getArgument(0);
+            return Flux.fromIterable(accounts).doOnNext(account -> account.setId(accountIds.incrementAndGet()));
+        });
+
+        bulkImportService = new BulkImportService(customerRepository, accountRepository, nameFilter, transactionManager,
+                new BulkImportProperties(3));
+    }
+
+    @Test
+    public void shouldImportValidRowsAndReportInvalidOnes() {
+        var existing = new Customer("first", "last");
+        existing.setId(1L);
+        when(customerRepository.findAllById(anyIterable())).thenReturn(Flux.just(existing));
+
+        var rows = Flux.just(newCustomer("Fancy", "Customer", eur("10.00"), eur("5")),
+                new ImportRequest(1L, null, null, List.of(eur("1.5"))),
+                new ImportRequest(7L, null, null, List.of(eur("1"))),
+                newCustomer("Other", "Existing"),
+                newCustomer("Bad", "Currency", new AccountRow("XYZ", BigDecimal.ONE)),
+                newCustomer("Too", "Precise", eur("0.001")),
+                new ImportRequest(null, "OnlyFirst", null, List.of()));
+
+        StepVerifier.create(bulkImportService.importAll(rows))
+                .expectNext(ImportResult.created(1, 101, List.of(1001L, 1002L)))
+                .expectNext(ImportResult.created(2, 1, List.of(1003L)))
+                .assertNext(result -> assertFailed(result, 3, "Customer 7 not found"))
+                .assertNext(result -> assertFailed(result, 4, "Customer Other Existing already exists"))
+                .assertNext(result -> assertFailed(result, 5, "Unsupported currency XYZ"))
+                .assertNext(result -> assertFailed(result, 6, "Initial deposit is not a valid amount of the account currency"))
+                .assertNext(result -> assertFailed(result, 7, "Row requires either customerId or firstName and lastName"))
+                .verifyComplete();
+
+        verify(nameFilter).put("Fancy", "Customer");
+        verify(customerRepository, times(3)).insertAllIfAbsent(anyList());
+    }
+
+    @Test
+    public void shouldRejectNameRepeatedWithinChunk() {
+        var rows = Flux.just(newCustomer("Fancy", "Customer"), newCustomer("Fancy", "Customer"));
+
+        StepVerifier.create(bulkImportService.importAll(rows).map(ImportResult::status))
+                .expectNext(CREATED, FAILED)
+                .verifyComplete();
+
+        verify(customerRepository).insertAllIfAbsent(argThat(customers -> customers.size() == 1));
+        verify(customerRepository, never()).findAllById(anyIterable());
+    }
+
+    @Test
+    public void shouldStoreInitialDepositInMinorUnits() {
+        StepVerifier.create(bulkImportService.importAll(Flux.just(newCustomer("Fancy", "Customer", eur("12.34")))))
+                .expectNextCount(1)
+                .verifyComplete();
+
+        verify(accountRepository).insertAll(argThat(accounts -> accounts.size() == 1
+                && accounts.get(0).getBalance() == 1234 && accounts.get(0).getCustomerId() == 101));
+    }
+
+    @Test
+    public void shouldReportMalformedCsvLinesAndGoOn() {
+        var lines = Flux.just(",Fancy,Customer,EUR,10", "not,a,row", "x,,,,", ",Other,Customer,EUR,1");
+
+        StepVerifier.create(bulkImportService.importCsv(lines))
+                .expectNext(ImportResult.created(1, 101, List.of(1001L)))
+                .assertNext(result -> assertFailed(result, 2, "Malformed row: Expected 5 fields but got 3 in line 'not,a,row'"))
+                .assertNext(result -> assertEquals(FAILED, result.status()))
+                .expectNext(ImportResult.created(4, 102, List.of(1002L)))
+                .verifyComplete();
+    }
+
+    @Test
+    public void shouldFailOnlyRowsOfChunkThatCouldNotBeWritten() {
+        doReturn(Flux.error(new DataAccessResourceFailureException("connection lost")))
+                .doAnswer(invocation -> Flux.fromIterable(invocation.<List<Account>>getArgument(0))
+                        .doOnNext(account -> account.setId(2000L)))
+                .when(accountRepository).insertAll(anyList());
+        var rows = Flux.just(newCustomer("A", "Customer", eur("1")), newCustomer("B", "Customer", eur("1")),
+                newCustomer("C", "Customer", eur("1")), newCustomer("D", "Customer", eur("1")));
+
+        StepVerifier.create(bulkImportService.importAll(rows).map(ImportResult::status))
+                .expectNext(FAILED, FAILED, FAILED, CREATED)
+                .verifyComplete();
+    }
+
+    @Test
+    public void shouldParseCsvLine() {
+        var request = ImportRequest.fromCsv(" ,Fancy,Customer,EUR,10.50");
+
+        assertEquals(new ImportRequest(null, "Fancy", "Customer", List.of(eur("10.50"))), request);
+        assertEquals(List.of(), ImportRequest.fromCsv("3,,,,").accountRows());
+    }
+
+    private static void assertFailed(ImportResult result, long row, String message) {
+        assertEquals(row, result.row());
+        assertEquals(FAILED, result.status());
+        assertEquals(message, result.message());
+    }
+
+    private static ImportRequest newCustomer(String firstName, String lastName, AccountRow... accounts) {
+        return new ImportRequest(null, firstName, lastName, List.of(accounts));
+    }
+
+    private static AccountRow eur(String amount) {
+        return new AccountRow("EUR", new BigDecimal(amount));
+    }
+
+}
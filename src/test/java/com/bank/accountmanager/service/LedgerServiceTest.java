@@ -0,0 +1,75 @@
+package com.bank.accountmanager.service;
+
+import com.bank.accountmanager.configuration.LedgerProperties;
+import com.bank.accountmanager.repository.LedgerRepository;
+import com.bank.accountmanager.repository.model.LedgerEntry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.time.Instant;
+
+import static com.bank.accountmanager.repository.model.LedgerEntry.EntryType.DEPOSIT;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class LedgerServiceTest {
+    private static final Instant CREATED_AT = Instant.parse("2020-12-01T10:00:00Z");
+
+    @Mock
+    private LedgerRepository ledgerRepository;
+
+    private LedgerService ledgerService;
+
+    @BeforeEach
+    public void init() {
+        ledgerService = new LedgerService(ledgerRepository, new LedgerProperties(2));
+    }
+
+    @Test
+    public void shouldContinueAfterLastEntryOfFullPage() {
+        when(ledgerRepository.findPage(1L, Instant.EPOCH, 0L, 2)).thenReturn(Flux.just(entry(1L), entry(2L)));
+        when(ledgerRepository.findPage(1L, CREATED_AT, 2L, 2)).thenReturn(Flux.just(entry(3L)));
+
+        StepVerifier.create(ledgerService.statement(1L, Instant.EPOCH, 0L, Long.MAX_VALUE).map(LedgerEntry::getId))
+                .expectNext(1L, 2L, 3L)
+                .verifyComplete();
+    }
+
+    @Test
+    public void shouldNotQueryPagesBeyondLimit() {
+        when(ledgerRepository.findPage(1L, Instant.EPOCH, 0L, 2)).thenReturn(Flux.just(entry(1L), entry(2L)));
+
+        StepVerifier.create(ledgerService.statement(1L, Instant.EPOCH, 0L, 2).map(LedgerEntry::getId))
+                .expectNext(1L, 2L)
+                .verifyComplete();
+
+        verify(ledgerRepository, never()).findPage(eq(1L), eq(CREATED_AT), anyLong(), anyInt());
+    }
+
+    @Test
+    public void shouldQueryNoMoreEntriesThanLeftOfLimit() {
+        when(ledgerRepository.findPage(1L, Instant.EPOCH, 0L, 2)).thenReturn(Flux.just(entry(1L), entry(2L)));
+        when(ledgerRepository.findPage(1L, CREATED_AT, 2L, 1)).thenReturn(Flux.just(entry(3L)));
+
+        StepVerifier.create(ledgerService.statement(1L, Instant.EPOCH, 0L, 3).map(LedgerEntry::getId))
+                .expectNext(1L, 2L, 3L)
+                .verifyComplete();
+    }
+
+    private LedgerEntry entry(long id) {
+        var entry = new LedgerEntry(1L, DEPOSIT, 100, id * 100, null, CREATED_AT);
+        entry.setId(id);
+        return entry;
+    }
+
+}
@@ -0,0 +1,73 @@
+package com.bank.accountmanager.service;
+
+import com.bank.accountmanager.handler.response.PortfolioEntry;
+import com.bank.accountmanager.repository.model.Account;
+import com.bank.accountmanager.repository.model.Currency;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+import static com.bank.accountmanager.repository.model.Currency.EUR;
+import static com.bank.accountmanager.repository.model.Currency.USD;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class PortfolioServiceTest {
+    private static final long CUSTOMER_ID = 1L;
+
+    @Mock
+    private AccountOperations accountOperations;
+
+    @InjectMocks
+    private PortfolioService portfolioService;
+
+    @Test
+    public void shouldFollowEveryCurrencyWithItsTotal() {
+        var eur1 = account(1L, EUR, 1050);
+        var eur2 = account(2L, EUR, 25);
+        var usd = account(3L, USD, 700);
+        when(accountOperations.findCustomerAccounts(CUSTOMER_ID)).thenReturn(Flux.just(eur1, eur2, usd));
+
+        StepVerifier.create(portfolioService.portfolio(CUSTOMER_ID))
+                .expectNext(PortfolioEntry.account(eur1), PortfolioEntry.account(eur2))
+                .expectNext(new PortfolioEntry(null, "EUR", null, new BigDecimal("10.75"), 2))
+                .expectNext(PortfolioEntry.account(usd))
+                .expectNext(new PortfolioEntry(null, "USD", null, new BigDecimal("7.00"), 1))
+                .verifyComplete();
+    }
+
+    @Test
+    public void shouldTotalBalancesBeyondLongRange() {
+        var eur1 = account(1L, EUR, Long.MAX_VALUE);
+        var eur2 = account(2L, EUR, Long.MAX_VALUE);
+        when(accountOperations.findCustomerAccounts(CUSTOMER_ID)).thenReturn(Flux.just(eur1, eur2));
+
+        StepVerifier.create(portfolioService.portfolio(CUSTOMER_ID))
+                .expectNext(PortfolioEntry.account(eur1), PortfolioEntry.account(eur2))
+                .expectNext(new PortfolioEntry(null, "EUR", null, new BigDecimal("184467440737095516.14"), 2))
+                .verifyComplete();
+    }
+
+    @Test
+    public void shouldEmitNothingForCustomerWithoutAccounts() {
+        when(accountOperations.findCustomerAccounts(CUSTOMER_ID)).thenReturn(Flux.empty());
+
+        StepVerifier.create(portfolioService.portfolio(CUSTOMER_ID))
+                .verifyComplete();
+    }
+
+    private static Account account(long id, Currency currency, long balance) {
+        var account = new Account(currency, CUSTOMER_ID, Instant.parse("2020-11-15T13:00:00Z"));
+        account.setId(id);
+        account.setBalance(balance);
+        return account;
+    }
+
+}
@@ -0,0 +1,213 @@
+package com.bank.accountmanager.service;
+
+import com.bank.accountmanager.cache.AccountCurrencyCache;
+import com.bank.accountmanager.coalescing.BalanceCoalescer;
+import com.bank.accountmanager.coalescing.GroupCommitter;
+import com.bank.accountmanager.configuration.FxProperties;
+import com.bank.accountmanager.fx.FxRates;
+import com.bank.accountmanager.handler.exception.InvalidAmountException;
+import com.bank.accountmanager.repository.AccountRepository;
+import com.bank.accountmanager.repository.model.Account;
+import com.bank.accountmanager.repository.model.Currency;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+
+import static com.bank.accountmanager.repository.model.Currency.EUR;
+import static com.bank.accountmanager.repository.model.Currency.GBP;
+import static com.bank.accountmanager.repository.model.Currency.USD;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class RepositoryAccountOperationsTest {
+
+    @Mock
+    private AccountRepository accountRepository;
+
+    @Spy
+    private BalanceService balanceService;
+
+    @Mock
+    private AccountCurrencyCache currencyCache;
+
+    @Mock
+    private BalanceCoalescer coalescer;
+
+    @Mock
+    private GroupCommitter groupCommitter;
+
+    @Spy
+    private FxRates fxRates = new FxRates(new FxProperties(Map.of(EUR, BigDecimal.ONE, USD, new BigDecimal("0.8")), "",
+            Duration.ofSeconds(5), "", false));
+
+    @InjectMocks
+    private RepositoryAccountOperations accountOperations;
+
+    @BeforeEach
+    public void init() {
+        lenient().when(currencyCache.get(anyLong())).thenReturn(Mono.just(EUR));
+    }
+
+    @Test
+    public void shouldDeposit() {
+        var usdAccount = account(12L, USD, 1100);
+
+        when(accountRepository.addToBalance(12L, 100)).thenReturn(Mono.just(usdAccount));
+
+        StepVerifier.create(accountOperations.deposit(12L, BigDecimal.ONE))
+                .assertNext(account -> assertEquals(1100, account.getBalance()))
+                .verifyComplete();
+
+        verify(accountRepository, never()).findById(anyLong());
+    }
+
+    @Test
+    public void shouldDepositThroughCoalescerWhenEnabled() {
+        var account = account(12L, EUR, 1100);
+
+        when(coalescer.enabled()).thenReturn(true);
+        when(coalescer.deposit(12L, BigDecimal.ONE)).thenReturn(Mono.just(account));
+
+        StepVerifier.create(accountOperations.deposit(12L, BigDecimal.ONE))
+                .expectNext(account)
+                .verifyComplete();
+
+        verify(accountRepository, never()).addToBalance(anyLong(), anyLong());
+    }
+
+    @Test
+    public void shouldWithdrawThroughGroupCommitWhenEnabled() {
+        var account = account(12L, EUR, 900);
+
+        when(groupCommitter.enabled()).thenReturn(true);
+        when(groupCommitter.withdraw(12L, BigDecimal.ONE)).thenReturn(Mono.just(account));
+
+        StepVerifier.create(accountOperations.withdraw(12L, BigDecimal.ONE))
+                .expectNext(account)
+                .verifyComplete();
+
+        verify(accountRepository, never()).subtractFromBalance(anyLong(), anyLong());
+    }
+
+    @Test
+    public void shouldRejectInvalidDepositWithoutDatabaseAccess() {
+        StepVerifier.create(accountOperations.deposit(12L, BigDecimal.ZERO))
+                .expectErrorMessage("Deposit amount must be greater than 0")
+                .verify();
+
+        verify(accountRepository, never()).addToBalance(anyLong(), anyLong());
+    }
+
+    @Test
+    public void shouldWithdraw() {
+        var usdAccount = account(12L, USD, 900);
+
+        when(accountRepository.subtractFromBalance(12L, 100)).thenReturn(Mono.just(usdAccount));
+
+        StepVerifier.create(accountOperations.withdraw(12L, BigDecimal.ONE))
+                .assertNext(account -> assertEquals(900, account.getBalance()))
+                .verifyComplete();
+    }
+
+    @Test
+    public void shouldReportInsufficientFundsForRejectedWithdraw() {
+        when(accountRepository.subtractFromBalance(12L, 1000)).thenReturn(Mono.empty());
+        when(accountRepository.findById(12L)).thenReturn(Mono.just(account(12L, USD, 100)));
+
+        StepVerifier.create(accountOperations.withdraw(12L, BigDecimal.TEN))
+                .expectErrorMatches(t -> t instanceof InvalidAmountException
+                        && t.getMessage().equals("Insufficient funds, cannot withdraw 10, balance 1"))
+                .verify();
+    }
+
+    @Test
+    public void shouldReturnEmptyForMissingAccount() {
+        when(accountRepository.subtractFromBalance(12L, 100)).thenReturn(Mono.empty());
+        when(accountRepository.findById(12L)).thenReturn(Mono.empty());
+
+        StepVerifier.create(accountOperations.withdraw(12L, BigDecimal.ONE))
+                .verifyComplete();
+    }
+
+    @Test
+    public void shouldTransfer() {
+        var account1 = account(12L, EUR, 900);
+        var account2 = account(13L, EUR, 100);
+
+        when(accountRepository.transferBalance(12L, 13L, 100, 100, fxRates.snapshot().version())).thenReturn(Flux.just(account2, account1));
+
+        StepVerifier.create(accountOperations.transfer(12L, 13L, BigDecimal.ONE))
+                .assertNext(accounts -> {
+                    assertEquals(12L, accounts.getT1().getId());
+                    assertEquals(13L, accounts.getT2().getId());
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    public void shouldCreditConvertedAmountForCrossCurrencyTransfer() {
+        var account1 = account(12L, EUR, 900);
+        var account2 = account(13L, USD, 125);
+
+        when(currencyCache.get(13L)).thenReturn(Mono.just(USD));
+        when(accountRepository.transferBalance(12L, 13L, 100, 125, fxRates.snapshot().version())).thenReturn(Flux.just(account1, account2));
+
+        StepVerifier.create(accountOperations.transfer(12L, 13L, BigDecimal.ONE))
+                .assertNext(accounts -> assertEquals(125, accounts.getT2().getBalance()))
+                .verifyComplete();
+    }
+
+    @Test
+    public void shouldRejectTransferWithoutExchangeRate() {
+        when(currencyCache.get(13L)).thenReturn(Mono.just(GBP));
+
+        StepVerifier.create(accountOperations.transfer(12L, 13L, BigDecimal.ONE))
+                .expectErrorMessage("No exchange rate from EUR to GBP")
+                .verify();
+
+        verify(accountRepository, never()).transferBalance(anyLong(), anyLong(), anyLong(), anyLong(), anyLong());
+    }
+
+    @Test
+    public void shouldReportInsufficientFundsForRejectedTransfer() {
+        when(accountRepository.transferBalance(12L, 13L, 1000, 1000, fxRates.snapshot().version())).thenReturn(Flux.empty());
+        when(accountRepository.findById(12L)).thenReturn(Mono.just(account(12L, EUR, 100)));
+        when(accountRepository.findById(13L)).thenReturn(Mono.just(account(13L, EUR, 0)));
+
+        StepVerifier.create(accountOperations.transfer(12L, 13L, BigDecimal.TEN))
+                .expectErrorMessage("Insufficient funds, cannot transfer 10, balance 1")
+                .verify();
+    }
+
+    @Test
+    public void shouldRejectTransferToSameAccount() {
+        StepVerifier.create(accountOperations.transfer(12L, 12L, BigDecimal.TEN))
+                .expectError(InvalidAmountException.class)
+                .verify();
+    }
+
+    private Account account(long id, Currency currency, long balance) {
+        var account = new Account(currency, 1L, Instant.now());
+        account.setId(id);
+        account.setBalance(balance);
+        return account;
+    }
+
+}
@@ -1,5 +1,8 @@
 DROP TABLE IF EXISTS customers cascade;
 DROP TABLE IF EXISTS accounts cascade;
+DROP TABLE IF EXISTS idempotency_keys cascade;
+DROP TABLE IF EXISTS ledger_entries cascade;
+DROP TABLE IF EXISTS balance_snapshots cascade;
 
 CREATE TABLE customers
 (
@@ -8,12 +11,54 @@ CREATE TABLE customers
     last_name   VARCHAR(25) NOT NULL
 );
 
+CREATE UNIQUE INDEX customers_name ON customers (last_name, first_name);
+
 CREATE TABLE accounts
 (
     account_id  BIGINT auto_increment PRIMARY KEY,
     customer_id BIGINT,
     foreign key (customer_id) references customers (customer_id),
     currency    VARCHAR(5)               NOT NULL,
-    balance     DECIMAL(19, 4)           NOT NULL,
+    balance     BIGINT                   NOT NULL,
     created_at  TIMESTAMP WITH TIME ZONE NOT NULL
-);
\ No newline at end of file
+);
+
+CREATE INDEX accounts_customer_currency ON accounts (customer_id, currency, account_id);
+
+CREATE TABLE idempotency_keys
+(
+    idempotency_key VARCHAR(255) PRIMARY KEY,
+    status          INT                      NOT NULL,
+    content_type    VARCHAR(100),
+    body            VARCHAR(4096),
+    request_hash    VARCHAR(64),
+    created_at      TIMESTAMP WITH TIME ZONE NOT NULL
+);
+
+CREATE TABLE ledger_entries
+(
+    entry_id                BIGINT auto_increment PRIMARY KEY,
+    account_id              BIGINT                   NOT NULL,
+    foreign key (account_id) references accounts (account_id),
+    entry_type              VARCHAR(12)              NOT NULL,
+    amount                  BIGINT                   NOT NULL,
+    balance                 BIGINT                   NOT NULL,
+    counterparty_account_id BIGINT,
+    fx_version              BIGINT,
+    created_at              TIMESTAMP WITH TIME ZONE NOT NULL
+);
+
+CREATE INDEX ledger_entries_account_created_at ON ledger_entries (account_id, created_at, entry_id);
+CREATE INDEX ledger_entries_account_entry ON ledger_entries (account_id, entry_id);
+
+CREATE TABLE balance_snapshots
+(
+    snapshot_id BIGINT auto_increment PRIMARY KEY,
+    account_id  BIGINT                   NOT NULL,
+    foreign key (account_id) references accounts (account_id),
+    entry_id    BIGINT                   NOT NULL,
+    balance     BIGINT                   NOT NULL,
+    created_at  TIMESTAMP WITH TIME ZONE NOT NULL
+);
+
+CREATE INDEX balance_snapshots_account_entry ON balance_snapshots (account_id, entry_id);